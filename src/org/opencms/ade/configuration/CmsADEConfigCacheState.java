@@ -49,6 +49,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -108,6 +109,9 @@ public class CmsADEConfigCacheState {
     /** Cached list of subsites to be included in the site selector. */
     private volatile List<String> m_subsitesForSiteSelector;
 
+    /** The wrapped configurations, with the base paths as keys (the empty string for the module configuration). */
+    private Map<String, CmsADEConfigData> m_wrappedConfigurations = new ConcurrentHashMap<>();
+
     /** Cached set of names of content types anywhere in the configuration. */
     private volatile Set<String> m_contentTypes;
 
@@ -671,12 +675,36 @@ public class CmsADEConfigCacheState {
     /**
      * Wraps the internal config data into a bean which manages the lookup of inherited configurations.<p>
      *
+     * Since this cache state is immutable, the wrapper objects are created only once per base path and
+     * reused, so the values they compute lazily (like the active formatters and types) are computed only once.
+     * A wrapper is only replaced if the formatter configuration it has used has changed in the meantime.<p>
+     *
      * @param data the config data to wrap
      *
      * @return the wrapper object
      */
     private CmsADEConfigData wrap(CmsADEConfigDataInternal data) {
 
+        String key = data.getBasePath() != null ? data.getBasePath() : "";
+        CmsADEConfigData result = m_wrappedConfigurations.get(key);
+        if ((result == null) || (result.m_data != data) || !result.isCachedFormattersCurrent()) {
+            result = wrapUncached(data);
+            if ((data == m_moduleConfiguration) || (data == m_siteConfigurationsByPath.get(key))) {
+                m_wrappedConfigurations.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new bean wrapping the internal config data, which manages the lookup of inherited configurations.<p>
+     *
+     * @param data the config data to wrap
+     *
+     * @return the wrapper object
+     */
+    private CmsADEConfigData wrapUncached(CmsADEConfigDataInternal data) {
+
         String path = data.getBasePath();
         List<ConfigReferenceInstance> configList = Lists.newArrayList();
         configList.add(new ConfigReferenceInstance(m_moduleConfiguration));
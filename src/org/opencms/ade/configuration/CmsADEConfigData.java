@@ -76,7 +76,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
@@ -216,34 +218,34 @@ public class CmsADEConfigData {
     protected CmsADEConfigDataInternal m_data;
 
     /** Lazily initialized map of formatters. */
-    private Map<CmsUUID, I_CmsFormatterBean> m_activeFormatters;
+    private volatile Map<CmsUUID, I_CmsFormatterBean> m_activeFormatters;
 
     /** Lazily initialized cache for active formatters by formatter key. */
-    private Multimap<String, I_CmsFormatterBean> m_activeFormattersByKey;
+    private volatile Multimap<String, I_CmsFormatterBean> m_activeFormattersByKey;
 
     /** The sitemap attributes (may be null if not yet computed). */
-    private Map<String, AttributeValue> m_attributes;
+    private volatile Map<String, AttributeValue> m_attributes;
 
     /** The cache state to which the wrapped configuration bean belongs. */
     private CmsADEConfigCacheState m_cache;
 
     /** Current formatter configuration. */
-    private CmsFormatterConfigurationCacheState m_cachedFormatters;
+    private volatile CmsFormatterConfigurationCacheState m_cachedFormatters;
 
     /** The configuration sequence (contains the list of all sitemap configuration data beans to be used for inheritance). */
     private CmsADEConfigurationSequence m_configSequence;
 
     /** Cache for formatters by container type. */
-    private Map<String, List<I_CmsFormatterBean>> m_formattersByContainerType = new HashMap<>();
+    private Map<String, List<I_CmsFormatterBean>> m_formattersByContainerType = new ConcurrentHashMap<>();
 
     /** Cache for formatters by display type. */
-    private Map<String, List<I_CmsFormatterBean>> m_formattersByDisplayType = new HashMap<>();
+    private Map<String, List<I_CmsFormatterBean>> m_formattersByDisplayType = new ConcurrentHashMap<>();
 
     /** Lazily initialized cache for formatters by JSP id. */
-    private Multimap<CmsUUID, I_CmsFormatterBean> m_formattersByJspId;
+    private volatile Multimap<CmsUUID, I_CmsFormatterBean> m_formattersByJspId;
 
     /** Lazily initialized cache for formatters by formatter key. */
-    private Multimap<String, I_CmsFormatterBean> m_formattersByKey;
+    private volatile Multimap<String, I_CmsFormatterBean> m_formattersByKey;
 
     /** Loading cache for for formatters grouped by type. */
     private LoadingCache<String, List<I_CmsFormatterBean>> m_formattersByTypeCache = CacheBuilder.newBuilder().build(
@@ -266,18 +268,21 @@ public class CmsADEConfigData {
     private volatile ImmutableList<CmsUUID> m_sharedSettingOverrides;
 
     /** Set of names of active types.*/
-    private Set<String> m_typesAddable;
+    private volatile Set<String> m_typesAddable;
 
     /** Cache of (active) resource type configurations by name. */
-    private Map<String, CmsResourceTypeConfig> m_typesByName;
+    private volatile Map<String, CmsResourceTypeConfig> m_typesByName;
 
     /** Type names configured in this or ancestor sitemap configurations. */
-    private Set<String> m_typesInAncestors;
+    private volatile Set<String> m_typesInAncestors;
 
     /**
      * Creates a new configuration data object, based on an internal configuration data bean and a
      * configuration cache state.<p>
      *
+     * Instances are shared between threads for the lifetime of the configuration cache state, so all
+     * lazily computed values must be safely published.<p>
+     *
      * @param data the internal configuration data bean
      * @param cache the configuration cache state
      * @param configSequence the configuration sequence
@@ -579,11 +584,13 @@ public class CmsADEConfigData {
      */
     public List<I_CmsFormatterBean> getActiveFormattersWithContainerType(String containerType) {
 
-        return m_formattersByContainerType.computeIfAbsent(
-            containerType,
-            type -> Collections.unmodifiableList(
-                getActiveFormatters().values().stream().filter(
-                    formatter -> formatter.getContainerTypes().contains(type)).collect(Collectors.toList())));
+        Function<String, List<I_CmsFormatterBean>> compute = type -> Collections.unmodifiableList(
+            getActiveFormatters().values().stream().filter(
+                formatter -> formatter.getContainerTypes().contains(type)).collect(Collectors.toList()));
+        // the concurrent cache does not support null keys
+        return containerType == null
+        ? compute.apply(null)
+        : m_formattersByContainerType.computeIfAbsent(containerType, compute);
     }
 
     /**
@@ -594,13 +601,13 @@ public class CmsADEConfigData {
      */
     public List<I_CmsFormatterBean> getActiveFormattersWithDisplayType(String displayType) {
 
-        return m_formattersByDisplayType.computeIfAbsent(
-            displayType,
-            type -> Collections.unmodifiableList(
-                getActiveFormatters().values().stream().filter(
-                    formatter -> Objects.equals(type, formatter.getDisplayType())).collect(Collectors.toList()))
-
-        );
+        Function<String, List<I_CmsFormatterBean>> compute = type -> Collections.unmodifiableList(
+            getActiveFormatters().values().stream().filter(
+                formatter -> Objects.equals(type, formatter.getDisplayType())).collect(Collectors.toList()));
+        // the concurrent cache does not support null keys
+        return displayType == null
+        ? compute.apply(null)
+        : m_formattersByDisplayType.computeIfAbsent(displayType, compute);
     }
 
     /**
@@ -1992,6 +1999,19 @@ public class CmsADEConfigData {
         return result;
     }
 
+    /**
+     * Checks whether the formatter configuration used by this object, if any, is still the current one.<p>
+     *
+     * @return false if the formatter configuration used by this object has been replaced in the meantime
+     */
+    protected boolean isCachedFormattersCurrent() {
+
+        CmsFormatterConfigurationCacheState formatters = m_cachedFormatters;
+        return (formatters == null)
+            || (formatters == OpenCms.getADEManager().getCachedFormatters(
+                getCms().getRequestContext().getCurrentProject().isOnlineProject()));
+    }
+
     /**
      * Merges two lists of detail pages, one from a parent configuration and one from a child configuration.<p>
      *
@@ -48,48 +48,364 @@ import org.apache.commons.logging.Log;
  * implement the methods defined in the interface I_CmsLruCacheObject to be notified when they
  * are added/removed from the CmsFlexLruCache.<p>
  *
+ * The cache can be split into a number of segments, each with its own lock, LRU list and share of
+ * the cache costs. Every object is always assigned to the same segment, so threads working on objects
+ * in different segments do not block each other. The LRU order is then maintained per segment,
+ * which approximates a global LRU order for caches holding a large number of objects.<p>
+ *
  * @see org.opencms.cache.I_CmsLruCacheObject
  *
  * @since 6.0.0
  */
 public class CmsLruCache extends java.lang.Object {
 
+    /**
+     * A segment of the LRU cache, holding a double linked list of cached objects.<p>
+     *
+     * All methods must be called while holding the monitor of the segment.<p>
+     */
+    private static class CmsLruCacheSegment {
+
+        /** The average sum of costs the cached objects of this segment. */
+        private long m_avgCacheCosts;
+
+        /** The head of the list of double linked LRU cache objects. */
+        private I_CmsLruCacheObject m_listHead;
+
+        /** The tail of the list of double linked LRU cache objects. */
+        private I_CmsLruCacheObject m_listTail;
+
+        /** The maximum sum of costs the cached objects of this segment might reach. */
+        private long m_maxCacheCosts;
+
+        /** The costs of all cached objects of this segment. */
+        private volatile int m_objectCosts;
+
+        /** The sum of all cached objects of this segment. */
+        private volatile int m_objectCount;
+
+        /**
+         * Creates a new cache segment.<p>
+         *
+         * @param maxCacheCosts the maximum cache costs of all objects in this segment
+         * @param avgCacheCosts the average cache costs of all objects in this segment
+         */
+        CmsLruCacheSegment(long maxCacheCosts, long avgCacheCosts) {
+
+            m_maxCacheCosts = maxCacheCosts;
+            m_avgCacheCosts = avgCacheCosts;
+        }
+
+        /**
+         * Adds a cache object to this segment, or touches it if it is already cached.<p>
+         *
+         * @param theCacheObject the object being added to the cache
+         */
+        void add(I_CmsLruCacheObject theCacheObject) {
+
+            if (!isCached(theCacheObject)) {
+                // add the object to the list of all cached objects in the cache
+                addHead(theCacheObject);
+            } else {
+                touch(theCacheObject);
+            }
+
+            // check if the cache has to trash the last-recently-used objects before adding a new object
+            if (m_objectCosts > m_maxCacheCosts) {
+                gc();
+            }
+        }
+
+        /**
+         * Removes all cached objects in this segment.<p>
+         */
+        void clear() {
+
+            // remove all objects from the linked list from the tail to the head:
+            I_CmsLruCacheObject currentObject = m_listTail;
+            while (currentObject != null) {
+                currentObject = currentObject.getNextLruObject();
+                removeTail();
+            }
+
+            // reset the data structure
+            m_objectCosts = 0;
+            m_objectCount = 0;
+            m_listHead = null;
+            m_listTail = null;
+        }
+
+        /**
+         * Test if a given object resides inside this segment.<p>
+         *
+         * @param theCacheObject the object to test
+         * @return true if the object is inside the segment, false otherwise
+         */
+        boolean isCached(I_CmsLruCacheObject theCacheObject) {
+
+            if ((theCacheObject == null) || (m_objectCount == 0)) {
+                // the cache is empty or the object is null (which is never cached)
+                return false;
+            }
+
+            I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+            I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+
+            if ((nextObj != null) || (prevObj != null)) {
+                // the object has either a predecessor or successor in the linked
+                // list of all cached objects, so it is inside the cache
+                return true;
+            }
+
+            // both nextObj and preObj are null
+            if ((m_objectCount == 1)
+                && (m_listHead != null)
+                && (m_listTail != null)
+                && m_listHead.equals(theCacheObject)
+                && m_listTail.equals(theCacheObject)) {
+                // the object is the one and only object in the cache
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Removes a cached object from the list of this segment.<p>
+         *
+         * @param theCacheObject the cached object to remove
+         */
+        void remove(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            boolean nextNull = (theCacheObject.getNextLruObject() == null);
+            boolean prevNull = (theCacheObject.getPreviousLruObject() == null);
+            if (prevNull && nextNull) {
+                m_listHead = null;
+                m_listTail = null;
+            } else if (nextNull) {
+                // remove the object from the head pos.
+                I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
+                newHead.setNextLruObject(null);
+                m_listHead = newHead;
+            } else if (prevNull) {
+                // remove the object from the tail pos.
+                I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
+                newTail.setPreviousLruObject(null);
+                m_listTail = newTail;
+            } else {
+                // remove the object from within the list
+                theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
+                theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+            }
+
+            // update cache stats. and notify the cached object
+            decreaseCache(theCacheObject);
+        }
+
+        /**
+         * Moves a cached object to the head of the list of this segment.<p>
+         *
+         * @param theCacheObject the cached object to touch
+         */
+        void touch(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+            if (nextObj == null) {
+                // case 1: the object is already at the head pos.
+                return;
+            }
+            I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+            if (prevObj == null) {
+                // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
+                I_CmsLruCacheObject newTail = nextObj;
+                newTail.setPreviousLruObject(null);
+                m_listTail = newTail;
+            } else {
+                // case 3: the object is somewhere within the list, remove it to put it the front as the new head
+                prevObj.setNextLruObject(nextObj);
+                nextObj.setPreviousLruObject(prevObj);
+            }
+            // set the touched object as the new head in the linked list:
+            I_CmsLruCacheObject oldHead = m_listHead;
+            if (oldHead != null) {
+                oldHead.setNextLruObject(theCacheObject);
+                theCacheObject.setNextLruObject(null);
+                theCacheObject.setPreviousLruObject(oldHead);
+            }
+            m_listHead = theCacheObject;
+        }
+
+        /**
+         * Adds a cache object as the new haed to the list of all cached objects in this segment.<p>
+         *
+         * @param theCacheObject the object being added as the new head to the list of all cached objects
+         */
+        private void addHead(I_CmsLruCacheObject theCacheObject) {
+
+            // set the list pointers correct
+            if (m_objectCount > 0) {
+                // there is at least 1 object already in the list
+                I_CmsLruCacheObject oldHead = m_listHead;
+                oldHead.setNextLruObject(theCacheObject);
+                theCacheObject.setPreviousLruObject(oldHead);
+                m_listHead = theCacheObject;
+            } else {
+                // it is the first object to be added to the list
+                m_listTail = theCacheObject;
+                m_listHead = theCacheObject;
+                theCacheObject.setPreviousLruObject(null);
+            }
+            theCacheObject.setNextLruObject(null);
+
+            // update cache stats. and notify the cached object
+            increaseCache(theCacheObject);
+        }
+
+        /**
+         * Decrease this segments statistics
+         * and notify the cached object that it was removed from this cache.<p>
+         *
+         * @param theCacheObject the object being notified that it was removed from the cache
+         */
+        private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
+
+            // notify the object that it was now removed from the cache
+            theCacheObject.removeFromLruCache();
+
+            // set the list pointers to null
+            theCacheObject.setNextLruObject(null);
+            theCacheObject.setPreviousLruObject(null);
+
+            // update the cache stats.
+            m_objectCosts -= theCacheObject.getLruCacheCosts();
+            m_objectCount--;
+        }
+
+        /**
+         * Removes the last recently used objects from the list of all cached objects as long
+         * as the costs of all cached objects are higher than the allowed avg. costs of this segment.<p>
+         */
+        private void gc() {
+
+            I_CmsLruCacheObject currentObject = m_listTail;
+            while (currentObject != null) {
+                if (m_objectCosts < m_avgCacheCosts) {
+                    break;
+                }
+                currentObject = currentObject.getNextLruObject();
+                removeTail();
+            }
+        }
+
+        /**
+         * Increase this segments statistics
+         * and notify the cached object that it was added to this cache.<p>
+         *
+         * @param theCacheObject the object being notified that it was added to the cache
+         */
+        private void increaseCache(I_CmsLruCacheObject theCacheObject) {
+
+            // notify the object that it was now added to the cache
+            theCacheObject.addToLruCache();
+
+            // update the cache stats.
+            m_objectCosts += theCacheObject.getLruCacheCosts();
+            m_objectCount++;
+        }
+
+        /**
+         * Removes the tailing object from the list of all cached objects in this segment.<p>
+         */
+        private void removeTail() {
+
+            I_CmsLruCacheObject oldTail = m_listTail;
+            if (oldTail != null) {
+                I_CmsLruCacheObject newTail = oldTail.getNextLruObject();
+
+                // set the list pointers correct
+                if (newTail != null) {
+                    // there are still objects remaining in the list
+                    newTail.setPreviousLruObject(null);
+                    m_listTail = newTail;
+                } else {
+                    // we removed the last object from the list
+                    m_listTail = null;
+                    m_listHead = null;
+                }
+
+                // update cache stats. and notify the cached object
+                decreaseCache(oldTail);
+            }
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsLruCache.class);
 
+    /** The maximum number of segments a cache is split into. */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
     /** The average sum of costs the cached objects. */
     private long m_avgCacheCosts;
 
-    /** The head of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listHead;
-
-    /** The tail of the list of double linked LRU cache objects. */
-    private I_CmsLruCacheObject m_listTail;
-
     /** The maximum sum of costs the cached objects might reach. */
     private long m_maxCacheCosts;
 
     /** The maximum costs of cacheable objects. */
     private int m_maxObjectCosts;
 
-    /** The costs of all cached objects. */
-    private int m_objectCosts;
+    /** The mask to select the segment for an object. */
+    private int m_segmentMask;
 
-    /** The sum of all cached objects. */
-    private int m_objectCount;
+    /** The segments of this cache. */
+    private CmsLruCacheSegment[] m_segments;
 
     /**
      * The constructor with all options.<p>
      *
+     * The cache is not split into segments, so all cached objects are kept in one global LRU order.<p>
+     *
      * @param theMaxCacheCosts the maximum cache costs of all cached objects
      * @param theAvgCacheCosts the average cache costs of all cached objects
      * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
      */
     public CmsLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
 
+        this(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts, 1);
+    }
+
+    /**
+     * The constructor with all options, including the concurrency level.<p>
+     *
+     * The cache is split into as many segments as the concurrency level allows (rounded down to a power of 2),
+     * as long as every segment is still large enough to hold an object with the max. allowed costs per object.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     * @param concurrencyLevel the estimated number of threads concurrently modifying the cache
+     */
+    public CmsLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts, int concurrencyLevel) {
+
         m_maxCacheCosts = theMaxCacheCosts;
         m_avgCacheCosts = theAvgCacheCosts;
         m_maxObjectCosts = theMaxObjectCosts;
+
+        int segmentCount = 1;
+        int maxSegments = Math.min(Math.max(1, concurrencyLevel), MAX_SEGMENTS);
+        while (((segmentCount << 1) <= maxSegments)
+            && ((theMaxObjectCosts <= 0) || ((theMaxCacheCosts / (segmentCount << 1)) >= theMaxObjectCosts))) {
+            segmentCount <<= 1;
+        }
+        m_segmentMask = segmentCount - 1;
+        m_segments = new CmsLruCacheSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            m_segments[i] = new CmsLruCacheSegment(
+                theMaxCacheCosts / segmentCount,
+                theAvgCacheCosts / segmentCount);
+        }
     }
 
     /**
@@ -101,7 +417,7 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being added to the cache
      * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
      */
-    public synchronized boolean add(I_CmsLruCacheObject theCacheObject) {
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
 
         if (theCacheObject == null) {
             // null can't be added or touched in the cache
@@ -109,49 +425,27 @@ public class CmsLruCache extends java.lang.Object {
         }
 
         // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                        Integer.valueOf(theCacheObject.getLruCacheCosts()),
-                        Integer.valueOf(m_maxObjectCosts)));
-            }
+        if (isTooExpensive(theCacheObject)) {
             return false;
         }
 
-        if (!isCached(theCacheObject)) {
-            // add the object to the list of all cached objects in the cache
-            addHead(theCacheObject);
-        } else {
-            touch(theCacheObject);
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        synchronized (segment) {
+            segment.add(theCacheObject);
         }
-
-        // check if the cache has to trash the last-recently-used objects before adding a new object
-        if (m_objectCosts > m_maxCacheCosts) {
-            gc();
-        }
-
         return true;
     }
 
     /**
      * Removes all cached objects in this cache.<p>
      */
-    public synchronized void clear() {
+    public void clear() {
 
-        // remove all objects from the linked list from the tail to the head:
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
+        for (CmsLruCacheSegment segment : m_segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
         }
-
-        // reset the data structure
-        m_objectCosts = 0;
-        m_objectCount = 0;
-        m_listHead = null;
-        m_listTail = null;
     }
 
     /**
@@ -191,7 +485,21 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int getObjectCosts() {
 
-        return m_objectCosts;
+        int costs = 0;
+        for (CmsLruCacheSegment segment : m_segments) {
+            costs += segment.m_objectCosts;
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the number of segments this cache is split into.<p>
+     *
+     * @return the number of segments this cache is split into
+     */
+    public int getSegmentCount() {
+
+        return m_segments.length;
     }
 
     /**
@@ -201,37 +509,20 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being removed from the list of all cached objects
      * @return a reference to the object that was removed
      */
-    public synchronized I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
-            // theCacheObject is null or not inside the cache
+        if (theCacheObject == null) {
+            // null is never inside the cache
             return null;
         }
-
-        // set the list pointers correct
-        boolean nextNull = (theCacheObject.getNextLruObject() == null);
-        boolean prevNull = (theCacheObject.getPreviousLruObject() == null);
-        if (prevNull && nextNull) {
-            m_listHead = null;
-            m_listTail = null;
-        } else if (nextNull) {
-            // remove the object from the head pos.
-            I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
-            newHead.setNextLruObject(null);
-            m_listHead = newHead;
-        } else if (prevNull) {
-            // remove the object from the tail pos.
-            I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
-            newTail.setPreviousLruObject(null);
-            m_listTail = newTail;
-        } else {
-            // remove the object from within the list
-            theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
-            theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        synchronized (segment) {
+            if (!segment.isCached(theCacheObject)) {
+                // theCacheObject is not inside the cache
+                return null;
+            }
+            segment.remove(theCacheObject);
         }
-
-        // update cache stats. and notify the cached object
-        decreaseCache(theCacheObject);
         return theCacheObject;
     }
 
@@ -242,7 +533,11 @@ public class CmsLruCache extends java.lang.Object {
      */
     public int size() {
 
-        return m_objectCount;
+        int count = 0;
+        for (CmsLruCacheSegment segment : m_segments) {
+            count += segment.m_objectCount;
+        }
+        return count;
     }
 
     /**
@@ -257,8 +552,9 @@ public class CmsLruCache extends java.lang.Object {
         buf.append("max. costs: " + m_maxCacheCosts).append(", ");
         buf.append("avg. costs: " + m_avgCacheCosts).append(", ");
         buf.append("max. costs/object: " + m_maxObjectCosts).append(", ");
-        buf.append("costs: " + m_objectCosts).append(", ");
-        buf.append("count: " + m_objectCount);
+        buf.append("costs: " + getObjectCosts()).append(", ");
+        buf.append("count: " + size()).append(", ");
+        buf.append("segments: " + m_segments.length);
         return buf.toString();
     }
 
@@ -269,191 +565,67 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being touched
      * @return true if an object was found and touched
      */
-    public synchronized boolean touch(I_CmsLruCacheObject theCacheObject) {
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
+        if (theCacheObject == null) {
             return false;
         }
+        CmsLruCacheSegment segment = getSegment(theCacheObject);
+        synchronized (segment) {
+            if (!segment.isCached(theCacheObject)) {
+                return false;
+            }
 
-        // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                        Integer.valueOf(theCacheObject.getLruCacheCosts()),
-                        Integer.valueOf(m_maxObjectCosts)));
+            // only objects with cache costs < the max. allowed object cache costs can be cached!
+            if (isTooExpensive(theCacheObject)) {
+                segment.remove(theCacheObject);
+                return false;
             }
-            remove(theCacheObject);
-            return false;
-        }
 
-        // set the list pointers correct
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        if (nextObj == null) {
-            // case 1: the object is already at the head pos.
-            return true;
-        }
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-        if (prevObj == null) {
-            // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
-            I_CmsLruCacheObject newTail = nextObj;
-            newTail.setPreviousLruObject(null);
-            m_listTail = newTail;
-        } else {
-            // case 3: the object is somewhere within the list, remove it to put it the front as the new head
-            prevObj.setNextLruObject(nextObj);
-            nextObj.setPreviousLruObject(prevObj);
+            segment.touch(theCacheObject);
         }
-        // set the touched object as the new head in the linked list:
-        I_CmsLruCacheObject oldHead = m_listHead;
-        if (oldHead != null) {
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setNextLruObject(null);
-            theCacheObject.setPreviousLruObject(oldHead);
-        }
-        m_listHead = theCacheObject;
-
         return true;
     }
 
     /**
-     * Adds a cache object as the new haed to the list of all cached objects in this cache.<p>
+     * Returns the segment a cache object belongs to.<p>
      *
-     * @param theCacheObject the object being added as the new head to the list of all cached objects
-     */
-    private void addHead(I_CmsLruCacheObject theCacheObject) {
-
-        // set the list pointers correct
-        if (m_objectCount > 0) {
-            // there is at least 1 object already in the list
-            I_CmsLruCacheObject oldHead = m_listHead;
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setPreviousLruObject(oldHead);
-            m_listHead = theCacheObject;
-        } else {
-            // it is the first object to be added to the list
-            m_listTail = theCacheObject;
-            m_listHead = theCacheObject;
-            theCacheObject.setPreviousLruObject(null);
-        }
-        theCacheObject.setNextLruObject(null);
-
-        // update cache stats. and notify the cached object
-        increaseCache(theCacheObject);
-    }
-
-    /**
-     * Decrease this caches statistics
-     * and notify the cached object that it was removed from this cache.<p>
+     * @param theCacheObject the cache object
      *
-     * @param theCacheObject the object being notified that it was removed from the cache
+     * @return the segment for the cache object
      */
-    private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now removed from the cache
-        //theCacheObject.notify();
-        theCacheObject.removeFromLruCache();
-
-        // set the list pointers to null
-        theCacheObject.setNextLruObject(null);
-        theCacheObject.setPreviousLruObject(null);
+    private CmsLruCacheSegment getSegment(I_CmsLruCacheObject theCacheObject) {
 
-        // update the cache stats.
-        m_objectCosts -= theCacheObject.getLruCacheCosts();
-        m_objectCount--;
-    }
-
-    /**
-     * Removes the last recently used objects from the list of all cached objects as long
-     * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
-     */
-    private void gc() {
-
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            if (m_objectCosts < m_avgCacheCosts) {
-                break;
-            }
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
+        if (m_segmentMask == 0) {
+            return m_segments[0];
         }
+        // spread the bits of the identity hash code, so the lower bits used for the mask are well distributed
+        int h = System.identityHashCode(theCacheObject);
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return m_segments[h & m_segmentMask];
     }
 
     /**
-     * Increase this caches statistics
-     * and notify the cached object that it was added to this cache.<p>
+     * Checks if the costs of a cache object exceed the max. allowed costs per object.<p>
      *
-     * @param theCacheObject the object being notified that it was added to the cache
-     */
-    private void increaseCache(I_CmsLruCacheObject theCacheObject) {
-
-        // notify the object that it was now added to the cache
-        //theCacheObject.notify();
-        theCacheObject.addToLruCache();
-
-        // update the cache stats.
-        m_objectCosts += theCacheObject.getLruCacheCosts();
-        m_objectCount++;
-    }
-
-    /**
-     * Test if a given object resides inside the cache.<p>
+     * @param theCacheObject the cache object to check
      *
-     * @param theCacheObject the object to test
-     * @return true if the object is inside the cache, false otherwise
+     * @return <code>true</code> if the object is too expensive to be cached
      */
-    private boolean isCached(I_CmsLruCacheObject theCacheObject) {
-
-        if ((theCacheObject == null) || (m_objectCount == 0)) {
-            // the cache is empty or the object is null (which is never cached)
-            return false;
-        }
-
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-
-        if ((nextObj != null) || (prevObj != null)) {
-            // the object has either a predecessor or successor in the linked
-            // list of all cached objects, so it is inside the cache
-            return true;
-        }
+    private boolean isTooExpensive(I_CmsLruCacheObject theCacheObject) {
 
-        // both nextObj and preObj are null
-        if ((m_objectCount == 1)
-            && (m_listHead != null)
-            && (m_listTail != null)
-            && m_listHead.equals(theCacheObject)
-            && m_listTail.equals(theCacheObject)) {
-            // the object is the one and only object in the cache
+        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        Integer.valueOf(theCacheObject.getLruCacheCosts()),
+                        Integer.valueOf(m_maxObjectCosts)));
+            }
             return true;
         }
-
         return false;
     }
-
-    /**
-     * Removes the tailing object from the list of all cached objects.<p>
-     */
-    private synchronized void removeTail() {
-
-        I_CmsLruCacheObject oldTail = m_listTail;
-        if (oldTail != null) {
-            I_CmsLruCacheObject newTail = oldTail.getNextLruObject();
-
-            // set the list pointers correct
-            if (newTail != null) {
-                // there are still objects remaining in the list
-                newTail.setPreviousLruObject(null);
-                m_listTail = newTail;
-            } else {
-                // we removed the last object from the list
-                m_listTail = null;
-                m_listHead = null;
-            }
-
-            // update cache stats. and notify the cached object
-            decreaseCache(oldTail);
-        }
-    }
-}
\ No newline at end of file
+}
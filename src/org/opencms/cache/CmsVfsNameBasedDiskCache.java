@@ -32,8 +32,12 @@ import org.opencms.main.CmsLog;
 import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
@@ -84,13 +88,8 @@ public class CmsVfsNameBasedDiskCache {
     public byte[] getCacheContent(String rfsName) {
 
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
-                    // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
-                }
+            File f = getCacheFile(rfsName);
+            if (f != null) {
                 return CmsFileUtil.readFile(f);
             }
         } catch (IOException e) {
@@ -100,6 +99,31 @@ public class CmsVfsNameBasedDiskCache {
         return null;
     }
 
+    /**
+     * Returns the requested file in the disk cache, or <code>null</code> if the
+     * file is not found in the cache.<p>
+     *
+     * Use this instead of {@link #getCacheContent(String)} to stream the cached content
+     * without loading it into memory as a whole.<p>
+     *
+     * @param rfsName the file RFS name to look up in the cache
+     *
+     * @return the requested file in the disk cache, or <code>null</code>
+     */
+    public File getCacheFile(String rfsName) {
+
+        File f = new File(rfsName);
+        if (f.isFile()) {
+            long age = f.lastModified();
+            if ((System.currentTimeMillis() - age) > 3600000) {
+                // file has not been touched for 1 hour, touch the file with the current date
+                f.setLastModified(System.currentTimeMillis());
+            }
+            return f;
+        }
+        return null;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>
      *
@@ -176,6 +200,9 @@ public class CmsVfsNameBasedDiskCache {
     /**
      * Saves the given file content in the disk cache.<p>
      *
+     * The content is written to a temporary file first and moved in place afterwards,
+     * so concurrent readers never see a partially written file.<p>
+     *
      * @param rfsName the RFS name of the file to save the content in
      * @param content the content of the file to save
      *
@@ -183,6 +210,30 @@ public class CmsVfsNameBasedDiskCache {
      */
     public void saveCacheFile(String rfsName, byte[] content) throws IOException {
 
-        CmsVfsDiskCache.saveFile(rfsName, content);
+        File f = new File(rfsName);
+        File p = f.getParentFile();
+        if (!p.exists()) {
+            // create parent folders
+            p.mkdirs();
+        }
+        File tempFile = File.createTempFile("." + f.getName() + ".", ".tmp", p);
+        try {
+            try (FileOutputStream fs = new FileOutputStream(tempFile)) {
+                fs.write(content);
+            }
+            try {
+                Files.move(
+                    tempFile.toPath(),
+                    f.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
     }
 }
\ No newline at end of file
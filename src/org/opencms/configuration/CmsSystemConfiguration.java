@@ -200,6 +200,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         standard
     }
 
+    /** The attribute name for the history compression. */
+    public static final String A_COMPRESS = "compress";
+
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
@@ -259,6 +262,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-offheap node. */
+    public static final String N_CACHE_OFFHEAP = "cache-offheap";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
@@ -586,6 +592,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workflow configuration. */
     public static final String N_WORKFLOW = "workflow";
 
+    /** The xmlcontents node name. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -659,6 +668,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The configured OpenCms event manager. */
     private CmsEventManager m_eventManager;
 
+    /** Indicates if the content of historical versions is stored compressed. */
+    private boolean m_historyCompressed;
+
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
@@ -892,6 +904,8 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 0, A_ENABLED);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 1, A_COUNT);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 2, A_DELETED);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, "setHistoryCompressed", 1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 0, A_COMPRESS);
 
         // add mail configuration rule
         digester.addObjectCreate("*/" + N_SYSTEM + "/" + N_MAIL, CmsMailSettings.class);
@@ -1128,6 +1142,7 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_OFFHEAP, "setCacheOffHeap", 0);
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -1312,6 +1327,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // XML content cache
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1420,6 +1438,7 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             m_historyEnabled = OpenCms.getSystemInfo().isHistoryEnabled();
             m_historyVersions = OpenCms.getSystemInfo().getHistoryVersions();
             m_historyVersionsAfterDeletion = OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion();
+            m_historyCompressed = OpenCms.getSystemInfo().isHistoryCompressed();
             // m_resourceInitHandlers instance must be the one from configuration
             // m_requestHandlers instance must be the one from configuration
             m_loginManager = OpenCms.getLoginManager();
@@ -1477,6 +1496,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         historyElement.addAttribute(A_ENABLED, String.valueOf(m_historyEnabled));
         historyElement.addAttribute(A_COUNT, Integer.valueOf(m_historyVersions).toString());
         historyElement.addAttribute(A_DELETED, Integer.valueOf(m_historyVersionsAfterDeletion).toString());
+        if (m_historyCompressed) {
+            historyElement.addAttribute(A_COMPRESS, String.valueOf(m_historyCompressed));
+        }
 
         // resourceinit
         Element resourceinitElement = systemElement.addElement(N_RESOURCEINIT);
@@ -1653,6 +1675,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.isCacheOffHeap()) {
+            flexcacheElement.addElement(N_CACHE_OFFHEAP).addText(String.valueOf(true));
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1807,6 +1832,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(
                     A_ONLINE,
                     "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
             }
         }
 
@@ -2425,6 +2453,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
     }
 
+    /**
+     * Returns if the content of historical versions is stored compressed.<p>
+     *
+     * @return if the content of historical versions is stored compressed
+     */
+    public boolean isHistoryCompressed() {
+
+        return m_historyCompressed;
+    }
+
     /**
      * Returns if the VFS version history is enabled.<p>
      *
@@ -2599,6 +2637,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
 
     }
 
+    /**
+     * Sets if the content of historical versions is stored compressed.<p>
+     *
+     * @param historyCompressed if <code>"true"</code>, the content of historical versions is stored compressed
+     */
+    public void setHistoryCompressed(String historyCompressed) {
+
+        m_historyCompressed = Boolean.valueOf(historyCompressed).booleanValue();
+    }
+
     /**
      * VFS version history settings are set here.<p>
      *
@@ -35,7 +35,9 @@ import org.opencms.gwt.shared.alias.CmsAliasMode;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.lock.CmsLock;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsStringUtil;
@@ -52,7 +54,9 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -63,8 +67,11 @@ import au.com.bytecode.opencsv.CSVParser;
 
 /**
  * The alias manager provides access to the aliases stored in the database.<p>
+ *
+ * The rewrite alias matchers are cached per site root until the rewrite aliases of the site are changed
+ * through this alias manager, or the caches are cleared.<p>
  */
-public class CmsAliasManager {
+public class CmsAliasManager implements I_CmsEventListener {
 
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAliasManager.class);
@@ -72,6 +79,12 @@ public class CmsAliasManager {
     /** The security manager for accessing the database. */
     protected CmsSecurityManager m_securityManager;
 
+    /** The cached rewrite alias matchers, with the site roots as keys. */
+    private Map<String, CmsRewriteAliasMatcher> m_rewriteAliasMatchers = new ConcurrentHashMap<>();
+
+    /** Counter which is increased whenever the cached rewrite alias matchers are invalidated. */
+    private long m_rewriteAliasVersion;
+
     /**
      * Creates a new alias manager instance.<p>
      *
@@ -80,6 +93,17 @@ public class CmsAliasManager {
     public CmsAliasManager(CmsSecurityManager securityManager) {
 
         m_securityManager = securityManager;
+        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        if (event.getType() == I_CmsEventListener.EVENT_CLEAR_CACHES) {
+            clearRewriteAliasMatchers(null);
+        }
     }
 
     /**
@@ -171,8 +195,22 @@ public class CmsAliasManager {
      */
     public CmsRewriteAliasMatcher getRewriteAliasMatcher(CmsObject cms, String siteRoot) throws CmsException {
 
-        List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
-        return new CmsRewriteAliasMatcher(aliases);
+        CmsRewriteAliasMatcher matcher = m_rewriteAliasMatchers.get(siteRoot);
+        if (matcher == null) {
+            long version;
+            synchronized (m_rewriteAliasMatchers) {
+                version = m_rewriteAliasVersion;
+            }
+            List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
+            matcher = new CmsRewriteAliasMatcher(aliases);
+            synchronized (m_rewriteAliasMatchers) {
+                // do not cache the matcher if the aliases were changed while reading them
+                if (version == m_rewriteAliasVersion) {
+                    m_rewriteAliasMatchers.put(siteRoot, matcher);
+                }
+            }
+        }
+        return matcher;
     }
 
     /**
@@ -257,7 +295,11 @@ public class CmsAliasManager {
     throws CmsException {
 
         checkPermissionsForMassEdit(cms, siteRoot);
-        m_securityManager.saveRewriteAliases(cms.getRequestContext(), siteRoot, newAliases);
+        try {
+            m_securityManager.saveRewriteAliases(cms.getRequestContext(), siteRoot, newAliases);
+        } finally {
+            clearRewriteAliasMatchers(siteRoot);
+        }
     }
 
     /**
@@ -320,6 +362,23 @@ public class CmsAliasManager {
         OpenCms.getRoleManager().checkRoleForResource(cms, CmsRole.ADMINISTRATOR, "/");
     }
 
+    /**
+     * Removes the cached rewrite alias matchers.<p>
+     *
+     * @param siteRoot the site root for which the cached matcher should be removed, or null to remove all matchers
+     */
+    protected void clearRewriteAliasMatchers(String siteRoot) {
+
+        synchronized (m_rewriteAliasMatchers) {
+            m_rewriteAliasVersion++;
+            if (siteRoot == null) {
+                m_rewriteAliasMatchers.clear();
+            } else {
+                m_rewriteAliasMatchers.remove(siteRoot);
+            }
+        }
+    }
+
     /**
      * Imports a single alias.<p>
      *
@@ -611,6 +670,8 @@ public class CmsAliasManager {
                 source,
                 target,
                 mode);
+        } finally {
+            clearRewriteAliasMatchers(siteRoot);
         }
 
     }
@@ -92,6 +92,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.module.CmsModule;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.monitor.CmsPublishedPaths;
 import org.opencms.publish.CmsPublishEngine;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.publish.CmsPublishReport;
@@ -122,6 +123,7 @@ import org.opencms.security.twofactor.CmsSecondFactorInfo;
 import org.opencms.security.twofactor.CmsSecondFactorSetupException;
 import org.opencms.security.twofactor.CmsTwoFactorAuthenticationHandler;
 import org.opencms.site.CmsSiteMatcher;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsPath;
 import org.opencms.util.CmsStringUtil;
@@ -130,6 +132,8 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.workflow.CmsDefaultWorkflowManager;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -139,6 +143,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -569,6 +574,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDriverManager.class);
 
+    /** Publish lists with more resources than this flush the resource caches completely instead of invalidating single entries. */
+    private static final int MAX_PUBLISHED_PATHS_RESOURCES = 1000;
+
     /** Constant mode parameter to read all files and folders in the {@link #readChangedResourcesInsideProject(CmsDbContext, CmsUUID, CmsReadChangedProjectResourceMode)}} method. */
     private static final CmsReadChangedProjectResourceMode RCPRM_FILES_AND_FOLDERS_MODE = new CmsReadChangedProjectResourceMode();
 
@@ -835,20 +843,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsRelation relation = new CmsRelation(resource, target, type);
         getVfsDriver(dbc).createRelation(dbc, dbc.currentProject().getUuid(), relation);
         if (importCase) {
-            // fire the reindexing event, since - if offline indexing is not stopped,
-            // the content could be indexed without relations already and thus miss categories.
-            Map<String, Object> data = new HashMap<String, Object>(2);
-            data.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getId());
-            data.put(I_CmsEventListener.KEY_RESOURCES, Collections.singletonList(resource));
-            I_CmsReport report = null;
-            if (dbc.getRequestContext() != null) {
-                report = new CmsLogReport(dbc.getRequestContext().getLocale(), getClass());
-            } else {
-                report = new CmsLogReport(CmsLocaleManager.getDefaultLocale(), getClass());
-            }
-            data.put(I_CmsEventListener.KEY_REPORT, report);
-            data.put(I_CmsEventListener.KEY_REINDEX_RELATED, Boolean.TRUE);
-            OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_REINDEX_OFFLINE, data));
+            fireReindexImportedRelationsEvent(dbc, resource);
         } else {
             // log it
             log(
@@ -1275,7 +1270,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 report = (I_CmsReport)event.getData().get(I_CmsEventListener.KEY_REPORT);
                 dbc = (CmsDbContext)event.getData().get(I_CmsEventListener.KEY_DBCONTEXT);
-                m_monitor.clearCacheForPublishing();
+                Object paths = event.getData().get(I_CmsEventListener.KEY_PUBLISHED_PATHS);
+                if (paths instanceof List) {
+                    m_monitor.clearCacheForPublishing(
+                        new CmsPublishedPaths(CmsCollectionsGenericWrapper.<String> list(paths)));
+                } else {
+                    m_monitor.clearCacheForPublishing();
+                }
                 writeExportPoints(dbc, report, publishHistoryId);
                 break;
 
@@ -1379,7 +1380,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(destination);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -1539,7 +1540,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         copyAccessControlEntries(dbc, source, newResource, false);
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(newResource);
 
         List<CmsResource> modifiedResources = new ArrayList<CmsResource>();
         modifiedResources.add(source);
@@ -2243,7 +2244,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the internal caches
-            m_monitor.clearAccessControlListCache();
+            if (newResource != null) {
+                clearAccessControlListCache(newResource);
+            } else {
+                m_monitor.clearAccessControlListCache();
+            }
             m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
             if (newResource != null) {
@@ -2410,7 +2415,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         copyRelations(dbc, source, newResource);
 
         // clear the caches
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(newResource);
 
         List<CmsResource> modifiedResources = new ArrayList<CmsResource>();
         modifiedResources.add(source);
@@ -3369,7 +3374,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // flush all caches
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(resource);
         m_monitor.flushCache(
             CmsMemoryMonitor.CacheType.PROPERTY,
             CmsMemoryMonitor.CacheType.PROPERTY_LIST,
@@ -5352,7 +5357,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         I_CmsUserDriver userDriver = getUserDriver(dbc);
         userDriver.removeAccessControlEntries(dbc, dbc.currentProject(), resource.getResourceId());
-        List<CmsAccessControlEntry> fixedAces = new ArrayList<>();
+        // all entries have been removed, so the new entries can be created in one batch,
+        // if a principal occurs more than once, the last entry wins (as it did with single updates)
+        Map<CmsUUID, CmsAccessControlEntry> fixedAces = new LinkedHashMap<>();
         for (CmsAccessControlEntry entry : acEntries) {
             if (entry.getResource() == null) {
                 entry = new CmsAccessControlEntry(
@@ -5361,14 +5368,42 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     entry.getPermissions(),
                     entry.getFlags());
             }
-            fixedAces.add(entry);
+            fixedAces.put(entry.getPrincipal(), entry);
         }
+        userDriver.createAccessControlEntries(dbc, dbc.currentProject(), new ArrayList<>(fixedAces.values()));
+        clearAccessControlListCache(resource);
+    }
 
-        Iterator<CmsAccessControlEntry> i = fixedAces.iterator();
-        while (i.hasNext()) {
-            userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
+    /**
+     * Imports several relations from the given resource to other resources, writing them with a single batch.<p>
+     *
+     * Like {@link #addRelationToResource(CmsDbContext, CmsResource, CmsResource, CmsRelationType, boolean)}
+     * in the import case, but the offline indexes are updated once for the resource instead of once per relation.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the source resource of the relations
+     * @param relations the relations to import, their type must not be defined in content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importRelations(CmsDbContext dbc, CmsResource resource, List<CmsRelation> relations)
+    throws CmsException {
+
+        for (CmsRelation relation : relations) {
+            if (relation.getType().isDefinedInContent()) {
+                throw new CmsIllegalArgumentException(
+                    Messages.get().container(
+                        Messages.ERR_ADD_RELATION_IN_CONTENT_3,
+                        dbc.removeSiteRoot(resource.getRootPath()),
+                        dbc.removeSiteRoot(relation.getTargetPath()),
+                        relation.getType().getLocalizedName(dbc.getRequestContext().getLocale())));
+            }
         }
-        m_monitor.clearAccessControlListCache();
+        if (relations.isEmpty()) {
+            return;
+        }
+        getVfsDriver(dbc).createRelations(dbc, dbc.currentProject().getUuid(), relations);
+        fireReindexImportedRelationsEvent(dbc, resource);
     }
 
     /**
@@ -5780,9 +5815,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
             changedProjectLastModified = true;
         }
 
-        // we must also clear the permission cache
-        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PERMISSION);
-
         // fire resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
@@ -6203,7 +6235,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
         // flush all relevant caches
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(source.getRootPath());
+        m_monitor.clearAccessControlListCache(destRes.getRootPath());
         m_monitor.flushCache(
             CmsMemoryMonitor.CacheType.PROPERTY,
             CmsMemoryMonitor.CacheType.PROPERTY_LIST,
@@ -6474,6 +6507,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void publishJob(CmsObject cms, CmsDbContext dbc, CmsPublishList publishList, I_CmsReport report)
     throws CmsException {
 
+        CmsPublishedPaths publishedPaths = null;
         try {
             // check state and lock
             List<CmsResource> allResources = new ArrayList<CmsResource>(publishList.getFolderList());
@@ -6515,8 +6549,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             CmsProject onlineProject = readProject(dbc, CmsProject.ONLINE_PROJECT_ID);
 
+            // collect the paths affected by this publish operation while the online paths can still be read
+            publishedPaths = readPublishedPaths(dbc, publishList);
+            publishList.setPublishedPaths(publishedPaths);
+
             // clear the cache
-            m_monitor.clearCacheForPublishing();
+            m_monitor.clearCacheForPublishing(publishedPaths);
 
             int publishTag = getNextPublishTag(dbc);
             getProjectDriver(dbc).publishProject(dbc, report, onlineProject, publishList, publishTag);
@@ -6547,7 +6585,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the cache again
-            m_monitor.clearCacheForPublishing();
+            m_monitor.clearCacheForPublishing(publishedPaths);
         }
     }
 
@@ -6996,7 +7034,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // cache the sub resources
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, resource.getRootPath());
             }
         }
 
@@ -7004,6 +7042,39 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads the content of a file as a stream, without loading the whole content into memory.<p>
+     *
+     * The returned stream must always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource to read the content for
+     *
+     * @return the content of the file as a stream
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readFile(CmsDbContext, CmsResource)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(
+                Messages.get().container(
+                    Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                    dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical contents are only available as byte array
+            return new ByteArrayInputStream(
+                getHistoryDriver(dbc).readContent(
+                    dbc,
+                    resource.getResourceId(),
+                    ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7601,7 +7672,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsUUID projectId = getProjectIdForContext(dbc);
 
         // key to cache the resources
-        String cacheKey = getCacheKey(null, false, projectId, cp);
+        CmsResourceCacheKey cacheKey = getCacheKey(null, false, projectId, cp);
         // the current resource
         CmsResource currentResource = m_monitor.getCachedResource(cacheKey);
         if ((currentResource == null) || !dbc.getProjectId().isNullUUID()) {
@@ -7890,7 +7961,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        String rootPath = resource.getRootPath();
+        CmsResourceCacheKey cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, rootPath);
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
@@ -7937,13 +8009,125 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.cachePropertyList(cacheKey, properties, rootPath);
             }
         }
 
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects mapped to the given resources, or optionally to their parent folders as well.<p>
+     *
+     * The properties which are not already cached are read from the database with as few queries as possible,
+     * so this should be preferred over calling {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)}
+     * for every resource of a larger list.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     * @param search if <code>true</code>, the properties of all parent folders of each resource are merged with the
+     *      resource properties
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, keyed by the structure ids of the resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        boolean search)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+
+        // collect the resources whose own properties are needed, including the parent folders if required
+        Map<String, CmsResource> needed = new LinkedHashMap<String, CmsResource>();
+        for (CmsResource resource : resources) {
+            needed.put(resource.getRootPath(), resource);
+        }
+        if (search) {
+            for (CmsResource resource : resources) {
+                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+                while ((parentPath != null) && !needed.containsKey(parentPath)) {
+                    try {
+                        needed.put(parentPath, readResource(dbc, parentPath, CmsResourceFilter.ALL));
+                    } catch (CmsException e) {
+                        // the single resource lookup below handles this case
+                        LOG.debug(e.getLocalizedMessage(), e);
+                        break;
+                    }
+                    parentPath = CmsResource.getParentFolder(parentPath);
+                }
+            }
+        }
+
+        // read the properties which are not cached yet with a single driver call
+        Map<String, List<CmsProperty>> ownProperties = new HashMap<String, List<CmsProperty>>();
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : needed.values()) {
+            List<CmsProperty> cached = useCache
+            ? m_monitor.getCachedPropertyList(
+                getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()))
+            : null;
+            if (cached != null) {
+                ownProperties.put(resource.getRootPath(), cached);
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+                dbc,
+                dbc.currentProject(),
+                missing);
+            for (CmsResource resource : missing) {
+                List<CmsProperty> properties = read.get(resource.getStructureId());
+                if (properties == null) {
+                    properties = new ArrayList<CmsProperty>();
+                }
+                CmsProperty.setFrozen(properties);
+                ownProperties.put(resource.getRootPath(), properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                        properties,
+                        resource.getRootPath());
+                }
+            }
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties;
+            if (!search) {
+                properties = new ArrayList<CmsProperty>(ownProperties.get(resource.getRootPath()));
+            } else if (useCache) {
+                // the parent folders' properties are cached now, so this does not hit the database
+                properties = readPropertyObjects(dbc, resource, true);
+            } else {
+                properties = new ArrayList<CmsProperty>();
+                String path = resource.getRootPath();
+                while (path != null) {
+                    List<CmsProperty> parentProperties = ownProperties.get(path);
+                    if (parentProperties == null) {
+                        // fall back to the single resource lookup, which handles missing parent folders
+                        properties = readPropertyObjects(dbc, resource, true);
+                        break;
+                    }
+                    // make sure properties from lower folders "overwrite" properties from upper folders
+                    List<CmsProperty> merged = new ArrayList<CmsProperty>(parentProperties);
+                    merged.removeAll(properties);
+                    merged.addAll(properties);
+                    properties = merged;
+                    path = CmsResource.getParentFolder(path);
+                }
+            }
+            result.put(resource.getStructureId(), properties);
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -8171,7 +8355,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, parent.getRootPath());
             }
         }
         // we must always apply the result filter and update the context dates
@@ -8269,7 +8453,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, folder.getRootPath());
             }
         }
         // we must always apply the result filter and update the context dates
@@ -8614,7 +8798,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(resource);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -9700,9 +9884,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // now update lock status
         m_lockManager.removeResource(dbc, resource, force, removeSystemLock);
 
-        // we must also clear the permission cache
-        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PERMISSION);
-
         // fire resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
@@ -9961,6 +10142,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // create new relation information
         I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+        List<CmsResource> siblings = null;
+        List<CmsRelation> relations = new ArrayList<CmsRelation>();
         Iterator<CmsLink> itLinks = links.iterator();
         while (itLinks.hasNext()) {
             CmsLink link = itLinks.next();
@@ -9999,19 +10182,22 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
                 // TODO: it would be good to have the link locale to make the relation just to the right sibling
                 // create the relations in content for all siblings
-                Iterator<CmsResource> itSiblings = readSiblings(dbc, resource, CmsResourceFilter.ALL).iterator();
-                while (itSiblings.hasNext()) {
-                    CmsResource sibling = itSiblings.next();
-                    CmsRelation relation = new CmsRelation(
-                        sibling.getStructureId(),
-                        sibling.getRootPath(),
-                        originalRelation.getTargetId(),
-                        originalRelation.getTargetPath(),
-                        link.getType());
-                    vfsDriver.createRelation(dbc, dbc.currentProject().getUuid(), relation);
+                if (siblings == null) {
+                    siblings = readSiblings(dbc, resource, CmsResourceFilter.ALL);
+                }
+                for (CmsResource sibling : siblings) {
+                    relations.add(
+                        new CmsRelation(
+                            sibling.getStructureId(),
+                            sibling.getRootPath(),
+                            originalRelation.getTargetId(),
+                            originalRelation.getTargetPath(),
+                            link.getType()));
                 }
             }
         }
+        // write all relations with as few statements as possible
+        vfsDriver.createRelations(dbc, dbc.currentProject().getUuid(), relations);
     }
 
     /**
@@ -10107,7 +10293,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        clearAccessControlListCache(resource);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -10547,12 +10733,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if (updateState) {
                 updateStateValue = getUpdateState(dbc, resource, properties);
             }
-            I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
-            for (int i = 0; i < properties.size(); i++) {
-                // write the property
-                CmsProperty property = properties.get(i);
-                vfsDriver.writePropertyObject(dbc, dbc.currentProject(), resource, property);
-            }
+            // write the properties
+            getVfsDriver(dbc).writePropertyObjects(dbc, dbc.currentProject(), resource, properties);
 
             if (updateStateValue > 0) {
                 // update state
@@ -11335,6 +11517,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return false;
     }
 
+    /**
+     * Clears the access control list and permission cache entries of the given resource and its sub-resources.<p>
+     *
+     * Access control entries are shared between siblings, so the caches are cleared completely
+     * if the resource has siblings.<p>
+     *
+     * @param resource the resource whose access control entries (may) have changed
+     */
+    private void clearAccessControlListCache(CmsResource resource) {
+
+        if (resource.getSiblingCount() > 1) {
+            m_monitor.clearAccessControlListCache();
+        } else {
+            m_monitor.clearAccessControlListCache(resource.getRootPath());
+        }
+    }
+
     /**
      * Copies all relations from the source resource to the target resource.<p>
      *
@@ -11568,6 +11767,30 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Fires the event to reindex the given resource after relations have been imported for it,
+     * since - if offline indexing is not stopped - the content could be indexed without relations
+     * already and thus miss categories.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource the relations have been imported for
+     */
+    private void fireReindexImportedRelationsEvent(CmsDbContext dbc, CmsResource resource) {
+
+        Map<String, Object> data = new HashMap<String, Object>(2);
+        data.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getId());
+        data.put(I_CmsEventListener.KEY_RESOURCES, Collections.singletonList(resource));
+        I_CmsReport report = null;
+        if (dbc.getRequestContext() != null) {
+            report = new CmsLogReport(dbc.getRequestContext().getLocale(), getClass());
+        } else {
+            report = new CmsLogReport(CmsLocaleManager.getDefaultLocale(), getClass());
+        }
+        data.put(I_CmsEventListener.KEY_REPORT, report);
+        data.put(I_CmsEventListener.KEY_REINDEX_RELATED, Boolean.TRUE);
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_REINDEX_OFFLINE, data));
+    }
+
     /**
      * Returns the access control list of a given resource.<p>
      *
@@ -11589,19 +11812,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
         int depth)
     throws CmsException {
 
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
-
-        CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
+        int flags = (dbc.currentProject().isOnlineProject() ? CmsResourceCacheKey.FLAG_ONLINE : 0)
+            | (inheritedOnly ? CmsResourceCacheKey.FLAG_OPTION : 0)
+            | (forFolder ? CmsResourceCacheKey.FLAG_FOLDER : 0)
+            | (depth << CmsResourceCacheKey.FLAG_BITS);
+        CmsResourceCacheKey cacheKey = new CmsResourceCacheKey(null, flags, null, resource.getStructureId());
 
-        // return the cached acl if already available
-        if ((acl != null) && dbc.getProjectId().isNullUUID()) {
-            return acl;
+        CmsAccessControlList acl = null;
+        if (dbc.getProjectId().isNullUUID()) {
+            // return the cached acl if already available
+            // the cache is not used with a project id, so the entries below are never added to a cached acl
+            acl = m_monitor.getCachedACL(cacheKey);
+            if (acl != null) {
+                return acl;
+            }
         }
 
         List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
@@ -11673,7 +11897,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         if (dbc.getProjectId().isNullUUID()) {
-            m_monitor.cacheACL(cacheKey, acl);
+            m_monitor.cacheACL(cacheKey, acl, resource.getRootPath());
         }
         return acl;
     }
@@ -11686,17 +11910,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * @param projectId the project for which to generate the key
      * @param resource the resource for which to generate the key
      *
-     * @return String a cache key build from the provided information
+     * @return a cache key build from the provided information
      */
-    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
+    private CmsResourceCacheKey getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
 
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
+        int flags = CmsProject.isOnlineProject(projectId) ? CmsResourceCacheKey.FLAG_ONLINE : 0;
+        if ((prefix != null) && flag) {
+            flags |= CmsResourceCacheKey.FLAG_OPTION;
         }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
+        return new CmsResourceCacheKey(prefix, flags, resource, null);
     }
 
     /**
@@ -12055,6 +12277,62 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Collects the root paths affected by publishing the given publish list.<p>
+     *
+     * Besides the paths of the published resources, this includes the current online paths of all resources
+     * which are not new (since changed or deleted resources may have been moved) and the paths of all siblings,
+     * since siblings share the resource record.<p>
+     *
+     * @param dbc the current database context
+     * @param publishList the publish list
+     *
+     * @return the affected root paths, or <code>null</code> if the caches have to be flushed completely
+     */
+    private CmsPublishedPaths readPublishedPaths(CmsDbContext dbc, CmsPublishList publishList) {
+
+        if (publishList.size() > MAX_PUBLISHED_PATHS_RESOURCES) {
+            return null;
+        }
+        Set<String> paths = new HashSet<String>();
+        try {
+            for (CmsResource resource : publishList.getAllResources()) {
+                if (resource.getRootPath().startsWith(CmsUserDriver.ORGUNIT_BASE_FOLDER)) {
+                    // organizational unit resources affect roles and permissions everywhere
+                    return null;
+                }
+                paths.add(resource.getRootPath());
+                if (!resource.getState().isNew()) {
+                    // also deleted resources may have been moved before, so their online path can differ
+                    try {
+                        CmsResource onlineResource = getVfsDriver(dbc).readResource(
+                            dbc,
+                            CmsProject.ONLINE_PROJECT_ID,
+                            resource.getStructureId(),
+                            true);
+                        paths.add(onlineResource.getRootPath());
+                    } catch (CmsVfsResourceNotFoundException e) {
+                        // resource does not exist online, nothing to add
+                    }
+                }
+                if (resource.getSiblingCount() > 1) {
+                    for (CmsResource sibling : getVfsDriver(
+                        dbc).readSiblings(dbc, dbc.currentProject().getUuid(), resource, true)) {
+                        paths.add(sibling.getRootPath());
+                    }
+                    for (CmsResource sibling : getVfsDriver(
+                        dbc).readSiblings(dbc, CmsProject.ONLINE_PROJECT_ID, resource, true)) {
+                        paths.add(sibling.getRootPath());
+                    }
+                }
+            }
+        } catch (CmsDataAccessException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+        return new CmsPublishedPaths(paths);
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -12345,11 +12623,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             onlineResource,
             CmsRelationFilter.TARGETS);
         // write offline relations
-        Iterator<CmsRelation> itRelations = relations.iterator();
-        while (itRelations.hasNext()) {
-            CmsRelation relation = itRelations.next();
-            vfsDriver.createRelation(dbc, dbc.currentProject().getUuid(), relation);
-        }
+        vfsDriver.createRelations(dbc, dbc.currentProject().getUuid(), relations);
 
         // update the cache
         m_monitor.clearResourceCache();
@@ -37,6 +37,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsPublishedPaths;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
@@ -119,6 +120,9 @@ public class CmsPublishList implements Externalizable {
     /** The id of the project that is to be published. */
     private CmsUUID m_projectId;
 
+    /** The root paths affected by publishing this list, not serialized. */
+    private transient CmsPublishedPaths m_publishedPaths;
+
     /** The publish history ID.<p> */
     private CmsUUID m_publishHistoryId;
 
@@ -316,6 +320,19 @@ public class CmsPublishList implements Externalizable {
         return m_projectId;
     }
 
+    /**
+     * Returns the root paths affected by publishing this list.<p>
+     *
+     * These are only available after the list has been published, and only if the
+     * publish operation did not require a complete flush of the caches.<p>
+     *
+     * @return the root paths affected by publishing this list, or <code>null</code>
+     */
+    public CmsPublishedPaths getPublishedPaths() {
+
+        return m_publishedPaths;
+    }
+
     /**
      * Returns the publish history Id for this publish list.<p>
      *
@@ -761,6 +778,16 @@ public class CmsPublishList implements Externalizable {
         return ret;
     }
 
+    /**
+     * Sets the root paths affected by publishing this list.<p>
+     *
+     * @param publishedPaths the root paths affected by publishing this list
+     */
+    protected void setPublishedPaths(CmsPublishedPaths publishedPaths) {
+
+        m_publishedPaths = publishedPaths;
+    }
+
     /**
      * Builds a list of <code>CmsResource</code> instances from a list of resource structure IDs.<p>
      *
@@ -0,0 +1,192 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.util.CmsUUID;
+
+import java.util.Objects;
+
+/**
+ * Immutable cache key for the resource, property list and access control list caches of the driver manager.<p>
+ *
+ * The key only references the (already existing) prefix, path and id objects instead of concatenating them
+ * to a new String on every cache lookup, and its hash code is computed once on creation.<p>
+ */
+public final class CmsResourceCacheKey implements I_CmsMemoryMonitorable {
+
+    /** Number of bits reserved for the flags, the remaining bits of the flags value can be used for a number. */
+    public static final int FLAG_BITS = 8;
+
+    /** Flag for a key that is used for a folder. */
+    public static final int FLAG_FOLDER = 4;
+
+    /** Flag for a key that is used in the online project. */
+    public static final int FLAG_ONLINE = 1;
+
+    /** Flag for the generic boolean option of the key, e.g. "search" for property lists. */
+    public static final int FLAG_OPTION = 2;
+
+    /** The flags of this key. */
+    private final int m_flags;
+
+    /** The precomputed hash code. */
+    private final int m_hashCode;
+
+    /** The resource id, may be <code>null</code>. */
+    private final CmsUUID m_id;
+
+    /** The key prefix, may be <code>null</code>. */
+    private final String m_prefix;
+
+    /** The root path, may be <code>null</code>. */
+    private final String m_rootPath;
+
+    /**
+     * Creates a new cache key.<p>
+     *
+     * @param prefix the key prefix, may be <code>null</code>
+     * @param flags the flags of the key, see the <code>FLAG_*</code> constants
+     * @param rootPath the root path of the resource, may be <code>null</code>
+     * @param id the id of the resource, may be <code>null</code>
+     */
+    public CmsResourceCacheKey(String prefix, int flags, String rootPath, CmsUUID id) {
+
+        m_prefix = prefix;
+        m_flags = flags;
+        m_rootPath = rootPath;
+        m_id = id;
+        int hash = flags;
+        hash = (31 * hash) + Objects.hashCode(prefix);
+        hash = (31 * hash) + Objects.hashCode(rootPath);
+        hash = (31 * hash) + Objects.hashCode(id);
+        m_hashCode = hash;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsResourceCacheKey)) {
+            return false;
+        }
+        CmsResourceCacheKey other = (CmsResourceCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && Objects.equals(m_rootPath, other.m_rootPath)
+            && Objects.equals(m_id, other.m_id)
+            && Objects.equals(m_prefix, other.m_prefix);
+    }
+
+    /**
+     * Returns the flags of this key.<p>
+     *
+     * @return the flags of this key
+     */
+    public int getFlags() {
+
+        return m_flags;
+    }
+
+    /**
+     * Returns the resource id of this key.<p>
+     *
+     * @return the resource id of this key, may be <code>null</code>
+     */
+    public CmsUUID getId() {
+
+        return m_id;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // object header, 4 references and 2 ints, the prefix and the id are shared
+        return 40 + ((m_rootPath != null) ? CmsMemoryMonitor.getMemorySize(m_rootPath) : 0);
+    }
+
+    /**
+     * Returns the prefix of this key.<p>
+     *
+     * @return the prefix of this key, may be <code>null</code>
+     */
+    public String getPrefix() {
+
+        return m_prefix;
+    }
+
+    /**
+     * Returns the root path of this key.<p>
+     *
+     * @return the root path of this key, may be <code>null</code>
+     */
+    public String getRootPath() {
+
+        return m_rootPath;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(64);
+        if (m_prefix != null) {
+            result.append(m_prefix);
+            result.append('_');
+        }
+        result.append(m_flags);
+        if (m_rootPath != null) {
+            result.append('_');
+            result.append(m_rootPath);
+        }
+        if (m_id != null) {
+            result.append('_');
+            result.append(m_id);
+        }
+        return result.toString();
+    }
+}
@@ -30,8 +30,11 @@ package org.opencms.db;
 import org.opencms.main.CmsLog;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -40,9 +43,58 @@ import org.apache.commons.logging.Log;
 
 /**
  * Helper class used for matching rewrite aliases to incoming request URIs.<p>
+ *
+ * The patterns of the aliases are compiled once when the matcher is created. Aliases whose pattern starts with
+ * a literal prefix are indexed in a prefix tree, so that for a given path only the patterns which can possibly
+ * match it are evaluated. Matching still returns the first matching alias in the original alias order.<p>
  */
 public class CmsRewriteAliasMatcher {
 
+    /**
+     * Node of the prefix tree used for pre-filtering the aliases.<p>
+     */
+    private static class PrefixNode {
+
+        /** The indexes of the aliases whose literal prefix ends at this node. */
+        BitSet m_aliases;
+
+        /** The child nodes. */
+        Map<Character, PrefixNode> m_children;
+
+        /**
+         * Gets the child node for the given character, creating it if necessary.<p>
+         *
+         * @param c the character
+         *
+         * @return the child node
+         */
+        PrefixNode addChild(char c) {
+
+            if (m_children == null) {
+                m_children = new HashMap<Character, PrefixNode>();
+            }
+            Character key = Character.valueOf(c);
+            PrefixNode child = m_children.get(key);
+            if (child == null) {
+                child = new PrefixNode();
+                m_children.put(key, child);
+            }
+            return child;
+        }
+
+        /**
+         * Gets the child node for the given character.<p>
+         *
+         * @param c the character
+         *
+         * @return the child node, or null if there is none
+         */
+        PrefixNode getChild(char c) {
+
+            return m_children == null ? null : m_children.get(Character.valueOf(c));
+        }
+    }
+
     /**
      * The result of a match operation.<p>
      */
@@ -92,9 +144,21 @@ public class CmsRewriteAliasMatcher {
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRewriteAliasMatcher.class);
 
+    /** The regular expression meta characters which end a literal prefix. */
+    private static final String META_CHARS = "\\[](){}.*+?^$|";
+
     /** The list of rewrite aliases to use for matching. */
     private List<CmsRewriteAlias> m_aliases;
 
+    /** The compiled patterns, with the same indexes as the aliases, or null for invalid patterns. */
+    private Pattern[] m_patterns;
+
+    /** The root of the prefix tree of the aliases with a literal prefix. */
+    private PrefixNode m_prefixTree = new PrefixNode();
+
+    /** The indexes of the aliases without a literal prefix, which have to be checked for every path. */
+    private BitSet m_unprefixed = new BitSet();
+
     /**
      * Creates a new matcher instance for the given list of rewrite aliases.<p>
      *
@@ -103,6 +167,55 @@ public class CmsRewriteAliasMatcher {
     public CmsRewriteAliasMatcher(Collection<CmsRewriteAlias> aliases) {
 
         m_aliases = new ArrayList<CmsRewriteAlias>(aliases);
+        m_patterns = new Pattern[m_aliases.size()];
+        for (int i = 0; i < m_patterns.length; i++) {
+            String patternString = m_aliases.get(i).getPatternString();
+            try {
+                m_patterns[i] = Pattern.compile(patternString);
+            } catch (PatternSyntaxException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+                continue;
+            }
+            String prefix = getLiteralPrefix(patternString);
+            if (prefix.length() == 0) {
+                m_unprefixed.set(i);
+            } else {
+                PrefixNode node = m_prefixTree;
+                for (int j = 0; j < prefix.length(); j++) {
+                    node = node.addChild(prefix.charAt(j));
+                }
+                if (node.m_aliases == null) {
+                    node.m_aliases = new BitSet();
+                }
+                node.m_aliases.set(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the literal prefix every string matched by the given regular expression has to start with.<p>
+     *
+     * This is conservative: if the prefix can not be determined easily, the empty string is returned.<p>
+     *
+     * @param regex the regular expression
+     *
+     * @return the literal prefix, or the empty string
+     */
+    static String getLiteralPrefix(String regex) {
+
+        if (regex.indexOf('|') >= 0) {
+            // alternatives may start with different prefixes
+            return "";
+        }
+        int end = 0;
+        while ((end < regex.length()) && (META_CHARS.indexOf(regex.charAt(end)) < 0)) {
+            end++;
+        }
+        if ((end < regex.length()) && (end > 0) && ("?*{".indexOf(regex.charAt(end)) >= 0)) {
+            // the quantifier applies to the last literal character
+            end--;
+        }
+        return regex.substring(0, end);
     }
 
     /**
@@ -114,16 +227,22 @@ public class CmsRewriteAliasMatcher {
      */
     public RewriteResult match(String path) {
 
-        for (CmsRewriteAlias alias : m_aliases) {
+        BitSet candidates = (BitSet)m_unprefixed.clone();
+        PrefixNode node = m_prefixTree;
+        for (int i = 0; (node != null) && (i < path.length()); i++) {
+            node = node.getChild(path.charAt(i));
+            if ((node != null) && (node.m_aliases != null)) {
+                candidates.or(node.m_aliases);
+            }
+        }
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            CmsRewriteAlias alias = m_aliases.get(i);
             try {
-                Pattern pattern = Pattern.compile(alias.getPatternString());
-                Matcher matcher = pattern.matcher(path);
+                Matcher matcher = m_patterns[i].matcher(path);
                 if (matcher.matches()) {
                     String newPath = matcher.replaceFirst(alias.getReplacementString());
                     return new RewriteResult(newPath, alias);
                 }
-            } catch (PatternSyntaxException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
             } catch (IndexOutOfBoundsException e) {
                 LOG.warn(e.getLocalizedMessage(), e);
             }
@@ -97,6 +97,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -3371,6 +3372,35 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Imports several relations from the given resource to other resources.<p>
+     *
+     * @param context the current request context
+     * @param resource the source resource of the relations
+     * @param relations the relations to import, their type must not be defined in content
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsDriverManager#importRelations(CmsDbContext, CmsResource, List)
+     */
+    public void importRelations(CmsRequestContext context, CmsResource resource, List<CmsRelation> relations)
+    throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            checkOfflineProject(dbc);
+            checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_WRITE, true, CmsResourceFilter.ALL);
+            m_driverManager.importRelations(dbc, resource, relations);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_IMPORT_RELATIONS_1, context.getSitePath(resource)),
+                e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Creates a new resource with the provided content and properties.<p>
      *
@@ -4321,6 +4351,34 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the content of a file as a stream, without loading the whole content into memory.<p>
+     *
+     * The returned stream must always be closed by the caller.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource to read the content for
+     *
+     * @return the content of the file as a stream
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readFile(CmsRequestContext, CmsResource)
+     */
+    public InputStream readContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -5085,6 +5143,43 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects mapped to the given resources, reading the uncached ones with as few
+     * database queries as possible.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources to read the properties for
+     * @param search <code>true</code>, if the properties should be searched on all parent folders if not found on the resources
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, keyed by the structure ids of the resources
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List, boolean)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        boolean search)
+    throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources, search);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(
+                    Messages.ERR_READ_PROPS_FOR_RESOURCES_1,
+                    Integer.valueOf(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
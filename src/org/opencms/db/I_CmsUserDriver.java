@@ -98,6 +98,20 @@ public interface I_CmsUserDriver extends I_CmsDriver {
         int denied,
         int flags) throws CmsDataAccessException;
 
+    /**
+     * Creates several access control entries, using as few round trips as possible.<p>
+     *
+     * The entries must not exist yet.<p>
+     *
+     * @param dbc the current database context
+     * @param project the project to write the entries
+     * @param entries the access control entries to create
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void createAccessControlEntries(CmsDbContext dbc, CmsProject project, List<CmsAccessControlEntry> entries)
+    throws CmsDataAccessException;
+
     /**
      * Creates a new group.<p>
      *
@@ -0,0 +1,187 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes the file contents stored in the version history.<p>
+ *
+ * Encoded contents start with a fixed marker followed by one byte for the storage mode, which is either
+ * {@link #MODE_STORED} or {@link #MODE_DEFLATED}. Contents are only decoded according to this byte, so
+ * contents which are encoded and contents which were moved to the history unchanged can be told apart.<p>
+ */
+public final class CmsHistoryContentCodec {
+
+    /** The storage mode for contents which are compressed with the deflate algorithm. */
+    public static final byte MODE_DEFLATED = 1;
+
+    /** The storage mode for contents which are stored unchanged after the header. */
+    public static final byte MODE_STORED = 0;
+
+    /** The marker at the start of encoded history contents. */
+    private static final byte[] MARKER = {0, 'O', 'C', 'M', 'S', 'Z', 1, 0};
+
+    /** The length of the header of encoded history contents, i.e. the marker and the storage mode. */
+    private static final int HEADER_LENGTH = MARKER.length + 1;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsHistoryContentCodec() {
+
+        // noop
+    }
+
+    /**
+     * Decodes the given content, if it was encoded with {@link #encode(byte[])}.<p>
+     *
+     * @param content the content read from the history
+     *
+     * @return the original content
+     *
+     * @throws IOException if the encoded content is corrupt
+     */
+    public static byte[] decode(byte[] content) throws IOException {
+
+        if (!isEncoded(content)) {
+            return content;
+        }
+        switch (content[MARKER.length]) {
+            case MODE_STORED:
+                return Arrays.copyOfRange(content, HEADER_LENGTH, content.length);
+            case MODE_DEFLATED:
+                return inflate(content);
+            default:
+                throw new IOException("Unknown storage mode " + content[MARKER.length] + " of history content");
+        }
+    }
+
+    /**
+     * Encodes the given content for the history.<p>
+     *
+     * The content is compressed, unless compressing does not make it smaller. In this case
+     * it is stored unchanged after the header.<p>
+     *
+     * @param content the content to encode
+     *
+     * @return the encoded content
+     */
+    public static byte[] encode(byte[] content) {
+
+        if (content == null) {
+            return null;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream((content.length / 4) + HEADER_LENGTH);
+            out.write(MARKER, 0, MARKER.length);
+            out.write(MODE_DEFLATED);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= (content.length + HEADER_LENGTH)) {
+                    // compressing does not reduce the size, e.g. for images or archives
+                    return store(content);
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Checks if the given content was encoded with {@link #encode(byte[])}.<p>
+     *
+     * @param content the content to check
+     *
+     * @return <code>true</code> if the given content is encoded
+     */
+    public static boolean isEncoded(byte[] content) {
+
+        return (content != null)
+            && (content.length >= HEADER_LENGTH)
+            && Arrays.equals(MARKER, Arrays.copyOf(content, MARKER.length));
+    }
+
+    /**
+     * Decompresses the deflated content after the header.<p>
+     *
+     * @param content the encoded content
+     *
+     * @return the decompressed content
+     *
+     * @throws IOException if the compressed content is corrupt
+     */
+    private static byte[] inflate(byte[] content) throws IOException {
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content, HEADER_LENGTH, content.length - HEADER_LENGTH);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if ((count == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Unexpected end of compressed history content");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Stores the given content unchanged after the header.<p>
+     *
+     * @param content the content to store
+     *
+     * @return the encoded content
+     */
+    private static byte[] store(byte[] content) {
+
+        byte[] result = new byte[content.length + HEADER_LENGTH];
+        System.arraycopy(MARKER, 0, result, 0, MARKER.length);
+        result[MARKER.length] = MODE_STORED;
+        System.arraycopy(content, 0, result, HEADER_LENGTH, content.length);
+        return result;
+    }
+}
@@ -32,6 +32,7 @@ import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsResourceState;
@@ -58,6 +59,7 @@ import org.opencms.security.I_CmsPrincipal;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -603,10 +605,19 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                     // do nothing only move through all rows because of mssql odbc driver
                 }
             }
+            // contents may have been encoded when they were moved to the history
+            content = CmsHistoryContentCodec.decode(content);
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
                 e);
+        } catch (IOException e) {
+            throw new CmsDbIoException(
+                Messages.get().container(
+                    Messages.ERR_READ_HISTORY_CONTENT_2,
+                    resourceId,
+                    Integer.valueOf(publishTag)),
+                e);
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
@@ -1367,51 +1378,47 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
             m_sqlManager.closeAll(dbc, conn, stmt, null);
         }
 
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
-
-                for (int i = 0; i < 2; i++) {
-                    int mappingType;
-                    String value;
-                    CmsUUID id;
-                    if (i == 0) {
-                        // write the structure value on the first cycle
-                        value = entry.getKey().getStructureValue();
-                        mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                        id = resource.getStructureId();
-                        if (CmsStringUtil.isEmpty(value)) {
-                            continue;
-                        }
-                    } else {
-                        // write the resource value on the second cycle
-                        value = entry.getKey().getResourceValue();
-                        mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                        id = resource.getResourceId();
-                        if (CmsStringUtil.isEmpty(value)) {
-                            break;
-                        }
+        // while publishing, the rows are written in chunks together with those of other resources
+        CmsPublishBatch publishBatch = CmsPublishBatch.get(dbc);
+        CmsPublishBatch batch = publishBatch != null ? publishBatch : new CmsPublishBatch();
+        for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
+
+            for (int i = 0; i < 2; i++) {
+                int mappingType;
+                String value;
+                CmsUUID id;
+                if (i == 0) {
+                    // write the structure value on the first cycle
+                    value = entry.getKey().getStructureValue();
+                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                    id = resource.getStructureId();
+                    if (CmsStringUtil.isEmpty(value)) {
+                        continue;
+                    }
+                } else {
+                    // write the resource value on the second cycle
+                    value = entry.getKey().getResourceValue();
+                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                    id = resource.getResourceId();
+                    if (CmsStringUtil.isEmpty(value)) {
+                        break;
                     }
-
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
-
-                    stmt.setString(1, resource.getStructureId().toString());
-                    stmt.setString(2, entry.getValue().getId().toString());
-                    stmt.setString(3, id.toString());
-                    stmt.setInt(4, mappingType);
-                    stmt.setString(5, m_sqlManager.validateEmpty(value));
-                    stmt.setInt(6, publishTag);
-
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
+
+                batch.addStatement(
+                    m_sqlManager,
+                    CmsUUID.getNullUUID(),
+                    "C_PROPERTIES_HISTORY_CREATE",
+                    resource.getStructureId().toString(),
+                    entry.getValue().getId().toString(),
+                    id.toString(),
+                    Integer.valueOf(mappingType),
+                    m_sqlManager.validateEmpty(value),
+                    Integer.valueOf(publishTag));
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+        if (publishBatch == null) {
+            batch.write(dbc);
         }
     }
 
@@ -1421,112 +1428,112 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
     public void writeResource(CmsDbContext dbc, CmsResource resource, List<CmsProperty> properties, int publishTag)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
-        try {
-            boolean valResource = internalValidateResource(dbc, resource, publishTag);
-            int sibCount = resource.getSiblingCount();
-
-            // if deleted
-            if (resource.getState().isDeleted()) {
-                // if it is a file
-                if (resource instanceof CmsFile) {
-                    if (!valResource) {
-                        if (sibCount < 2) {
-                            // copy from offline content to content tables
-                            // so that the history contains the last state of the file
+        // while publishing, the rows are written in chunks together with those of other resources
+        CmsPublishBatch publishBatch = CmsPublishBatch.get(dbc);
+        CmsPublishBatch batch = publishBatch != null ? publishBatch : new CmsPublishBatch();
+        // a sibling in the batch has to be written first, since its resource entry is shared
+        batch.addResource(dbc, "CMS_HISTORY_RESOURCES", resource.getResourceId());
+
+        boolean valResource = internalValidateResource(dbc, resource, publishTag);
+        int sibCount = resource.getSiblingCount();
+
+        // if deleted
+        if (resource.getState().isDeleted()) {
+            // if it is a file
+            if (resource instanceof CmsFile) {
+                if (!valResource) {
+                    if (sibCount < 2) {
+                        // copy from offline content to content tables
+                        // so that the history contains the last state of the file
+                        m_driverManager.getVfsDriver(dbc).createOnlineContent(
+                            dbc,
+                            resource.getResourceId(),
+                            ((CmsFile)resource).getContents(),
+                            publishTag,
+                            false,
+                            true);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        Set<CmsUUID> changedAndDeleted = (Set<CmsUUID>)dbc.getAttribute(
+                            CmsDriverManager.KEY_CHANGED_AND_DELETED);
+                        if ((changedAndDeleted == null) || !changedAndDeleted.contains(resource.getResourceId())) {
+                            // put the content definitively in the history if no sibling is left
+                            // (unless another sibling with status "changed" or "new" is published)
                             m_driverManager.getVfsDriver(dbc).createOnlineContent(
                                 dbc,
                                 resource.getResourceId(),
                                 ((CmsFile)resource).getContents(),
                                 publishTag,
-                                false,
-                                true);
-                        } else {
-                            @SuppressWarnings("unchecked")
-                            Set<CmsUUID> changedAndDeleted = (Set<CmsUUID>)dbc.getAttribute(
-                                CmsDriverManager.KEY_CHANGED_AND_DELETED);
-                            if ((changedAndDeleted == null) || !changedAndDeleted.contains(resource.getResourceId())) {
-                                // put the content definitively in the history if no sibling is left
-                                // (unless another sibling with status "changed" or "new" is published)
-                                m_driverManager.getVfsDriver(dbc).createOnlineContent(
-                                    dbc,
-                                    resource.getResourceId(),
-                                    ((CmsFile)resource).getContents(),
-                                    publishTag,
-                                    true,
-                                    false);
-                            }
+                                true,
+                                false);
                         }
                     }
                 }
-
-                // update version numbers
-                m_driverManager.getVfsDriver(dbc).publishVersions(dbc, resource, !valResource);
             }
 
-            // read the version numbers
-            Map<String, Integer> versions = m_driverManager.getVfsDriver(dbc).readVersions(
-                dbc,
-                CmsProject.ONLINE_PROJECT_ID,
-                resource.getResourceId(),
-                resource.getStructureId());
-            int structureVersion = (versions.get("structure")).intValue();
-            int resourceVersion = (versions.get("resource")).intValue();
-
-            CmsUUID parentId = CmsUUID.getNullUUID();
-            CmsFolder parent = m_driverManager.getVfsDriver(dbc).readParentFolder(
-                dbc,
-                CmsProject.ONLINE_PROJECT_ID,
-                resource.getStructureId());
-            if (parent != null) {
-                parentId = parent.getStructureId();
-            }
+            // update version numbers
+            m_driverManager.getVfsDriver(dbc).publishVersions(dbc, resource, !valResource);
+        }
 
-            conn = m_sqlManager.getConnection(dbc);
-            if (!valResource) {
-                // write the resource
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_WRITE");
-                stmt.setString(1, resource.getResourceId().toString());
-                stmt.setInt(2, resource.getTypeId());
-                stmt.setInt(3, resource.getFlags());
-                stmt.setLong(4, resource.getDateCreated());
-                stmt.setString(5, resource.getUserCreated().toString());
-                stmt.setLong(6, resource.getDateLastModified());
-                stmt.setString(7, resource.getUserLastModified().toString());
-                stmt.setInt(8, resource.getState().getState());
-                stmt.setInt(9, resource.getLength());
-                stmt.setLong(10, resource.getDateContent());
-                stmt.setString(11, dbc.currentProject().getUuid().toString());
-                stmt.setInt(12, resource.getSiblingCount());
-                stmt.setInt(13, resourceVersion);
-                stmt.setInt(14, publishTag);
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, null, stmt, null);
-            }
-            // write the structure
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_WRITE");
-            stmt.setString(1, resource.getStructureId().toString());
-            stmt.setString(2, resource.getResourceId().toString());
-            stmt.setString(3, resource.getRootPath());
-            stmt.setInt(4, resource.getState().getState());
-            stmt.setLong(5, resource.getDateReleased());
-            stmt.setLong(6, resource.getDateExpired());
-            stmt.setInt(7, structureVersion);
-            stmt.setString(8, parentId.toString());
-            stmt.setInt(9, publishTag);
-            stmt.setInt(10, resource.getVersion());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        // read the version numbers
+        Map<String, Integer> versions = m_driverManager.getVfsDriver(dbc).readVersions(
+            dbc,
+            CmsProject.ONLINE_PROJECT_ID,
+            resource.getResourceId(),
+            resource.getStructureId());
+        int structureVersion = (versions.get("structure")).intValue();
+        int resourceVersion = (versions.get("resource")).intValue();
+
+        CmsUUID parentId = CmsUUID.getNullUUID();
+        CmsFolder parent = m_driverManager.getVfsDriver(dbc).readParentFolder(
+            dbc,
+            CmsProject.ONLINE_PROJECT_ID,
+            resource.getStructureId());
+        if (parent != null) {
+            parentId = parent.getStructureId();
         }
 
+        if (!valResource) {
+            // write the resource
+            batch.addStatement(
+                m_sqlManager,
+                CmsUUID.getNullUUID(),
+                "C_RESOURCES_HISTORY_WRITE",
+                resource.getResourceId().toString(),
+                Integer.valueOf(resource.getTypeId()),
+                Integer.valueOf(resource.getFlags()),
+                Long.valueOf(resource.getDateCreated()),
+                resource.getUserCreated().toString(),
+                Long.valueOf(resource.getDateLastModified()),
+                resource.getUserLastModified().toString(),
+                Integer.valueOf(resource.getState().getState()),
+                Integer.valueOf(resource.getLength()),
+                Long.valueOf(resource.getDateContent()),
+                dbc.currentProject().getUuid().toString(),
+                Integer.valueOf(resource.getSiblingCount()),
+                Integer.valueOf(resourceVersion),
+                Integer.valueOf(publishTag));
+        }
+        // write the structure
+        batch.addStatement(
+            m_sqlManager,
+            CmsUUID.getNullUUID(),
+            "C_STRUCTURE_HISTORY_WRITE",
+            resource.getStructureId().toString(),
+            resource.getResourceId().toString(),
+            resource.getRootPath(),
+            Integer.valueOf(resource.getState().getState()),
+            Long.valueOf(resource.getDateReleased()),
+            Long.valueOf(resource.getDateExpired()),
+            Integer.valueOf(structureVersion),
+            parentId.toString(),
+            Integer.valueOf(publishTag),
+            Integer.valueOf(resource.getVersion()));
+
         writeProperties(dbc, resource, properties, publishTag);
+        if (publishBatch == null) {
+            batch.write(dbc);
+        }
     }
 
     /**
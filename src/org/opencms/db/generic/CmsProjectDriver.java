@@ -43,7 +43,6 @@ import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsVisitEntryFilter;
 import org.opencms.db.I_CmsDriver;
-import org.opencms.db.I_CmsHistoryDriver;
 import org.opencms.db.I_CmsPreparedStatementParameter;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.db.I_CmsVfsDriver;
@@ -64,6 +63,7 @@ import org.opencms.file.CmsUser;
 import org.opencms.file.CmsVfsResourceAlreadyExistsException;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.history.CmsHistoryFile;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.lock.CmsLock;
@@ -188,9 +188,15 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /** Attribute name for the publish history entries which are buffered while publishing a project. */
+    public static final String DBC_ATTR_PUBLISH_HISTORY_BATCH = "DBC_ATTR_PUBLISH_HISTORY_BATCH";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
+    /** The maximum number of publish history entries written to the database in a single JDBC batch. */
+    public static final int PUBLISH_HISTORY_BATCH_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsProjectDriver.class);
 
@@ -1251,11 +1257,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 boolean removeDeleted = Boolean.parseBoolean(
                     CmsProperty.get(CmsPropertyDefinition.PROPERTY_HISTORY_REMOVE_DELETED, props).getValue("false"));
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                deleteHistoryEntries(
                     dbc,
                     new CmsHistoryFile(offlineResource),
-                    removeDeleted ? 0 : OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                    -1);
+                    removeDeleted ? 0 : OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1288,11 +1293,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                 dbc.pop();
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                deleteHistoryEntries(
                     dbc,
                     new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                    OpenCms.getSystemInfo().getHistoryVersions());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1318,11 +1322,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                 dbc.pop();
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                deleteHistoryEntries(
                     dbc,
                     new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                    OpenCms.getSystemInfo().getHistoryVersions());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1688,6 +1691,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
 
+        // buffer the publish history entries and the history and online access control entry rows,
+        // they are written in chunks using JDBC batches
+        dbc.setAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BATCH,
+            CmsPair.create(publishList.getPublishHistoryId(), new ArrayList<CmsPublishedResource>()));
+        dbc.setAttribute(CmsPublishBatch.DBC_ATTR_PUBLISH_BATCH, new CmsPublishBatch());
+
         try {
 
             ////////////////////////////////////////////////////////////////////////////////////////
@@ -1729,7 +1739,6 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
             Iterator<CmsResource> itFolders = publishList.getFolderList().iterator();
             I_CmsProjectDriver projectDriver = m_driverManager.getProjectDriver(dbc);
-            I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
             while (itFolders.hasNext()) {
                 CmsResource currentFolder = itFolders.next();
                 try {
@@ -1762,11 +1771,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             true);
 
                         // delete old historical entries
-                        historyDriver.deleteEntries(
+                        deleteHistoryEntries(
                             dbc,
                             new CmsHistoryFile(currentFolder),
-                            OpenCms.getSystemInfo().getHistoryVersions(),
-                            -1);
+                            OpenCms.getSystemInfo().getHistoryVersions());
 
                         // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
                         internalResetResourceState(dbc, currentFolder);
@@ -1803,7 +1811,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
                         t);
                 }
+                flushPublishHistory(dbc, report, false);
             }
+            // the online folders must be complete before the files are published
+            flushPublishHistory(dbc, report, true);
 
             if (foldersSize > 0) {
                 report.println(
@@ -1882,7 +1893,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
                         t);
                 }
+                flushPublishHistory(dbc, report, false);
             }
+            flushPublishHistory(dbc, report, true);
 
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
@@ -1922,11 +1935,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                     dbc.pop();
                     // delete old historical entries
-                    m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                    deleteHistoryEntries(
                         dbc,
                         new CmsHistoryFile(currentFolder),
-                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                        -1);
+                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion());
 
                     publishedIds.add(currentFolder.getStructureId());
                     // unlock it
@@ -1950,7 +1962,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             currentFolder.getRootPath()),
                         t);
                 }
+                flushPublishHistory(dbc, report, false);
             }
+            flushPublishHistory(dbc, report, true);
 
             if (deletedFoldersSize > 0) {
                 report.println(
@@ -1968,6 +1982,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            // write the entries buffered before an error occurred, without hiding that error
+            try {
+                flushPublishHistory(dbc, null, true);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            dbc.removeAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+            dbc.removeAttribute(CmsPublishBatch.DBC_ATTR_PUBLISH_BATCH);
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2810,28 +2832,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
-            stmt.setInt(1, resource.getPublishTag());
-            stmt.setString(2, resource.getStructureId().toString());
-            stmt.setString(3, resource.getResourceId().toString());
-            stmt.setString(4, resource.getRootPath());
-            stmt.setInt(5, resource.getMovedState().getState());
-            stmt.setInt(6, resource.getType());
-            stmt.setString(7, publishId.toString());
-            stmt.setInt(8, resource.getSiblingCount());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        List<CmsPublishedResource> batch = getPublishHistoryBatch(dbc, publishId);
+        if (batch != null) {
+            // a project is currently published, the entry is written with the next batch
+            batch.add(resource);
+            return;
         }
+        writePublishHistory(dbc, publishId, Collections.singletonList(resource));
     }
 
     /**
@@ -3006,6 +3013,34 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             res.getLong("FINISH_TIME"));
     }
 
+    /**
+     * Deletes the old historical entries of a published resource.<p>
+     *
+     * While publishing a project, the entries of the resource written by the history driver may still be buffered,
+     * so the deletion is deferred until they have been written.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the historical resource
+     * @param versionsToKeep the number of versions to keep
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void deleteHistoryEntries(CmsDbContext dbc, I_CmsHistoryResource resource, int versionsToKeep)
+    throws CmsDataAccessException {
+
+        CmsPublishBatch batch = CmsPublishBatch.get(dbc);
+        if (batch != null) {
+            batch.addAction(
+                batchDbc -> m_driverManager.getHistoryDriver(batchDbc).deleteEntries(
+                    batchDbc,
+                    resource,
+                    versionsToKeep,
+                    -1));
+        } else {
+            m_driverManager.getHistoryDriver(dbc).deleteEntries(dbc, resource, versionsToKeep, -1);
+        }
+    }
+
     /**
      * Checks if the given resource (by id) is available in the online project,
      * if there exists a resource with a different path (a moved file), then the
@@ -3068,6 +3103,59 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         : CmsPublishedResource.STATE_MOVED_DESTINATION;
     }
 
+    /**
+     * Writes the publish history entries and the other rows buffered while publishing a project to the database.<p>
+     *
+     * Unless forced, the entries are only written once a full batch of
+     * {@link #PUBLISH_HISTORY_BATCH_SIZE} entries or resources has been collected.
+     * If the entries can not be written, the error is reported and the publish process fails.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write errors to, may be <code>null</code>
+     * @param force if <code>true</code>, all buffered entries are written
+     *
+     * @throws CmsException if the entries could not be written
+     */
+    protected void flushPublishHistory(CmsDbContext dbc, I_CmsReport report, boolean force) throws CmsException {
+
+        CmsPublishBatch publishBatch = CmsPublishBatch.get(dbc);
+        if ((publishBatch != null) && (force || (publishBatch.size() >= PUBLISH_HISTORY_BATCH_SIZE))) {
+            int size = publishBatch.size();
+            try {
+                publishBatch.write(dbc);
+            } catch (CmsDataAccessException e) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_WRITING_PUBLISH_BATCH_1, String.valueOf(size)),
+                    e);
+            }
+        }
+        Object attr = dbc.getAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if (attr == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        CmsPair<CmsUUID, List<CmsPublishedResource>> batch = (CmsPair<CmsUUID, List<CmsPublishedResource>>)attr;
+        if (batch.getSecond().isEmpty()) {
+            return;
+        }
+        List<CmsPublishedResource> entries = batch.getSecond();
+        if (!force && (entries.size() < PUBLISH_HISTORY_BATCH_SIZE)) {
+            return;
+        }
+        int size = entries.size();
+        try {
+            writePublishHistory(dbc, batch.getFirst(), entries);
+        } catch (CmsDataAccessException e) {
+            dbc.report(
+                report,
+                Messages.get().container(Messages.ERR_WRITING_PUBLISH_HISTORY_BATCH_1, String.valueOf(size)),
+                e);
+        } finally {
+            entries.clear();
+        }
+    }
+
     /**
      * Returns a SQL parameter string for the given data.<p>
      *
@@ -3091,6 +3179,29 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return conditions.toString();
     }
 
+    /**
+     * Returns the buffer for the publish history entries of the given publish job,
+     * if this publish job is currently published using the given database context.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the id of the publish job
+     *
+     * @return the buffer for the publish history entries, or <code>null</code> if the entries must be written directly
+     */
+    protected List<CmsPublishedResource> getPublishHistoryBatch(CmsDbContext dbc, CmsUUID publishId) {
+
+        Object attr = dbc.getAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if (attr == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        CmsPair<CmsUUID, List<CmsPublishedResource>> batch = (CmsPair<CmsUUID, List<CmsPublishedResource>>)attr;
+        if (!batch.getFirst().equals(publishId)) {
+            return null;
+        }
+        return batch.getSecond();
+    }
+
     /**
      * Implementation of reading the user publish list which uses the log table.<p>
      *
@@ -3859,4 +3970,42 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
 
+    /**
+     * Writes the given publish history entries to the database using a single JDBC batch.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the id of the publish job
+     * @param resources the published resources to write
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, List<CmsPublishedResource> resources)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
+            for (CmsPublishedResource resource : resources) {
+                stmt.setInt(1, resource.getPublishTag());
+                stmt.setString(2, resource.getStructureId().toString());
+                stmt.setString(3, resource.getResourceId().toString());
+                stmt.setString(4, resource.getRootPath());
+                stmt.setInt(5, resource.getMovedState().getState());
+                stmt.setInt(6, resource.getType());
+                stmt.setString(7, publishId.toString());
+                stmt.setInt(8, resource.getSiblingCount());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDataAccessException;
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Buffers the database writes of a running publish job, so they can be written in chunks using JDBC batches.<p>
+ *
+ * The statements of different resources in a batch must not depend on each other. A driver adding statements
+ * for a resource first calls {@link #addResource(CmsDbContext, String, CmsUUID)}, which writes the batch if it
+ * already contains statements of the same group for that resource, e.g. for a sibling.<p>
+ *
+ * Operations which read the written rows, like deleting old history versions, are added as deferred actions
+ * and executed after the statements.<p>
+ */
+public class CmsPublishBatch {
+
+    /**
+     * An operation executed after the buffered statements have been written.<p>
+     */
+    public interface I_CmsDeferredAction {
+
+        /**
+         * Executes the operation.<p>
+         *
+         * @param dbc the current database context
+         *
+         * @throws CmsDataAccessException if something goes wrong
+         */
+        void execute(CmsDbContext dbc) throws CmsDataAccessException;
+    }
+
+    /**
+     * The buffered parameters of a single SQL statement.<p>
+     */
+    private static class CmsBatchStatement {
+
+        /** The parameter values of the buffered rows. */
+        List<Object[]> m_parameters = new ArrayList<Object[]>();
+
+        /** The project id used to resolve the query. */
+        CmsUUID m_projectId;
+
+        /** The key of the query. */
+        String m_queryKey;
+
+        /** The SQL manager of the driver which added the statement. */
+        CmsSqlManager m_sqlManager;
+
+        /**
+         * Creates a new buffered statement.<p>
+         *
+         * @param sqlManager the SQL manager of the driver which added the statement
+         * @param projectId the project id used to resolve the query
+         * @param queryKey the key of the query
+         */
+        CmsBatchStatement(CmsSqlManager sqlManager, CmsUUID projectId, String queryKey) {
+
+            m_sqlManager = sqlManager;
+            m_projectId = projectId;
+            m_queryKey = queryKey;
+        }
+    }
+
+    /** The name of the database context attribute holding the batch of the running publish job. */
+    public static final String DBC_ATTR_PUBLISH_BATCH = "DBC_ATTR_PUBLISH_BATCH";
+
+    /** The actions executed after the statements. */
+    private List<I_CmsDeferredAction> m_actions = new ArrayList<I_CmsDeferredAction>();
+
+    /** The groups and ids of the resources with buffered statements. */
+    private Set<String> m_resources = new HashSet<String>();
+
+    /** The buffered statements, in the order they were first added. */
+    private Map<String, CmsBatchStatement> m_statements = new LinkedHashMap<String, CmsBatchStatement>();
+
+    /**
+     * Returns the batch of the publish job running with the given database context.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the batch of the running publish job, or <code>null</code> if the writes must not be buffered
+     */
+    public static CmsPublishBatch get(CmsDbContext dbc) {
+
+        Object attr = dbc.getAttribute(DBC_ATTR_PUBLISH_BATCH);
+        return attr instanceof CmsPublishBatch ? (CmsPublishBatch)attr : null;
+    }
+
+    /**
+     * Adds an action which is executed after the buffered statements have been written.<p>
+     *
+     * @param action the action to add
+     */
+    public void addAction(I_CmsDeferredAction action) {
+
+        m_actions.add(action);
+    }
+
+    /**
+     * Registers a resource for which statements of the given group are added.<p>
+     *
+     * If the batch already contains statements of the group for the resource, the batch is written first.<p>
+     *
+     * @param dbc the current database context
+     * @param group the group of the statements, e.g. the name of the written table
+     * @param id the id of the resource
+     *
+     * @throws CmsDataAccessException if the batch could not be written
+     */
+    public void addResource(CmsDbContext dbc, String group, CmsUUID id) throws CmsDataAccessException {
+
+        if (contains(group, id)) {
+            write(dbc);
+        }
+        m_resources.add(group + id);
+    }
+
+    /**
+     * Adds a row for a statement.<p>
+     *
+     * @param sqlManager the SQL manager of the calling driver
+     * @param projectId the project id used to resolve the query
+     * @param queryKey the key of the query
+     * @param parameters the parameter values of the row
+     */
+    public void addStatement(CmsSqlManager sqlManager, CmsUUID projectId, String queryKey, Object... parameters) {
+
+        String key = queryKey + projectId;
+        CmsBatchStatement statement = m_statements.get(key);
+        if (statement == null) {
+            statement = new CmsBatchStatement(sqlManager, projectId, queryKey);
+            m_statements.put(key, statement);
+        }
+        statement.m_parameters.add(parameters);
+    }
+
+    /**
+     * Checks if the batch contains statements of the given group for a resource.<p>
+     *
+     * @param group the group of the statements
+     * @param id the id of the resource
+     *
+     * @return <code>true</code> if the batch contains statements of the given group for the resource
+     */
+    public boolean contains(String group, CmsUUID id) {
+
+        return m_resources.contains(group + id);
+    }
+
+    /**
+     * Returns the number of resources with buffered statements.<p>
+     *
+     * @return the number of resources with buffered statements
+     */
+    public int size() {
+
+        return m_resources.size();
+    }
+
+    /**
+     * Writes the buffered statements with one JDBC batch per statement, then executes the deferred actions.<p>
+     *
+     * The batch is empty afterwards, also if writing failed.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void write(CmsDbContext dbc) throws CmsDataAccessException {
+
+        List<CmsBatchStatement> statements = new ArrayList<CmsBatchStatement>(m_statements.values());
+        List<I_CmsDeferredAction> actions = new ArrayList<I_CmsDeferredAction>(m_actions);
+        m_statements.clear();
+        m_actions.clear();
+        m_resources.clear();
+        for (CmsBatchStatement statement : statements) {
+            Connection conn = null;
+            PreparedStatement stmt = null;
+            try {
+                conn = statement.m_sqlManager.getConnection(dbc);
+                stmt = statement.m_sqlManager.getPreparedStatement(conn, statement.m_projectId, statement.m_queryKey);
+                for (Object[] parameters : statement.m_parameters) {
+                    for (int i = 0; i < parameters.length; i++) {
+                        stmt.setObject(i + 1, parameters[i]);
+                    }
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(
+                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                    e);
+            } finally {
+                statement.m_sqlManager.closeAll(dbc, conn, stmt, null);
+            }
+        }
+        for (I_CmsDeferredAction action : actions) {
+            action.execute(dbc);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+/**
+ * Input stream for binary column values which have been copied out of the database.<p>
+ *
+ * The content is read completely while the JDBC resources are open, so the connection can be released
+ * before the stream is passed to a possibly slow client. Small contents are kept in memory, larger contents
+ * are written to a temporary file which is deleted when the stream is closed.<p>
+ */
+public final class CmsSpooledInputStream extends FilterInputStream {
+
+    /** Contents up to this size (in bytes) are kept in memory. */
+    public static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    /** The temporary file with the content. */
+    private File m_file;
+
+    /**
+     * Creates a new stream reading from a temporary file.<p>
+     *
+     * @param file the temporary file with the content
+     *
+     * @throws IOException if the file can not be opened
+     */
+    private CmsSpooledInputStream(File file)
+    throws IOException {
+
+        super(new FileInputStream(file));
+        m_file = file;
+    }
+
+    /**
+     * Reads the given stream completely and returns a stream with the same content.<p>
+     *
+     * The given stream is not closed.<p>
+     *
+     * @param in the stream to read
+     *
+     * @return a stream with the same content, which does not depend on the given stream
+     *
+     * @throws IOException if reading the stream or writing the temporary file fails
+     */
+    public static InputStream spool(InputStream in) throws IOException {
+
+        DeferredFileOutputStream out = new DeferredFileOutputStream(
+            MEMORY_THRESHOLD,
+            "opencms-content-",
+            ".tmp",
+            null);
+        try {
+            try {
+                IOUtils.copy(in, out);
+            } finally {
+                out.close();
+            }
+            if (out.isInMemory()) {
+                return new ByteArrayInputStream(out.getData());
+            }
+            return new CmsSpooledInputStream(out.getFile());
+        } catch (IOException e) {
+            if (out.getFile() != null) {
+                out.getFile().delete();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            super.close();
+        } finally {
+            m_file.delete();
+        }
+    }
+}
@@ -253,6 +253,39 @@ public class CmsUserDriver implements I_CmsUserDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#createAccessControlEntries(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public void createAccessControlEntries(CmsDbContext dbc, CmsProject project, List<CmsAccessControlEntry> entries)
+    throws CmsDataAccessException {
+
+        if (entries.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_CREATE_5");
+            for (CmsAccessControlEntry entry : entries) {
+                stmt.setString(1, entry.getResource().toString());
+                stmt.setString(2, entry.getPrincipal().toString());
+                stmt.setInt(3, entry.getAllowedPermissions());
+                stmt.setInt(4, entry.getDeniedPermissions());
+                stmt.setInt(5, entry.getFlags());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#createAccessControlEntry(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID, int, int, int)
      */
@@ -1052,8 +1085,16 @@ public class CmsUserDriver implements I_CmsUserDriver {
         CmsUUID onlineId)
     throws CmsDataAccessException {
 
-        // at first, we remove all access contries of this resource in the online project
-        m_driverManager.getUserDriver(dbc).removeAccessControlEntries(dbc, onlineProject, onlineId);
+        // while publishing, the entries are written in chunks together with those of other resources
+        CmsPublishBatch batch = CmsPublishBatch.get(dbc);
+        if (batch != null) {
+            // a sibling in the batch has to be written first, since the entries belong to the shared resource
+            batch.addResource(dbc, "CMS_ONLINE_ACCESSCONTROL", onlineId);
+            batch.addStatement(m_sqlManager, onlineProject.getUuid(), "C_ACCESS_REMOVE_ALL_1", onlineId.toString());
+        } else {
+            // at first, we remove all access contries of this resource in the online project
+            m_driverManager.getUserDriver(dbc).removeAccessControlEntries(dbc, onlineProject, onlineId);
+        }
 
         // then, we copy the access control entries from the offline project into the online project
         CmsUUID dbcProjectId = dbc.getProjectId();
@@ -1067,7 +1108,20 @@ public class CmsUserDriver implements I_CmsUserDriver {
         dbc.setProjectId(dbcProjectId);
 
         for (CmsAccessControlEntry ace : aces) {
-            m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            if (batch != null) {
+                // the online entries of the resource have been removed, so all entries are new
+                batch.addStatement(
+                    m_sqlManager,
+                    onlineProject.getUuid(),
+                    "C_ACCESS_CREATE_5",
+                    ace.getResource().toString(),
+                    ace.getPrincipal().toString(),
+                    Integer.valueOf(ace.getAllowedPermissions()),
+                    Integer.valueOf(ace.getDeniedPermissions()),
+                    Integer.valueOf(ace.getFlags()));
+            } else {
+                m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            }
         }
     }
 
@@ -1610,6 +1664,12 @@ public class CmsUserDriver implements I_CmsUserDriver {
     public void removeAccessControlEntries(CmsDbContext dbc, CmsProject project, CmsUUID resource)
     throws CmsDataAccessException {
 
+        CmsPublishBatch batch = CmsPublishBatch.get(dbc);
+        if ((batch != null) && project.isOnlineProject() && batch.contains("CMS_ONLINE_ACCESSCONTROL", resource)) {
+            // the buffered entries must not be written after they have been removed
+            batch.write(dbc);
+        }
+
         PreparedStatement stmt = null;
         Connection conn = null;
 
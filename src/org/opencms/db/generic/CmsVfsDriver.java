@@ -34,6 +34,7 @@ import org.opencms.db.CmsAliasFilter;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
@@ -80,6 +81,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -90,6 +93,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -103,6 +107,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /** The maximum number of ids used in a single IN clause, well below the limits of all supported databases. */
+    protected static final int MAX_IDS_PER_QUERY = 500;
+
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
@@ -482,10 +489,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 } else {
                     // put the online content in the history, only if explicit requested
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    internalMoveOnlineContentToHistory(dbc, conn, resourceId);
                 }
 
                 // create new online content
@@ -512,10 +516,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
                 if (!keepOnline) {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    internalMoveOnlineContentToHistory(dbc, conn, resourceId);
                 }
             }
         } catch (SQLException e) {
@@ -564,64 +565,30 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public void createRelation(CmsDbContext dbc, CmsUUID projectId, CmsRelation relation)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
+        createRelations(dbc, projectId, Collections.singletonList(relation));
+    }
 
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
-            stmt.setString(1, relation.getSourceId().toString());
-            stmt.setString(2, relation.getSourcePath());
-            stmt.setString(3, relation.getTargetId().toString());
-            stmt.setString(4, relation.getTargetPath());
-            stmt.setInt(5, relation.getType().getId());
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#createRelations(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public void createRelations(CmsDbContext dbc, CmsUUID projectId, Collection<CmsRelation> relations)
+    throws CmsDataAccessException {
 
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_CREATE_RELATION_2,
-                        String.valueOf(projectId),
-                        relation));
+        // locale variant relations are normalized after each insert, so the order of the
+        // inserts matters for them and they are not batched
+        List<CmsRelation> batched = new ArrayList<CmsRelation>(relations.size());
+        List<CmsRelation> localeVariants = new ArrayList<CmsRelation>();
+        for (CmsRelation relation : relations) {
+            if (relation.getType().getId() == CmsRelationType.LOCALE_VARIANT.getId()) {
+                localeVariants.add(relation);
+            } else {
+                batched.add(relation);
             }
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
         }
-
-        if (relation.getType().getId() == CmsRelationType.LOCALE_VARIANT.getId()) {
-            try {
-
-                // Normalizes locale relations after creating a relation.
-                // After creating a locale variant relation from A to B, this statment
-                // removes all locale variant relations which are either
-                //       - from A to somewhere else than B,
-                //       - from B to some other resource
-                //       - to A from some other resources
-                conn = m_sqlManager.getConnection(dbc);
-                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RELATIONS_NORMALIZE_LOCALE_RELATIONS");
-                stmt.setString(1, relation.getSourceId().toString());
-                stmt.setString(2, relation.getTargetId().toString());
-                stmt.setString(3, relation.getSourceId().toString());
-                stmt.setString(4, relation.getTargetId().toString());
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_CREATE_RELATION_2,
-                            String.valueOf(projectId),
-                            relation));
-                }
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                throw new CmsDbSqlException(
-                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                    e);
-            } finally {
-                m_sqlManager.closeAll(dbc, conn, stmt, null);
-            }
+        internalCreateRelations(dbc, projectId, batched);
+        for (CmsRelation relation : localeVariants) {
+            internalCreateRelations(dbc, projectId, Collections.singletonList(relation));
+            internalNormalizeLocaleRelations(dbc, projectId, relation);
         }
     }
 
@@ -1897,6 +1864,63 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        InputStream stream = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                InputStream in = m_sqlManager.getBinaryStream(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                if (in == null) {
+                    stream = new ByteArrayInputStream(new byte[0]);
+                } else {
+                    // copy the content, so the connection is not kept open while the caller reads the stream
+                    try {
+                        stream = CmsSpooledInputStream.spool(in);
+                    } finally {
+                        in.close();
+                    }
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(
+                    Messages.get().container(
+                        Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                        resourceId,
+                        Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } catch (IOException e) {
+            throw new CmsDbIoException(
+                Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return stream;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2222,6 +2246,123 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources)
+    throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // structure and resource ids are looked up in the same column, a resource id may be shared by siblings
+        Map<CmsUUID, CmsResource> resourcesByStructureId = new HashMap<CmsUUID, CmsResource>();
+        Map<CmsUUID, List<CmsResource>> resourcesByResourceId = new HashMap<CmsUUID, List<CmsResource>>();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            if (resourcesByStructureId.put(resource.getStructureId(), resource) != null) {
+                continue;
+            }
+            List<CmsResource> siblings = resourcesByResourceId.get(resource.getResourceId());
+            if (siblings == null) {
+                siblings = new ArrayList<CmsResource>(1);
+                resourcesByResourceId.put(resource.getResourceId(), siblings);
+            }
+            siblings.add(resource);
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+        }
+        Set<CmsUUID> mappingIds = new HashSet<CmsUUID>(resourcesByStructureId.keySet());
+        mappingIds.addAll(resourcesByResourceId.keySet());
+        List<CmsUUID> allMappingIds = new ArrayList<CmsUUID>(mappingIds);
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int start = 0; start < allMappingIds.size(); start += MAX_IDS_PER_QUERY) {
+                List<CmsUUID> batch = allMappingIds.subList(
+                    start,
+                    Math.min(start + MAX_IDS_PER_QUERY, allMappingIds.size()));
+                StringBuffer query = new StringBuffer(m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_LIST"));
+                query.append(BEGIN_CONDITION);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (i > 0) {
+                        query.append(", ");
+                    }
+                    query.append("?");
+                }
+                query.append(END_CONDITION);
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String propertyKey = res.getString(1);
+                    String propertyValue = res.getString(2);
+                    int mappingType = res.getInt(3);
+                    CmsUUID mappingId = new CmsUUID(res.getString(4));
+
+                    List<CmsResource> targets;
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        CmsResource target = resourcesByStructureId.get(mappingId);
+                        targets = target == null
+                        ? Collections.<CmsResource> emptyList()
+                        : Collections.singletonList(target);
+                    } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                        targets = resourcesByResourceId.get(mappingId);
+                        if (targets == null) {
+                            targets = Collections.emptyList();
+                        }
+                    } else {
+                        throw new CmsDbConsistencyException(
+                            Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                mappingId,
+                                Integer.valueOf(mappingType),
+                                propertyKey));
+                    }
+                    for (CmsResource target : targets) {
+                        Map<String, CmsProperty> propertyMap = propertyMaps.get(target.getStructureId());
+                        CmsProperty property = propertyMap.get(propertyKey);
+                        if (property == null) {
+                            // there doesn't exist a property object for this key yet
+                            property = new CmsProperty();
+                            property.setName(propertyKey);
+                            property.setOrigin(target.getRootPath());
+                            propertyMap.put(propertyKey, property);
+                        }
+                        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                            property.setStructureValue(propertyValue);
+                        } else {
+                            property.setResourceValue(propertyValue);
+                        }
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2886,9 +3027,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 // if online we have to keep historical content
                 if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resource.getResourceId().toString());
-                    stmt.executeUpdate();
+                    internalMoveOnlineContentToHistory(dbc, conn, resource.getResourceId());
                 } else if (dbcHasProjectId) {
                     // remove current online version
                     stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_DELETE");
@@ -3091,12 +3230,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         // copy offline to online relations
         CmsUUID dbcProjectId = dbc.getProjectId();
         dbc.setProjectId(CmsUUID.getNullUUID());
-        Iterator<CmsRelation> itRelations = m_driverManager.getVfsDriver(
-            dbc).readRelations(dbc, projectId, offlineResource, CmsRelationFilter.TARGETS).iterator();
+        List<CmsRelation> relations = m_driverManager.getVfsDriver(
+            dbc).readRelations(dbc, projectId, offlineResource, CmsRelationFilter.TARGETS);
         dbc.setProjectId(dbcProjectId);
-        while (itRelations.hasNext()) {
-            vfsDriver.createRelation(dbc, onlineProject.getUuid(), itRelations.next());
-        }
+        vfsDriver.createRelations(dbc, onlineProject.getUuid(), relations);
     }
 
     /**
@@ -3232,147 +3369,22 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ? project.getUuid()
         : dbc.getProjectId();
 
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
-        try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
-                    dbc,
-                    projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(
-                    new CmsEvent(
-                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
-
-            } else {
-                throw new CmsDbEntryNotFoundException(
-                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
-            }
-        }
-
-        PreparedStatement stmt = null;
-        Connection conn = null;
+        CmsPropertyDefinition propertyDefinition = internalReadOrCreatePropertyDefinition(dbc, projectId, property);
 
-        try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
-
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
-                return;
-            }
-
-            conn = m_sqlManager.getConnection(dbc);
-
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
-
-                // 1) take any required decisions to choose and fill the correct SQL query
-
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
-
-                // 2) execute the SQL query
-                try {
-                    if (!deletePropertyValue) {
-                        // insert/update the property value
-                        if (existsPropertyValue) {
-                            // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
-                        } else {
-                            // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
-                        }
-                    } else {
-                        // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
-                    }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
-                }
-            }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        // read the existing property to test if we need the
+        // insert or update query to write a property value
+        CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+        if (existingProperty.isIdentical(property)) {
+            // property already has the identical values set, no write required
+            return;
         }
+        internalWritePropertyValues(
+            dbc,
+            projectId,
+            resource,
+            Collections.singletonList(propertyDefinition),
+            Collections.singletonList(existingProperty),
+            Collections.singletonList(property));
     }
 
     /**
@@ -3385,11 +3397,58 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List<CmsProperty> properties)
     throws CmsDataAccessException {
 
-        CmsProperty property = null;
+        Set<String> names = new HashSet<String>();
+        for (CmsProperty property : properties) {
+            names.add(property.getName());
+        }
+        if ((properties.size() < 2) || (names.size() < properties.size())) {
+            // nothing to gain from batching, or the later values of duplicate properties depend on the earlier ones
+            for (CmsProperty property : properties) {
+                writePropertyObject(dbc, project, resource, property);
+            }
+            return;
+        }
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
 
-        for (int i = 0; i < properties.size(); i++) {
-            property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
+        // read all property definitions and the existing property values with one query each
+        Map<String, CmsPropertyDefinition> definitions = new HashMap<String, CmsPropertyDefinition>();
+        for (CmsPropertyDefinition definition : readPropertyDefinitions(dbc, projectId)) {
+            definitions.put(definition.getName(), definition);
+        }
+        Map<String, CmsProperty> existingProperties = new HashMap<String, CmsProperty>();
+        for (CmsProperty existingProperty : readPropertyObjects(dbc, project, resource)) {
+            existingProperties.put(existingProperty.getName(), existingProperty);
+        }
+
+        List<CmsPropertyDefinition> changedDefinitions = new ArrayList<CmsPropertyDefinition>();
+        List<CmsProperty> changedExisting = new ArrayList<CmsProperty>();
+        List<CmsProperty> changedProperties = new ArrayList<CmsProperty>();
+        for (CmsProperty property : properties) {
+            CmsPropertyDefinition propertyDefinition = definitions.get(property.getName());
+            if (propertyDefinition == null) {
+                propertyDefinition = internalReadOrCreatePropertyDefinition(dbc, projectId, property);
+            }
+            CmsProperty existingProperty = existingProperties.get(propertyDefinition.getName());
+            if (existingProperty == null) {
+                existingProperty = CmsProperty.getNullProperty();
+            }
+            if (!existingProperty.isIdentical(property)) {
+                changedDefinitions.add(propertyDefinition);
+                changedExisting.add(existingProperty);
+                changedProperties.add(property);
+            }
+        }
+        if (!changedProperties.isEmpty()) {
+            internalWritePropertyValues(
+                dbc,
+                projectId,
+                resource,
+                changedDefinitions,
+                changedExisting,
+                changedProperties);
         }
     }
 
@@ -3730,6 +3789,53 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Inserts the given relations with a single JDBC batch.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param relations the relations to insert
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalCreateRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException {
+
+        if (relations.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
+            for (CmsRelation relation : relations) {
+                stmt.setString(1, relation.getSourceId().toString());
+                stmt.setString(2, relation.getSourcePath());
+                stmt.setString(3, relation.getTargetId().toString());
+                stmt.setString(4, relation.getTargetPath());
+                stmt.setInt(5, relation.getType().getId());
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_CREATE_RELATION_2,
+                            String.valueOf(projectId),
+                            relation));
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Creates an URL name mapping entry from a result set.<p>
      *
@@ -3748,6 +3854,33 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Returns the statement for the given query from the statements used for a batch, preparing it if necessary.<p>
+     *
+     * @param conn the connection
+     * @param projectId the id of the project
+     * @param queryKey the key of the query
+     * @param statements the statements used for the batch, by query key
+     *
+     * @return the prepared statement
+     *
+     * @throws SQLException if preparing the statement fails
+     */
+    protected PreparedStatement internalGetBatchStatement(
+        Connection conn,
+        CmsUUID projectId,
+        String queryKey,
+        Map<String, PreparedStatement> statements)
+    throws SQLException {
+
+        PreparedStatement stmt = statements.get(queryKey);
+        if (stmt == null) {
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            statements.put(queryKey, stmt);
+        }
+        return stmt;
+    }
+
     /**
      * Increments a counter.<p>
      *
@@ -3774,6 +3907,102 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Moves the online content of a resource to the history.<p>
+     *
+     * If the history is configured to be compressed, the content is compressed while it is moved.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param resourceId the resource id of the content to move
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalMoveOnlineContentToHistory(CmsDbContext dbc, Connection conn, CmsUUID resourceId)
+    throws SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            byte[] compressed = null;
+            if (OpenCms.getSystemInfo().isHistoryCompressed()) {
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_READ");
+                stmt.setString(1, resourceId.toString());
+                res = stmt.executeQuery();
+                if (res.next()) {
+                    byte[] content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                    // always encode the content, so it is never mistaken for raw content when it is read
+                    compressed = CmsHistoryContentCodec.encode(content);
+                    while (res.next()) {
+                        // do nothing only move through all rows because of mssql odbc driver
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                res = null;
+            }
+            if (compressed != null) {
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY_COMPRESSED");
+                if (compressed.length < 2000) {
+                    stmt.setBytes(1, compressed);
+                } else {
+                    stmt.setBinaryStream(1, new ByteArrayInputStream(compressed), compressed.length);
+                }
+                stmt.setString(2, resourceId.toString());
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
+                stmt.setString(1, resourceId.toString());
+            }
+            stmt.executeUpdate();
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
+    /**
+     * Normalizes the locale variant relations after a locale variant relation has been created.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param relation the created locale variant relation
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalNormalizeLocaleRelations(CmsDbContext dbc, CmsUUID projectId, CmsRelation relation)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+
+            // Normalizes locale relations after creating a relation.
+            // After creating a locale variant relation from A to B, this statment
+            // removes all locale variant relations which are either
+            //       - from A to somewhere else than B,
+            //       - from B to some other resource
+            //       - to A from some other resources
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RELATIONS_NORMALIZE_LOCALE_RELATIONS");
+            stmt.setString(1, relation.getSourceId().toString());
+            stmt.setString(2, relation.getTargetId().toString());
+            stmt.setString(3, relation.getSourceId().toString());
+            stmt.setString(4, relation.getTargetId().toString());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CREATE_RELATION_2,
+                        String.valueOf(projectId),
+                        relation));
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Helper method to create an alias object from a result set.<p>
      *
@@ -3826,6 +4055,65 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Reads the definition of the given property, creating it if it does not exist and the property allows that.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param property the property
+     *
+     * @return the property definition
+     *
+     * @throws CmsDataAccessException if the definition does not exist and can not be created
+     */
+    protected CmsPropertyDefinition internalReadOrCreatePropertyDefinition(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsProperty property)
+    throws CmsDataAccessException {
+
+        // TODO: check if we need autocreation for link property definition types too
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(
+                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
+            }
+        }
+        return propertyDefinition;
+    }
+
     /**
      * Returns the parent id of the given resource.<p>
      *
@@ -4102,6 +4390,130 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 resource.getRootPath()));
     }
 
+    /**
+     * Writes the structure and resource values of the given properties, using one JDBC batch per statement type.<p>
+     *
+     * The lists must have the same size; the entries at the same position belong to the same property.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param resource the resource to write the properties for
+     * @param propertyDefinitions the definitions of the properties
+     * @param existingProperties the current values of the properties
+     * @param properties the properties to write
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalWritePropertyValues(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsResource resource,
+        List<CmsPropertyDefinition> propertyDefinitions,
+        List<CmsProperty> existingProperties,
+        List<CmsProperty> properties)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>();
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int p = 0; p < properties.size(); p++) {
+                CmsPropertyDefinition propertyDefinition = propertyDefinitions.get(p);
+                CmsProperty existingProperty = existingProperties.get(p);
+                CmsProperty property = properties.get(p);
+                for (int i = 0; i < 2; i++) {
+                    int mappingType = -1;
+                    String value = null;
+                    CmsUUID id = null;
+                    boolean existsPropertyValue = false;
+                    boolean deletePropertyValue = false;
+
+                    // 1) take any required decisions to choose and fill the correct SQL query
+
+                    if (i == 0) {
+                        // write/delete the *structure value* on the first cycle
+                        if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getStructureValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no structure value set or the structure value is an empty string,
+                                // continue with the resource value
+                                continue;
+                            }
+                        }
+
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                        id = resource.getStructureId();
+                        existsPropertyValue = existingProperty.getStructureValue() != null;
+                    } else {
+                        // write/delete the *resource value* on the second cycle
+                        if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getResourceValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no resource value set or the resource value is an empty string,
+                                // break out of the loop
+                                break;
+                            }
+                        }
+
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                        id = resource.getResourceId();
+                        existsPropertyValue = existingProperty.getResourceValue() != null;
+                    }
+
+                    // 2) add the SQL statement to the batch
+                    if (!deletePropertyValue) {
+                        // insert/update the property value
+                        if (existsPropertyValue) {
+                            // {structure|resource} property value already exists- use update statement
+                            stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_UPDATE", statements);
+                            stmt.setString(1, m_sqlManager.validateEmpty(value));
+                            stmt.setString(2, id.toString());
+                            stmt.setInt(3, mappingType);
+                            stmt.setString(4, propertyDefinition.getId().toString());
+                        } else {
+                            // {structure|resource} property value doesn't exist- use create statement
+                            stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_CREATE", statements);
+                            stmt.setString(1, new CmsUUID().toString());
+                            stmt.setString(2, propertyDefinition.getId().toString());
+                            stmt.setString(3, id.toString());
+                            stmt.setInt(4, mappingType);
+                            stmt.setString(5, m_sqlManager.validateEmpty(value));
+                        }
+                    } else {
+                        // {structure|resource} property value marked as deleted- use delete statement
+                        stmt = internalGetBatchStatement(conn, projectId, "C_PROPERTIES_DELETE", statements);
+                        stmt.setString(1, propertyDefinition.getId().toString());
+                        stmt.setString(2, id.toString());
+                        stmt.setInt(3, mappingType);
+                    }
+                    stmt.addBatch();
+                }
+            }
+            for (PreparedStatement batch : statements.values()) {
+                stmt = batch;
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            for (PreparedStatement batch : statements.values()) {
+                m_sqlManager.closeAll(dbc, null, batch, null);
+            }
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+    }
+
     /**
      * Moves all relations of a resource to the new path.<p>
      *
@@ -169,6 +169,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_DELETED_FILE_1 = "ERR_READ_DELETED_FILE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_HISTORY_CONTENT_2 = "ERR_READ_HISTORY_CONTENT_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_DELETED_RESOURCE_1 = "ERR_READ_DELETED_RESOURCE_1";
 
@@ -238,6 +241,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_HISTORY_OF_PROJECT_1 = "ERR_WRITING_HISTORY_OF_PROJECT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITING_PUBLISH_BATCH_1 = "ERR_WRITING_PUBLISH_BATCH_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITING_PUBLISH_HISTORY_BATCH_1 = "ERR_WRITING_PUBLISH_HISTORY_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_TO_OUTPUT_STREAM_1 = "ERR_WRITING_TO_OUTPUT_STREAM_1";
 
@@ -111,10 +111,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 } else {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    internalMoveOnlineContentToHistory(dbc, conn, resourceId);
                 }
 
                 // create new empty online content entry
@@ -138,10 +135,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
 
                 if (!keepOnline) {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
-                    stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    internalMoveOnlineContentToHistory(dbc, conn, resourceId);
                 }
             }
         } catch (SQLException e) {
@@ -0,0 +1,180 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.timing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.<p>
+ *
+ * Every power of two is split into a fixed number of linear sub-buckets, so recorded values
+ * are kept with a relative error of at most 1/8, independent of their magnitude. Recording a value
+ * only updates a few atomic counters, which makes the histogram cheap enough to be always on.<p>
+ */
+public class CmsLatencyHistogram {
+
+    /** The number of bits used for the sub-buckets of a power of two. */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** The number of sub-buckets per power of two. */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets needed to cover all positive long values. */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /** The number of recorded values. */
+    private LongAdder m_count = new LongAdder();
+
+    /** The counts per bucket. */
+    private AtomicLongArray m_counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /** The largest recorded value. */
+    private AtomicLong m_max = new AtomicLong();
+
+    /** The sum of all recorded values. */
+    private LongAdder m_total = new LongAdder();
+
+    /**
+     * Returns the bucket index for the given value.<p>
+     *
+     * @param value the value, must not be negative
+     *
+     * @return the bucket index
+     */
+    static int getBucketIndex(long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> shift) - SUB_BUCKET_COUNT;
+        return ((shift + 1) * SUB_BUCKET_COUNT) + subBucket;
+    }
+
+    /**
+     * Returns a representative value for the given bucket, i.e. the middle of the bucket's range.<p>
+     *
+     * @param index the bucket index
+     *
+     * @return the representative value of the bucket
+     */
+    static long getBucketValue(int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index / SUB_BUCKET_COUNT) - 1;
+        long lowest = ((long)(SUB_BUCKET_COUNT + (index % SUB_BUCKET_COUNT))) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * Returns the number of recorded values.<p>
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+
+        return m_count.sum();
+    }
+
+    /**
+     * Returns the largest recorded value.<p>
+     *
+     * @return the largest recorded value
+     */
+    public long getMax() {
+
+        return m_max.get();
+    }
+
+    /**
+     * Returns the sum of all recorded values.<p>
+     *
+     * @return the sum of all recorded values
+     */
+    public long getTotal() {
+
+        return m_total.sum();
+    }
+
+    /**
+     * Returns the approximate value below which the given percentage of the recorded values fall.<p>
+     *
+     * Values recorded concurrently with this call may or may not be taken into account.<p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     *
+     * @return the approximate value at the given percentile, or 0 if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        if (percentile >= 100.0) {
+            return getMax();
+        }
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = m_counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil((percentile / 100.0) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(getBucketValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Records a value.<p>
+     *
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+
+        if (value < 0) {
+            value = 0;
+        }
+        m_counts.incrementAndGet(getBucketIndex(value));
+        m_count.increment();
+        m_total.add(value);
+        if (value > m_max.get()) {
+            m_max.accumulateAndGet(value, Math::max);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.timing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Profiling handler which keeps a latency histogram for every key it receives.<p>
+ *
+ * Keys consist of a category and a name, separated by the first colon, e.g. 'loader:org.opencms.loader.CmsJspLoader'.
+ * The collected data can be read as a list of summary lines for JMX or in the Prometheus text exposition format.<p>
+ */
+public final class CmsMetricsProfilingHandler implements I_CmsProfilingHandler {
+
+    /** The singleton instance. */
+    public static final CmsMetricsProfilingHandler INSTANCE = new CmsMetricsProfilingHandler();
+
+    /** Sub-path of the built-in service serving the metrics in Prometheus format. */
+    public static final String HANDLER_METRICS = "/metrics";
+
+    /** Key for Flex cache hits. */
+    public static final String KEY_FLEXCACHE_HIT = "flexcache:hit";
+
+    /** Key for Flex cache misses. */
+    public static final String KEY_FLEXCACHE_MISS = "flexcache:miss";
+
+    /** The maximum number of distinct keys, to protect against unbounded growth (e.g. for formatter paths). */
+    public static final int MAX_KEYS = 2000;
+
+    /** The name of the metric in the Prometheus output. */
+    public static final String METRIC_NAME = "opencms_latency_seconds";
+
+    /** Key prefix for database driver methods. */
+    public static final String PREFIX_DRIVER = "driver:";
+
+    /** Key prefix for formatter includes. */
+    public static final String PREFIX_FORMATTER = "formatter:";
+
+    /** Key prefix for resource loaders. */
+    public static final String PREFIX_LOADER = "loader:";
+
+    /** The percentiles written to the output. */
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0};
+
+    /** The histograms by key. */
+    private Map<String, CmsLatencyHistogram> m_histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Hidden default constructor.<p>
+     */
+    private CmsMetricsProfilingHandler() {
+        // do nothing
+    }
+
+    /**
+     * Escapes a label value for the Prometheus text format.<p>
+     *
+     * @param value the label value
+     *
+     * @return the escaped label value
+     */
+    private static String escapeLabel(String value) {
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Formats nanoseconds as seconds.<p>
+     *
+     * @param nanos the nanoseconds
+     *
+     * @return the formatted number of seconds
+     */
+    private static String seconds(long nanos) {
+
+        return String.format(Locale.ROOT, "%.9f", Double.valueOf(nanos / 1e9));
+    }
+
+    /**
+     * Returns the histogram for the given key, or null if no values have been recorded for it.<p>
+     *
+     * @param key the key
+     *
+     * @return the histogram for the key
+     */
+    public CmsLatencyHistogram getHistogram(String key) {
+
+        return m_histograms.get(key);
+    }
+
+    /**
+     * Returns one summary line per key, sorted by key.<p>
+     *
+     * @return the summary lines
+     */
+    public List<String> listMetrics() {
+
+        List<String> result = new ArrayList<>();
+        for (String key : getSortedKeys()) {
+            CmsLatencyHistogram histogram = m_histograms.get(key);
+            if (histogram == null) {
+                continue;
+            }
+            result.add(
+                String.format(
+                    Locale.ROOT,
+                    "%s count=%d total=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                    key,
+                    Long.valueOf(histogram.getCount()),
+                    Double.valueOf(histogram.getTotal() / 1e6),
+                    Double.valueOf(histogram.getValueAtPercentile(50) / 1e6),
+                    Double.valueOf(histogram.getValueAtPercentile(90) / 1e6),
+                    Double.valueOf(histogram.getValueAtPercentile(99) / 1e6),
+                    Double.valueOf(histogram.getMax() / 1e6)));
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.timing.I_CmsProfilingHandler#putTime(java.lang.String, long)
+     */
+    public void putTime(String key, long nanos) {
+
+        CmsLatencyHistogram histogram = m_histograms.get(key);
+        if (histogram == null) {
+            if (m_histograms.size() >= MAX_KEYS) {
+                return;
+            }
+            histogram = m_histograms.computeIfAbsent(key, k -> new CmsLatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Discards all collected data.<p>
+     */
+    public void reset() {
+
+        m_histograms.clear();
+    }
+
+    /**
+     * Writes the collected data in the Prometheus text exposition format.<p>
+     *
+     * @return the collected data in Prometheus format
+     */
+    public String toPrometheusText() {
+
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("# HELP ").append(METRIC_NAME).append(" Latency of OpenCms operations.\n");
+        buffer.append("# TYPE ").append(METRIC_NAME).append(" summary\n");
+        for (String key : getSortedKeys()) {
+            CmsLatencyHistogram histogram = m_histograms.get(key);
+            if (histogram == null) {
+                continue;
+            }
+            int colonPos = key.indexOf(':');
+            String category = colonPos < 0 ? "" : key.substring(0, colonPos);
+            String name = colonPos < 0 ? key : key.substring(colonPos + 1);
+            String labels = "category=\"" + escapeLabel(category) + "\",name=\"" + escapeLabel(name) + "\"";
+            for (double percentile : PERCENTILES) {
+                buffer.append(METRIC_NAME).append("{").append(labels).append(",quantile=\"").append(
+                    String.format(Locale.ROOT, "%.2f", Double.valueOf(percentile / 100))).append("\"} ").append(
+                        seconds(histogram.getValueAtPercentile(percentile))).append("\n");
+            }
+            buffer.append(METRIC_NAME).append("_sum{").append(labels).append("} ").append(
+                seconds(histogram.getTotal())).append("\n");
+            buffer.append(METRIC_NAME).append("_count{").append(labels).append("} ").append(
+                histogram.getCount()).append("\n");
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the keys for which data has been recorded, in sorted order.<p>
+     *
+     * @return the sorted keys
+     */
+    private List<String> getSortedKeys() {
+
+        List<String> keys = new ArrayList<>(m_histograms.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+}
@@ -30,12 +30,17 @@ package org.opencms.db.timing;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Invocation handler used to measure method calls durations.<p>
  */
 public class CmsProfilingInvocationHandler implements InvocationHandler {
 
+    /** Cache for the profiling keys of methods, since building them for every call would be too expensive. */
+    private static final Map<Method, String> KEYS = new ConcurrentHashMap<>();
+
     /** The profiling handler to which we send the data. */
     private I_CmsProfilingHandler m_profilingHandler;
 
@@ -54,6 +59,30 @@ public class CmsProfilingInvocationHandler implements InvocationHandler {
         m_profilingHandler = timingConsumer;
     }
 
+    /**
+     * Returns the profiling key for a method.<p>
+     *
+     * The key has the form 'driver:Class.method(Param1,Param2)', using simple class names to keep it short.<p>
+     *
+     * @param method the method
+     * @return the profiling key
+     */
+    public static String getKey(Method method) {
+
+        return KEYS.computeIfAbsent(method, m -> {
+            StringBuilder buffer = new StringBuilder(CmsMetricsProfilingHandler.PREFIX_DRIVER);
+            buffer.append(m.getDeclaringClass().getSimpleName()).append('.').append(m.getName()).append('(');
+            Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                buffer.append(params[i].getSimpleName());
+            }
+            return buffer.append(')').toString();
+        });
+    }
+
     /**
      * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
      */
@@ -76,7 +105,7 @@ public class CmsProfilingInvocationHandler implements InvocationHandler {
         } finally {
             end = System.nanoTime();
             long nanos = end - start;
-            String key = method.toString();
+            String key = getKey(method);
             m_profilingHandler.putTime(key, nanos);
         }
     }
@@ -68,6 +68,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -2017,6 +2019,22 @@ public final class CmsObject {
         createRelation(resourceName, targetPath, relationType, true);
     }
 
+    /**
+     * Imports several relations from the given resource to other resources.<p>
+     *
+     * Writes the relations with a single batch, and updates the offline indexes once
+     * for the resource instead of once per relation.<p>
+     *
+     * @param resource the source resource of the relations
+     * @param relations the relations to import, their type must not be defined in content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importRelations(CmsResource resource, List<CmsRelation> relations) throws CmsException {
+
+        m_securityManager.importRelations(m_context, resource, relations);
+    }
+
     /**
      * Imports a resource to the OpenCms VFS.<p>
      *
@@ -2477,6 +2495,36 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Reads the content of a file resource as a stream.<p>
+     *
+     * In contrast to {@link #readFile(CmsResource)}, the content is not loaded into memory
+     * as a whole, so this should be used to deliver large binary files.
+     * The returned stream must always be closed by the caller.<p>
+     *
+     * No resource filter is applied when reading the content, since we already have
+     * a full resource instance.<p>
+     *
+     * @param resource the resource to read the content for
+     *
+     * @return the content of the resource as a stream
+     *
+     * @throws CmsException if the content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            CmsFile file = (CmsFile)resource;
+            if ((file.getContents() != null) && (file.getContents().length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+        return m_securityManager.readContentStream(m_context, resource);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -3111,6 +3159,29 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects mapped to the given resources.<p>
+     *
+     * This returns the same properties as calling {@link #readPropertyObjects(CmsResource, boolean)} for
+     * each of the resources, but the properties which are not cached yet are read with as few
+     * database queries as possible. Use this when processing larger lists of resources, e.g. for navigations.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.<p>
+     *
+     * @param resources the resources to read the properties for
+     * @param search if <code>true</code>, the properties of all parent folders of the resources
+     *      are merged with the resource properties.
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, keyed by the structure ids of the resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources, boolean search)
+    throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources, search);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
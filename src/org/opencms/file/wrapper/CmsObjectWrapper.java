@@ -52,6 +52,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -527,6 +529,35 @@ public class CmsObjectWrapper {
         }
     }
 
+    /**
+     * Reads the content of a resource as a stream.<p>
+     *
+     * Resources handled by one of the configured resource wrappers, and resources which get a
+     * UTF-8 marker added, are read with {@link #readFile(String, CmsResourceFilter)} since their
+     * content may be changed. All other contents are streamed directly from the VFS.<p>
+     *
+     * @param resource the resource to read the content for
+     *
+     * @return the content of the resource as a stream, which must be closed by the caller
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readContentStream(CmsResource)
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        boolean wrapped = needUtf8Marker(resource);
+        Iterator<I_CmsResourceWrapper> iter = getWrappers().iterator();
+        while (!wrapped && iter.hasNext()) {
+            wrapped = iter.next().isWrappedResource(m_cms, resource);
+        }
+        if (wrapped) {
+            CmsFile file = readFile(getSitePath(resource), CmsResourceFilter.IGNORE_EXPIRATION);
+            return new ByteArrayInputStream(file.getContents());
+        }
+        return m_cms.readContentStream(resource);
+    }
+
     /**
      * Reads a file resource (including it's binary content) from the VFS,
      * using the specified resource filter.<p>
@@ -38,24 +38,25 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Lists;
 
 /**
@@ -80,6 +81,9 @@ import com.google.common.collect.Lists;
  * This class is a simple data type that contains of a Map of CmsFlexCacheEntries,
  * with variations - Strings as keys.<p>
  *
+ * Both levels are concurrent maps, and the entries are organized in a segmented
+ * {@link CmsLruCache}, so lookups from concurrent requests do not block each other.<p>
+ *
  * Here's a short summary of used terms:
  * <ul>
  * <li><b>key:</b>
@@ -126,61 +130,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
-        }
-    }
-
-    /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
-     */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
-
-        /**
-         * Initialize the map with the given size.<p>
-         *
-         * @param maxSize the maximum number of key to cache
-         */
-        public CmsFlexKeyMap(int maxSize) {
-
-            super(maxSize);
-        }
-
-        /**
-         * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         *
-         * @param entry the entry to remove
-         *
-         * @return <code>true</code> to actually delete the entry
-         *
-         * @see LRUMap#removeLRU(LinkEntry)
-         */
-        @Override
-        protected boolean removeLRU(LinkEntry entry) {
-
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-
-            // make a copy to safely iterate over because the line "m_variationCache.remove(e)" modifies the variation map for the key
-            Collection<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
+            m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
     }
 
@@ -226,6 +176,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Online repository constant. */
     public static final String REPOSITORY_ONLINE = "online";
 
+    /** The estimated number of threads concurrently accessing the cache. */
+    private static final int CONCURRENCY_LEVEL = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
@@ -235,6 +188,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The Flex bucket configuration. */
     private CmsFlexBucketConfiguration m_bucketConfiguration;
 
+    /** Indicates if the output of cache entries should be stored outside of the Java heap. */
+    private boolean m_cacheOffHeap;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
@@ -265,20 +221,30 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         m_enabled = configuration.isCacheEnabled();
         m_cacheOffline = configuration.isCacheOffline();
+        m_cacheOffHeap = configuration.isCacheOffHeap();
 
         long maxCacheBytes = configuration.getMaxCacheBytes();
         long avgCacheBytes = configuration.getAvgCacheBytes();
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes, CONCURRENCY_LEVEL);
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            Cache<String, CmsFlexCacheVariation> keyCache = CacheBuilder.newBuilder().concurrencyLevel(
+                CONCURRENCY_LEVEL).maximumSize(maxKeys).removalListener(
+                    new RemovalListener<String, CmsFlexCacheVariation>() {
+
+                        public void onRemoval(RemovalNotification<String, CmsFlexCacheVariation> notification) {
+
+                            if (notification.wasEvicted()) {
+                                releaseVariations(notification.getValue());
+                            }
+                        }
+                    }).build();
+            m_keyCache = keyCache.asMap();
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
 
             OpenCms.addCmsEventListener(
                 this,
@@ -299,37 +265,31 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     }
 
     /**
-     * Copies the key set of a map while synchronizing on the map.<p>
+     * Copies the key set of a concurrent map.<p>
      *
      * @param map the map whose key set should be copied
      * @return the copied key set
      */
-    private static <K, V> Set<K> synchronizedCopyKeys(Map<K, V> map) {
+    private static <K, V> Set<K> copyKeys(Map<K, V> map) {
 
         if (map == null) {
             return new HashSet<K>();
         }
-        synchronized (map) {
-            return new HashSet<K>(map.keySet());
-        }
+        return new HashSet<K>(map.keySet());
     }
 
     /**
-     * Copies a map while synchronizing on it.<p>
+     * Copies a concurrent map.<p>
      *
      * @param map the map to copy
      * @return the copied map
      */
-    private static <K, V> Map<K, V> synchronizedCopyMap(Map<K, V> map) {
+    private static <K, V> Map<K, V> copyMap(Map<K, V> map) {
 
         if (map == null) {
             return new HashMap<K, V>();
         }
-
-        synchronized (map) {
-
-            return new HashMap<K, V>(map);
-        }
+        return new HashMap<K, V>(map);
     }
 
     /**
@@ -471,7 +431,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     public void dumpKeys(StringBuffer buffer) {
 
         synchronized (this) {
-            for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
+            for (Map.Entry<String, CmsFlexCacheVariation> entry : copyMap(m_keyCache).entrySet()) {
                 String key = entry.getKey();
                 CmsFlexCacheVariation variations = entry.getValue();
                 Map<String, I_CmsLruCacheObject> variationMap = variations.m_map;
@@ -534,7 +494,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        return synchronizedCopyKeys(m_keyCache);
+        return copyKeys(m_keyCache);
     }
 
     /**
@@ -558,7 +518,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         Object o = m_keyCache.get(key);
         if (o != null) {
-            return synchronizedCopyKeys(((CmsFlexCacheVariation)o).m_map);
+            return copyKeys(((CmsFlexCacheVariation)o).m_map);
         }
         return null;
     }
@@ -823,12 +783,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
 
-        Set<String> keys = synchronizedCopyKeys(m_keyCache);
+        Set<String> keys = copyKeys(m_keyCache);
         Iterator<String> i = keys.iterator();
         while (i.hasNext()) {
             String s = i.next();
             if (s.endsWith(suffix)) {
                 CmsFlexCacheVariation v = m_keyCache.get(s);
+                if (v == null) {
+                    // key has been evicted in the meantime
+                    continue;
+                }
                 if (entriesOnly) {
                     // Clear only entry
                     m_size -= v.m_map.size();
@@ -838,7 +802,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
                 } else {
                     // Clear key and entry
                     m_size -= v.m_map.size();
@@ -848,9 +812,6 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-
-                    v.m_map = null;
-                    v.m_key = null;
                     m_keyCache.remove(s);
                 }
             }
@@ -900,15 +861,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 }
                 synchronized (this) {
                     List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
-                    for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
+                    for (Map.Entry<String, CmsFlexCacheVariation> entry : copyMap(m_keyCache).entrySet()) {
                         CmsFlexCacheVariation variation = entry.getValue();
                         if (LOG.isDebugEnabled()) {
                             LOG.debug(p + "Processing entries for " + entry.getKey());
                         }
                         entriesToDelete.clear();
 
-                        for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : synchronizedCopyMap(
-                            variation.m_map).entrySet()) {
+                        for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : copyMap(variation.m_map).entrySet()) {
                             CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
                             totalEntries += 1;
                             BucketSet entryBucketSet = flexEntry.getBucketSet();
@@ -964,17 +924,21 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
         // create new set to avoid ConcurrentModificationExceptions
-        Set<String> cacheKeys = synchronizedCopyKeys(m_keyCache);
+        Set<String> cacheKeys = copyKeys(m_keyCache);
         Iterator<String> i = cacheKeys.iterator();
         while (i.hasNext()) {
             CmsFlexCacheVariation v = m_keyCache.get(i.next());
+            if (v == null) {
+                // key has been evicted in the meantime
+                continue;
+            }
             Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
             while (allEntries.hasNext()) {
                 I_CmsLruCacheObject nextObject = allEntries.next();
                 allEntries.remove();
                 m_variationCache.remove(nextObject);
             }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            v.m_map = new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
         m_size = 0;
     }
@@ -1091,6 +1055,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry, String variation) {
 
+        if (m_cacheOffHeap && !theCacheEntry.isOffHeap()) {
+            // move the output before the entry is added, so the LRU cache accounts for the off-heap costs
+            int maxObjectCosts = m_variationCache.getMaxObjectCosts();
+            if ((maxObjectCosts < 0) || (theCacheEntry.getLruCacheCosts() <= maxObjectCosts)) {
+                theCacheEntry.moveToOffHeap();
+            }
+        }
         CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
         if (o != null) {
             // We already have a variation map for this resource
@@ -1129,4 +1100,28 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Ensures that all variations referenced by a key are released
+     * if the key is evicted from the key cache.<p>
+     *
+     * @param v the variations of the evicted key
+     */
+    private void releaseVariations(CmsFlexCacheVariation v) {
+
+        if (v == null) {
+            return;
+        }
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        if ((m == null) || (m.size() == 0)) {
+            return;
+        }
+
+        // make a copy to safely iterate over because the line "m_variationCache.remove(e)" modifies the variation map for the key
+        Collection<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
+        for (I_CmsLruCacheObject e : entries) {
+            m_variationCache.remove(e);
+        }
+        m.clear();
+    }
+}
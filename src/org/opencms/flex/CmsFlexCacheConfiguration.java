@@ -49,6 +49,9 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if the cache is enabled or not. */
     private boolean m_cacheEnabled;
 
+    /** Indicates if the cached output should be stored outside of the Java heap. */
+    private boolean m_cacheOffHeap;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
@@ -181,6 +184,16 @@ public class CmsFlexCacheConfiguration {
         return m_cacheEnabled;
     }
 
+    /**
+     * Checks if the output of cached entries is stored outside of the Java heap.<p>
+     *
+     * @return true if the cached output is stored in direct byte buffers; otherwise false
+     */
+    public boolean isCacheOffHeap() {
+
+        return m_cacheOffHeap;
+    }
+
     /**
      * Checks the cacheOffline.<p>
      *
@@ -211,6 +224,26 @@ public class CmsFlexCacheConfiguration {
         m_cacheEnabled = enabled;
     }
 
+    /**
+     * Sets if the output of cached entries is stored outside of the Java heap.<p>
+     *
+     * @param cacheOffHeap the cacheOffHeap to set
+     */
+    public void setCacheOffHeap(boolean cacheOffHeap) {
+
+        m_cacheOffHeap = cacheOffHeap;
+    }
+
+    /**
+     * Sets if the output of cached entries is stored outside of the Java heap as a String.<p>
+     *
+     * @param cacheOffHeap the cacheOffHeap to set
+     */
+    public void setCacheOffHeap(String cacheOffHeap) {
+
+        setCacheOffHeap(Boolean.valueOf(cacheOffHeap.trim()).booleanValue());
+    }
+
     /**
      * Sets the cacheOffline.<p>
      *
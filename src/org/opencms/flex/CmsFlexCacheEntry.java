@@ -38,6 +38,7 @@ import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -62,6 +63,8 @@ import org.apache.commons.logging.Log;
  * nothing else will be cached.<p>
  *
  * The pre-generated output is saved in <code>byte[]</code> arrays.
+ * If the FlexCache is configured to store its output off-heap, the arrays are replaced by
+ * read-only slices of a direct {@link ByteBuffer} once the entry is added to the cache.
  * The include() calls are saved as Strings of the included resource name,
  * the parameters for the calls are saved in a HashMap.
  * The headers are saved in a HashMap.
@@ -103,6 +106,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A Map of cached headers for this resource. */
     private Map<String, List<String>> m_headers;
 
+    /** Indicates if the output of this cache entry is stored in a direct byte buffer. */
+    private boolean m_offHeap;
+
     /** Pointer to the next cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_next;
 
@@ -243,7 +249,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /**
      * Returns the list of data entries of this cache entry.<p>
      *
-     * Data entries are byte arrays representing some kind of output
+     * Data entries are byte arrays (or read-only {@link ByteBuffer} instances if the output
+     * is stored off-heap) representing some kind of output
      * or Strings representing include calls to other resources.<p>
      *
      * @return the list of data elements of this cache entry
@@ -324,6 +331,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns if the output of this cache entry is stored outside of the Java heap.<p>
+     *
+     * @return true if the output of this cache entry is stored in a direct byte buffer
+     */
+    public boolean isOffHeap() {
+
+        return m_offHeap;
+    }
+
     /**
      * Ensures that the expiration date is at most 'limit'.
      *
@@ -417,7 +434,11 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     }
                 } else {
                     try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        if (o instanceof ByteBuffer) {
+                            res.writeToOutputStream((ByteBuffer)o);
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
                     } catch (IOException e) {
                         CmsMessageContainer message = Messages.get().container(
                             Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
@@ -588,6 +609,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     str += "" + count + " - <cms:include target=" + o + ">\n";
                 } else if (o instanceof byte[]) {
                     str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                } else if (o instanceof ByteBuffer) {
+                    str += "" + count + " - <!--[" + ((ByteBuffer)o).remaining() + " bytes off-heap]-->\n";
                 } else {
                     str += "<!--[" + o.toString() + "]-->";
                 }
@@ -629,4 +652,54 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return result;
     }
 
+    /**
+     * Moves the cached output of this entry from the Java heap to a direct byte buffer.<p>
+     *
+     * All output chunks are copied to a single direct buffer, and each chunk is replaced by a read-only
+     * slice of that buffer. The cache costs of the entry are updated to the off-heap size, so this
+     * must only be called on a completed entry before it is added to the LRU cache.<p>
+     *
+     * @return true if the output was moved off-heap
+     */
+    boolean moveToOffHeap() {
+
+        if (!m_completed || m_offHeap || (m_elements == null)) {
+            return false;
+        }
+        int offHeapSize = 0;
+        int heapSize = 0;
+        for (Object o : m_elements) {
+            if (o instanceof byte[]) {
+                offHeapSize += ((byte[])o).length;
+                heapSize += CmsMemoryMonitor.getMemorySize(o);
+            }
+        }
+        if (offHeapSize == 0) {
+            return false;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(offHeapSize);
+        } catch (OutOfMemoryError e) {
+            // direct memory exhausted, keep the output on the heap
+            LOG.warn(e.getLocalizedMessage(), e);
+            return false;
+        }
+        List<Object> elements = new ArrayList<Object>(m_elements.size());
+        for (Object o : m_elements) {
+            if (o instanceof byte[]) {
+                byte[] bytes = (byte[])o;
+                ByteBuffer chunk = buffer.duplicate();
+                chunk.limit(buffer.position() + bytes.length);
+                buffer.put(bytes);
+                elements.add(chunk.slice().asReadOnlyBuffer());
+            } else {
+                elements.add(o);
+            }
+        }
+        m_elements = Collections.unmodifiableList(elements);
+        m_byteSize = (m_byteSize - heapSize) + offHeapSize;
+        m_offHeap = true;
+        return true;
+    }
 }
@@ -27,6 +27,8 @@
 
 package org.opencms.flex;
 
+import org.opencms.db.timing.CmsDefaultProfilingHandler;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -300,6 +302,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
         // push req/res to controller stack
         controller.push(w_req, w_res);
 
+        long start = System.nanoTime();
+        boolean cacheHit = false;
         // now that the req/res are on the stack, we need to make sure that they are removed later
         // that's why we have this try { ... } finally { ... } clause here
         try {
@@ -308,6 +312,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                 // caching is on, check if requested resource is already in cache
                 entry = cache.get(w_req.getCmsCacheKey());
                 if (entry != null) {
+                    cacheHit = true;
                     // the target is already in the cache
                     try {
                         if (LOG.isDebugEnabled()) {
@@ -496,6 +501,13 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
 
             // pop req/res from controller stack
             controller.pop();
+
+            if (f_req.isCacheable()) {
+                String key = cacheHit
+                ? CmsMetricsProfilingHandler.KEY_FLEXCACHE_HIT
+                : CmsMetricsProfilingHandler.KEY_FLEXCACHE_MISS;
+                CmsDefaultProfilingHandler.INSTANCE.putTime(key, System.nanoTime() - start);
+            }
         }
     }
 
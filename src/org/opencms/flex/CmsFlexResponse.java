@@ -37,10 +37,12 @@ import org.opencms.util.CmsRequestUtil;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -204,6 +206,19 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsFlexResponse.class);
 
+    /** Size of the transfer buffer used to write off-heap cache entries to a stream. */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    /** Per-thread transfer buffer used to write off-heap cache entries to a stream. */
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+
+        @Override
+        protected byte[] initialValue() {
+
+            return new byte[TRANSFER_BUFFER_SIZE];
+        }
+    };
+
     /** Map to save response headers belonging to a single include call in .*/
     private Map<String, List<String>> m_bufferHeaders;
 
@@ -1057,6 +1072,35 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * Writes the contents of an off-heap buffer to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     *
+     * @param buffer the buffer to write, its position is not changed
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(ByteBuffer buffer) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (m_out == null) {
+                initStream();
+            }
+            // In this case the buffer will not write to the servlet stream, but to it's internal buffer only
+            writeBuffer(buffer, m_out);
+        } else {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXRESPONSE_ERROR_WRITING_TO_OUTPUT_STREAM_0));
+            }
+            // The request is not buffered, so we can write directly to it's parents output stream
+            writeBuffer(buffer, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
@@ -1202,6 +1246,28 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         headers.put(name, values);
     }
 
+    /**
+     * Copies the remaining contents of a (direct) byte buffer to an output stream.<p>
+     *
+     * The servlet API only accepts byte arrays, so the buffer is copied in chunks
+     * using a small per-thread transfer array.<p>
+     *
+     * @param buffer the buffer to copy, its position is not changed
+     * @param out the output stream to write to
+     *
+     * @throws IOException in case something goes wrong writing to the stream
+     */
+    private void writeBuffer(ByteBuffer buffer, OutputStream out) throws IOException {
+
+        ByteBuffer source = buffer.duplicate();
+        byte[] chunk = TRANSFER_BUFFER.get();
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
     /**
      * This delivers cached sub-elements back to the stream.
      * Needed to overcome JSP buffering.<p>
@@ -1219,6 +1285,8 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
                 Object o = elements.get(i);
                 if (o instanceof byte[]) {
                     res.getOutputStream().write((byte[])o);
+                } else if (o instanceof ByteBuffer) {
+                    writeBuffer((ByteBuffer)o, res.getOutputStream());
                 } else {
                     if ((m_includeResults != null) && (m_includeResults.size() > count)) {
                         // make sure that we don't run behind end of list (should never happen, though)
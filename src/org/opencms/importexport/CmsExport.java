@@ -29,7 +29,6 @@ package org.opencms.importexport;
 
 import org.opencms.db.CmsDefaultUsers;
 import org.opencms.db.CmsResourceState;
-import org.opencms.file.CmsFile;
 import org.opencms.file.CmsFolder;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
@@ -67,14 +66,17 @@ import org.opencms.util.CmsXmlSaxWriter;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.codec.binary.Base64;
@@ -103,6 +105,9 @@ public class CmsExport {
     /** The cms context. */
     private CmsObject m_cms;
 
+    /** The reader for the file contents, if they are read with several threads. */
+    private CmsExportContentReader m_contentReader;
+
     /** Counter for the export. */
     private int m_exportCount;
 
@@ -172,6 +177,12 @@ public class CmsExport {
 
         try {
             Element exportNode = openExportFile(parameters.getExportMode());
+            if (m_parameters.getExportThreads() > 1) {
+                m_contentReader = new CmsExportContentReader(
+                    getCms(),
+                    m_exportWriter,
+                    m_parameters.getExportThreads());
+            }
 
             if (m_parameters.getModuleInfo() != null) {
                 // add the module element
@@ -232,6 +243,10 @@ public class CmsExport {
 
             throw new CmsImportExportException(message, ioe);
         } finally {
+            if (m_contentReader != null) {
+                m_contentReader.close();
+                m_contentReader = null;
+            }
             if (m_exportWriter != null) {
                 m_exportWriter.ensureZipStreamClosed();
             }
@@ -255,7 +270,8 @@ public class CmsExport {
             // get all files in folder
             List<CmsResource> subFiles = getCms().getFilesInFolder(folderName, CmsResourceFilter.IGNORE_EXPIRATION);
 
-            // walk through all files and export them
+            // walk through all files and collect the ones to export
+            List<CmsResource> filesToExport = new ArrayList<CmsResource>(subFiles.size());
             for (int i = 0; i < subFiles.size(); i++) {
                 CmsResource file = subFiles.get(i);
                 CmsResourceState state = file.getState();
@@ -273,16 +289,16 @@ public class CmsExport {
                         String export = getCms().getSitePath(file);
                         if (checkExportResource(export)) {
                             if (isInExportableProject(file)) {
-                                exportFile(getCms().readFile(export, CmsResourceFilter.IGNORE_EXPIRATION));
+                                filesToExport.add(file);
                             }
                         }
                     }
                 }
-                // release file header memory
-                subFiles.set(i, null);
             }
-            // all files are exported, release memory
+            // release memory
             subFiles = null;
+            exportFiles(filesToExport);
+            filesToExport = null;
 
             // walk through all subfolders and export them
             for (int i = 0; i < subFolders.size(); i++) {
@@ -341,7 +357,7 @@ public class CmsExport {
                 String fileName = fileNames.get(i);
 
                 try {
-                    CmsFile file = getCms().readFile(fileName, CmsResourceFilter.IGNORE_EXPIRATION);
+                    CmsResource file = getCms().readResource(fileName, CmsResourceFilter.IGNORE_EXPIRATION);
                     if (!file.getState().isDeleted() && !CmsWorkplace.isTemporaryFile(file)) {
                         if (checkExportResource(fileName)) {
                             if (m_parameters.isRecursive()) {
@@ -906,50 +922,61 @@ public class CmsExport {
     /**
      * Exports one single file with all its data and content.<p>
      *
+     * The content is streamed into the export, so large files are not loaded into memory as a whole.<p>
+     *
      * @param file the file to be exported
      *
-     * @throws CmsImportExportException if something goes wrong
+     * @throws CmsException if something goes wrong, e.g. if the file content can not be read
      * @throws SAXException if something goes wrong processing the manifest.xml
      * @throws IOException if the ZIP entry for the file could be appended to the ZIP archive
      */
-    protected void exportFile(CmsFile file) throws CmsImportExportException, SAXException, IOException {
+    protected void exportFile(CmsResource file) throws CmsException, SAXException, IOException {
 
-        String source = trimResourceName(getCms().getSitePath(file));
-        I_CmsReport report = getReport();
-        m_exportCount++;
-        report.print(
-            org.opencms.report.Messages.get().container(
-                org.opencms.report.Messages.RPT_SUCCESSION_1,
-                String.valueOf(m_exportCount)),
-            I_CmsReport.FORMAT_NOTE);
-        report.print(Messages.get().container(Messages.RPT_EXPORT_0), I_CmsReport.FORMAT_NOTE);
-        report.print(
-            org.opencms.report.Messages.get().container(
-                org.opencms.report.Messages.RPT_ARGUMENT_1,
-                getCms().getSitePath(file)));
-        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        exportFile(file, null);
+    }
 
-        // store content in zip-file
-        // check if the content of this resource was not already exported
-        if (!m_exportedResources.contains(file.getResourceId())) {
-            // write the file using the export writer
-            m_exportWriter.writeFile(file, source);
-            // add the resource id to the storage to mark that this resource was already exported
-            m_exportedResources.add(file.getResourceId());
-            // create the manifest-entries
-            appendResourceToManifest(file, true);
-        } else {
-            // only create the manifest-entries
-            appendResourceToManifest(file, false);
-        }
+    /**
+     * Exports the given files with all their data and content.<p>
+     *
+     * If the export uses several threads, the files and their contents are read ahead
+     * by the content reader, but they are still written to the export in the given order.<p>
+     *
+     * @param files the files to export
+     *
+     * @throws CmsException if something goes wrong, e.g. if the file content can not be read
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for a file could be appended to the ZIP archive
+     */
+    protected void exportFiles(List<CmsResource> files) throws CmsException, SAXException, IOException {
 
-        if (LOG.isInfoEnabled()) {
-            LOG.info(
-                Messages.get().getBundle().key(Messages.LOG_EXPORTING_OK_2, String.valueOf(m_exportCount), source));
+        if (m_contentReader == null) {
+            for (CmsResource file : files) {
+                exportFile(getCms().readResource(getCms().getSitePath(file), CmsResourceFilter.IGNORE_EXPIRATION));
+            }
+            return;
+        }
+        Iterator<CmsResource> it = files.iterator();
+        Deque<Future<CmsExportContentReader.Content>> pending = new ArrayDeque<>();
+        // the resource ids of the siblings which are read with their content
+        Set<CmsUUID> withContent = new HashSet<>();
+        try {
+            while (it.hasNext() || !pending.isEmpty()) {
+                while (it.hasNext() && (pending.size() < m_contentReader.getQueueSize())) {
+                    CmsResource file = it.next();
+                    pending.add(
+                        m_contentReader.read(
+                            getCms().getSitePath(file),
+                            trimResourceName(getCms().getSitePath(file)),
+                            !m_exportedResources.contains(file.getResourceId())
+                                && withContent.add(file.getResourceId())));
+                }
+                try (CmsExportContentReader.Content content = m_contentReader.get(pending.removeFirst())) {
+                    exportFile(content.getResource(), content);
+                }
+            }
+        } finally {
+            m_contentReader.cancel(pending);
         }
-        report.println(
-            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-            I_CmsReport.FORMAT_OK);
     }
 
     /**
@@ -1577,6 +1604,64 @@ public class CmsExport {
         return resourceName;
     }
 
+    /**
+     * Exports one single file with all its data and content.<p>
+     *
+     * @param file the file to be exported
+     * @param content the file as read by the content reader, or <code>null</code> to read the content here
+     *
+     * @throws CmsException if something goes wrong, e.g. if the file content can not be read
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for the file could be appended to the ZIP archive
+     */
+    private void exportFile(CmsResource file, CmsExportContentReader.Content content)
+    throws CmsException, SAXException, IOException {
+
+        String source = trimResourceName(getCms().getSitePath(file));
+        I_CmsReport report = getReport();
+        m_exportCount++;
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_1,
+                String.valueOf(m_exportCount)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORT_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                getCms().getSitePath(file)));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        // store content in zip-file
+        // check if the content of this resource was not already exported
+        if (!m_exportedResources.contains(file.getResourceId())) {
+            if ((content == null) || !content.isWritten()) {
+                // write the file using the export writer
+                m_exportWriter.writeFile(
+                    file,
+                    (content != null) && content.hasContent()
+                    ? content.openStream()
+                    : getCms().readContentStream(file),
+                    source);
+            }
+            // add the resource id to the storage to mark that this resource was already exported
+            m_exportedResources.add(file.getResourceId());
+            // create the manifest-entries
+            appendResourceToManifest(file, true);
+        } else {
+            // only create the manifest-entries
+            appendResourceToManifest(file, false);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(Messages.LOG_EXPORTING_OK_2, String.valueOf(m_exportCount), source));
+        }
+        report.println(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+            I_CmsReport.FORMAT_OK);
+    }
+
     /** Returns the manifest entry for the <code>&lt;datelastmodified&gt;</code> node of the resource.
      * Depending on the export.timestamp property, the time stamp from the VFS (default) or
      * special macros are used.
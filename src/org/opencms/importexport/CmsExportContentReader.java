@@ -0,0 +1,327 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.importexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads the files of an export with several threads, ahead of the thread writing the export.<p>
+ *
+ * Every file is read with its own copy of the CMS context. Contents up to {@link #MEMORY_LIMIT} bytes
+ * are kept in memory until they are written, larger contents are spooled to temporary files.
+ * In case the export is written to the file system, the reading threads write the files themselves,
+ * since there is no shared ZIP stream they would have to wait for.<p>
+ *
+ * The caller is responsible for limiting the number of files read ahead to {@link #getQueueSize()}.<p>
+ */
+public class CmsExportContentReader implements Closeable {
+
+    /**
+     * A file read for the export.<p>
+     */
+    public static class Content implements Closeable {
+
+        /** The content, if kept in memory. */
+        private byte[] m_data;
+
+        /** The resource. */
+        private CmsResource m_resource;
+
+        /** The temporary file the content was spooled to. */
+        private File m_spoolFile;
+
+        /** True if the file has already been written to the export. */
+        private boolean m_written;
+
+        /**
+         * Creates a new content object.<p>
+         *
+         * @param resource the resource
+         */
+        Content(CmsResource resource) {
+
+            m_resource = resource;
+        }
+
+        /**
+         * Deletes the temporary file the content was spooled to, if any.<p>
+         *
+         * @see java.io.Closeable#close()
+         */
+        public void close() {
+
+            if ((m_spoolFile != null) && m_spoolFile.exists() && !m_spoolFile.delete()) {
+                LOG.warn("Could not delete temporary export file " + m_spoolFile.getAbsolutePath());
+            }
+            m_spoolFile = null;
+            m_data = null;
+        }
+
+        /**
+         * Returns the resource.<p>
+         *
+         * @return the resource
+         */
+        public CmsResource getResource() {
+
+            return m_resource;
+        }
+
+        /**
+         * Returns if the content of the file has been read.<p>
+         *
+         * @return if the content of the file has been read
+         */
+        public boolean hasContent() {
+
+            return (m_data != null) || (m_spoolFile != null);
+        }
+
+        /**
+         * Returns if the file has already been written to the export by the reading thread.<p>
+         *
+         * @return if the file has already been written to the export
+         */
+        public boolean isWritten() {
+
+            return m_written;
+        }
+
+        /**
+         * Opens a stream for the content which has been read.<p>
+         *
+         * @return the stream for the content
+         *
+         * @throws IOException if the spooled content can not be read
+         */
+        public InputStream openStream() throws IOException {
+
+            if (m_spoolFile != null) {
+                return new FileInputStream(m_spoolFile);
+            }
+            return new ByteArrayInputStream(m_data);
+        }
+    }
+
+    /** The maximum size of a file content which is kept in memory until it is written. */
+    public static final int MEMORY_LIMIT = 1024 * 1024;
+
+    /** The number of files read ahead per thread. */
+    private static final int FILES_PER_THREAD = 4;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsExportContentReader.class);
+
+    /** The CMS context of the export. */
+    private CmsObject m_cms;
+
+    /** True if the reader has been closed. */
+    private volatile boolean m_closed;
+
+    /** The executor reading the files. */
+    private ExecutorService m_executor;
+
+    /** The export writer. */
+    private CmsExportHelper m_exportWriter;
+
+    /** The maximum number of files to read ahead. */
+    private int m_queueSize;
+
+    /**
+     * Creates a new content reader.<p>
+     *
+     * @param cms the CMS context of the export
+     * @param exportWriter the export writer
+     * @param threads the number of threads to read the files with
+     */
+    public CmsExportContentReader(CmsObject cms, CmsExportHelper exportWriter, int threads) {
+
+        m_cms = cms;
+        m_exportWriter = exportWriter;
+        m_queueSize = threads * FILES_PER_THREAD;
+        m_executor = Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("OpenCms-ExportReader-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Cancels reading the given files, and releases the contents which have already been read.<p>
+     *
+     * @param pending the files which have been read, or are still being read
+     */
+    public void cancel(Collection<Future<Content>> pending) {
+
+        for (Future<Content> future : pending) {
+            if (!future.cancel(true) && !future.isCancelled()) {
+                try {
+                    future.get().close();
+                } catch (Exception e) {
+                    // the file could not be read, there is nothing to release
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Stops the threads reading the files.<p>
+     *
+     * @see java.io.Closeable#close()
+     */
+    public void close() {
+
+        m_closed = true;
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Waits until the given file has been read and returns it.<p>
+     *
+     * @param future the file as returned by {@link #read(String, String, boolean)}
+     *
+     * @return the file
+     *
+     * @throws CmsException if the file could not be read from the VFS
+     * @throws IOException if the file could not be read or written
+     */
+    public Content get(Future<Content> future) throws CmsException, IOException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getLocalizedMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the maximum number of files which should be read ahead.<p>
+     *
+     * @return the maximum number of files which should be read ahead
+     */
+    public int getQueueSize() {
+
+        return m_queueSize;
+    }
+
+    /**
+     * Starts reading the file with the given site path.<p>
+     *
+     * @param sitePath the site path of the file
+     * @param name the name of the file in the export
+     * @param withContent if the content of the file should be read, this is only needed for the first sibling
+     *
+     * @return the file being read
+     */
+    public Future<Content> read(String sitePath, String name, boolean withContent) {
+
+        return m_executor.submit(() -> {
+            // the request context is not thread safe, so every file is read with its own copy
+            CmsObject cms = OpenCms.initCmsObject(m_cms);
+            CmsResource resource = cms.readResource(sitePath, CmsResourceFilter.IGNORE_EXPIRATION);
+            Content result = new Content(resource);
+            if (withContent) {
+                readContent(cms, result, name);
+                if (m_closed || Thread.currentThread().isInterrupted()) {
+                    // nobody will write the content, so don't leave the spooled file behind
+                    result.close();
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Reads the content of a file.<p>
+     *
+     * @param cms the CMS context to use
+     * @param content the file to read the content for
+     * @param name the name of the file in the export
+     *
+     * @throws CmsException if the content could not be read from the VFS
+     * @throws IOException if the content could not be spooled or written
+     */
+    private void readContent(CmsObject cms, Content content, String name) throws CmsException, IOException {
+
+        CmsResource resource = content.getResource();
+        if (m_exportWriter.isExportAsFiles()) {
+            // the export writer closes the stream
+            m_exportWriter.writeFile(resource, cms.readContentStream(resource), name);
+            content.m_written = true;
+            return;
+        }
+        try (InputStream in = cms.readContentStream(resource)) {
+            if (resource.getLength() <= MEMORY_LIMIT) {
+                content.m_data = IOUtils.toByteArray(in);
+            } else {
+                content.m_spoolFile = File.createTempFile("opencms-export", ".tmp");
+                Files.copy(in, content.m_spoolFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+    }
+}
@@ -29,20 +29,26 @@ package org.opencms.importexport;
 
 import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsXmlSaxWriter;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 
 import org.dom4j.io.SAXWriter;
@@ -55,9 +61,6 @@ import org.xml.sax.SAXException;
  */
 public class CmsExportHelper {
 
-    /** Length that can be safely written to ZIP output. */
-    private static final int SUB_LENGTH = 4096;
-
     private static final Log LOG = CmsLog.getLog(CmsExportHelper.class);
 
     /** The main export path. */
@@ -69,6 +72,9 @@ public class CmsExportHelper {
     /** Indicates if the resources are exported in one export .ZIP file or as individual files. */
     private boolean m_isExportAsFiles;
 
+    /** The temporary file the manifest is written to in case of a ZIP export. */
+    private File m_manifestFile;
+
     /** The SAX writer for the Manifest file. */
     private SAXWriter m_saxWriter;
 
@@ -105,8 +111,12 @@ public class CmsExportHelper {
             rfsFile.getParentFile().mkdirs();
             // create the export ZIP stream
             m_exportZipStream = new ZipOutputStream(new FileOutputStream(m_exportPath));
-            // delegate writing to a String writer
-            writer = new StringWriter(SUB_LENGTH);
+            // spool the manifest to a temporary file, it is copied to the ZIP file when the export is finished
+            m_manifestFile = File.createTempFile("opencms-export-manifest", ".xml");
+            writer = new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(m_manifestFile),
+                    OpenCms.getSystemInfo().getDefaultEncoding()));
         }
 
         // generate the SAX XML writer
@@ -140,6 +150,7 @@ public class CmsExportHelper {
                 LOG.info(e.getLocalizedMessage(), e);
             }
         }
+        deleteManifestFile();
     }
 
     /**
@@ -152,6 +163,18 @@ public class CmsExportHelper {
         return m_saxWriter;
     }
 
+    /**
+     * Returns if the resources are exported as individual files instead of one .ZIP file.<p>
+     *
+     * In this case {@link #writeFile(CmsResource, InputStream, String)} may be called by several threads at once.<p>
+     *
+     * @return if the resources are exported as individual files
+     */
+    public boolean isExportAsFiles() {
+
+        return m_isExportAsFiles;
+    }
+
     /**
      * Writes a single OpenCms VFS file to the export.<p>
      *
@@ -162,10 +185,31 @@ public class CmsExportHelper {
      */
     public void writeFile(CmsFile file, String name) throws IOException {
 
-        if (m_isExportAsFiles) {
-            writeFile2Rfs(file, name);
-        } else {
-            writeFile2Zip(file, name);
+        writeFile(file, new ByteArrayInputStream(file.getContents()), name);
+    }
+
+    /**
+     * Writes a single OpenCms VFS file to the export, reading the content from the given stream.<p>
+     *
+     * The content is copied in chunks, so large files are not loaded into memory as a whole.
+     * The content stream is closed by this method.<p>
+     *
+     * @param resource the OpenCms VFS file to write
+     * @param content the content of the file
+     * @param name the name of the file in the export
+     *
+     * @throws IOException in case of file access issues
+     */
+    public void writeFile(CmsResource resource, InputStream content, String name) throws IOException {
+
+        try {
+            if (m_isExportAsFiles) {
+                writeFile2Rfs(content, name);
+            } else {
+                writeFile2Zip(resource, content, name);
+            }
+        } finally {
+            content.close();
         }
     }
 
@@ -225,12 +269,12 @@ public class CmsExportHelper {
     /**
      * Writes a single OpenCms VFS file to the RFS export.<p>
      *
-     * @param file the OpenCms VFS file to write
+     * @param content the content of the OpenCms VFS file to write
      * @param name the name of the file in the export
      *
      * @throws IOException in case of file access issues
      */
-    protected void writeFile2Rfs(CmsFile file, String name) throws IOException {
+    protected void writeFile2Rfs(InputStream content, String name) throws IOException {
 
         String fileName = getRfsFileName(name);
         File rfsFile = new File(fileName);
@@ -239,25 +283,29 @@ public class CmsExportHelper {
         }
         rfsFile.createNewFile();
         FileOutputStream rfsFileOut = new FileOutputStream(rfsFile);
-        rfsFileOut.write(file.getContents());
-        rfsFileOut.close();
+        try {
+            IOUtils.copy(content, rfsFileOut);
+        } finally {
+            rfsFileOut.close();
+        }
     }
 
     /**
      * Writes a single OpenCms VFS file to the ZIP export.<p>
      *
-     * @param file the OpenCms VFS file to write
+     * @param resource the OpenCms VFS file to write
+     * @param content the content of the file
      * @param name the name of the file in the export
      *
      * @throws IOException in case of file access issues
      */
-    protected void writeFile2Zip(CmsFile file, String name) throws IOException {
+    protected void writeFile2Zip(CmsResource resource, InputStream content, String name) throws IOException {
 
         ZipEntry entry = new ZipEntry(name);
         // save the time of the last modification in the zip
-        entry.setTime(file.getDateLastModified());
+        entry.setTime(resource.getDateLastModified());
         m_exportZipStream.putNextEntry(entry);
-        m_exportZipStream.write(file.getContents());
+        IOUtils.copy(content, m_exportZipStream);
         m_exportZipStream.closeEntry();
     }
 
@@ -282,7 +330,7 @@ public class CmsExportHelper {
     /**
      * Writes the OpenCms manifest.xml file to the ZIP export.<p>
      *
-     * In case of the ZIP export the manifest is written to an internal StringBuffer
+     * In case of the ZIP export the manifest is written to a temporary file
      * first, which is then stored in the ZIP file when this method is called.<p>
      *
      * @param xmlSaxWriter the SAX writer to use
@@ -300,20 +348,9 @@ public class CmsExportHelper {
         ZipEntry entry = new ZipEntry(CmsImportExportManager.EXPORT_MANIFEST);
         m_exportZipStream.putNextEntry(entry);
 
-        // complex substring operation is required to ensure handling for very large export manifest files
-        StringBuffer result = ((StringWriter)xmlSaxWriter.getWriter()).getBuffer();
-        int steps = result.length() / SUB_LENGTH;
-        int rest = result.length() % SUB_LENGTH;
-        int pos = 0;
-        for (int i = 0; i < steps; i++) {
-            String sub = result.substring(pos, pos + SUB_LENGTH);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-            pos += SUB_LENGTH;
-        }
-        if (rest > 0) {
-            String sub = result.substring(pos, pos + rest);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-        }
+        // copy the spooled manifest, so very large manifest files are not kept in memory
+        Files.copy(m_manifestFile.toPath(), m_exportZipStream);
+        deleteManifestFile();
 
         // close the zip entry for the manifest XML document
         m_exportZipStream.closeEntry();
@@ -321,4 +358,15 @@ public class CmsExportHelper {
         // finally close the zip stream
         m_exportZipStream.close();
     }
+
+    /**
+     * Deletes the temporary manifest file, if there is one.<p>
+     */
+    private void deleteManifestFile() {
+
+        if ((m_manifestFile != null) && m_manifestFile.exists() && !m_manifestFile.delete()) {
+            LOG.warn("Could not delete temporary export manifest " + m_manifestFile.getAbsolutePath());
+        }
+        m_manifestFile = null;
+    }
 }
\ No newline at end of file
@@ -67,6 +67,9 @@ public class CmsExportParameters {
     /** If the resource data should be exported. */
     private boolean m_exportResourceData = true;
 
+    /** The number of threads used to read the file contents from the database. */
+    private int m_exportThreads = 1;
+
     /** If the system folder should be included in the export.*/
     private boolean m_includeSystemFolder = true;
 
@@ -253,6 +256,19 @@ public class CmsExportParameters {
         return m_exportMode;
     }
 
+    /**
+     * Returns the number of threads used to read the file contents from the database.<p>
+     *
+     * With more than one thread, the contents of the files are read ahead of the thread
+     * writing the export, otherwise all files are read and written one after the other.<p>
+     *
+     * @return the number of threads used to read the file contents
+     */
+    public int getExportThreads() {
+
+        return m_exportThreads;
+    }
+
     /**
      * Returns the module informations if to export a module.<p>
      *
@@ -490,6 +506,16 @@ public class CmsExportParameters {
         m_exportResourceData = exportResourceData;
     }
 
+    /**
+     * Sets the number of threads used to read the file contents from the database.<p>
+     *
+     * @param exportThreads the number of threads to set
+     */
+    public void setExportThreads(int exportThreads) {
+
+        m_exportThreads = Math.max(1, exportThreads);
+    }
+
     /**
      * Sets if to include the /system/ Folder.<p>
      *
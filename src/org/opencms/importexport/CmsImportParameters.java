@@ -34,6 +34,9 @@ package org.opencms.importexport;
  */
 public class CmsImportParameters {
 
+    /** If set, the import defers events and batches database writes, see {@link #isBulkImport()}. */
+    private boolean m_bulkImport;
+
     /** The path in the OpenCms VFS to import into.*/
     private String m_destinationPath;
 
@@ -80,6 +83,22 @@ public class CmsImportParameters {
         return m_path;
     }
 
+    /**
+     * Checks if the bulk import mode is enabled.<p>
+     *
+     * In bulk import mode, the resource change events of the imported resources are not fired per resource,
+     * but once for all resources after the resources have been imported. Relations are written with
+     * one batch per resource, and the links of the parseable resources are parsed in parallel.<p>
+     *
+     * Use this for large imports, e.g. site migrations, while no one else is working on the imported resources.<p>
+     *
+     * @return the bulk import flag
+     */
+    public boolean isBulkImport() {
+
+        return m_bulkImport;
+    }
+
     /**
      * Returns the keep permissions flags.
      * if set, the permissions set on existing resources will not be modified.<p>
@@ -101,6 +120,18 @@ public class CmsImportParameters {
         return m_xmlValidation;
     }
 
+    /**
+     * Sets the bulk import flag.<p>
+     *
+     * @param bulkImport the bulk import flag to set
+     *
+     * @see #isBulkImport()
+     */
+    public void setBulkImport(boolean bulkImport) {
+
+        m_bulkImport = bulkImport;
+    }
+
     /**
      * Sets the path in the OpenCms VFS to import into.<p>
      *
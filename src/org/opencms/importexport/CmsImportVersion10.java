@@ -56,6 +56,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.relations.I_CmsLinkParseable;
 import org.opencms.report.I_CmsReport;
@@ -90,6 +91,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipFile;
 
@@ -105,6 +111,7 @@ import org.xml.sax.SAXException;
 import com.google.common.base.Objects;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Adds the XML handler rules for import and export of resources and accounts.<p>
@@ -576,6 +583,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** The export version. */
     protected int m_version;
 
+    /** True if the resource events are deferred until the links are parsed, during a bulk import. */
+    private boolean m_deferringEvents;
+
     /**
      * Maps index of files in import to structure ids of imported resources.
      * Necessary because not all entries in the manifest may have a structure id, and even for entries
@@ -609,7 +619,23 @@ public class CmsImportVersion10 implements I_CmsImport {
      */
     public static void parseLinks(CmsObject cms, List<CmsResource> parseables, I_CmsReport report) {
 
-        int i = 0;
+        parseLinks(cms, parseables, report, 1);
+    }
+
+    /**
+     * Parses the links, rewriting the resources of each category with the given number of threads.<p>
+     *
+     * The categories themselves are still handled one after the other, since the resources of a
+     * category may depend on the resources of the previous categories being rewritten.<p>
+     *
+     * @param cms the CMS context to use
+     * @param parseables the list of resources for which to parse the links
+     * @param report the report
+     * @param threads the number of threads used to rewrite the resources of a category
+     */
+    public static void parseLinks(CmsObject cms, List<CmsResource> parseables, I_CmsReport report, int threads) {
+
+        AtomicInteger counter = new AtomicInteger();
 
         // group parseables into categories that need to be handled differently.
         //
@@ -637,75 +663,56 @@ public class CmsImportVersion10 implements I_CmsImport {
             resourcesByCategory.put(category, resource);
         }
 
-        for (LinkParsableCategory category : Arrays.asList(
-            LinkParsableCategory.config,
-            LinkParsableCategory.page,
-            LinkParsableCategory.other)) {
-
-            List<CmsResource> resourcesInCurrentCategory = resourcesByCategory.get(category);
-            resourcesInCurrentCategory.sort((a, b) -> a.getRootPath().compareTo(b.getRootPath()));
-            for (CmsResource parsableRes : resourcesInCurrentCategory) {
-                String resName = cms.getSitePath(parsableRes);
-
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(i + 1),
-                        String.valueOf(parseables.size())),
-                    I_CmsReport.FORMAT_NOTE);
-
-                LOG.info("Rewriting parsable resource: " + resName);
-                report.print(
-                    Messages.get().container(Messages.RPT_PARSE_LINKS_FOR_1, resName),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-                try {
-                    CmsFile file = cms.readFile(resName);
-                    // make sure the date last modified is kept...
-                    file.setDateLastModified(file.getDateLastModified());
-                    // make sure the file is locked
-                    CmsLock lock = cms.getLock(file);
-                    if (lock.isUnlocked()) {
-                        cms.lockResource(resName);
-                    } else if (!lock.isDirectlyOwnedInProjectBy(cms)) {
-                        cms.changeLock(resName);
-                    }
-                    // rewrite the file
-                    cms.getRequestContext().setAttribute(CmsXmlContent.AUTO_CORRECTION_ATTRIBUTE, Boolean.TRUE);
-                    try {
-                        cms.writeFile(file);
-                    } finally {
-                        cms.getRequestContext().removeAttribute(CmsXmlContent.AUTO_CORRECTION_ATTRIBUTE);
+        ExecutorService executor = null;
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(
+                threads,
+                new ThreadFactoryBuilder().setNameFormat("OpenCms-ImportParseLinks-%d").setDaemon(true).build());
+        }
+        try {
+            for (LinkParsableCategory category : Arrays.asList(
+                LinkParsableCategory.config,
+                LinkParsableCategory.page,
+                LinkParsableCategory.other)) {
+
+                List<CmsResource> resourcesInCurrentCategory = resourcesByCategory.get(category);
+                resourcesInCurrentCategory.sort((a, b) -> a.getRootPath().compareTo(b.getRootPath()));
+                if ((executor == null) || (resourcesInCurrentCategory.size() < 2)) {
+                    for (CmsResource parsableRes : resourcesInCurrentCategory) {
+                        String resName = cms.getSitePath(parsableRes);
+                        reportParseStart(report, resName, counter.incrementAndGet(), parseables.size());
+                        Throwable error = null;
+                        try {
+                            rewriteParseable(cms, resName);
+                        } catch (Throwable e) {
+                            error = e;
+                        }
+                        reportParseResult(report, resName, error);
                     }
+                } else {
+                    parseLinksInParallel(
+                        cms,
+                        resourcesInCurrentCategory,
+                        report,
+                        counter,
+                        parseables.size(),
+                        executor);
+                }
+                if ((category == LinkParsableCategory.config) && (resourcesInCurrentCategory.size() > 0)) {
+                    long start = System.currentTimeMillis();
+                    OpenCms.getADEManager().waitForFormatterCache(false);
+                    OpenCms.getADEManager().waitForCacheUpdate(false);
+                    long end = System.currentTimeMillis();
+                    long waitTime = end - start;
+                    long cumulative = cumulativeConfigWaitTime.addAndGet(waitTime);
+                    LOG.debug(
+                        "Waited " + (waitTime / 1000.0) + "s for configuration in parseLinks, total = " + cumulative);
 
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } catch (Throwable e) {
-                    report.addWarning(e);
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                        I_CmsReport.FORMAT_ERROR);
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMPORTEXPORT_REWRITING_1, resName));
-                        LOG.warn(e.getMessage(), e);
-                    }
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(e.getLocalizedMessage(), e);
-                    }
                 }
-                i++;
             }
-            if ((category == LinkParsableCategory.config) && (resourcesInCurrentCategory.size() > 0)) {
-                long start = System.currentTimeMillis();
-                OpenCms.getADEManager().waitForFormatterCache(false);
-                OpenCms.getADEManager().waitForCacheUpdate(false);
-                long end = System.currentTimeMillis();
-                long waitTime = end - start;
-                long cumulative = cumulativeConfigWaitTime.addAndGet(waitTime);
-                LOG.debug("Waited " + (waitTime / 1000.0) + "s for configuration in parseLinks, total = " + cumulative);
-
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
         }
         cms.getRequestContext().removeAttribute(CmsLogEntry.ATTR_LOG_ENTRY);
@@ -1605,6 +1612,9 @@ public class CmsImportVersion10 implements I_CmsImport {
 
         InputStream stream = null;
         m_helper = new CmsImportHelper(m_parameters);
+        if (m_parameters.isBulkImport()) {
+            m_deferringEvents = OpenCms.getEventManager().deferResourceEvents();
+        }
         try {
             m_helper.openFile();
             m_helper.cacheDtdSystemId(DTD_LOCATION, DTD_FILENAME, CmsConfigurationManager.DEFAULT_DTD_PREFIX);
@@ -1630,6 +1640,8 @@ public class CmsImportVersion10 implements I_CmsImport {
                 // noop
             }
             m_helper.closeFile();
+            // make sure no events are left behind if the import was aborted
+            fireDeferredEvents();
         }
     }
 
@@ -1974,6 +1986,8 @@ public class CmsImportVersion10 implements I_CmsImport {
                     I_CmsReport.FORMAT_NOTE);
                 getReport().print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
                 boolean withErrors = false;
+                // in a bulk import, the relations of a resource are written with a single batch
+                List<CmsRelation> relations = new ArrayList<>();
                 for (RelationData relationData : relationDataList) {
                     CmsResource target = null;
                     if (relationData.getTargetId() != null) {
@@ -1991,7 +2005,11 @@ public class CmsImportVersion10 implements I_CmsImport {
                         }
                     }
 
-                    if (target != null) {
+                    if ((target != null)
+                        && m_parameters.isBulkImport()
+                        && !relationData.getType().isDefinedInContent()) {
+                        relations.add(new CmsRelation(src, target, relationData.getType()));
+                    } else if (target != null) {
                         try {
                             getCms().importRelation(
                                 m_cms.getSitePath(src),
@@ -2009,6 +2027,20 @@ public class CmsImportVersion10 implements I_CmsImport {
                         }
                     }
                 }
+                if (!relations.isEmpty()) {
+                    try {
+                        getCms().importRelations(src, relations);
+                    } catch (CmsException e) {
+                        getReport().addWarning(e);
+                        withErrors = true;
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn(e.getLocalizedMessage());
+                        }
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(e.getLocalizedMessage(), e);
+                        }
+                    }
+                }
                 if (!withErrors) {
                     getReport().println(
                         org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -2501,6 +2533,8 @@ public class CmsImportVersion10 implements I_CmsImport {
      */
     public void rewriteParseables() {
 
+        // the caches need to be up to date before the links are parsed
+        fireDeferredEvents();
         if (m_parseables.isEmpty()) {
             return;
         }
@@ -2509,7 +2543,8 @@ public class CmsImportVersion10 implements I_CmsImport {
         CmsObject cms = getCms();
         cms.getRequestContext().setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, Boolean.FALSE);
         report.println(Messages.get().container(Messages.RPT_START_PARSE_LINKS_0), I_CmsReport.FORMAT_HEADLINE);
-        parseLinks(cms, m_parseables, report);
+        int threads = m_parameters.isBulkImport() ? Runtime.getRuntime().availableProcessors() : 1;
+        parseLinks(cms, m_parseables, report, threads);
         report.println(Messages.get().container(Messages.RPT_END_PARSE_LINKS_0), I_CmsReport.FORMAT_HEADLINE);
         m_parseables = null;
     }
@@ -3650,6 +3685,20 @@ public class CmsImportVersion10 implements I_CmsImport {
         }
     }
 
+    /**
+     * Fires the resource events deferred during a bulk import, if any.<p>
+     */
+    private void fireDeferredEvents() {
+
+        if (m_deferringEvents) {
+            m_deferringEvents = false;
+            int count = OpenCms.getEventManager().fireDeferredResourceEvents();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Fired the deferred events for " + count + " imported resources.");
+            }
+        }
+    }
+
     /**
      * Checks whether the content for the resource being imported exists either in the VFS or in the import file.<p>
      *
@@ -3673,4 +3722,137 @@ public class CmsImportVersion10 implements I_CmsImport {
         return false;
 
     }
+
+    /**
+     * Rewrites the given resources of a single category in parallel.<p>
+     *
+     * The report output for each resource is written in one piece after the resource has been rewritten,
+     * so the output of the different threads is not interleaved.<p>
+     *
+     * @param cms the CMS context to use
+     * @param resources the resources to rewrite
+     * @param report the report
+     * @param counter the counter for the rewritten resources
+     * @param total the total number of resources to rewrite
+     * @param executor the executor to rewrite the resources with
+     */
+    private static void parseLinksInParallel(
+        CmsObject cms,
+        List<CmsResource> resources,
+        I_CmsReport report,
+        AtomicInteger counter,
+        int total,
+        ExecutorService executor) {
+
+        Object logEntry = cms.getRequestContext().getAttribute(CmsLogEntry.ATTR_LOG_ENTRY);
+        List<Future<?>> futures = new ArrayList<>(resources.size());
+        for (CmsResource parsableRes : resources) {
+            String resName = cms.getSitePath(parsableRes);
+            futures.add(executor.submit(() -> {
+                Throwable error = null;
+                try {
+                    // the request context is not thread safe, so every task uses its own copy
+                    CmsObject taskCms = OpenCms.initCmsObject(cms);
+                    if (logEntry != null) {
+                        taskCms.getRequestContext().setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, logEntry);
+                    }
+                    rewriteParseable(taskCms, resName);
+                } catch (Throwable e) {
+                    error = e;
+                }
+                synchronized (report) {
+                    reportParseStart(report, resName, counter.incrementAndGet(), total);
+                    reportParseResult(report, resName, error);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // should not happen, all errors are handled by the tasks
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Reports the result of rewriting a parseable resource.<p>
+     *
+     * @param report the report
+     * @param resName the site path of the resource
+     * @param error the error which occurred while rewriting the resource, or <code>null</code>
+     */
+    private static void reportParseResult(I_CmsReport report, String resName, Throwable error) {
+
+        if (error == null) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+            return;
+        }
+        report.addWarning(error);
+        report.println(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+            I_CmsReport.FORMAT_ERROR);
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMPORTEXPORT_REWRITING_1, resName));
+            LOG.warn(error.getMessage(), error);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(error.getLocalizedMessage(), error);
+        }
+    }
+
+    /**
+     * Reports the start of rewriting a parseable resource.<p>
+     *
+     * @param report the report
+     * @param resName the site path of the resource
+     * @param index the index of the resource
+     * @param total the total number of resources to rewrite
+     */
+    private static void reportParseStart(I_CmsReport report, String resName, int index, int total) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                String.valueOf(index),
+                String.valueOf(total)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_PARSE_LINKS_FOR_1, resName), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+    }
+
+    /**
+     * Rewrites a single parseable resource, so that its links are parsed again.<p>
+     *
+     * @param cms the CMS context to use
+     * @param resName the site path of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private static void rewriteParseable(CmsObject cms, String resName) throws CmsException {
+
+        LOG.info("Rewriting parsable resource: " + resName);
+        CmsFile file = cms.readFile(resName);
+        // make sure the date last modified is kept...
+        file.setDateLastModified(file.getDateLastModified());
+        // make sure the file is locked
+        CmsLock lock = cms.getLock(file);
+        if (lock.isUnlocked()) {
+            cms.lockResource(resName);
+        } else if (!lock.isDirectlyOwnedInProjectBy(cms)) {
+            cms.changeLock(resName);
+        }
+        // rewrite the file
+        cms.getRequestContext().setAttribute(CmsXmlContent.AUTO_CORRECTION_ATTRIBUTE, Boolean.TRUE);
+        try {
+            cms.writeFile(file);
+        } finally {
+            cms.getRequestContext().removeAttribute(CmsXmlContent.AUTO_CORRECTION_ATTRIBUTE);
+        }
+    }
 }
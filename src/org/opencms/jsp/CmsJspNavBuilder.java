@@ -38,6 +38,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -555,8 +556,14 @@ public class CmsJspNavBuilder {
         }
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                r,
+                properties.get(r.getStructureId()),
+                resourceFilter,
+                false);
             if ((element != null)
                 && (includeAll
                     || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
@@ -810,8 +817,14 @@ public class CmsJspNavBuilder {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                r,
+                properties.get(r.getStructureId()),
+                resourceFilter,
+                shallow);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
                 result.add(element);
             }
@@ -835,15 +848,40 @@ public class CmsJspNavBuilder {
         CmsResourceFilter resourceFilter,
         boolean shallow) {
 
-        CmsResource resource;
+        return getNavigationForResource(sitePath, null, null, resourceFilter, shallow);
+    }
+
+    /**
+     * Returns a navigation element for the named resource, using the already read resource and properties if available.<p>
+     *
+     * @param sitePath the resource name to get the navigation information for,
+     *              must be a full path name, e.g. "/docs/index.html"
+     * @param resource the resource, or <code>null</code> if it should be read
+     * @param properties the properties of the resource, or <code>null</code> if they should be read
+     * @param resourceFilter the filter to use reading the resources
+     * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     *
+     * @return a navigation element for the given resource
+     */
+    private CmsJspNavElement getNavigationForResource(
+        String sitePath,
+        CmsResource resource,
+        List<CmsProperty> properties,
+        CmsResourceFilter resourceFilter,
+        boolean shallow) {
+
         Map<String, String> propertiesMap;
         int level = CmsResource.getPathLevel(sitePath);
         if (sitePath.endsWith("/")) {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
+            if (resource == null) {
+                resource = m_cms.readResource(sitePath, resourceFilter);
+            }
+            if (properties == null) {
+                properties = m_cms.readPropertyObjects(resource, false);
+            }
             propertiesMap = CmsProperty.toMap(properties);
             if (resource.isFolder()) {
                 if (resourceFilter.equals(CmsResourceFilter.DEFAULT)
@@ -883,4 +921,25 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Reads the properties of all given resources at once.<p>
+     *
+     * Navigations usually consist of many resources of the same folders, so reading the properties of a
+     * folder's content in one go saves a database query per navigation entry if they are not cached.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the properties by structure id, may be empty if reading the properties failed
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) {
+
+        try {
+            return m_cms.readPropertyObjects(resources, false);
+        } catch (CmsException e) {
+            // the properties will be read individually
+            LOG.warn(e.getLocalizedMessage(), e);
+            return Collections.emptyMap();
+        }
+    }
 }
@@ -34,6 +34,8 @@ import org.opencms.ade.containerpage.CmsElementUtil;
 import org.opencms.ade.containerpage.shared.CmsContainer;
 import org.opencms.ade.containerpage.shared.CmsContainerElement;
 import org.opencms.ade.containerpage.shared.CmsFormatterConfig;
+import org.opencms.db.timing.CmsDefaultProfilingHandler;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
@@ -1520,17 +1522,25 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
                                 subElementFormatterConfig.getJspRootPath());
                         }
                         if (shouldShowSubElementInContext) {
-                            CmsJspTagInclude.includeTagAction(
-                                pageContext,
-                                formatterSitePath,
-                                null,
-                                locale,
-                                false,
-                                isOnline && m_cacheable,
-                                null,
-                                CmsRequestUtil.getAttributeMap(req),
-                                req,
-                                res);
+                            long start = System.nanoTime();
+                            try {
+                                CmsJspTagInclude.includeTagAction(
+                                    pageContext,
+                                    formatterSitePath,
+                                    null,
+                                    locale,
+                                    false,
+                                    isOnline && m_cacheable,
+                                    null,
+                                    CmsRequestUtil.getAttributeMap(req),
+                                    req,
+                                    res);
+                            } finally {
+                                CmsDefaultProfilingHandler.INSTANCE.putTime(
+                                    CmsMetricsProfilingHandler.PREFIX_FORMATTER
+                                        + cms.getRequestContext().addSiteRoot(formatterSitePath),
+                                    System.nanoTime() - start);
+                            }
                         } else {
                             pageContext.getOut().print(DUMMY_ELEMENT);
                         }
@@ -1619,17 +1629,25 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
                         result = false;
                     } else {
                         // execute the formatter jsp for the given element uri
-                        CmsJspTagInclude.includeTagAction(
-                            pageContext,
-                            formatter,
-                            null,
-                            locale,
-                            false,
-                            isOnline && m_cacheable,
-                            null,
-                            CmsRequestUtil.getAtrributeMap(req),
-                            req,
-                            res);
+                        long start = System.nanoTime();
+                        try {
+                            CmsJspTagInclude.includeTagAction(
+                                pageContext,
+                                formatter,
+                                null,
+                                locale,
+                                false,
+                                isOnline && m_cacheable,
+                                null,
+                                CmsRequestUtil.getAtrributeMap(req),
+                                req,
+                                res);
+                        } finally {
+                            CmsDefaultProfilingHandler.INSTANCE.putTime(
+                                CmsMetricsProfilingHandler.PREFIX_FORMATTER
+                                    + cms.getRequestContext().addSiteRoot(formatter),
+                                System.nanoTime() - start);
+                        }
                     }
                 } catch (Exception e) {
                     if (LOG.isErrorEnabled()) {
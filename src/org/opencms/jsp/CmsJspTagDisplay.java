@@ -31,6 +31,8 @@ import org.opencms.ade.configuration.CmsADEConfigData;
 import org.opencms.ade.containerpage.CmsElementUtil;
 import org.opencms.ade.containerpage.shared.CmsContainerElement;
 import org.opencms.ade.containerpage.shared.CmsFormatterConfig;
+import org.opencms.db.timing.CmsDefaultProfilingHandler;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
@@ -208,6 +210,7 @@ public class CmsJspTagDisplay extends BodyTagSupport implements I_CmsJspTagParam
                             (HttpServletRequest)(context.getRequest()),
                             cms).setCacheContainerElement(element.editorHash(), element);
                     }
+                    long start = System.nanoTime();
                     try {
                         CmsJspTagInclude.includeTagAction(
                             context,
@@ -222,6 +225,10 @@ public class CmsJspTagDisplay extends BodyTagSupport implements I_CmsJspTagParam
                             response);
                     } catch (Exception e) {
                         LOG.error(e.getLocalizedMessage(), e);
+                    } finally {
+                        CmsDefaultProfilingHandler.INSTANCE.putTime(
+                            CmsMetricsProfilingHandler.PREFIX_FORMATTER + formatter.getJspRootPath(),
+                            System.nanoTime() - start);
                     }
                     if (openedEditable) {
                         CmsJspTagEdit.insertDirectEditEnd(context);
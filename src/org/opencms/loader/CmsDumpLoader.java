@@ -40,6 +40,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -48,6 +49,8 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
+
 /**
  * Dump loader for binary or other unprocessed resource types.<p>
  *
@@ -228,35 +231,19 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
-        // make sure we have the file contents available
-        CmsFile file = cms.readFile(resource);
-
         // set response status to "200 - OK" (required for static export "on-demand")
         res.setStatus(HttpServletResponse.SC_OK);
-        // set content length header
-        res.setContentLength(file.getContents().length);
-
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
+        // set content length header, the content itself is streamed in service()
+        byte[] contents = getAvailableContents(resource);
+        if (contents != null) {
+            res.setContentLength(contents.length);
         } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
+            res.setContentLengthLong(resource.getLength());
         }
 
-        service(cms, file, req, res);
+        setDateHeaders(resource, req, res);
+
+        service(cms, resource, req, res);
     }
 
     /**
@@ -265,7 +252,36 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
     throws CmsException, IOException {
 
-        res.getOutputStream().write(cms.readFile(resource).getContents());
+        byte[] contents = getAvailableContents(resource);
+        if (contents != null) {
+            res.getOutputStream().write(contents);
+            return;
+        }
+        // stream the content, so large files are not loaded into memory as a whole
+        InputStream in = cms.readContentStream(resource);
+        try {
+            IOUtils.copy(in, res.getOutputStream());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the contents of the given resource if it is a file that already has its contents loaded.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the already loaded contents, or <code>null</code> if the contents have to be read
+     */
+    protected byte[] getAvailableContents(CmsResource resource) {
+
+        if (resource instanceof CmsFile) {
+            byte[] contents = ((CmsFile)resource).getContents();
+            if ((contents != null) && (contents.length > 0)) {
+                return contents;
+            }
+        }
+        return null;
     }
 
     /**
@@ -300,4 +316,35 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
+
+    /**
+     * Sets the "Last-Modified" and "Expires" headers for the given resource,
+     * or the "no-cache" headers in case the request was send by a workplace user.<p>
+     *
+     * @param resource the resource to set the headers for
+     * @param req the current request
+     * @param res the current response
+     */
+    protected void setDateHeaders(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -39,16 +39,37 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Loader for images from the OpenCms VSF with integrated image scaling and processing capabilities.<p>
  *
@@ -59,10 +80,44 @@ import org.apache.commons.logging.Log;
  * For example, to scale an image to exact 800x600 pixel with center fitting and a background color of grey,
  * the following parameter String can be used: <code>w:800,h:600,t:0,c:c0c0c0</code>.<p>
  *
+ * Scaled versions are created by a bounded pool of scaling threads. Concurrent requests for the same
+ * scaled version wait for a single scaling operation, and cached versions are streamed directly from the disk cache
+ * with support for the "ETag" and "Range" headers.<p>
+ *
  * @since 6.2.0
  */
 public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener {
 
+    /**
+     * Scaling operation that removes itself from the map of running scaling operations when done.<p>
+     */
+    private static class CmsScalingTask extends FutureTask<File> {
+
+        /** The cache name of the scaled image. */
+        private String m_cacheName;
+
+        /**
+         * Creates a new scaling task.<p>
+         *
+         * @param cacheName the cache name of the scaled image
+         * @param callable the scaling operation
+         */
+        CmsScalingTask(String cacheName, Callable<File> callable) {
+
+            super(callable);
+            m_cacheName = cacheName;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done() {
+
+            m_scalingTasks.remove(m_cacheName, this);
+        }
+    }
+
     /** The configuration parameter for the OpenCms XML configuration to set the image down scale operation. */
     public static final String CONFIGURATION_DOWNSCALE = "image.scaling.downscale";
 
@@ -78,6 +133,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of queued scalings. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the time (ms) to wait for a scaling. */
+    public static final String CONFIGURATION_SCALING_TIMEOUT = "image.scaling.timeout";
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -87,6 +151,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID_IMAGE_LOADER = 2;
 
+    /** The default maximum number of queued scaling operations. */
+    public static final int SCALING_DEFAULT_QUEUE_SIZE = 64;
+
+    /** The default time (in milliseconds) to wait for a scaled image. */
+    public static final int SCALING_DEFAULT_TIMEOUT = 30000;
+
+    /** The time (in seconds) a client is asked to wait before retrying if the scaling queue is full. */
+    public static final int SCALING_RETRY_AFTER = 5;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
@@ -99,9 +172,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The executor running the image scaling operations. */
+    protected static ThreadPoolExecutor m_scalingExecutor;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
+    /** The currently running scaling operations, by cache name of the scaled image. */
+    private static final Map<String, Future<File>> m_scalingTasks = new ConcurrentHashMap<>();
+
     /**
      * Returns the image down scale parameters,
      * which is set with the {@link #CONFIGURATION_DOWNSCALE} configuration option.<p>
@@ -159,12 +238,106 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_enabled;
     }
 
+    /**
+     * Checks if the given "If-None-Match" header matches the given entity tag.<p>
+     *
+     * @param header the value of the "If-None-Match" header, may be <code>null</code>
+     * @param etag the entity tag of the current content
+     *
+     * @return <code>true</code> if the header matches the entity tag
+     */
+    protected static boolean isETagMatch(String header, String etag) {
+
+        if (header == null) {
+            return false;
+        }
+        for (String tag : CmsStringUtil.splitAsList(header, ',', true)) {
+            if (tag.startsWith("W/")) {
+                // weak comparison is sufficient for "If-None-Match"
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the given "Range" header for content of the given length.<p>
+     *
+     * Only a single byte range is supported. If the header is missing, malformed or requests multiple ranges,
+     * <code>null</code> is returned and the full content should be send. If the range can not be satisfied,
+     * an empty array is returned. Otherwise the result contains the first and the last byte position
+     * of the requested range.<p>
+     *
+     * @param header the value of the "Range" header, may be <code>null</code>
+     * @param length the length of the content
+     *
+     * @return the first and last byte position of the range, an empty array or <code>null</code>
+     */
+    protected static long[] parseRange(String header, long length) {
+
+        if ((header == null) || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if ((dash < 0) || (spec.indexOf(',') >= 0)) {
+            // malformed or multiple ranges, send the full content
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // suffix range, e.g. "bytes=-500" for the last 500 bytes
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return null;
+                }
+                if ((suffix == 0) || (length == 0)) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if ((start < 0) || (end < start)) {
+                    return null;
+                }
+                if (start >= length) {
+                    return new long[0];
+                }
+                end = Math.min(end, length - 1);
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /** The name of the configured image cache repository. */
     protected String m_imageRepositoryFolder;
 
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The maximum number of scaling operations waiting for a free scaling thread. */
+    protected int m_scalingQueueSize = SCALING_DEFAULT_QUEUE_SIZE;
+
+    /** The number of scaling threads, if 0 the number of available processors is used. */
+    protected int m_scalingThreads;
+
+    /** The time (in milliseconds) to wait for a scaled image before giving up. */
+    protected int m_scalingTimeout = SCALING_DEFAULT_TIMEOUT;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -201,6 +374,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(paramValue, SCALING_DEFAULT_QUEUE_SIZE, paramName);
+            }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(paramValue, 0, paramName);
+            }
+            if (CONFIGURATION_SCALING_TIMEOUT.equals(paramName)) {
+                m_scalingTimeout = CmsStringUtil.getIntValue(paramValue, SCALING_DEFAULT_TIMEOUT, paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -245,6 +427,11 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutdownNow();
+            m_scalingExecutor = null;
+        }
+        m_scalingTasks.clear();
     }
 
     /**
@@ -260,6 +447,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         result.put(CONFIGURATION_SCALING_ENABLED, String.valueOf(m_enabled));
         result.put(CONFIGURATION_IMAGE_FOLDER, m_imageRepositoryFolder);
+        result.put(CONFIGURATION_SCALING_THREADS, String.valueOf(m_scalingThreads));
+        result.put(CONFIGURATION_SCALING_QUEUE_SIZE, String.valueOf(m_scalingQueueSize));
+        result.put(CONFIGURATION_SCALING_TIMEOUT, String.valueOf(m_scalingTimeout));
         return result;
     }
 
@@ -272,60 +462,6 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return RESOURCE_LOADER_ID_IMAGE_LOADER;
     }
 
-    /**
-     * Returns a scaled version of the given OpenCms VFS image resource.<p>
-     *
-     * All results are cached in disk.
-     * If the scaled version does not exist in the cache, it is created.
-     * Unscaled versions of the images are also stored in the cache.<p>
-     *
-     * @param cms the current users OpenCms context
-     * @param resource the base VFS resource for the image
-     * @param scaler the configured image scaler
-     *
-     * @return a scaled version of the given OpenCms VFS image resource
-     *
-     * @throws IOException in case of errors accessing the disk based cache
-     * @throws CmsException in case of errors accessing the OpenCms VFS
-     */
-    protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
-    throws IOException, CmsException {
-
-        String cacheParam = scaler.isValid() ? scaler.toString() : null;
-        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
-        byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
-
-        CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
-        } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                if (scaler.getType() == 8) {
-                    // only need the focal point for mode 8
-                    scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
-                }
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
-            }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
-        }
-        return file;
-    }
-
     /**
      * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
      */
@@ -341,6 +477,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        // initialize the scaling thread pool
+        if (m_scalingExecutor == null) {
+            int threads = m_scalingThreads > 0 ? m_scalingThreads : Runtime.getRuntime().availableProcessors();
+            m_scalingExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(Math.max(1, m_scalingQueueSize)),
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: Image scaling-%d").setDaemon(true).build());
+            m_scalingExecutor.allowCoreThreadTimeOut(true);
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -350,6 +498,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_POOL_3,
+                    Integer.valueOf(m_scalingExecutor.getMaximumPoolSize()),
+                    Integer.valueOf(m_scalingQueueSize),
+                    Integer.valueOf(m_scalingTimeout)));
         }
     }
 
@@ -367,7 +521,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
-            // load the file from the cache
+            if (!(resource instanceof CmsFile)) {
+                File cacheFile = getScaledImageFile(cms, resource, scaler, false);
+                if (cacheFile == null) {
+                    // scaling is overloaded, let the client retry later instead of queuing up more requests
+                    res.setHeader(CmsRequestUtil.HEADER_RETRY_AFTER, String.valueOf(SCALING_RETRY_AFTER));
+                    res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    return;
+                }
+                try {
+                    // stream the scaled image directly from the cache
+                    serveCacheFile(resource, cacheFile, req, res);
+                    return;
+                } catch (NoSuchFileException e) {
+                    // the cached file has just been removed by a cache cleanup, fall through
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+            // load the file from the cache, the content of a given file must be modified (e.g. for static export)
             CmsFile file = getScaledImage(cms, resource, scaler);
             // now perform standard load operation inherited from dump loader
             super.load(cms, file, req, res);
@@ -376,4 +547,286 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             super.load(cms, resource, req, res);
         }
     }
+
+    /**
+     * Returns the entity tag for the given cached image file.<p>
+     *
+     * The name of the cached file already contains hash codes of the image resource state
+     * and the scaling parameters, so it identifies the content.<p>
+     *
+     * @param cacheFile the cached image file
+     * @param length the length of the cached image file
+     *
+     * @return the entity tag for the given cached image file
+     */
+    protected String getETag(File cacheFile, long length) {
+
+        return "\"" + Integer.toHexString(cacheFile.getName().hashCode()) + "-" + Long.toHexString(length) + "\"";
+    }
+
+    /**
+     * Returns a scaled version of the given OpenCms VFS image resource.<p>
+     *
+     * All results are cached in disk.
+     * If the scaled version does not exist in the cache, it is created.
+     * Unscaled versions of the images are also stored in the cache.<p>
+     *
+     * If the given resource is a file, e.g. for the static export, this waits until the scaled version
+     * is available, or scales the image in the calling thread if the scaling queue is full.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     *
+     * @return a scaled version of the given OpenCms VFS image resource
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS,
+     *      or if the given resource is no file and the scaled version is not available
+     *      because the image scaling is overloaded
+     */
+    protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
+    throws IOException, CmsException {
+
+        String cacheParam = scaler.isValid() ? scaler.toString() : null;
+        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        byte[] content = null;
+        if (getScaledImageFile(cms, resource, scaler, resource instanceof CmsFile) != null) {
+            content = m_vfsDiskCache.getCacheContent(cacheName);
+        }
+        if (content == null) {
+            // the image is not scaled in the current thread, this would only add more load to the scaling
+            throw new CmsLoaderException(
+                Messages.get().container(Messages.ERR_IMAGE_SCALING_UNAVAILABLE_1, resource.getRootPath()));
+        }
+
+        CmsFile file;
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
+        } else {
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
+        }
+        // save the content in the file
+        file.setContents(content);
+        return file;
+    }
+
+    /**
+     * Returns the disk cache file with a scaled version of the given OpenCms VFS image resource.<p>
+     *
+     * If the scaled version does not exist in the cache, it is created by the scaling thread pool.
+     * Concurrent calls for the same scaled version share a single scaling operation.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param wait if <code>true</code>, wait for the scaling without timeout and scale the image
+     *      in the calling thread if the scaling queue is full
+     *
+     * @return the disk cache file with the scaled version, or <code>null</code> if not waiting and the scaling
+     *      queue is full or the scaled version was not created within the configured timeout
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected File getScaledImageFile(CmsObject cms, CmsResource resource, CmsImageScaler scaler, boolean wait)
+    throws IOException, CmsException {
+
+        String cacheParam = scaler.isValid() ? scaler.toString() : null;
+        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        File cacheFile = m_vfsDiskCache.getCacheFile(cacheName);
+        if (cacheFile != null) {
+            return cacheFile;
+        }
+        // the scaling uses its own context, since the current thread may stop waiting for it
+        CmsObject scaleCms = OpenCms.initCmsObject(cms);
+        return getScalingResult(cacheName, () -> scaleImage(scaleCms, resource, scaler, cacheName), wait);
+    }
+
+    /**
+     * Returns the result of the scaling operation for the given disk cache file.<p>
+     *
+     * If no scaling operation for the disk cache file is running, the given operation is started in the
+     * scaling thread pool. Concurrent calls for the same disk cache file share a single scaling operation.<p>
+     *
+     * A waiting caller never gets <code>null</code>: it waits for the running scaling operation without timeout,
+     * and runs the given operation in the calling thread if the scaling queue is full.<p>
+     *
+     * @param cacheName the name of the disk cache file
+     * @param scaling the scaling operation to start if none is running
+     * @param wait if <code>true</code>, wait for the scaling operation without timeout
+     *
+     * @return the result of the scaling operation, or <code>null</code> if not waiting and the scaling queue
+     *      is full or the scaling operation did not finish within the configured timeout
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected File getScalingResult(String cacheName, Callable<File> scaling, boolean wait)
+    throws IOException, CmsException {
+
+        Future<File> result = m_scalingTasks.get(cacheName);
+        if (result == null) {
+            CmsScalingTask task = new CmsScalingTask(cacheName, scaling);
+            result = m_scalingTasks.putIfAbsent(cacheName, task);
+            if (result == null) {
+                result = task;
+                try {
+                    m_scalingExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // cancelling also releases all other requests already waiting for this task
+                    task.cancel(false);
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_REJECTED_1, cacheName));
+                    return wait ? scaleInCurrentThread(scaling) : null;
+                }
+            }
+        }
+        try {
+            return wait ? result.get() : result.get(m_scalingTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_SCALING_TIMEOUT_2,
+                    cacheName,
+                    Integer.valueOf(m_scalingTimeout)));
+        } catch (CancellationException e) {
+            // the scaling was rejected by the executor
+            LOG.debug(e.getLocalizedMessage(), e);
+            if (wait) {
+                return scaleInCurrentThread(scaling);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+        return null;
+    }
+
+    /**
+     * Scales the given image and saves the result in the disk cache.<p>
+     *
+     * @param cms the OpenCms context to use for reading the image
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the disk cache file to write
+     *
+     * @return the disk cache file with the scaled image
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected File scaleImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler, String cacheName)
+    throws IOException, CmsException {
+
+        CmsFile file = cms.readFile(resource);
+        byte[] content = file.getContents();
+        if (scaler.isValid()) {
+            if (scaler.getType() == 8) {
+                // only need the focal point for mode 8
+                scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
+            }
+            // valid scaling parameters found, scale the content
+            content = scaler.scaleImage(file);
+        }
+        m_vfsDiskCache.saveCacheFile(cacheName, content);
+        return new File(cacheName);
+    }
+
+    /**
+     * Streams the given disk cache file to the response.<p>
+     *
+     * Supports conditional requests using the "If-None-Match" header and partial requests
+     * for a single byte range using the "Range" and "If-Range" headers.<p>
+     *
+     * @param resource the base VFS resource for the image
+     * @param cacheFile the disk cache file to send
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException in case of errors reading the cache file or writing the response
+     */
+    protected void serveCacheFile(CmsResource resource, File cacheFile, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        // the channel keeps reading the opened file, even if the cache entry is replaced concurrently
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            String etag = getETag(cacheFile, length);
+            boolean workplaceUser = CmsWorkplaceManager.isWorkplaceUser(req);
+            if (!workplaceUser && isETagMatch(req.getHeader(CmsRequestUtil.HEADER_IF_NONE_MATCH), etag)) {
+                res.setHeader(CmsRequestUtil.HEADER_ETAG, etag);
+                res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            long[] range = null;
+            String ifRange = req.getHeader(CmsRequestUtil.HEADER_IF_RANGE);
+            if ((ifRange == null) || ifRange.equals(etag)) {
+                range = parseRange(req.getHeader(CmsRequestUtil.HEADER_RANGE), length);
+            }
+            res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, "bytes");
+            res.setHeader(CmsRequestUtil.HEADER_ETAG, etag);
+            setDateHeaders(resource, req, res);
+            if ((range != null) && (range.length == 0)) {
+                res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, "bytes */" + length);
+                res.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            long position = 0;
+            long count = length;
+            if (range != null) {
+                position = range[0];
+                count = (range[1] - range[0]) + 1;
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader(
+                    CmsRequestUtil.HEADER_CONTENT_RANGE,
+                    "bytes " + range[0] + "-" + range[1] + "/" + length);
+            } else {
+                res.setStatus(HttpServletResponse.SC_OK);
+            }
+            res.setContentLengthLong(count);
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            while (count > 0) {
+                long written = channel.transferTo(position, count, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                count -= written;
+            }
+        }
+    }
+
+    /**
+     * Runs the given scaling operation in the calling thread.<p>
+     *
+     * @param scaling the scaling operation
+     *
+     * @return the result of the scaling operation
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    private File scaleInCurrentThread(Callable<File> scaling) throws IOException, CmsException {
+
+        try {
+            return scaling.call();
+        } catch (IOException | CmsException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -30,6 +30,8 @@ package org.opencms.loader;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsVfsConfiguration;
+import org.opencms.db.timing.CmsDefaultProfilingHandler;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
@@ -1191,7 +1193,14 @@ public class CmsResourceManager {
 
         res.setContentType(getMimeType(resource.getName(), cms.getRequestContext().getEncoding()));
         I_CmsResourceLoader loader = getLoader(resource);
-        loader.load(cms, resource, req, res);
+        long start = System.nanoTime();
+        try {
+            loader.load(cms, resource, req, res);
+        } finally {
+            CmsDefaultProfilingHandler.INSTANCE.putTime(
+                CmsMetricsProfilingHandler.PREFIX_LOADER + loader.getClass().getName(),
+                System.nanoTime() - start);
+        }
     }
 
     /**
@@ -0,0 +1,155 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * Dispatch statistics for the event listeners of one class.<p>
+ *
+ * Collected by the {@link CmsEventManager} for every event delivered to a listener.
+ * The queue time is only recorded for events delivered to an {@link I_CmsAsyncEventListener}.<p>
+ *
+ * @see CmsEventManager#getListenerStatistics()
+ */
+public class CmsEventListenerStatistics {
+
+    /** The number of events delivered. */
+    private long m_count;
+
+    /** The number of events dropped because the queue of an asynchronous listener stayed full. */
+    private long m_dropped;
+
+    /** The maximum time in nanoseconds a listener needed to process an event. */
+    private long m_maxTime;
+
+    /** The total time in nanoseconds events have waited in the queue of an asynchronous listener. */
+    private long m_queueTime;
+
+    /** The total time in nanoseconds the listeners needed to process the events. */
+    private long m_totalTime;
+
+    /**
+     * Returns the average time in milliseconds a listener needed to process an event.<p>
+     *
+     * @return the average time in milliseconds a listener needed to process an event
+     */
+    public synchronized double getAverageTime() {
+
+        return m_count == 0 ? 0 : (m_totalTime / 1000000.0) / m_count;
+    }
+
+    /**
+     * Returns the number of events delivered.<p>
+     *
+     * @return the number of events delivered
+     */
+    public synchronized long getCount() {
+
+        return m_count;
+    }
+
+    /**
+     * Returns the number of events dropped because the queue of an asynchronous listener stayed full.<p>
+     *
+     * @return the number of events dropped
+     */
+    public synchronized long getDropped() {
+
+        return m_dropped;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a listener needed to process an event.<p>
+     *
+     * @return the maximum time in milliseconds a listener needed to process an event
+     */
+    public synchronized double getMaxTime() {
+
+        return m_maxTime / 1000000.0;
+    }
+
+    /**
+     * Returns the total time in milliseconds events have waited in the queue of an asynchronous listener.<p>
+     *
+     * @return the total time in milliseconds events have waited in the queue
+     */
+    public synchronized double getQueueTime() {
+
+        return m_queueTime / 1000000.0;
+    }
+
+    /**
+     * Returns the total time in milliseconds the listeners needed to process the events.<p>
+     *
+     * @return the total time in milliseconds the listeners needed to process the events
+     */
+    public synchronized double getTotalTime() {
+
+        return m_totalTime / 1000000.0;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+
+        return String.format(
+            "[count=%d, dropped=%d, total=%.1fms, avg=%.1fms, max=%.1fms, queued=%.1fms]",
+            Long.valueOf(m_count),
+            Long.valueOf(m_dropped),
+            Double.valueOf(getTotalTime()),
+            Double.valueOf(getAverageTime()),
+            Double.valueOf(getMaxTime()),
+            Double.valueOf(getQueueTime()));
+    }
+
+    /**
+     * Records an event dropped because the queue of an asynchronous listener stayed full.<p>
+     */
+    protected synchronized void recordDropped() {
+
+        m_dropped++;
+    }
+
+    /**
+     * Records the delivery of one event.<p>
+     *
+     * @param time the time in nanoseconds the listener needed to process the event
+     * @param queueTime the time in nanoseconds the event waited in the queue of an asynchronous listener
+     */
+    protected synchronized void record(long time, long queueTime) {
+
+        m_count++;
+        m_totalTime += time;
+        m_queueTime += queueTime;
+        if (time > m_maxTime) {
+            m_maxTime = time;
+        }
+    }
+}
@@ -27,14 +27,28 @@
 
 package org.opencms.main;
 
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Manager that controls the OpenCms event system.
  *
@@ -44,6 +58,18 @@ import org.apache.commons.logging.Log;
  * Events can be used in OpenCms to notify custom event listeners that certain system events have happened.
  * Event listeners have to implement the interface {@link org.opencms.main.I_CmsEventListener}.<p>
  *
+ * Listeners implementing {@link org.opencms.main.I_CmsAsyncEventListener} receive their events
+ * asynchronously, each one from its own single threaded executor with a bounded event queue.
+ * If the queue of a listener is full, the thread firing the event waits for the listener to catch up,
+ * for at most {@link #ASYNC_QUEUE_TIMEOUT} milliseconds, before the event is dropped for this listener.
+ * Events are never delivered to an asynchronous listener in the firing thread while its executor is running,
+ * so every asynchronous listener receives its events one after the other, in the order they were fired.
+ * For all listeners, the time needed to process the events is collected in
+ * {@link CmsEventListenerStatistics}, see {@link #getListenerStatistics()}.<p>
+ *
+ * A thread can defer the resource change events it fires, so that they are delivered as one event
+ * for all changed resources, see {@link #deferResourceEvents()}.<p>
+ *
  * @since 7.0.0
  *
  * @see org.opencms.main.CmsEvent
@@ -51,21 +77,38 @@ import org.apache.commons.logging.Log;
  */
 public class CmsEventManager {
 
+    /** The maximum number of events queued for an asynchronous event listener. */
+    public static final int ASYNC_QUEUE_CAPACITY = 1000;
+
+    /** The time in milliseconds to wait for space in the full queue of an asynchronous event listener. */
+    public static final long ASYNC_QUEUE_TIMEOUT = 5000;
+
     /** Required as template for event list generation. */
     protected static final I_CmsEventListener[] EVENT_LIST = new I_CmsEventListener[0];
 
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsEventManager.class);
 
+    /** The executors delivering the events to the asynchronous event listeners. */
+    private Map<I_CmsEventListener, ThreadPoolExecutor> m_asyncExecutors;
+
+    /** The resources changed by the deferred resource events of the current thread, by structure id. */
+    private ThreadLocal<Map<CmsUUID, CmsResource>> m_deferredResources = new ThreadLocal<>();
+
     /** Stores the active event listeners. */
     private Map<Integer, List<I_CmsEventListener>> m_eventListeners;
 
+    /** The dispatch statistics, with the listener class name as key. */
+    private Map<String, CmsEventListenerStatistics> m_listenerStatistics;
+
     /**
      * Create a new instance of an OpenCms event manager.<p>
      */
     public CmsEventManager() {
 
         m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>();
+        m_asyncExecutors = new IdentityHashMap<I_CmsEventListener, ThreadPoolExecutor>();
+        m_listenerStatistics = new ConcurrentHashMap<String, CmsEventListenerStatistics>();
     }
 
     /**
@@ -104,9 +147,54 @@ public class CmsEventManager {
                     listeners.add(listener);
                 }
             }
+            if ((listener instanceof I_CmsAsyncEventListener) && !m_asyncExecutors.containsKey(listener)) {
+                m_asyncExecutors.put(listener, createAsyncExecutor(listener));
+            }
         }
     }
 
+    /**
+     * Starts deferring the resource change events fired by the current thread.<p>
+     *
+     * Until {@link #fireDeferredResourceEvents()} is called, events about created or modified resources
+     * and their properties fired by the current thread are not delivered to the listeners.
+     * Instead, the changed resources are collected and delivered with a single
+     * {@link I_CmsEventListener#EVENT_RESOURCES_AND_PROPERTIES_MODIFIED} event.
+     * All other events are delivered immediately.<p>
+     *
+     * @return <code>true</code> if deferring has been started,
+     *      <code>false</code> if the current thread already defers its resource change events
+     */
+    public boolean deferResourceEvents() {
+
+        if (m_deferredResources.get() != null) {
+            return false;
+        }
+        m_deferredResources.set(new LinkedHashMap<CmsUUID, CmsResource>());
+        return true;
+    }
+
+    /**
+     * Stops deferring the resource change events fired by the current thread,
+     * and fires a single event for all resources changed in the meantime.<p>
+     *
+     * @return the number of changed resources the event has been fired for
+     *
+     * @see #deferResourceEvents()
+     */
+    public int fireDeferredResourceEvents() {
+
+        Map<CmsUUID, CmsResource> resources = m_deferredResources.get();
+        m_deferredResources.remove();
+        if ((resources == null) || resources.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_RESOURCES, new ArrayList<CmsResource>(resources.values()));
+        fireEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED, data));
+        return resources.size();
+    }
+
     /**
      * Notify all event listeners that a particular event has occurred.<p>
      *
@@ -114,6 +202,10 @@ public class CmsEventManager {
      */
     public void fireEvent(CmsEvent event) {
 
+        Map<CmsUUID, CmsResource> deferredResources = m_deferredResources.get();
+        if ((deferredResources != null) && deferResourceEvent(deferredResources, event)) {
+            return;
+        }
         fireEventHandler(m_eventListeners.get(event.getTypeInteger()), event);
         fireEventHandler(m_eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
     }
@@ -139,6 +231,17 @@ public class CmsEventManager {
         fireEvent(new CmsEvent(type, data));
     }
 
+    /**
+     * Returns the dispatch statistics of all event listeners that have received events,
+     * with the listener class name as key.<p>
+     *
+     * @return the dispatch statistics of the event listeners
+     */
+    public Map<String, CmsEventListenerStatistics> getListenerStatistics() {
+
+        return Collections.unmodifiableMap(new TreeMap<String, CmsEventListenerStatistics>(m_listenerStatistics));
+    }
+
     /**
      * Removes a cms event listener.<p>
      *
@@ -152,9 +255,80 @@ public class CmsEventManager {
                 List<I_CmsEventListener> listeners = m_eventListeners.get(it.next());
                 listeners.remove(listener);
             }
+            ThreadPoolExecutor executor = m_asyncExecutors.remove(listener);
+            if (executor != null) {
+                // already queued events are still delivered
+                executor.shutdown();
+            }
         }
     }
 
+    /**
+     * Shuts down the executors of the asynchronous event listeners,
+     * after the events already queued have been delivered.<p>
+     *
+     * Events fired after the shutdown are delivered synchronously.<p>
+     *
+     * @throws InterruptedException if interrupted while waiting for the executors to terminate
+     */
+    public void shutdown() throws InterruptedException {
+
+        List<ThreadPoolExecutor> executors;
+        synchronized (m_eventListeners) {
+            executors = new ArrayList<ThreadPoolExecutor>(m_asyncExecutors.values());
+        }
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+        for (ThreadPoolExecutor executor : executors) {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Delivers the event to a single event listener.<p>
+     *
+     * Asynchronous event listeners receive the event from their executor,
+     * all other listeners directly in the current thread.<p>
+     *
+     * @param listener the listener to deliver the event to
+     * @param event the event to deliver
+     */
+    protected void dispatchEvent(final I_CmsEventListener listener, final CmsEvent event) {
+
+        if (listener instanceof I_CmsAsyncEventListener) {
+            ThreadPoolExecutor executor;
+            synchronized (m_eventListeners) {
+                executor = m_asyncExecutors.get(listener);
+            }
+            if (executor != null) {
+                final long queued = System.nanoTime();
+                Runnable task = new Runnable() {
+
+                    public void run() {
+
+                        invokeListener(listener, event, System.nanoTime() - queued);
+                    }
+                };
+                try {
+                    executor.execute(task);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the queue is full or the executor has been shut down
+                    if (!executor.isShutdown()) {
+                        // wait for the listener to catch up, delivering the event in this thread
+                        // would break the order of the events and run the listener concurrently
+                        if (!enqueueEvent(executor, task)) {
+                            dropEvent(listener, event);
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+        invokeListener(listener, event, 0);
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      *
@@ -170,17 +344,8 @@ public class CmsEventManager {
                 I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
                 // loop through all registered event listeners
                 for (int i = 0; i < list.length; i++) {
-                    try {
-                        // fire the event
-                        list[i].cmsEvent(event);
-                    } catch (Throwable t) {
-                        LOG.error(
-                            Messages.get().getBundle().key(
-                                Messages.ERR_CALLING_EVENT_LISTENER_FAILED_2,
-                                list[i].getClass().getName(),
-                                event.toString()),
-                            t);
-                    }
+                    // fire the event
+                    dispatchEvent(list[i], event);
                 }
             }
         } else {
@@ -223,17 +388,8 @@ public class CmsEventManager {
                             list[i],
                             Integer.valueOf(i),
                             event.toString()));
-                    try {
-                        // fire the event
-                        list[i].cmsEvent(event);
-                    } catch (Throwable t) {
-                        LOG.error(
-                            Messages.get().getBundle().key(
-                                Messages.ERR_CALLING_EVENT_LISTENER_FAILED_2,
-                                list[i].getClass().getName(),
-                                event.toString()),
-                            t);
-                    }
+                    // fire the event
+                    dispatchEvent(list[i], event);
                     LOG.debug(
                         Messages.get().getBundle().key(
                             Messages.LOG_DEBUG_EVENT_END_LISTENER_3,
@@ -266,6 +422,155 @@ public class CmsEventManager {
     protected void initialize(CmsEventManager base) {
 
         m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>(base.getEventListeners());
+        synchronized (base.getEventListeners()) {
+            m_asyncExecutors = new IdentityHashMap<I_CmsEventListener, ThreadPoolExecutor>(base.m_asyncExecutors);
+        }
+        m_listenerStatistics = base.m_listenerStatistics;
+    }
+
+    /**
+     * Calls the event listener and records the dispatch statistics.<p>
+     *
+     * @param listener the listener to call
+     * @param event the event to deliver
+     * @param queueTime the time in nanoseconds the event has waited in the queue of an asynchronous listener
+     */
+    protected void invokeListener(I_CmsEventListener listener, CmsEvent event, long queueTime) {
+
+        long start = System.nanoTime();
+        try {
+            listener.cmsEvent(event);
+        } catch (Throwable t) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.ERR_CALLING_EVENT_LISTENER_FAILED_2,
+                    listener.getClass().getName(),
+                    event.toString()),
+                t);
+        }
+        long time = System.nanoTime() - start;
+        getStatistics(listener).record(time, queueTime);
+    }
 
+    /**
+     * Creates the executor delivering the events to an asynchronous event listener.<p>
+     *
+     * @param listener the asynchronous event listener
+     *
+     * @return the executor for the listener
+     */
+    private ThreadPoolExecutor createAsyncExecutor(I_CmsEventListener listener) {
+
+        return new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(ASYNC_QUEUE_CAPACITY),
+            new ThreadFactoryBuilder().setNameFormat(
+                "OpenCms: Event-" + listener.getClass().getSimpleName() + "-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Collects the resources changed by the given event, if it is a resource change event that can be deferred.<p>
+     *
+     * @param deferredResources the resources changed by the deferred events, by structure id
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the event has been deferred
+     */
+    private boolean deferResourceEvent(Map<CmsUUID, CmsResource> deferredResources, CmsEvent event) {
+
+        Map<String, Object> data = event.getData();
+        if ((data == null) || data.containsKey(I_CmsEventListener.KEY_SKIPINDEX)) {
+            // events that should not trigger indexing can not be merged with the other events
+            return false;
+        }
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                Object resource = data.get(I_CmsEventListener.KEY_RESOURCE);
+                if (!(resource instanceof CmsResource)) {
+                    return false;
+                }
+                deferredResources.put(((CmsResource)resource).getStructureId(), (CmsResource)resource);
+                return true;
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                Object resources = data.get(I_CmsEventListener.KEY_RESOURCES);
+                if (!(resources instanceof List)) {
+                    return false;
+                }
+                for (Object res : (List<?>)resources) {
+                    if (res instanceof CmsResource) {
+                        deferredResources.put(((CmsResource)res).getStructureId(), (CmsResource)res);
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records an event dropped for an asynchronous event listener because its queue stayed full.<p>
+     *
+     * @param listener the listener
+     * @param event the dropped event
+     */
+    private void dropEvent(I_CmsEventListener listener, CmsEvent event) {
+
+        LOG.error(
+            Messages.get().getBundle().key(
+                Messages.LOG_EVENT_QUEUE_FULL_3,
+                listener.getClass().getName(),
+                event.toString(),
+                String.valueOf(ASYNC_QUEUE_TIMEOUT)));
+        getStatistics(listener).recordDropped();
+    }
+
+    /**
+     * Waits for space in the full queue of an asynchronous event listener to queue the given event.<p>
+     *
+     * @param executor the executor of the listener
+     * @param task the task delivering the event
+     *
+     * @return <code>true</code> if the event has been queued
+     */
+    private boolean enqueueEvent(ThreadPoolExecutor executor, Runnable task) {
+
+        try {
+            if (!executor.getQueue().offer(task, ASYNC_QUEUE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        // the executor may have been shut down meanwhile, and would not pick up the event anymore
+        return !(executor.isShutdown() && executor.getQueue().remove(task));
+    }
+
+    /**
+     * Returns the statistics for the given listener, creating them if required.<p>
+     *
+     * @param listener the listener
+     *
+     * @return the statistics for the listener
+     */
+    private CmsEventListenerStatistics getStatistics(I_CmsEventListener listener) {
+
+        String name = listener.getClass().getName();
+        CmsEventListenerStatistics statistics = m_listenerStatistics.get(name);
+        if (statistics == null) {
+            statistics = new CmsEventListenerStatistics();
+            CmsEventListenerStatistics existing = m_listenerStatistics.putIfAbsent(name, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
     }
 }
\ No newline at end of file
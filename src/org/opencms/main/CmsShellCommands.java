@@ -644,6 +644,20 @@ class CmsShellCommands implements I_CmsShellCommands {
      */
     public void exportAllResources(String exportFile, boolean isReducedExportMode) throws Exception {
 
+        exportAllResources(exportFile, isReducedExportMode, 1);
+    }
+
+    /**
+     * Exports all resources from the current site root to a ZIP file,
+     * reading the file contents with the given number of threads.<p>
+     *
+     * @param exportFile the name (absolute path) of the ZIP file to export to
+     * @param isReducedExportMode flag, indicating if the reduced export mode should be used
+     * @param threads the number of threads used to read the file contents
+     * @throws Exception if something goes wrong
+     */
+    public void exportAllResources(String exportFile, boolean isReducedExportMode, int threads) throws Exception {
+
         List<String> exportPaths = new ArrayList<String>(1);
         exportPaths.add("/");
 
@@ -661,6 +675,7 @@ class CmsShellCommands implements I_CmsShellCommands {
             true,
             false,
             isReducedExportMode ? ExportMode.REDUCED : ExportMode.DEFAULT);
+        params.setExportThreads(threads);
         vfsExportHandler.setExportParams(params);
 
         OpenCms.getImportExportManager().exportData(
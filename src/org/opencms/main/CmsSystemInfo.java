@@ -174,6 +174,9 @@ public class CmsSystemInfo {
     /** The device selector instance. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
+    /** Indicates if the content of historical versions is stored compressed. */
+    private boolean m_historyCompressed;
+
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
@@ -718,6 +721,16 @@ public class CmsSystemInfo {
         return getContextPath() + WORKPLACE_PATH;
     }
 
+    /**
+     * Returns if the content of historical versions is stored compressed.<p>
+     *
+     * @return if the content of historical versions is stored compressed
+     */
+    public boolean isHistoryCompressed() {
+
+        return m_historyCompressed;
+    }
+
     /**
      * Returns if the VFS version history is enabled.<p>
      *
@@ -738,6 +751,18 @@ public class CmsSystemInfo {
         return m_restrictDetailContents;
     }
 
+    /**
+     * Sets if the content of historical versions is stored compressed.<p>
+     *
+     * Content already stored in the history is not changed by this setting.<p>
+     *
+     * @param historyCompressed if true, the content of historical versions is stored compressed
+     */
+    public void setHistoryCompressed(boolean historyCompressed) {
+
+        m_historyCompressed = historyCompressed;
+    }
+
     /**
      * Sets the project in which time stamps for the content notification are read.<p>
      *
@@ -0,0 +1,52 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+/**
+ * Event listeners implementing this interface receive their events asynchronously.<p>
+ *
+ * The event manager delivers the events for each asynchronous listener
+ * in a dedicated background thread with a bounded event queue, so that a slow listener
+ * does not delay the thread firing the event or the other listeners.
+ * Events are delivered to a listener in the order they have been fired. If the queue of
+ * a listener is full, the firing thread waits for at most
+ * {@link org.opencms.main.CmsEventManager#ASYNC_QUEUE_TIMEOUT} milliseconds for space in the queue.
+ * If the queue is still full, the event is dropped for this listener; dropped events are logged
+ * and counted in the listener statistics.<p>
+ *
+ * Since the event is processed after the firing code has continued, asynchronous listeners
+ * must not rely on event data that is only valid during the firing call, like the
+ * database context in {@link I_CmsEventListener#KEY_DBCONTEXT} or the report in
+ * {@link I_CmsEventListener#KEY_REPORT}.<p>
+ *
+ * @see org.opencms.main.CmsEventManager
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    // marker interface only
+}
@@ -237,6 +237,7 @@ public interface I_CmsEventListener {
      * <li><code>{@link #KEY_PUBLISHID}</code>: the ID of the publish task in the publish history</li>
      * <li><code>{@link #KEY_PROJECTID}</code>: the ID of the project that has been published</li>
      * <li><code>{@link #KEY_DBCONTEXT}</code>: the current users database context</li>
+     * <li><code>{@link #KEY_PUBLISHED_PATHS}</code>: (optional) the root paths affected by the publish operation</li>
      * </ul>
      *
      * @see org.opencms.publish.CmsPublishManager#publishProject(org.opencms.file.CmsObject)
@@ -418,6 +419,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a project id in the data map. */
     String KEY_PROJECTID = "projectId";
 
+    /** Key name for passing a List of root paths affected by a publish operation in the data map. */
+    String KEY_PUBLISHED_PATHS = "publishedPaths";
+
     /** Key name for passing a publish history id in the data map. */
     String KEY_PUBLISHID = "publishHistoryId";
 
@@ -53,6 +53,7 @@ import org.opencms.db.CmsSecurityManager;
 import org.opencms.db.CmsSqlManager;
 import org.opencms.db.CmsSubscriptionManager;
 import org.opencms.db.timing.CmsDefaultProfilingHandler;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.db.timing.CmsThreadStatsTreeProfilingHandler;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
@@ -110,6 +111,7 @@ import org.opencms.security.twofactor.CmsTwoFactorAuthenticationHandler;
 import org.opencms.site.CmsSite;
 import org.opencms.site.CmsSiteManagerImpl;
 import org.opencms.site.CmsSiteMatcher;
+import org.opencms.site.xmlsitemap.CmsXmlSitemapCache;
 import org.opencms.staticexport.CmsDefaultLinkSubstitutionHandler;
 import org.opencms.staticexport.CmsLinkManager;
 import org.opencms.staticexport.CmsStaticExportManager;
@@ -137,6 +139,7 @@ import org.opencms.xml.xml2json.I_CmsApiAuthorizationHandler;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.security.Security;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -1548,6 +1551,7 @@ public final class OpenCmsCore {
             systemConfiguration.isHistoryEnabled(),
             systemConfiguration.getHistoryVersions(),
             systemConfiguration.getHistoryVersionsAfterDeletion());
+        getSystemInfo().setHistoryCompressed(systemConfiguration.isHistoryCompressed());
         // set mail configuration
         getSystemInfo().setMailSettings(systemConfiguration.getMailSettings());
         // set HTTP authentication settings
@@ -1774,6 +1778,9 @@ public final class OpenCmsCore {
             // initialize the VFS bundle manager
             m_vfsBundleManager = new CmsVfsBundleManager(adminCms);
 
+            // initialize the XML sitemap cache
+            CmsXmlSitemapCache.INSTANCE.initialize(initCmsObject(adminCms));
+
             // initialize the workplace manager
             m_workplaceManager.initialize(initCmsObject(adminCms));
 
@@ -2108,6 +2115,15 @@ public final class OpenCmsCore {
                 } catch (Exception e) {
                     LOG.debug(e.getLocalizedMessage(), e);
                 }
+            } else if (CmsMetricsProfilingHandler.HANDLER_METRICS.equals(remainingPath)) {
+                if (!OpenCms.getRoleManager().hasRole(cms, CmsRole.ADMINISTRATOR)) {
+                    res.sendError(HttpServletResponse.SC_FORBIDDEN);
+                    return;
+                }
+                res.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+                res.setHeader(CmsRequestUtil.HEADER_CACHE_CONTROL, CmsRequestUtil.HEADER_VALUE_MAX_AGE + "0");
+                res.getOutputStream().write(
+                    CmsMetricsProfilingHandler.INSTANCE.toPrometheusText().getBytes(StandardCharsets.UTF_8));
             }
         } catch (Exception e) {
             LOG.error(e.getLocalizedMessage(), e);
@@ -2357,6 +2373,16 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // deliver the events still queued for asynchronous listeners while all managers are available
+                    if (m_eventManager != null) {
+                        m_eventManager.shutdown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
@@ -2731,6 +2757,9 @@ public final class OpenCmsCore {
             }
         }
 
+        // collect request latencies from now on, i.e. only after the startup profiling above is finished
+        CmsDefaultProfilingHandler.INSTANCE.addHandler(CmsMetricsProfilingHandler.INSTANCE);
+
         try {
             CmsDiagnosticsMXBean.register();
         } catch (Throwable e) {
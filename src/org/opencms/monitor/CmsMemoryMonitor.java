@@ -174,7 +174,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private static final int MAX_DEPTH = 5;
 
     /** Cache for access control lists. */
-    private Map<String, CmsAccessControlList> m_cacheAccessControlList;
+    private Map<Object, CmsAccessControlList> m_cacheAccessControlList;
 
     /** A temporary cache for XML content definitions. */
     private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
@@ -210,13 +210,13 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsProperty> m_cacheProperty;
 
     /** Cache for property lists. */
-    private Map<String, List<CmsProperty>> m_cachePropertyList;
+    private Map<Object, List<CmsProperty>> m_cachePropertyList;
 
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
 
     /** Cache for resources. */
-    private Map<String, CmsResource> m_cacheResource;
+    private Map<Object, CmsResource> m_cacheResource;
 
     /** Cache for resource lists. */
     private Map<String, List<CmsResource>> m_cacheResourceList;
@@ -242,6 +242,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** A temporary cache to avoid multiple readings of often used files from the VFS. */
     private Map<String, byte[]> m_cacheXmlTemporaryEntity;
 
+    /** The root paths the entries of the path dependent caches depend on, by cache type. */
+    private Map<CacheType, Map<Object, String>> m_cacheDependencies = new ConcurrentHashMap<CacheType, Map<Object, String>>();
+
     /** The memory monitor configuration. */
     private CmsMemoryMonitorConfiguration m_configuration;
 
@@ -570,7 +573,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param acl the acl to cache
      */
-    public void cacheACL(String key, CmsAccessControlList acl) {
+    public void cacheACL(Object key, CmsAccessControlList acl) {
 
         if (m_disabled.get(CacheType.ACL) != null) {
             return;
@@ -578,6 +581,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheAccessControlList.put(key, acl);
     }
 
+    /**
+     * Caches the given acl under the given cache key.<p>
+     *
+     * The entry is only invalidated on publishing if the given resource or one of its parent folders is published.<p>
+     *
+     * @param key the cache key
+     * @param acl the acl to cache
+     * @param rootPath the root path of the resource the acl belongs to
+     */
+    public void cacheACL(Object key, CmsAccessControlList acl, String rootPath) {
+
+        if (m_disabled.get(CacheType.ACL) != null) {
+            return;
+        }
+        addCacheDependency(CacheType.ACL, key, rootPath);
+        m_cacheAccessControlList.put(key, acl);
+    }
+
     /**
      * Caches the given content definition under the given cache key.<p>
      *
@@ -680,6 +701,27 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cachePermission.put(key, permission);
     }
 
+    /**
+     * Caches the given permission check result under the given cache key.<p>
+     *
+     * The entry is only invalidated on publishing if the given resource or one of its parent folders is published.<p>
+     *
+     * @param key the cache key
+     * @param permission the permission check result to cache
+     * @param rootPath the root path of the checked resource
+     */
+    public void cachePermission(
+        String key,
+        I_CmsPermissionHandler.CmsPermissionCheckResult permission,
+        String rootPath) {
+
+        if (m_disabled.get(CacheType.PERMISSION) != null) {
+            return;
+        }
+        addCacheDependency(CacheType.PERMISSION, key, rootPath);
+        m_cachePermission.put(key, permission);
+    }
+
     /**
      * Caches the given project under its id AND the fully qualified name.<p>
      *
@@ -728,11 +770,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param propertyList the property list to cache
      */
-    public void cachePropertyList(String key, List<CmsProperty> propertyList) {
+    public void cachePropertyList(Object key, List<CmsProperty> propertyList) {
+
+        if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
+            return;
+        }
+        m_cachePropertyList.put(key, propertyList);
+    }
+
+    /**
+     * Caches the given property list under the given cache key.<p>
+     *
+     * The entry is only invalidated on publishing if the given resource or one of its parent folders is published.<p>
+     *
+     * @param key the cache key
+     * @param propertyList the property list to cache
+     * @param rootPath the root path of the resource the properties were read from
+     */
+    public void cachePropertyList(Object key, List<CmsProperty> propertyList, String rootPath) {
 
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
         }
+        addCacheDependency(CacheType.PROPERTY_LIST, key, rootPath);
         m_cachePropertyList.put(key, propertyList);
     }
 
@@ -788,11 +848,14 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param resource the resource to cache
      */
-    public void cacheResource(String key, CmsResource resource) {
+    public void cacheResource(Object key, CmsResource resource) {
 
         if (m_disabled.get(CacheType.RESOURCE) != null) {
             return;
         }
+        if (resource != null) {
+            addCacheDependency(CacheType.RESOURCE, key, resource.getRootPath());
+        }
         m_cacheResource.put(key, resource);
     }
 
@@ -814,6 +877,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheResourceList.put(key, resourceList);
     }
 
+    /**
+     * Caches the given resource list under the given cache key.<p>
+     *
+     * The entry is only invalidated on publishing if the given folder, one of its parent folders
+     * or a resource below the given folder is published.<p>
+     *
+     * @param key the cache key
+     * @param resourceList the resource list to cache
+     * @param rootPath the root path of the folder the resources were read from
+     */
+    public void cacheResourceList(String key, List<CmsResource> resourceList, String rootPath) {
+
+        if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
+            return;
+        }
+        if ((resourceList instanceof CmsDriverManager.ResourceListWithCacheability)
+            && !((CmsDriverManager.ResourceListWithCacheability)resourceList).isCacheable()) {
+            return;
+        }
+        addCacheDependency(CacheType.RESOURCE_LIST, key, rootPath);
+        m_cacheResourceList.put(key, resourceList);
+    }
+
     /**
      * Caches the given value under the given cache key.<p>
      *
@@ -922,6 +1008,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         clearResourceCache();
     }
 
+    /**
+     * Clears the access control list and permission cache entries of the given resource and all resources below it,
+     * together with all depending resource caches.<p>
+     *
+     * Permission and ACL entries of other resources are kept, unless their dependency is unknown.
+     * Since access control entries are shared between siblings, callers must use
+     * {@link #clearAccessControlListCache()} if the access control entries of a resource with siblings are changed.<p>
+     *
+     * @param rootPath the root path of the changed resource
+     */
+    public void clearAccessControlListCache(String rootPath) {
+
+        CmsPublishedPaths changedPaths = new CmsPublishedPaths(Collections.singletonList(rootPath));
+        invalidateDependentEntries(CacheType.ACL, m_cacheAccessControlList, changedPaths, false);
+        invalidateDependentEntries(CacheType.PERMISSION, m_cachePermission, changedPaths, false);
+        clearResourceCache();
+    }
+
     /**
      * Clears almost all internal caches.<p>
      */
@@ -943,6 +1047,40 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public void clearCacheForPublishing() {
 
+        clearCacheForPublishing(null);
+    }
+
+    /**
+     * Clears the caches for publishing.<p>
+     *
+     * If the published paths are known, the resource, resource list, property list, ACL and permission caches
+     * keep all entries that do not depend on one of the published paths. Entries without a recorded dependency
+     * are always removed. If the published paths are <code>null</code>, all these caches are flushed.<p>
+     *
+     * @param publishedPaths the root paths affected by the publish operation, or <code>null</code> if unknown
+     */
+    public void clearCacheForPublishing(CmsPublishedPaths publishedPaths) {
+
+        if (publishedPaths != null) {
+            flushCache(CacheType.USER);
+            flushCache(CacheType.GROUP);
+            flushCache(CacheType.ORG_UNIT);
+            flushCache(CacheType.HAS_ROLE);
+            flushCache(CacheType.ROLE_LIST);
+            flushCache(CacheType.USER_LIST);
+            flushCache(CacheType.PROJECT);
+            flushCache(CacheType.PROPERTY);
+            flushCache(CacheType.PROJECT_RESOURCES);
+            flushCache(CacheType.PUBLISHED_RESOURCES);
+
+            invalidateDependentEntries(CacheType.ACL, m_cacheAccessControlList, publishedPaths, false);
+            invalidateDependentEntries(CacheType.PERMISSION, m_cachePermission, publishedPaths, false);
+            invalidateDependentEntries(CacheType.RESOURCE, m_cacheResource, publishedPaths, false);
+            invalidateDependentEntries(CacheType.RESOURCE_LIST, m_cacheResourceList, publishedPaths, true);
+            invalidateDependentEntries(CacheType.PROPERTY_LIST, m_cachePropertyList, publishedPaths, false);
+            return;
+        }
+
         flushCache(CacheType.USER);
         flushCache(CacheType.GROUP);
         flushCache(CacheType.ORG_UNIT);
@@ -1133,6 +1271,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 default:
                     // can't happen
             }
+            Map<Object, String> dependencies = m_cacheDependencies.get(type);
+            if (dependencies != null) {
+                dependencies.clear();
+            }
         }
     }
 
@@ -1461,7 +1603,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the ACL cached with the given cache key
      */
-    public CmsAccessControlList getCachedACL(String key) {
+    public CmsAccessControlList getCachedACL(Object key) {
 
         return m_cacheAccessControlList.get(key);
     }
@@ -1597,7 +1739,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the property list cached with the given cache key
      */
-    public List<CmsProperty> getCachedPropertyList(String key) {
+    public List<CmsProperty> getCachedPropertyList(Object key) {
 
         return m_cachePropertyList.get(key);
     }
@@ -1660,7 +1802,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the resource cached with the given cache key
      */
-    public CmsResource getCachedResource(String key) {
+    public CmsResource getCachedResource(Object key) {
 
         return m_cacheResource.get(key);
     }
@@ -2001,6 +2143,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheAccessControlList = createLRUCacheMap(cacheSettings.getAclCacheSize());
         register(CmsDriverManager.class.getName() + ".accessControlListCache", m_cacheAccessControlList);
 
+        // root paths the path dependent caches depend on, used for invalidation on publishing
+        m_cacheDependencies.put(CacheType.ACL, createLRUCacheMap(2 * cacheSettings.getAclCacheSize()));
+        m_cacheDependencies.put(CacheType.PERMISSION, createLRUCacheMap(2 * cacheSettings.getPermissionCacheSize()));
+        m_cacheDependencies.put(
+            CacheType.PROPERTY_LIST,
+            createLRUCacheMap(2 * cacheSettings.getPropertyListsCacheSize()));
+        m_cacheDependencies.put(CacheType.RESOURCE, createLRUCacheMap(2 * cacheSettings.getResourceCacheSize()));
+        m_cacheDependencies.put(
+            CacheType.RESOURCE_LIST,
+            createLRUCacheMap(2 * cacheSettings.getResourcelistCacheSize()));
+
         // vfs object cache
         m_cacheVfsObject = new ConcurrentHashMap<String, Object>();
         register(CmsVfsMemoryObjectCache.class.getName(), m_cacheVfsObject);
@@ -2463,6 +2616,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 if (obj instanceof String) {
                     String st = (String)obj;
                     keySize += (st.length() * 2);
+                } else if (obj instanceof I_CmsMemoryMonitorable) {
+                    keySize += ((I_CmsMemoryMonitorable)obj).getMemorySize();
                 }
             }
         } catch (ConcurrentModificationException e) {
@@ -2808,4 +2963,64 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Records the root path a cache entry depends on.<p>
+     *
+     * @param type the cache type
+     * @param key the cache key
+     * @param rootPath the root path the entry depends on
+     */
+    private void addCacheDependency(CacheType type, Object key, String rootPath) {
+
+        Map<Object, String> dependencies = m_cacheDependencies.get(type);
+        if ((dependencies != null) && (key != null) && (rootPath != null)) {
+            dependencies.put(key, rootPath);
+        }
+    }
+
+    /**
+     * Removes all entries from a path dependent cache which are affected by changes to the given paths.<p>
+     *
+     * @param type the cache type
+     * @param cache the cache
+     * @param publishedPaths the changed root paths, e.g. the paths affected by a publish operation
+     * @param subtree if the entries of the cache also depend on the resources below their root path
+     */
+    private void invalidateDependentEntries(
+        CacheType type,
+        Map<?, ?> cache,
+        CmsPublishedPaths publishedPaths,
+        boolean subtree) {
+
+        Map<Object, String> dependencies = m_cacheDependencies.get(type);
+        if (dependencies == null) {
+            flushCache(type);
+            return;
+        }
+        int size = cache.size();
+        int count = 0;
+        Iterator<?> keys = cache.keySet().iterator();
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            String rootPath = dependencies.get(key);
+            if ((rootPath == null) || publishedPaths.affects(rootPath, subtree)) {
+                keys.remove();
+                dependencies.remove(key);
+                count++;
+            }
+        }
+        // forget the dependencies of entries already evicted from the cache
+        dependencies.keySet().retainAll(cache.keySet());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MM_PUBLISH_INVALIDATED_4,
+                    new Object[] {
+                        Integer.valueOf(count),
+                        Integer.valueOf(size),
+                        type,
+                        Integer.valueOf(publishedPaths.size())}));
+        }
+    }
 }
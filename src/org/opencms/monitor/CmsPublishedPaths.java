@@ -0,0 +1,118 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsResource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * The set of root paths affected by a publish operation.<p>
+ *
+ * Used by the memory monitor to invalidate only those cache entries which depend on
+ * one of the published resources, instead of flushing the complete caches.
+ * Can also describe the paths changed by other VFS operations, e.g. a move.<p>
+ */
+public class CmsPublishedPaths {
+
+    /** The affected root paths, sorted. */
+    private NavigableSet<String> m_paths;
+
+    /**
+     * Creates a new set of published paths.<p>
+     *
+     * The paths should contain both the offline and the online root paths of moved resources,
+     * as well as the paths of all siblings of the published resources.<p>
+     *
+     * @param rootPaths the root paths of the published resources
+     */
+    public CmsPublishedPaths(Collection<String> rootPaths) {
+
+        m_paths = new TreeSet<String>(rootPaths);
+    }
+
+    /**
+     * Checks if a cache entry depending on the given root path is affected by the publish operation.<p>
+     *
+     * An entry is affected if the path itself or one of its parent folders was published.
+     * If <code>subtree</code> is set, the entry is also affected if a resource below the given folder was published.<p>
+     *
+     * @param rootPath the root path the cache entry depends on
+     * @param subtree if the cache entry also depends on the resources below the given path
+     *
+     * @return true if the cache entry must be invalidated
+     */
+    public boolean affects(String rootPath, boolean subtree) {
+
+        String path = rootPath;
+        while (path != null) {
+            if (m_paths.contains(path)) {
+                return true;
+            }
+            path = CmsResource.getParentFolder(path);
+        }
+        if (subtree) {
+            String folder = rootPath.endsWith("/") ? rootPath : rootPath + "/";
+            String next = m_paths.ceiling(folder);
+            return (next != null) && next.startsWith(folder);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the affected root paths.<p>
+     *
+     * @return the affected root paths
+     */
+    public Collection<String> getPaths() {
+
+        return Collections.unmodifiableSet(m_paths);
+    }
+
+    /**
+     * Returns the number of affected root paths.<p>
+     *
+     * @return the number of affected root paths
+     */
+    public int size() {
+
+        return m_paths.size();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_paths.toString();
+    }
+}
@@ -27,6 +27,7 @@
 
 package org.opencms.mx;
 
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
 import org.opencms.main.OpenCmsServlet;
 import org.opencms.main.OpenCmsServlet.RequestInfo;
 
@@ -74,4 +75,25 @@ public class CmsDiagnosticsMXBean implements I_CmsDiagnosticsMXBean {
         return result.toString();
     }
 
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#listLatencyMetrics()
+     */
+    public String listLatencyMetrics() {
+
+        StringBuilder result = new StringBuilder();
+        for (String line : CmsMetricsProfilingHandler.INSTANCE.listMetrics()) {
+            result.append(line);
+            result.append("\n");
+        }
+        return result.toString();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsDiagnosticsMXBean#resetLatencyMetrics()
+     */
+    public void resetLatencyMetrics() {
+
+        CmsMetricsProfilingHandler.INSTANCE.reset();
+    }
+
 }
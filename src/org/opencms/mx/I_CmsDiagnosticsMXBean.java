@@ -43,4 +43,19 @@ public interface I_CmsDiagnosticsMXBean {
      */
     public String listActiveRequests();
 
+    /**
+     * Contains a textual representation of the latencies collected by the metrics profiling handler.
+     * <p>
+     * For each measured key (e.g. a resource loader, a formatter, or Flex cache hits and misses), a line with
+     * the number of calls, the total time, the 50th, 90th and 99th percentiles and the maximum is produced.
+     *
+     * @return a textual representation of the collected latencies
+     */
+    public String listLatencyMetrics();
+
+    /**
+     * Discards the latencies collected by the metrics profiling handler.
+     */
+    public void resetLatencyMetrics();
+
 }
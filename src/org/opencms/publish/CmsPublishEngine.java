@@ -46,11 +46,13 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.CmsPublishedPaths;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -654,6 +656,12 @@ public final class CmsPublishEngine {
                 publishJob.getPublishList().getPublishHistoryId().toString());
             eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
             eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
+            CmsPublishedPaths publishedPaths = publishJob.getPublishList().getPublishedPaths();
+            if (publishedPaths != null) {
+                eventData.put(
+                    I_CmsEventListener.KEY_PUBLISHED_PATHS,
+                    new ArrayList<String>(publishedPaths.getPaths()));
+            }
             CmsEvent afterPublishEvent = new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, eventData);
             OpenCms.fireCmsEvent(afterPublishEvent);
         } catch (Throwable t) {
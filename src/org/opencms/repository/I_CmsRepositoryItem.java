@@ -27,6 +27,9 @@
 
 package org.opencms.repository;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 /**
  * This class represents items in the repository interface. That can be
  * files or folders (collections). <p>
@@ -42,6 +45,20 @@ public interface I_CmsRepositoryItem {
      */
     byte[] getContent();
 
+    /**
+     * Returns the content of this item as a stream.<p>
+     *
+     * Implementations may avoid loading large contents into memory as a whole, the default implementation
+     * wraps the result of {@link #getContent()}. The returned stream must be closed by the caller.<p>
+     *
+     * @return the content of this item as a stream, or <code>null</code> if the item has no content
+     */
+    default InputStream getContentStream() {
+
+        byte[] content = getContent();
+        return content == null ? null : new ByteArrayInputStream(content);
+    }
+
     /**
      * Returns the length of the content of this item.<p>
      *
@@ -38,14 +38,16 @@ import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.apache.commons.logging.Log;
 
 /**
- * Implements the indexing method for a single resource as thread.<p>
+ * Implements the indexing method for a single resource as a task for the indexing thread pool.<p>
  *
- * The indexing of a single resource is wrapped into a thread
+ * The indexing of a single resource is wrapped into a separate task
  * in order to prevent the overall indexer from hanging.<p>
  *
+ * @see CmsIndexingThreadManager
+ *
  * @since 6.0.0
  */
-public class CmsIndexingThread extends Thread {
+public class CmsIndexingThread implements Runnable {
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThread.class);
@@ -56,6 +58,9 @@ public class CmsIndexingThread extends Thread {
     /** The counter to output for the report. */
     private int m_count;
 
+    /** The error that occurred while creating the index document, or <code>null</code>. */
+    private volatile Throwable m_error;
+
     /** The current index. */
     private I_CmsSearchIndex m_index;
 
@@ -66,13 +71,16 @@ public class CmsIndexingThread extends Thread {
     private CmsResource m_res;
 
     /** The result document. */
-    private I_CmsSearchDocument m_result;
+    private volatile I_CmsSearchDocument m_result;
+
+    /** The time the task was started by a worker thread, 0 if not yet started. */
+    private volatile long m_startTime;
 
     /** Flag, indicating if a default document for the resource should be created. */
-    private boolean m_addDefaultDocument = true;
+    private volatile boolean m_addDefaultDocument = true;
 
     /**
-     * Create a new indexing thread.<p>
+     * Create a new indexing task.<p>
      *
      * @param cms the current OpenCms user context
      * @param res the resource to index
@@ -82,8 +90,6 @@ public class CmsIndexingThread extends Thread {
      */
     public CmsIndexingThread(CmsObject cms, CmsResource res, I_CmsSearchIndex index, int count, I_CmsReport report) {
 
-        super("OpenCms: Indexing '" + res.getName() + "'");
-
         m_cms = cms;
         m_res = res;
         m_index = index;
@@ -93,11 +99,41 @@ public class CmsIndexingThread extends Thread {
     }
 
     /**
-     * Returns the document created by this indexer thread.<p>
+     * Returns the report count of this indexing task.<p>
+     *
+     * @return the report count of this indexing task
+     */
+    public int getCount() {
+
+        return m_count;
+    }
+
+    /**
+     * Returns the error that occurred while creating the index document.<p>
+     *
+     * @return the error that occurred while creating the index document, or <code>null</code> if there was none
+     */
+    public Throwable getError() {
+
+        return m_error;
+    }
+
+    /**
+     * Returns the resource indexed by this task.<p>
+     *
+     * @return the resource indexed by this task
+     */
+    public CmsResource getResource() {
+
+        return m_res;
+    }
+
+    /**
+     * Returns the document created by this indexer task.<p>
      *
      * In case the resource could not be indexed, <code>null</code> is returned.<p>
      *
-     * @return the document created by this indexer thread
+     * @return the document created by this indexer task
      */
     public I_CmsSearchDocument getResult() {
 
@@ -115,13 +151,26 @@ public class CmsIndexingThread extends Thread {
     }
 
     /**
-     * Starts the thread to index a single resource.<p>
+     * Returns the time this task was started by a worker thread.<p>
+     *
+     * @return the start time of this task, or 0 if the task has not been started yet
+     */
+    public long getStartTime() {
+
+        return m_startTime;
+    }
+
+    /**
+     * Indexes a single resource.<p>
      *
      * @see java.lang.Runnable#run()
      */
-    @Override
     public void run() {
 
+        m_startTime = System.currentTimeMillis();
+        Thread worker = Thread.currentThread();
+        String workerName = worker.getName();
+        worker.setName("OpenCms: Indexing '" + m_res.getName() + "'");
         // flag for logging in the "final" block
         boolean docOk = false;
         try {
@@ -131,17 +180,20 @@ public class CmsIndexingThread extends Thread {
             docOk = true;
 
             // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            if (worker.isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
 
         } catch (CmsIndexNoContentException e) {
             // Ignore exception caused by empty documents, so that the report is not messed up with error message
-            m_report.println(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                I_CmsReport.FORMAT_OK);
+            if (m_report != null) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
         } catch (Throwable exc) {
+            m_error = exc;
             if (m_report != null) {
                 m_report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
@@ -184,6 +236,7 @@ public class CmsIndexingThread extends Thread {
                             m_index.getName()));
                 }
             }
+            worker.setName(workerName);
         }
     }
 
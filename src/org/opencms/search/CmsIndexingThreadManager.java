@@ -28,29 +28,139 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The text extraction for the resources is done by a pool of worker threads, the number of which
+ * is configured with {@link CmsSearchManager#setIndexingThreads(int)}. The extracted documents are
+ * collected in a bounded completion queue and written to the index by the single thread calling
+ * {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)} and {@link #isRunning()},
+ * so the {@link I_CmsIndexWriter} is never accessed concurrently.<p>
+ *
+ * Workers that do not finish within the configured timeout are abandoned as before: they are interrupted,
+ * a default document is written for the resource, and the pool starts a new thread for the next resource.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * An indexing task together with the indexer and the index writer its result is written with.<p>
+     */
+    private static class CmsIndexingJob {
+
+        /** The indexer. */
+        private CmsVfsIndexer m_indexer;
+
+        /** The time the job was submitted. */
+        private long m_submitTime;
+
+        /** The indexing task. */
+        private CmsIndexingThread m_task;
+
+        /** The index writer. */
+        private I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing job.<p>
+         *
+         * @param indexer the indexer
+         * @param writer the index writer
+         * @param task the indexing task
+         * @param submitTime the time the job was submitted
+         */
+        CmsIndexingJob(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsIndexingThread task, long submitTime) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_task = task;
+            m_submitTime = submitTime;
+        }
+
+        /**
+         * Returns the time after which the job is abandoned.<p>
+         *
+         * @param timeout the timeout for indexing a single resource, a value &lt;= 0 means no timeout
+         *
+         * @return the time after which the job is abandoned
+         */
+        long getDeadline(long timeout) {
+
+            if (timeout <= 0) {
+                return Long.MAX_VALUE;
+            }
+            long start = m_task.getStartTime();
+            return (start > 0 ? start : m_submitTime) + timeout;
+        }
+
+        /**
+         * Returns the indexer.<p>
+         *
+         * @return the indexer
+         */
+        CmsVfsIndexer getIndexer() {
+
+            return m_indexer;
+        }
+
+        /**
+         * Returns the indexing task.<p>
+         *
+         * @return the indexing task
+         */
+        CmsIndexingThread getTask() {
+
+            return m_task;
+        }
+
+        /**
+         * Returns the index writer.<p>
+         *
+         * @return the index writer
+         */
+        I_CmsIndexWriter getWriter() {
+
+            return m_writer;
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The completion service the finished indexing tasks are collected with. */
+    private CompletionService<CmsIndexingThread> m_completionService;
+
+    /** The executor for the indexing tasks. */
+    private ExecutorService m_executor;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,6 +170,12 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The maximum number of resources that are indexed in parallel. */
+    private int m_maxThreads;
+
+    /** The submitted indexing tasks that have not yet been written to the index, in submission order. */
+    private Map<Future<CmsIndexingThread>, CmsIndexingJob> m_pending;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
@@ -69,86 +185,78 @@ public class CmsIndexingThreadManager {
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** Number of documents written to or deleted from the index. */
+    private int m_writtenCounter;
+
     /**
-     * Creates and starts a thread manager for indexing threads.<p>
+     * Creates and starts a thread manager for indexing threads that indexes one resource at a time.<p>
      *
      * @param timeout timeout after a thread is abandoned
      * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param maxThreads the maximum number of resources that are indexed in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int maxThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_maxThreads = Math.max(1, maxThreads);
+        m_pending = new LinkedHashMap<Future<CmsIndexingThread>, CmsIndexingJob>();
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Hands a resource over to the pool of indexing threads.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
+     * If the configured number of resources is already being indexed, the manager
+     * suspends itself until at least one of them has finished or reached the
+     * <code>timeout</code>. Indexing threads reaching the timeout are
      * aborted by an interrupt signal.<p>
      *
+     * All finished documents are written to the index by the calling thread.<p>
+     *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
-        I_CmsReport report = indexer.getReport();
+        // write all documents that are finished already
+        processResults(false);
+        while (m_pending.size() >= m_maxThreads) {
+            // wait until a worker is available
+            processResults(true);
+        }
+
         m_startedCounter++;
-        CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
+        CmsIndexingThread task = new CmsIndexingThread(
+            getCmsForTask(indexer),
             res,
             indexer.getIndex(),
             m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
-        }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
+            isParallel() ? null : indexer.getReport());
+        if (m_executor == null) {
+            m_executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: Indexing-%d").setDaemon(true).setPriority(
+                    Thread.MIN_PRIORITY).build());
+            m_completionService = new ExecutorCompletionService<CmsIndexingThread>(m_executor);
         }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
+        Future<CmsIndexingThread> future = m_completionService.submit(task, task);
+        m_pending.put(future, new CmsIndexingJob(indexer, writer, task, System.currentTimeMillis()));
+
+        if (!isParallel()) {
+            // only one resource at a time, so write the result right away
+            while (!m_pending.isEmpty()) {
+                processResults(true);
             }
         }
     }
@@ -156,10 +264,14 @@ public class CmsIndexingThreadManager {
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * All documents finished in the meantime are written to the index.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        processResults(false);
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -187,10 +299,16 @@ public class CmsIndexingThreadManager {
             }
         }
 
-        boolean result = (m_returnedCounter + m_abandonedCounter) < m_startedCounter;
-        if (result && LOG.isInfoEnabled()) {
-            // write a note to the log that all threads have finished
-            LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+        boolean result = !m_pending.isEmpty();
+        if (!result && (m_executor != null)) {
+            // abandoned threads are allowed to finish, no new threads are started
+            m_executor.shutdown();
+            m_executor = null;
+            m_completionService = null;
+            if (LOG.isInfoEnabled()) {
+                // write a note to the log that all threads have finished
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+            }
         }
         return result;
     }
@@ -223,4 +341,201 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Abandons an indexing job that has reached the timeout.<p>
+     *
+     * @param future the future of the job
+     * @param job the job to abandon
+     */
+    private void abandon(Future<CmsIndexingThread> future, CmsIndexingJob job) {
+
+        // the thread has not finished - so it must be marked as an abandoned thread
+        m_abandonedCounter++;
+        future.cancel(true);
+        CmsResource res = job.getTask().getResource();
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+        }
+        I_CmsReport report = job.getIndexer().getReport();
+        if (report != null) {
+            if (isParallel()) {
+                reportFileBegin(report, job.getTask());
+            }
+            report.println();
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_WARNING);
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                I_CmsReport.FORMAT_WARNING);
+        }
+        write(job, false);
+    }
+
+    /**
+     * Returns the OpenCms user context an indexing task should use.<p>
+     *
+     * In parallel mode, every task gets its own copy of the indexer's context, since the
+     * document factories may modify the request context while extracting the content.<p>
+     *
+     * @param indexer the indexer
+     *
+     * @return the OpenCms user context for the indexing task
+     */
+    private CmsObject getCmsForTask(CmsVfsIndexer indexer) {
+
+        if (isParallel()) {
+            try {
+                return OpenCms.initCmsObject(indexer.getCms());
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return indexer.getCms();
+    }
+
+    /**
+     * Returns if more than one resource is indexed at a time.<p>
+     *
+     * @return if more than one resource is indexed at a time
+     */
+    private boolean isParallel() {
+
+        return m_maxThreads > 1;
+    }
+
+    /**
+     * Writes the results of all finished indexing tasks to the index and abandons the tasks that reached the timeout.<p>
+     *
+     * @param wait if <code>true</code>, waits until at least one task has finished or reached the timeout
+     */
+    private void processResults(boolean wait) {
+
+        if (m_pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long nextDeadline = Long.MAX_VALUE;
+        List<Future<CmsIndexingThread>> expired = new ArrayList<Future<CmsIndexingThread>>();
+        for (Map.Entry<Future<CmsIndexingThread>, CmsIndexingJob> entry : m_pending.entrySet()) {
+            long deadline = entry.getValue().getDeadline(m_timeout);
+            if (deadline <= now) {
+                expired.add(entry.getKey());
+            } else {
+                nextDeadline = Math.min(nextDeadline, deadline);
+            }
+        }
+        for (Future<CmsIndexingThread> future : expired) {
+            if (!future.isDone()) {
+                abandon(future, m_pending.remove(future));
+            }
+        }
+
+        Future<CmsIndexingThread> finished = m_completionService.poll();
+        if ((finished == null) && wait && expired.isEmpty() && !m_pending.isEmpty()) {
+            try {
+                long waitTime = nextDeadline == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : Math.max(1, nextDeadline - System.currentTimeMillis());
+                finished = m_completionService.poll(waitTime, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+        }
+        while (finished != null) {
+            // results of abandoned tasks are not in the pending map anymore and are ignored
+            CmsIndexingJob job = m_pending.remove(finished);
+            if (job != null) {
+                // the thread finished normally
+                m_returnedCounter++;
+                write(job, isParallel());
+            }
+            finished = m_completionService.poll();
+        }
+    }
+
+    /**
+     * Writes the begin of the report output for an indexed file.<p>
+     *
+     * Used in parallel mode only, where the indexing tasks do not write to the report themselves
+     * to avoid that the output of different resources is mixed up.<p>
+     *
+     * @param report the report to write to
+     * @param task the indexing task
+     */
+    private void reportFileBegin(I_CmsReport report, CmsIndexingThread task) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_1,
+                String.valueOf(task.getCount())),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_SEARCH_INDEXING_FILE_BEGIN_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                report.removeSiteRoot(task.getResource().getRootPath())));
+        report.print(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0),
+            I_CmsReport.FORMAT_DEFAULT);
+    }
+
+    /**
+     * Writes the result of an indexing job to the index.<p>
+     *
+     * @param job the finished or abandoned job
+     * @param writeReport if <code>true</code>, the report output for the indexed file is written
+     */
+    private void write(CmsIndexingJob job, boolean writeReport) {
+
+        CmsVfsIndexer indexer = job.getIndexer();
+        I_CmsIndexWriter writer = job.getWriter();
+        CmsResource res = job.getTask().getResource();
+        I_CmsSearchDocument doc = job.getTask().getResult();
+        I_CmsReport report = indexer.getReport();
+        if (writeReport && (report != null)) {
+            reportFileBegin(report, job.getTask());
+            Throwable error = job.getTask().getError();
+            if (error != null) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_ERROR);
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        error.toString()),
+                    I_CmsReport.FORMAT_ERROR);
+            } else if (doc != null) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            }
+        }
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(writer, res.getRootPath(), doc);
+        } else {
+            indexer.deleteResource(writer, new CmsPublishedResource(res));
+        }
+        m_writtenCounter++;
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+}
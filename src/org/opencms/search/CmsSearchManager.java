@@ -30,6 +30,7 @@ package org.opencms.search;
 import org.opencms.ade.containerpage.CmsDetailOnlyContainerUtil;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.CmsObject;
@@ -76,6 +77,7 @@ import org.opencms.search.solr.CmsSolrIndex;
 import org.opencms.search.solr.I_CmsSolrIndexWriter;
 import org.opencms.search.solr.spellchecking.CmsSolrSpellchecker;
 import org.opencms.search.solr.spellchecking.CmsSpellcheckDictionaryIndexer;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.A_CmsModeStringEnumeration;
@@ -101,6 +103,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -215,6 +218,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     List<CmsResource> resources = Collections.singletonList(
                         (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
                     reIndexResources(resources);
+                    if ((change instanceof Integer)
+                        && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) != 0)) {
+                        // the read permissions of the sub resources are inherited from the resource
+                        reIndexReadAclSubResources(resources.get(0));
+                    }
                     break;
                 case I_CmsEventListener.EVENT_RESOURCE_DELETED:
                     List<CmsResource> eventResources = (List<CmsResource>)event.getData().get(
@@ -330,6 +338,29 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Updates the sub resources of a folder whose access control entries have been changed
+         * in all offline indexes, if one of them uses a read permission filter.<p>
+         *
+         * @param folder the folder whose access control entries have been changed
+         */
+        protected void reIndexReadAclSubResources(CmsResource folder) {
+
+            if (!folder.isFolder() || !hasReadAclFilterIndex(m_offlineIndexes)) {
+                return;
+            }
+            try {
+                CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+                CmsProject offline = getOfflineIndexProject();
+                if (offline != null) {
+                    cms.getRequestContext().setCurrentProject(offline);
+                }
+                reIndexResources(cms.readResources(folder, CmsResourceFilter.ALL, true));
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+
         /**
          * Updates all offline indexes for the given list of {@link CmsResource} objects.<p>
          *
@@ -660,6 +691,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The default value used for keeping the extraction results in the cache (672 hours = 4 weeks). */
     public static final float DEFAULT_EXTRACTION_CACHE_MAX_AGE = 672.0f;
 
+    /** The default number of resources that are indexed in parallel (1). */
+    public static final int DEFAULT_INDEXING_THREADS = 1;
+
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
@@ -735,6 +769,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** A list of search indexes. */
     private List<I_CmsSearchIndex> m_indexes;
 
+    /** The number of resources that are indexed in parallel. */
+    private int m_indexingThreads;
+
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
@@ -759,6 +796,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Path to index files below WEB-INF/. */
     private String m_path;
 
+    /** The folders with changed access control entries of the running publish jobs, by publish history id. */
+    private Map<CmsUUID, List<CmsResource>> m_readAclFolders = new ConcurrentHashMap<CmsUUID, List<CmsResource>>();
+
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
@@ -785,6 +825,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
         m_maxIndexWaitTime = DEFAULT_MAX_INDEX_WAITTIME;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_indexingThreads = DEFAULT_INDEXING_THREADS;
 
         m_fieldConfigurations = new HashMap<String, I_CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1031,6 +1072,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
                 break;
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                // the access control entries of the published folders can only be compared before publishing
+                collectReadAclFolders(
+                    (CmsPublishList)event.getData().get(I_CmsEventListener.KEY_PUBLISHLIST),
+                    (CmsUUID)event.getData().get(I_CmsEventListener.KEY_PROJECTID));
+                break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
@@ -1523,6 +1570,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the number of resources that are indexed in parallel.<p>
+     *
+     * @return the number of resources that are indexed in parallel
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the seconds to wait for an index lock during an update operation.<p>
      *
@@ -1728,6 +1785,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             this,
             new int[] {
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES,
                 I_CmsEventListener.EVENT_REINDEX_OFFLINE,
@@ -2389,6 +2447,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of resources that are indexed in parallel.<p>
+     *
+     * @param indexingThreads the number of resources that are indexed in parallel
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = Math.max(1, indexingThreads);
+    }
+
+    /**
+     * Sets the number of resources that are indexed in parallel as a String.<p>
+     *
+     * @param value the number of resources that are indexed in parallel
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    Integer.valueOf(DEFAULT_INDEXING_THREADS)),
+                e);
+            setIndexingThreads(DEFAULT_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      *
@@ -2582,6 +2670,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
         shutDownSolrContainer();
 
+        if (m_extractionResultCache != null) {
+            m_extractionResultCache.shutDown();
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_MANAGER_0));
         }
@@ -2702,6 +2794,37 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_extractionResultCache.cleanCache(m_extractionCacheMaxAge);
     }
 
+    /**
+     * Remembers the folders of a publish list whose access control entries are changed by publishing.<p>
+     *
+     * The read permission tokens of the sub resources of these folders are inherited, so the sub resources
+     * are re-indexed after publishing in all indexes that use a read permission filter.<p>
+     *
+     * @param publishList the publish list
+     * @param projectId the id of the project the resources are published from
+     */
+    protected void collectReadAclFolders(CmsPublishList publishList, CmsUUID projectId) {
+
+        if ((publishList == null) || (projectId == null) || !hasReadAclFilterIndex(m_indexes)) {
+            return;
+        }
+        List<CmsResource> folders = new ArrayList<CmsResource>();
+        try {
+            CmsObject offlineCms = OpenCms.initCmsObject(m_adminCms);
+            offlineCms.getRequestContext().setCurrentProject(offlineCms.readProject(projectId));
+            for (CmsResource folder : publishList.getFolderList()) {
+                if (folder.getState().isChanged() && hasChangedAccessControlEntries(offlineCms, folder)) {
+                    folders.add(folder);
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        if (!folders.isEmpty()) {
+            m_readAclFolders.put(publishList.getPublishHistoryId(), folders);
+        }
+    }
+
     /**
      * Collects the related containerpages to the resources that have been published.<p>
      *
@@ -2810,7 +2933,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_indexingThreads);
     }
 
     /**
@@ -2970,6 +3093,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     protected void updateAllIndexes(CmsObject adminCms, CmsUUID publishHistoryId, I_CmsReport report) {
 
         int oldPriority = Thread.currentThread().getPriority();
+        List<CmsResource> readAclFolders = m_readAclFolders.remove(publishHistoryId);
         try {
             SEARCH_MANAGER_LOCK.lock();
             Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
@@ -3045,6 +3169,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
             addAdditionallyAffectedResources(adminCms, updateResources);
             updateAllIndexes(adminCms, updateResources, report);
+            if (readAclFolders != null) {
+                updateReadAclIndexes(adminCms, readAclFolders, updateResources, report);
+            }
         } finally {
             SEARCH_MANAGER_LOCK.unlock();
             Thread.currentThread().setPriority(oldPriority);
@@ -3436,6 +3563,55 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Re-indexes the sub resources of published folders with changed access control entries
+     * in all indexes that use a read permission filter.<p>
+     *
+     * @param adminCms an OpenCms user context with Admin permissions
+     * @param folders the published folders with changed access control entries
+     * @param updatedResources the resources that have already been updated in the indexes
+     * @param report the report to write the output to
+     */
+    protected void updateReadAclIndexes(
+        CmsObject adminCms,
+        List<CmsResource> folders,
+        List<CmsPublishedResource> updatedResources,
+        I_CmsReport report) {
+
+        Set<CmsPublishedResource> updated = new HashSet<CmsPublishedResource>(updatedResources);
+        List<CmsPublishedResource> subResources = new ArrayList<CmsPublishedResource>();
+        for (CmsResource folder : folders) {
+            try {
+                // read the folder and its sub resources from the Online project
+                CmsResource onlineFolder = adminCms.readResource(folder.getStructureId(), CmsResourceFilter.ALL);
+                List<CmsResource> resources = new ArrayList<CmsResource>();
+                resources.add(onlineFolder);
+                resources.addAll(adminCms.readResources(onlineFolder, CmsResourceFilter.ALL, true));
+                for (CmsResource res : resources) {
+                    CmsPublishedResource pubRes = new CmsPublishedResource(res);
+                    if (updated.add(pubRes)) {
+                        subResources.add(pubRes);
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        if (subResources.isEmpty()) {
+            return;
+        }
+        Collections.sort(subResources);
+        for (I_CmsSearchIndex index : m_indexes) {
+            if (I_CmsSearchIndex.REBUILD_MODE_AUTO.equals(index.getRebuildMode()) && isReadAclFilterIndex(index)) {
+                try {
+                    updateIndex(index, report, subResources);
+                } catch (CmsException e) {
+                    LOG.error(Messages.get().getBundle().key(Messages.LOG_UPDATE_INDEX_FAILED_1, index.getName()), e);
+                }
+            }
+        }
+    }
+
     /**
      * Checks if the given containerpage is used as a detail containers and adds the related detail content to the resource set.<p>
      *
@@ -3563,6 +3739,51 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Checks if publishing changes the access control entries set directly on the given folder.<p>
+     *
+     * @param offlineCms the OpenCms user context of the project the folder is published from
+     * @param folder the folder to check
+     *
+     * @return <code>true</code> if the access control entries of the folder differ from the Online project
+     */
+    private boolean hasChangedAccessControlEntries(CmsObject offlineCms, CmsResource folder) {
+
+        Set<CmsAccessControlEntry> onlineAces;
+        try {
+            CmsResource onlineFolder = m_adminCms.readResource(folder.getStructureId(), CmsResourceFilter.ALL);
+            onlineAces = new HashSet<CmsAccessControlEntry>(
+                m_adminCms.getAccessControlEntries(onlineFolder.getRootPath(), false));
+        } catch (CmsException e) {
+            // the folder is not yet available in the Online project
+            return true;
+        }
+        try {
+            return !onlineAces.equals(
+                new HashSet<CmsAccessControlEntry>(offlineCms.getAccessControlEntries(folder.getRootPath(), false)));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+    }
+
+    /**
+     * Checks if one of the given indexes uses a read permission filter.<p>
+     *
+     * @param indexes the indexes to check
+     *
+     * @return <code>true</code> if one of the given indexes uses a read permission filter
+     */
+    private boolean hasReadAclFilterIndex(Collection<I_CmsSearchIndex> indexes) {
+
+        for (I_CmsSearchIndex index : indexes) {
+            if (isReadAclFilterIndex(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks if the given type id belongs to a group type.
      *
@@ -3580,6 +3801,18 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     }
 
+    /**
+     * Checks if the given index uses a read permission filter.<p>
+     *
+     * @param index the index to check
+     *
+     * @return <code>true</code> if the given index uses a read permission filter
+     */
+    private boolean isReadAclFilterIndex(I_CmsSearchIndex index) {
+
+        return (index instanceof CmsSolrIndex) && ((CmsSolrIndex)index).isReadAclFilterEnabled();
+    }
+
     /**
      * Shuts down the Solr core container.<p>
      */
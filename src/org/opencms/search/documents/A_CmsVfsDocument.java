@@ -30,8 +30,10 @@ package org.opencms.search.documents;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeBinary;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.I_CmsSearchIndex;
 import org.opencms.search.extractors.I_CmsExtractionResult;
@@ -119,9 +121,7 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
             // check if caching is enabled for this document type
             CmsExtractionResultCache cache = getCache();
             String cacheName = null;
-            if ((cache != null) && (resource.getSiblingCount() > 1)) {
-                // hard drive based caching only makes sense for resources that have siblings,
-                // because the index will also store the content as a blob
+            if ((cache != null) && isCachingResource(resource)) {
                 cacheName = cache.getCacheName(
                     resource,
                     isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null,
@@ -142,7 +142,7 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Extracting content for '" + resource.getRootPath() + "' successful.");
                     }
-                    if ((cache != null) && (resource.getSiblingCount() > 1)) {
+                    if ((cache != null) && isCachingResource(resource)) {
                         // save extracted content to the cache
                         cache.saveCacheObject(cacheName, content);
                     }
@@ -220,6 +220,25 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
         m_cache = cache;
     }
 
+    /**
+     * Returns if the extraction result for the given resource is stored in the extraction result cache.<p>
+     *
+     * Binary documents like PDF or Office files are always cached, because their extraction is expensive and
+     * the cached result survives a rebuild of the index. For other resources, hard drive based caching only
+     * makes sense if they have siblings, because the index will also store the content as a blob.<p>
+     *
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the extraction result for the given resource is cached
+     */
+    protected boolean isCachingResource(CmsResource resource) {
+
+        return (resource.getSiblingCount() > 1)
+            || OpenCms.getResourceManager().matchResourceType(
+                CmsResourceTypeBinary.getStaticTypeName(),
+                resource.getTypeId());
+    }
+
     /**
      * Logs content extraction for the specified resource and index.<p>
      *
@@ -27,25 +27,45 @@
 
 package org.opencms.search.documents;
 
-import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.search.extractors.CmsExtractionResult;
 import org.opencms.search.extractors.I_CmsExtractionResult;
 import org.opencms.util.CmsFileUtil;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements a disk cache that stores text extraction results in the RFS.<p>
  *
- * This cache operates on resource file names, plus a hash code calculated from
- * {@link org.opencms.file.CmsResource#getDateLastModified()}
- * and {@link org.opencms.file.CmsResource#getLength()}. Optional a locale can be appended to this name.<p>
+ * This cache operates on resource ids, plus the date of the last content change
+ * {@link org.opencms.file.CmsResource#getDateContent()}. Optional a locale can be appended to this name.<p>
  *
  * Since text extraction is done only on the content of a resource, all siblings must have the same content.
  * The difference can be only by the locale setting in case of an XML content or XML page. However,
@@ -53,20 +73,129 @@ import org.apache.commons.logging.Log;
  * For these documents, all siblings must produce the exact same text extraction result.<p>
  *
  * This cache is usable for resources from the online AND the offline project at the same time,
- * because any change to a resource will result in a changed hash code. This means a resource changed in the offline
- * project will have a new hash code compared to the online project. If the resource is identical in the online and
- * the offline project, the generated hash codes will be the same.<p>
+ * because any change to a resource will result in a changed cache name. This means a resource changed in the offline
+ * project will have a new cache name compared to the online project. If the resource is identical in the online and
+ * the offline project, the generated cache names will be the same.<p>
+ *
+ * All extraction results are appended to a single store file in the cache folder. The position of every
+ * entry is kept in an in-memory index, which is written to an index file when the cache is cleaned up
+ * or shut down, so that opening the cache does not need to read the whole store. Reads and writes of
+ * different threads run concurrently. Expired entries are only removed from the index, the store file
+ * is rewritten once more than half of it is occupied by removed entries.<p>
+ *
+ * Every record starts with its total length, which is written as soon as the position of the record
+ * is assigned, followed by a checksum of the key and the value. A record that was reserved but never
+ * completely written, for example because the server stopped, is skipped when the store is scanned,
+ * while the records after it are kept.<p>
  *
  * @since 6.2.0
  */
 public class CmsExtractionResultCache {
 
+    /**
+     * An entry of the in-memory index.<p>
+     */
+    private static final class Entry {
+
+        /** The time this entry was last read or written. */
+        volatile long m_lastAccess;
+
+        /** The length of the serialized extraction result. */
+        final int m_length;
+
+        /** The position of the serialized extraction result in the store file. */
+        final long m_offset;
+
+        /** The length of the complete record in the store file, including the key. */
+        final int m_recordLength;
+
+        /**
+         * Creates a new index entry.<p>
+         *
+         * @param offset the position of the serialized extraction result in the store file
+         * @param length the length of the serialized extraction result
+         * @param recordLength the length of the complete record in the store file
+         * @param lastAccess the time the entry was last read or written
+         */
+        Entry(long offset, int length, int recordLength, long lastAccess) {
+
+            m_offset = offset;
+            m_length = length;
+            m_recordLength = recordLength;
+            m_lastAccess = lastAccess;
+        }
+
+        /**
+         * Returns the position of the complete record in the store file.<p>
+         *
+         * @return the position of the complete record in the store file
+         */
+        long getRecordOffset() {
+
+            return (m_offset + m_length) - m_recordLength;
+        }
+    }
+
+    /** The file name of the index for the extraction result store. */
+    public static final String INDEX_FILE_NAME = "extraction.index";
+
+    /** The file name of the store holding the serialized extraction results. */
+    public static final String STORE_FILE_NAME = "extraction.store";
+
+    /** The size of the header of the store file. */
+    private static final int HEADER_SIZE = 16;
+
+    /** The suffix of the files written by the former one-file-per-entry cache. */
+    private static final String LEGACY_FILE_SUFFIX = ".ext";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExtractionResultCache.class);
 
+    /** The magic number at the start of the store and the index file. */
+    private static final int MAGIC = 0x4F435852;
+
+    /** The maximum length of a cache name in bytes, longer lengths indicate a damaged store. */
+    private static final int MAX_KEY_LENGTH = 4096;
+
+    /** The minimum number of bytes occupied by removed entries before the store file is rewritten. */
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    /** The size of the length, checksum and key length fields of a record in the store file. */
+    private static final int RECORD_OVERHEAD = 12;
+
+    /** The version of the store and index file format. */
+    private static final int VERSION = 2;
+
+    /** The lock guarding the position assignment for appended records. */
+    private final Object m_appendLock = new Object();
+
+    /** The channel of the store file, or <code>null</code> if the store is not available. */
+    private FileChannel m_channel;
+
+    /** The in-memory index of the store, by cache name. */
+    private final Map<String, Entry> m_entries = new ConcurrentHashMap<String, Entry>();
+
+    /** The generation of the store file, changes every time the store file is rewritten. */
+    private long m_generation;
+
+    /** The size of the store file when the index file was last written or read. */
+    private long m_indexedStoreSize = -1;
+
+    /** Indicates if files of the former one-file-per-entry cache may still exist in the cache folder. */
+    private volatile boolean m_legacyFiles = true;
+
+    /** The number of bytes in the store file that belong to entries in the index. */
+    private final AtomicLong m_liveSize = new AtomicLong();
+
+    /** Read access to the store is shared, closing or rewriting the store file is exclusive. */
+    private final ReentrantReadWriteLock m_lock = new ReentrantReadWriteLock();
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
+    /** The size of the store file including all reserved records. */
+    private long m_storeSize;
+
     /**
      * Creates a new disk cache.<p>
      *
@@ -77,65 +206,71 @@ public class CmsExtractionResultCache {
 
         // normalize the given folder name
         m_rfsRepository = CmsFileUtil.normalizePath(basepath + foldername + File.separatorChar);
+        open();
     }
 
     /**
      * Removes all expired extraction result cache entries from the RFS cache.<p>
      *
-     * @param maxAge the maximum age of the extraction result cache files in hours (or fractions of hours)
+     * @param maxAge the maximum age of the extraction result cache entries in hours (or fractions of hours)
      *
-     * @return the total number of deleted resources
+     * @return the total number of deleted entries
      */
-    public synchronized int cleanCache(float maxAge) {
+    public int cleanCache(float maxAge) {
 
-        // calculate oldest possible date for the cache files
+        // calculate oldest possible date for the cache entries
         long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
-        File basedir = new File(m_rfsRepository);
-        // perform the cache cleanup
         int count = 0;
-        if (basedir.canRead() && basedir.isDirectory()) {
-            File[] files = basedir.listFiles();
-            if (files != null) {
-                for (int i = 0; i < files.length; i++) {
-                    File f = files[i];
-                    if (f.canWrite()) {
-                        if (f.lastModified() < expireDate) {
-                            try {
-                                f.delete();
-                                count++;
-                            } catch (Exception e) {
-                                if (LOG.isWarnEnabled()) {
-                                    LOG.warn(
-                                        Messages.get().getBundle().key(
-                                            Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
-                                            f.getAbsolutePath()),
-                                        e);
-                                }
-                            }
-                        }
-                    }
+        m_lock.readLock().lock();
+        try {
+            for (Iterator<Map.Entry<String, Entry>> i = m_entries.entrySet().iterator(); i.hasNext();) {
+                Map.Entry<String, Entry> mapEntry = i.next();
+                Entry entry = mapEntry.getValue();
+                if ((entry.m_lastAccess < expireDate) && m_entries.remove(mapEntry.getKey(), entry)) {
+                    m_liveSize.addAndGet(-entry.m_recordLength);
+                    count++;
                 }
             }
+        } finally {
+            m_lock.readLock().unlock();
+        }
+        if (m_legacyFiles) {
+            count += cleanLegacyFiles(expireDate);
+        }
+
+        m_lock.writeLock().lock();
+        try {
+            if (m_channel != null) {
+                long unusedSize = m_storeSize - HEADER_SIZE - m_liveSize.get();
+                if ((unusedSize > MIN_COMPACTION_SIZE) && (unusedSize > m_liveSize.get())) {
+                    compact();
+                }
+                if ((count > 0) || (m_storeSize != m_indexedStoreSize)) {
+                    writeIndex();
+                }
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EXTRACTION_STORE_WRITE_ERROR_1, m_rfsRepository), e);
+        } finally {
+            m_lock.writeLock().unlock();
         }
         return count;
     }
 
     /**
-     * Returns the RFS name used for caching an the text extraction result
+     * Returns the name used for caching the text extraction result
      * based on the given VFS resource and locale.<p>
      *
      * @param resource the VFS resource to generate the cache name for
      * @param locale the locale to generate the cache name for (may be <code>null</code>)
      * @param docTypeName the name of the search document type
      *
-     * @return the RFS name to use for caching the given VFS resource with parameters
+     * @return the name to use for caching the given VFS resource with parameters
      */
     public String getCacheName(CmsResource resource, Locale locale, String docTypeName) {
 
         // create a StringBuffer for the result
-        StringBuffer buf = new StringBuffer(m_rfsRepository.length() + 36);
-        buf.append(m_rfsRepository);
-        buf.append('/');
+        StringBuffer buf = new StringBuffer(64);
         buf.append(resource.getResourceId().toString());
 
         if (docTypeName != null) {
@@ -153,38 +288,35 @@ public class CmsExtractionResultCache {
         // please note that we need only worry about last change in content, since properties are ignored here
         buf.append('_');
         buf.append(resource.getDateContent());
-
-        // finally append the extension
-        buf.append(".ext");
         return buf.toString();
     }
 
     /**
-     * Returns the extraction result in the requested file in the disk cache, or <code>null</code> if the
-     * file is not found in the cache, or is found but out-dated.<p>
+     * Returns the extraction result cached with the given name, or <code>null</code> if
+     * no result is found in the cache.<p>
      *
-     * @param rfsName the file RFS name to look up in the cache
+     * @param cacheName the name to look up in the cache
      *
-     * @return the extraction result stored in the requested file in the RFS disk cache, or <code>null</code>
+     * @return the extraction result cached with the given name, or <code>null</code>
      */
-    public CmsExtractionResult getCacheObject(String rfsName) {
+    public CmsExtractionResult getCacheObject(String cacheName) {
 
+        byte[] content = null;
+        m_lock.readLock().lock();
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
-                    // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
-                }
-                byte[] byteContent = CmsFileUtil.readFile(f);
-                return CmsExtractionResult.fromBytes(byteContent);
+            Entry entry = m_entries.get(cacheName);
+            if ((entry != null) && (m_channel != null)) {
+                entry.m_lastAccess = System.currentTimeMillis();
+                ByteBuffer buffer = ByteBuffer.allocate(entry.m_length);
+                readFully(m_channel, buffer, entry.m_offset);
+                content = buffer.array();
             }
         } catch (IOException e) {
             // unable to read content
+        } finally {
+            m_lock.readLock().unlock();
         }
-        // this code can be reached only in case of an error
-        return null;
+        return CmsExtractionResult.fromBytes(content);
     }
 
     /**
@@ -200,16 +332,404 @@ public class CmsExtractionResultCache {
     /**
      * Serializes the given extraction result and saves it in the disk cache.<p>
      *
-     * @param rfsName the RFS name of the file to save the extraction result in
+     * @param cacheName the name to cache the extraction result with
      * @param content the extraction result to serialize and save
      *
      * @throws IOException in case of disk access errors
      */
-    public void saveCacheObject(String rfsName, I_CmsExtractionResult content) throws IOException {
+    public void saveCacheObject(String cacheName, I_CmsExtractionResult content) throws IOException {
 
         byte[] byteContent = content.getBytes();
-        if (byteContent != null) {
-            CmsVfsDiskCache.saveFile(rfsName, byteContent);
+        if (byteContent == null) {
+            return;
+        }
+        byte[] key = cacheName.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(byteContent);
+        int recordLength = RECORD_OVERHEAD + key.length + byteContent.length;
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(recordLength).putInt((int)crc.getValue()).putInt(key.length).put(key).put(byteContent);
+        record.flip();
+
+        m_lock.readLock().lock();
+        try {
+            if (m_channel == null) {
+                return;
+            }
+            long position;
+            synchronized (m_appendLock) {
+                position = m_storeSize;
+                // write the length first, so a scan can skip this record even if it is never completed
+                ByteBuffer length = ByteBuffer.allocate(4);
+                length.putInt(0, recordLength);
+                writeFully(m_channel, length, position);
+                m_storeSize += recordLength;
+            }
+            writeFully(m_channel, record, position);
+            Entry entry = new Entry(
+                position + (RECORD_OVERHEAD + key.length),
+                byteContent.length,
+                recordLength,
+                System.currentTimeMillis());
+            Entry oldEntry = m_entries.put(cacheName, entry);
+            m_liveSize.addAndGet(entry.m_recordLength - (oldEntry != null ? oldEntry.m_recordLength : 0));
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index of the cache and closes the store file.<p>
+     */
+    public void shutDown() {
+
+        m_lock.writeLock().lock();
+        try {
+            if (m_channel != null) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EXTRACTION_STORE_WRITE_ERROR_1, m_rfsRepository), e);
+        } finally {
+            closeChannel();
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads bytes from the given channel until the buffer is full.<p>
+     *
+     * @param channel the channel to read from
+     * @param buffer the buffer to fill
+     * @param position the position to start reading at
+     *
+     * @throws IOException if reading fails or the end of the channel is reached
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            current += read;
+        }
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer to the given channel.<p>
+     *
+     * @param channel the channel to write to
+     * @param buffer the buffer to write
+     * @param position the position to start writing at
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    /**
+     * Deletes the expired files written by the former one-file-per-entry cache.<p>
+     *
+     * @param expireDate the date before which files are expired
+     *
+     * @return the number of deleted files
+     */
+    private int cleanLegacyFiles(long expireDate) {
+
+        File[] files = new File(m_rfsRepository).listFiles((dir, name) -> name.endsWith(LEGACY_FILE_SUFFIX));
+        if ((files == null) || (files.length == 0)) {
+            m_legacyFiles = false;
+            return 0;
+        }
+        int count = 0;
+        for (File f : files) {
+            if (f.canWrite() && (f.lastModified() < expireDate)) {
+                try {
+                    f.delete();
+                    count++;
+                } catch (Exception e) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
+                                f.getAbsolutePath()),
+                            e);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Closes the store file, the cache is not usable afterwards.<p>
+     */
+    private void closeChannel() {
+
+        if (m_channel != null) {
+            try {
+                m_channel.close();
+            } catch (IOException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            m_channel = null;
+        }
+    }
+
+    /**
+     * Rewrites the store file so that it only contains the entries of the index.<p>
+     *
+     * Must be called while holding the write lock.<p>
+     *
+     * @throws IOException if rewriting the store file fails
+     */
+    private void compact() throws IOException {
+
+        File storeFile = new File(m_rfsRepository, STORE_FILE_NAME);
+        File tempFile = new File(m_rfsRepository, STORE_FILE_NAME + ".tmp");
+        long generation = System.nanoTime() ^ System.currentTimeMillis();
+        Map<String, Entry> entries = new HashMap<String, Entry>(m_entries.size());
+        long position = HEADER_SIZE;
+        try (FileChannel out = FileChannel.open(
+            tempFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+            writeHeader(out, generation);
+            out.position(HEADER_SIZE);
+            for (Map.Entry<String, Entry> mapEntry : m_entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                long transferred = 0;
+                while (transferred < entry.m_recordLength) {
+                    transferred += m_channel.transferTo(
+                        entry.getRecordOffset() + transferred,
+                        entry.m_recordLength - transferred,
+                        out);
+                }
+                entries.put(
+                    mapEntry.getKey(),
+                    new Entry(
+                        (position + entry.m_recordLength) - entry.m_length,
+                        entry.m_length,
+                        entry.m_recordLength,
+                        entry.m_lastAccess));
+                position += entry.m_recordLength;
+            }
+            out.force(false);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        closeChannel();
+        try {
+            Files.move(tempFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            m_channel = FileChannel.open(storeFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        m_entries.clear();
+        m_entries.putAll(entries);
+        m_generation = generation;
+        m_liveSize.set(position - HEADER_SIZE);
+        m_storeSize = position;
+    }
+
+    /**
+     * Opens the store file and loads its index.<p>
+     *
+     * If the store can not be opened, an error is logged and the cache stays empty.<p>
+     */
+    private void open() {
+
+        File folder = new File(m_rfsRepository);
+        File storeFile = new File(folder, STORE_FILE_NAME);
+        try {
+            if (!folder.exists()) {
+                folder.mkdirs();
+            }
+            m_channel = FileChannel.open(
+                storeFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            if (!readHeader()) {
+                m_channel.truncate(0);
+                m_generation = System.nanoTime() ^ System.currentTimeMillis();
+                writeHeader(m_channel, m_generation);
+            }
+            long indexedStoreSize = readIndex();
+            m_storeSize = scanStore(indexedStoreSize);
+            if (m_storeSize == indexedStoreSize) {
+                m_indexedStoreSize = indexedStoreSize;
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EXTRACTION_STORE_OPEN_ERROR_1, m_rfsRepository), e);
+            closeChannel();
+            m_entries.clear();
+        }
+    }
+
+    /**
+     * Reads the header of the store file.<p>
+     *
+     * @return <code>true</code> if the store file has a valid header
+     *
+     * @throws IOException if reading the store file fails
+     */
+    private boolean readHeader() throws IOException {
+
+        if (m_channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(m_channel, header, 0);
+        header.flip();
+        if ((header.getInt() != MAGIC) || (header.getInt() != VERSION)) {
+            return false;
+        }
+        m_generation = header.getLong();
+        return true;
+    }
+
+    /**
+     * Loads the index file, if it matches the store file.<p>
+     *
+     * @return the position in the store file up to which the index is complete
+     */
+    private long readIndex() {
+
+        File indexFile = new File(m_rfsRepository, INDEX_FILE_NAME);
+        if (!indexFile.exists()) {
+            return HEADER_SIZE;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || (in.readLong() != m_generation)) {
+                return HEADER_SIZE;
+            }
+            long storeSize = in.readLong();
+            if (storeSize > m_channel.size()) {
+                return HEADER_SIZE;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readInt(), in.readInt(), in.readLong());
+                m_entries.put(key, entry);
+                m_liveSize.addAndGet(entry.m_recordLength);
+            }
+            return storeSize;
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_EXTRACTION_INDEX_READ_ERROR_1, indexFile), e);
+            m_entries.clear();
+            m_liveSize.set(0);
+            return HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Adds the records of the store file starting at the given position to the index.<p>
+     *
+     * Records with a wrong checksum were not completely written and are skipped. A record with an invalid
+     * length ends the store, the file is truncated at its start.<p>
+     *
+     * @param start the position of the first record to read
+     *
+     * @return the size of the store file
+     *
+     * @throws IOException if reading the store file fails
+     */
+    private long scanStore(long start) throws IOException {
+
+        long size = m_channel.size();
+        long now = System.currentTimeMillis();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_OVERHEAD);
+        long position = start;
+        while ((position + RECORD_OVERHEAD) <= size) {
+            header.clear();
+            readFully(m_channel, header, position);
+            int recordLength = header.getInt(0);
+            if ((recordLength < RECORD_OVERHEAD) || ((position + recordLength) > size)) {
+                break;
+            }
+            int keyLength = header.getInt(8);
+            if ((keyLength > 0) && (keyLength <= MAX_KEY_LENGTH) && (keyLength <= (recordLength - RECORD_OVERHEAD))) {
+                ByteBuffer data = ByteBuffer.allocate(recordLength - RECORD_OVERHEAD);
+                readFully(m_channel, data, position + RECORD_OVERHEAD);
+                CRC32 crc = new CRC32();
+                crc.update(data.array());
+                if (header.getInt(4) == (int)crc.getValue()) {
+                    String key = new String(data.array(), 0, keyLength, StandardCharsets.UTF_8);
+                    Entry entry = new Entry(
+                        position + RECORD_OVERHEAD + keyLength,
+                        recordLength - RECORD_OVERHEAD - keyLength,
+                        recordLength,
+                        now);
+                    Entry oldEntry = m_entries.put(key, entry);
+                    m_liveSize.addAndGet(entry.m_recordLength - (oldEntry != null ? oldEntry.m_recordLength : 0));
+                }
+            }
+            position += recordLength;
+        }
+        if (position < size) {
+            m_channel.truncate(position);
+        }
+        return position;
+    }
+
+    /**
+     * Writes the header of a store file.<p>
+     *
+     * @param channel the channel of the store file
+     * @param generation the generation of the store file
+     *
+     * @throws IOException if writing fails
+     */
+    private void writeHeader(FileChannel channel, long generation) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation);
+        header.flip();
+        writeFully(channel, header, 0);
+    }
+
+    /**
+     * Writes the in-memory index to the index file.<p>
+     *
+     * Must be called while holding the write lock.<p>
+     *
+     * @throws IOException if writing the index fails
+     */
+    private void writeIndex() throws IOException {
+
+        // the index must never point to data that is not yet on disk
+        m_channel.force(false);
+        File indexFile = new File(m_rfsRepository, INDEX_FILE_NAME);
+        File tempFile = new File(m_rfsRepository, INDEX_FILE_NAME + ".tmp");
+        List<Map.Entry<String, Entry>> entries = new ArrayList<Map.Entry<String, Entry>>(m_entries.entrySet());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(m_generation);
+            out.writeLong(m_storeSize);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries) {
+                Entry entry = mapEntry.getValue();
+                out.writeUTF(mapEntry.getKey());
+                out.writeLong(entry.m_offset);
+                out.writeInt(entry.m_length);
+                out.writeInt(entry.m_recordLength);
+                out.writeLong(entry.m_lastAccess);
+            }
         }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        m_indexedStoreSize = m_storeSize;
     }
-}
\ No newline at end of file
+}
@@ -70,6 +70,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXTRACT_CONTENT_2 = "LOG_EXTRACT_CONTENT_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACTION_INDEX_READ_ERROR_1 = "LOG_EXTRACTION_INDEX_READ_ERROR_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACTION_STORE_OPEN_ERROR_1 = "LOG_EXTRACTION_STORE_OPEN_ERROR_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACTION_STORE_WRITE_ERROR_1 = "LOG_EXTRACTION_STORE_WRITE_ERROR_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXTRACT_VALUE_2 = "LOG_EXTRACT_VALUE_2";
 
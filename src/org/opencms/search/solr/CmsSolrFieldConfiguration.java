@@ -186,6 +186,16 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
 
+        if ((getIndex() instanceof CmsSolrIndex) && ((CmsSolrIndex)getIndex()).isReadAclFilterEnabled()) {
+            List<String> tokens = CmsSolrReadAcl.getTokens(cms, resource);
+            if (document.getDocument() instanceof SolrInputDocument) {
+                SolrInputDocument doc = (SolrInputDocument)document.getDocument();
+                for (String token : tokens) {
+                    doc.addField(CmsSolrReadAcl.FIELD_READ_ACL, token);
+                }
+            }
+        }
+
         document = appendFieldsForListSortOptions(document);
 
         if (resource.getRootPath().startsWith(OpenCms.getSiteManager().getSharedFolder())
@@ -130,6 +130,24 @@ public class CmsSolrIndex extends CmsSearchIndex {
     **/
     public static final String SOLR_SEARCH_MAX_PROCESSED_RESULTS = "search.solr.maxProcessedResults";
 
+    /**
+     * Constant for additional parameter to write read permission tokens into the index and to restrict the
+     * search results with a filter query on them, instead of checking the permissions of every hit.<p>
+     *
+     * The tokens of a resource include the access control entries inherited from its parent folders.
+     * If the access control entries of a folder are changed, the search manager therefore re-indexes
+     * the whole sub tree of the folder in all indexes using this parameter: offline indexes on the change,
+     * online indexes when the folder is published. Indexes with the rebuild mode "manual" have to be
+     * rebuilt after such a change.<p>
+     */
+    public static final String SOLR_SEARCH_READ_ACL_FILTER = "search.solr.readAclFilter";
+
+    /**
+     * Constant for additional parameter to check the permissions of every hit even if the
+     * read permission filter is enabled.
+     */
+    public static final String SOLR_SEARCH_READ_ACL_POST_CHECK = "search.solr.readAclPostCheck";
+
     /** Constant for additional parameter to set the fields the select handler should return at maximum. */
     public static final String SOLR_HANDLER_ALLOWED_FIELDS = "handle.solr.allowedFields";
 
@@ -247,6 +265,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The maximal number of results to process for search queries. */
     int m_maxProcessedResults = -2; // special value for not initialized.
 
+    /** Flag, indicating if search results are restricted by the read permission tokens in the index. */
+    private boolean m_readAclFilter;
+
+    /** Flag, indicating if the permissions of every hit are checked even if the read permission filter is used. */
+    private boolean m_readAclPostCheck;
+
     /** Server URL to use specific for the index. If set, it overwrites all other server settings. */
     private String m_serverUrl;
 
@@ -373,6 +397,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     }
                 }
                 break;
+            case SOLR_SEARCH_READ_ACL_FILTER:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    m_readAclFilter = value.trim().toLowerCase().equals("true");
+                }
+                break;
+            case SOLR_SEARCH_READ_ACL_POST_CHECK:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    m_readAclPostCheck = value.trim().toLowerCase().equals("true");
+                }
+                break;
             case SOLR_SERVER_URL:
                 if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
                     m_serverUrl = value.trim();
@@ -657,6 +691,17 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null == m_solr;
     }
 
+    /**
+     * Returns a flag, indicating if read permission tokens are written into the index
+     * and used to restrict the search results.<p>
+     *
+     * @return <code>true</code> if the read permission filter is enabled for this index
+     */
+    public boolean isReadAclFilterEnabled() {
+
+        return m_readAclFilter;
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      *
@@ -965,12 +1010,22 @@ public class CmsSolrIndex extends CmsSearchIndex {
             // initialize the search context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
 
+            // with the read permission filter, Solr only returns documents the user is allowed to read
+            String readAclFilterQuery = getReadAclFilterQuery(searchCms, filter);
+            boolean checkPermissionsOfHits = (readAclFilterQuery == null) || m_readAclPostCheck;
+            // the filter is only added to the queries sent to Solr, the given query stays unchanged
+            CmsSolrQuery searchQuery = query;
+            if (readAclFilterQuery != null) {
+                searchQuery = query.clone();
+                searchQuery.addFilterQuery(readAclFilterQuery);
+            }
+
             ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
             //////////////////////// QUERY FOR PERMISSION CHECK, FACETS, SPELLCHECK, SUGGESTIONS ///////////////////////////
             ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
             // Clone the query and keep the original one
-            CmsSolrQuery checkQuery = query.clone();
+            CmsSolrQuery checkQuery = searchQuery.clone();
             // Initialize rows, offset, end and the current page.
             int end = start + rows;
             int itemsToCheck = 0 == end ? 0 : Math.max(10, end + (end / 5)); // request 20 percent more, but at least 10 results if permissions are filtered
@@ -983,114 +1038,137 @@ public class CmsSolrIndex extends CmsSearchIndex {
             long visibleHitCount = 0;
             int processedResults = 0;
             long solrPermissionTime = 0;
-            // disable highlighting - it's done in the next query.
-            checkQuery.setHighlight(false);
-            // adjust rows and start for the permission check.
-            checkQuery.setRows(Integer.valueOf(Math.min(maxNumResults - processedResults, itemsToCheck)));
-            checkQuery.setStart(Integer.valueOf(processedResults));
-            // return only the fields required for the permission check and for scoring
-            checkQuery.setFields(CmsSearchField.FIELD_TYPE, CmsSearchField.FIELD_SOLR_ID, CmsSearchField.FIELD_PATH);
-            List<String> originalFields = Arrays.asList(query.getFields().split(","));
-            if (originalFields.contains(CmsSearchField.FIELD_SCORE)) {
-                checkQuery.addField(CmsSearchField.FIELD_SCORE);
-            }
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_SOLR_DEBUG_CHECK_QUERY_2, checkQuery, getName()));
-            }
-            // perform the permission check Solr query and remember the response and time Solr took.
-            long solrCheckTime = System.currentTimeMillis();
-            QueryResponse checkQueryResponse = m_solr.query(getCoreName(), checkQuery);
-            solrCheckTime = System.currentTimeMillis() - solrCheckTime;
-            solrPermissionTime += solrCheckTime;
-
-            // initialize the counts
-            hitCount = checkQueryResponse.getResults().getNumFound();
-            int maxToProcess = Long.valueOf(Math.min(hitCount, maxNumResults)).intValue();
-            visibleHitCount = hitCount;
-
-            // process found documents
-            for (SolrDocument doc : checkQueryResponse.getResults()) {
-                try {
-                    CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
-                    if (needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter)) {
-                        visibleHitCount--;
-                    } else {
-                        if (cnt >= start) {
-                            resultSolrIds.add(searchDoc.getFieldValueAsString(CmsSearchField.FIELD_SOLR_ID));
-                        }
-                        if (sortByScoreDesc && (searchDoc.getScore() > maxScore)) {
-                            maxScore = searchDoc.getScore();
-                        }
-                        if (++cnt >= end) {
-                            break;
+            QueryResponse checkQueryResponse;
+            // the response of the query for the results, if it is already known
+            QueryResponse resultQueryResponse = null;
+            if (checkPermissionsOfHits) {
+                // disable highlighting - it's done in the next query.
+                checkQuery.setHighlight(false);
+                // adjust rows and start for the permission check.
+                checkQuery.setRows(Integer.valueOf(Math.min(maxNumResults - processedResults, itemsToCheck)));
+                checkQuery.setStart(Integer.valueOf(processedResults));
+                // return only the fields required for the permission check and for scoring
+                checkQuery.setFields(
+                    CmsSearchField.FIELD_TYPE,
+                    CmsSearchField.FIELD_SOLR_ID,
+                    CmsSearchField.FIELD_PATH);
+                List<String> originalFields = Arrays.asList(query.getFields().split(","));
+                if (originalFields.contains(CmsSearchField.FIELD_SCORE)) {
+                    checkQuery.addField(CmsSearchField.FIELD_SCORE);
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(Messages.LOG_SOLR_DEBUG_CHECK_QUERY_2, checkQuery, getName()));
+                }
+                // perform the permission check Solr query and remember the response and time Solr took.
+                long solrCheckTime = System.currentTimeMillis();
+                checkQueryResponse = m_solr.query(getCoreName(), checkQuery);
+                solrCheckTime = System.currentTimeMillis() - solrCheckTime;
+                solrPermissionTime += solrCheckTime;
+
+                // initialize the counts
+                hitCount = checkQueryResponse.getResults().getNumFound();
+                int maxToProcess = Long.valueOf(Math.min(hitCount, maxNumResults)).intValue();
+                visibleHitCount = hitCount;
+
+                // process found documents
+                for (SolrDocument doc : checkQueryResponse.getResults()) {
+                    try {
+                        CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                        if (needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter)) {
+                            visibleHitCount--;
+                        } else {
+                            if (cnt >= start) {
+                                resultSolrIds.add(searchDoc.getFieldValueAsString(CmsSearchField.FIELD_SOLR_ID));
+                            }
+                            if (sortByScoreDesc && (searchDoc.getScore() > maxScore)) {
+                                maxScore = searchDoc.getScore();
+                            }
+                            if (++cnt >= end) {
+                                break;
+                            }
                         }
+                    } catch (Exception e) {
+                        // should not happen, but if it does we want to go on with the next result nevertheless
+                        visibleHitCount--;
+                        LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0), e);
                     }
-                } catch (Exception e) {
-                    // should not happen, but if it does we want to go on with the next result nevertheless
-                    visibleHitCount--;
-                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0), e);
                 }
-            }
-            processedResults += checkQueryResponse.getResults().size();
-
-            if ((resultSolrIds.size() < rows) && (processedResults < maxToProcess)) {
-                CmsSolrQuery secondCheckQuery = checkQuery.clone();
-                // disable all features not necessary, since results are present from the first check query.
-                secondCheckQuery.setFacet(false);
-                secondCheckQuery.setMoreLikeThis(false);
-                secondCheckQuery.set(QUERY_SPELLCHECK_NAME, false);
-                do {
-                    // query directly more under certain conditions to reduce number of queries
-                    itemsToCheck = itemsToCheck < 3000 ? itemsToCheck * 4 : itemsToCheck;
-                    // adjust rows and start for the permission check.
-                    secondCheckQuery.setRows(
-                        Integer.valueOf(
-                            Long.valueOf(Math.min(maxToProcess - processedResults, itemsToCheck)).intValue()));
-                    secondCheckQuery.setStart(Integer.valueOf(processedResults));
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_SOLR_DEBUG_SECONDCHECK_QUERY_2,
-                                secondCheckQuery,
-                                getName()));
-                    }
+                processedResults += checkQueryResponse.getResults().size();
+
+                if ((resultSolrIds.size() < rows) && (processedResults < maxToProcess)) {
+                    CmsSolrQuery secondCheckQuery = checkQuery.clone();
+                    // disable all features not necessary, since results are present from the first check query.
+                    secondCheckQuery.setFacet(false);
+                    secondCheckQuery.setMoreLikeThis(false);
+                    secondCheckQuery.set(QUERY_SPELLCHECK_NAME, false);
+                    do {
+                        // query directly more under certain conditions to reduce number of queries
+                        itemsToCheck = itemsToCheck < 3000 ? itemsToCheck * 4 : itemsToCheck;
+                        // adjust rows and start for the permission check.
+                        secondCheckQuery.setRows(
+                            Integer.valueOf(
+                                Long.valueOf(Math.min(maxToProcess - processedResults, itemsToCheck)).intValue()));
+                        secondCheckQuery.setStart(Integer.valueOf(processedResults));
+
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_SOLR_DEBUG_SECONDCHECK_QUERY_2,
+                                    secondCheckQuery,
+                                    getName()));
+                        }
 
-                    long solrSecondCheckTime = System.currentTimeMillis();
-                    QueryResponse secondCheckQueryResponse = m_solr.query(getCoreName(), secondCheckQuery);
-                    processedResults += secondCheckQueryResponse.getResults().size();
-                    solrSecondCheckTime = System.currentTimeMillis() - solrSecondCheckTime;
-                    solrPermissionTime += solrCheckTime;
-
-                    // process found documents
-                    for (SolrDocument doc : secondCheckQueryResponse.getResults()) {
-                        try {
-                            CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
-                            String docSolrId = searchDoc.getFieldValueAsString(CmsSearchField.FIELD_SOLR_ID);
-                            if ((needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter))
-                                || resultSolrIds.contains(docSolrId)) {
-                                visibleHitCount--;
-                            } else {
-                                if (cnt >= start) {
-                                    resultSolrIds.add(docSolrId);
-                                }
-                                if (sortByScoreDesc && (searchDoc.getScore() > maxScore)) {
-                                    maxScore = searchDoc.getScore();
-                                }
-                                if (++cnt >= end) {
-                                    break;
+                        long solrSecondCheckTime = System.currentTimeMillis();
+                        QueryResponse secondCheckQueryResponse = m_solr.query(getCoreName(), secondCheckQuery);
+                        processedResults += secondCheckQueryResponse.getResults().size();
+                        solrSecondCheckTime = System.currentTimeMillis() - solrSecondCheckTime;
+                        solrPermissionTime += solrCheckTime;
+
+                        // process found documents
+                        for (SolrDocument doc : secondCheckQueryResponse.getResults()) {
+                            try {
+                                CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                                String docSolrId = searchDoc.getFieldValueAsString(CmsSearchField.FIELD_SOLR_ID);
+                                if ((needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter))
+                                    || resultSolrIds.contains(docSolrId)) {
+                                    visibleHitCount--;
+                                } else {
+                                    if (cnt >= start) {
+                                        resultSolrIds.add(docSolrId);
+                                    }
+                                    if (sortByScoreDesc && (searchDoc.getScore() > maxScore)) {
+                                        maxScore = searchDoc.getScore();
+                                    }
+                                    if (++cnt >= end) {
+                                        break;
+                                    }
                                 }
+                            } catch (Exception e) {
+                                // should not happen, but if it does we want to go on with the next result nevertheless
+                                visibleHitCount--;
+                                LOG.warn(
+                                    Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0),
+                                    e);
                             }
-                        } catch (Exception e) {
-                            // should not happen, but if it does we want to go on with the next result nevertheless
-                            visibleHitCount--;
-                            LOG.warn(
-                                Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_RESULT_ITERATION_FAILED_0),
-                                e);
                         }
-                    }
 
-                } while ((resultSolrIds.size() < rows) && (processedResults < maxToProcess));
+                    } while ((resultSolrIds.size() < rows) && (processedResults < maxToProcess));
+                }
+            } else {
+                // no hit has to be dropped, so the original query already returns the requested page
+                long solrQueryTime = System.currentTimeMillis();
+                checkQueryResponse = m_solr.query(getCoreName(), searchQuery);
+                solrPermissionTime = System.currentTimeMillis() - solrQueryTime;
+                resultQueryResponse = checkQueryResponse;
+                visibleHitCount = checkQueryResponse.getResults().getNumFound();
+                Float responseMaxScore = checkQueryResponse.getResults().getMaxScore();
+                if (sortByScoreDesc && (responseMaxScore != null)) {
+                    maxScore = responseMaxScore.floatValue();
+                }
+                for (SolrDocument doc : checkQueryResponse.getResults()) {
+                    resultSolrIds.add(String.valueOf(doc.getFieldValue(CmsSearchField.FIELD_SOLR_ID)));
+                }
             }
 
             ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -1108,25 +1186,30 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 m_postProcessor.init();
             }
 
-            // build the query for getting the results
-            SolrQuery queryForResults = query.clone();
-            // we add an additional filter, such that we can only find the documents we want to retrieve, as we figured out in the check query.
-            if (!resultSolrIds.isEmpty()) {
-                String queryFilterString = resultSolrIds.stream().collect(Collectors.joining(","));
-                queryForResults.addFilterQuery(
-                    "{!terms f=" + CmsSearchField.FIELD_SOLR_ID + " separator=\",\"}" + queryFilterString);
-            }
-            queryForResults.setRows(Integer.valueOf(resultSolrIds.size()));
-            queryForResults.setStart(Integer.valueOf(0));
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(Messages.LOG_SOLR_DEBUG_RESULT_QUERY_2, queryForResults, getName()));
+            if (resultQueryResponse == null) {
+                // build the query for getting the results
+                SolrQuery queryForResults = searchQuery.clone();
+                // we add an additional filter, such that we can only find the documents we want to retrieve, as we figured out in the check query.
+                if (!resultSolrIds.isEmpty()) {
+                    String queryFilterString = resultSolrIds.stream().collect(Collectors.joining(","));
+                    queryForResults.addFilterQuery(
+                        "{!terms f=" + CmsSearchField.FIELD_SOLR_ID + " separator=\",\"}" + queryFilterString);
+                }
+                queryForResults.setRows(Integer.valueOf(resultSolrIds.size()));
+                queryForResults.setStart(Integer.valueOf(0));
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_SOLR_DEBUG_RESULT_QUERY_2,
+                            queryForResults,
+                            getName()));
+                }
+                // perform the result query.
+                solrResultTime = System.currentTimeMillis();
+                resultQueryResponse = m_solr.query(getCoreName(), queryForResults);
+                solrResultTime = System.currentTimeMillis() - solrResultTime;
             }
-            // perform the result query.
-            solrResultTime = System.currentTimeMillis();
-            QueryResponse resultQueryResponse = m_solr.query(getCoreName(), queryForResults);
-            solrResultTime = System.currentTimeMillis() - solrResultTime;
 
             // List containing solr ids of filtered contents for which highlighting has to be removed.
             // Since we checked permissions just a few milliseconds ago, this should typically stay empty.
@@ -1202,10 +1285,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 for (String filteredId : filteredResultIds) {
                     highlighting.remove(filteredId);
                 }
-                NamedList<Object> completeResponse = new SimpleOrderedMap<Object>(1);
-                completeResponse.addAll(checkQueryResponse.getResponse());
-                completeResponse.add(QUERY_HIGHLIGHTING_NAME, highlighting);
-                checkQueryResponse.setResponse(completeResponse);
+                if (resultQueryResponse != checkQueryResponse) {
+                    NamedList<Object> completeResponse = new SimpleOrderedMap<Object>(1);
+                    completeResponse.addAll(checkQueryResponse.getResponse());
+                    completeResponse.add(QUERY_HIGHLIGHTING_NAME, highlighting);
+                    checkQueryResponse.setResponse(completeResponse);
+                }
             }
 
             // build the result
@@ -1551,6 +1636,29 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the filter query restricting the search results to the documents the user is allowed to read,
+     * or <code>null</code> if the permissions have to be checked for every hit.<p>
+     *
+     * @param cms the current users context
+     * @param filter the resource filter for the permission check, or <code>null</code>
+     *
+     * @return the read permission filter query, or <code>null</code>
+     */
+    private String getReadAclFilterQuery(CmsObject cms, CmsResourceFilter filter) {
+
+        if (!m_readAclFilter || (filter != null) || !isCheckingPermissions() || isRequireViewPermission()) {
+            // the tokens in the index only cover the read permission with the default filter
+            return null;
+        }
+        try {
+            return CmsSolrReadAcl.getFilterQuery(cms);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+
     /**
      * Checks if the query should be executed using the debug mode where the security restrictions do not apply.
      * @param cms the current context.
@@ -0,0 +1,256 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Translates read permissions into tokens of an indexed field and back into a Solr filter query.<p>
+ *
+ * At index time, every principal with an entry in the (inherited) access control list of a resource
+ * is written as token, separately for entries that allow and that deny reading.
+ * At search time, the principals of the current user (the user, the groups and the roles) are turned
+ * into a filter query that matches the same documents as
+ * {@link CmsAccessControlList#getPermissions(CmsUser, List, List)} would allow reading:
+ * a principal of the user allows reading and none denies it, or the user has no entry at all and the
+ * "all others" entry allows reading.<p>
+ *
+ * Resources with exclusive access principals have time dependent permissions. They are marked as
+ * unresolved and always pass the filter, so that their permissions are checked when reading the results.<p>
+ */
+public final class CmsSolrReadAcl {
+
+    /** The name of the indexed field holding the read permission tokens. */
+    public static final String FIELD_READ_ACL = "read_acl_mvs";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSolrReadAcl.class);
+
+    /** The token prefix for principals allowed to read. */
+    private static final String PREFIX_ALLOWED = "r_";
+
+    /** The token prefix for principals denied to read. */
+    private static final String PREFIX_DENIED = "d_";
+
+    /** The token prefix for principals with any access control entry. */
+    private static final String PREFIX_ENTRY = "e_";
+
+    /** The token for resources whose read permissions can not be resolved at index time. */
+    private static final String TOKEN_UNRESOLVED = "unresolved";
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsSolrReadAcl() {
+
+        // noop
+    }
+
+    /**
+     * Returns the filter query that restricts the results to the documents readable by the current user.<p>
+     *
+     * Returns <code>null</code> if the user can ignore permissions for some resources,
+     * in this case the results have to be checked after the query.<p>
+     *
+     * @param cms the current OpenCms context
+     *
+     * @return the filter query, or <code>null</code> if the read permissions can not be expressed as filter
+     *
+     * @throws CmsException if the groups or roles of the user can not be read
+     */
+    public static String getFilterQuery(CmsObject cms) throws CmsException {
+
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        Set<CmsUUID> principals = new LinkedHashSet<CmsUUID>();
+        principals.add(user.getId());
+        for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+            principals.add(group.getId());
+        }
+        if (!user.isGuestUser()) {
+            for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false)) {
+                CmsRole bareRole = role.forOrgUnit(null);
+                if (isIgnoringPermissions(bareRole)) {
+                    // VFS managers may read resources regardless of the access control entries
+                    return null;
+                }
+                principals.add(bareRole.getId());
+            }
+        }
+        return getFilterQuery(principals);
+    }
+
+    /**
+     * Returns the filter query that matches the documents readable with the given principals.<p>
+     *
+     * @param principals the ids of the user, the groups and the roles
+     *
+     * @return the filter query
+     */
+    public static String getFilterQuery(Collection<CmsUUID> principals) {
+
+        StringBuffer result = new StringBuffer(256);
+        // one of the principals is allowed, and none is denied
+        result.append("(+");
+        appendTerms(result, PREFIX_ALLOWED, principals);
+        result.append(" -");
+        appendTerms(result, PREFIX_DENIED, principals);
+        // no principal has an entry, and the 'all others' entry allows reading
+        result.append(") OR (+");
+        appendTerm(result, PREFIX_ALLOWED + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID);
+        result.append(" -");
+        appendTerm(result, PREFIX_DENIED + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID);
+        result.append(" -");
+        appendTerms(result, PREFIX_ENTRY, principals);
+        // permissions are checked when reading the results
+        result.append(") OR ");
+        appendTerm(result, TOKEN_UNRESOLVED);
+        return result.toString();
+    }
+
+    /**
+     * Returns the read permission tokens for the given resource.<p>
+     *
+     * If the access control list can not be read, the resource is marked as unresolved.<p>
+     *
+     * @param cms the OpenCms context used for indexing
+     * @param resource the resource to index
+     *
+     * @return the read permission tokens
+     */
+    public static List<String> getTokens(CmsObject cms, CmsResource resource) {
+
+        CmsAccessControlList acl = null;
+        try {
+            CmsObject rootCms = OpenCms.initCmsObject(cms);
+            rootCms.getRequestContext().setSiteRoot("");
+            acl = rootCms.getAccessControlList(resource.getRootPath());
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        return getTokens(acl);
+    }
+
+    /**
+     * Returns the read permission tokens for the given access control list.<p>
+     *
+     * @param acl the access control list of the resource, including the inherited entries
+     *
+     * @return the read permission tokens
+     */
+    public static List<String> getTokens(CmsAccessControlList acl) {
+
+        List<String> tokens = new ArrayList<String>();
+        if ((acl == null) || !acl.getExclusiveAccessPrincipals().isEmpty()) {
+            tokens.add(TOKEN_UNRESOLVED);
+            return tokens;
+        }
+        for (CmsUUID principal : acl.getPrincipals()) {
+            CmsPermissionSet permissions = acl.getPermissions(principal);
+            tokens.add(PREFIX_ENTRY + principal);
+            if ((permissions.getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                tokens.add(PREFIX_ALLOWED + principal);
+            }
+            if ((permissions.getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                tokens.add(PREFIX_DENIED + principal);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Appends a query on the read permission field for a single token.<p>
+     *
+     * @param result the buffer to append to
+     * @param token the token
+     */
+    private static void appendTerm(StringBuffer result, String token) {
+
+        result.append(FIELD_READ_ACL).append(":\"").append(token).append('"');
+    }
+
+    /**
+     * Appends a query on the read permission field for the tokens of the given principals.<p>
+     *
+     * @param result the buffer to append to
+     * @param prefix the token prefix
+     * @param principals the principals
+     */
+    private static void appendTerms(StringBuffer result, String prefix, Collection<CmsUUID> principals) {
+
+        result.append(FIELD_READ_ACL).append(":(");
+        boolean first = true;
+        for (CmsUUID principal : principals) {
+            if (!first) {
+                result.append(" OR ");
+            }
+            first = false;
+            result.append('"').append(prefix).append(principal).append('"');
+        }
+        result.append(')');
+    }
+
+    /**
+     * Checks if the given role may read resources regardless of their access control entries.<p>
+     *
+     * @param role the role, without organizational unit
+     *
+     * @return <code>true</code> if the role includes the VFS manager role
+     */
+    private static boolean isIgnoringPermissions(CmsRole role) {
+
+        if (role.getRoleName().equals(CmsRole.VFS_MANAGER.getRoleName())) {
+            return true;
+        }
+        for (CmsRole child : role.getChildren(true)) {
+            if (child.getRoleName().equals(CmsRole.VFS_MANAGER.getRoleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -84,11 +84,34 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             return I_CmsPermissionHandler.PERM_FILTERED;
         }
 
+        boolean writeRequired = requiredPermissions.requiresWritePermission()
+            || requiredPermissions.requiresControlPermission();
+
+        if (writeRequired && (checkLock != LockCheck.no)) {
+            // check lock state only if required, this is done before the cache lookup
+            // so cached results never depend on the lock state and locking does not need to flush the cache
+            CmsLock lock = m_driverManager.getLock(dbc, resource);
+            // if the resource is not locked by the current user, write and control
+            // access must cause a permission error that must not be cached
+            if (lock.isUnlocked() || !lock.isLockableBy(dbc.currentUser())) {
+                return I_CmsPermissionHandler.PERM_NOTLOCKED;
+            }
+            // if we have a shallow lock, but need a non-shallow one, return NOTLOCKED
+            if (lock.getType().isShallow() && (checkLock != LockCheck.shallowOnly)) {
+                return I_CmsPermissionHandler.PERM_NOTLOCKED;
+            }
+        }
+
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
         String requireVisibleStr = filter.requireVisible() ? "1" : "0";
         String lockCheckStr = checkLock.getCode();
         String keyPrefix = requireVisibleStr + lockCheckStr;
+        boolean isJsp = CmsResourceTypeJsp.isJsp(resource);
+        if (writeRequired && isJsp) {
+            // write access to JSPs is restricted, make sure a type change is reflected in the key
+            keyPrefix += "J";
+        }
 
         String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(keyPrefix, dbc, resource, requiredPermissions);
         CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
@@ -110,33 +133,15 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             CmsRole.VFS_MANAGER,
             resource);
 
-        // check lock status
-        boolean writeRequired = requiredPermissions.requiresWritePermission()
-            || requiredPermissions.requiresControlPermission();
-
         // if the resource type is jsp
         // write is only allowed for administrators
-        if (writeRequired && !canIgnorePermissions && (CmsResourceTypeJsp.isJsp(resource))) {
+        if (writeRequired && !canIgnorePermissions && isJsp) {
             if (!m_securityManager.hasRoleForResource(dbc, dbc.currentUser(), CmsRole.VFS_MANAGER, resource)) {
                 denied |= CmsPermissionSet.PERMISSION_WRITE;
                 denied |= CmsPermissionSet.PERMISSION_CONTROL;
             }
         }
 
-        if (writeRequired && (checkLock != LockCheck.no)) {
-            // check lock state only if required
-            CmsLock lock = m_driverManager.getLock(dbc, resource);
-            // if the resource is not locked by the current user, write and control
-            // access must cause a permission error that must not be cached
-            if (lock.isUnlocked() || !lock.isLockableBy(dbc.currentUser())) {
-                return I_CmsPermissionHandler.PERM_NOTLOCKED;
-            }
-            // if we have a shallow lock, but need a non-shallow one, return NOTLOCKED
-            if (lock.getType().isShallow() && (checkLock != LockCheck.shallowOnly)) {
-                return I_CmsPermissionHandler.PERM_NOTLOCKED;
-            }
-        }
-
         CmsPermissionSetCustom permissions;
         if (canIgnorePermissions) {
             // if the current user is administrator, anything is allowed
@@ -218,7 +223,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             }
         }
         if (dbc.getProjectId().isNullUUID() && permissions.isCacheable()) {
-            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
+            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result, resource.getRootPath());
         }
         if (!permissions.isCacheable()) {
             // if this method is used for checking permissions in resource lists, the resulting resource lists
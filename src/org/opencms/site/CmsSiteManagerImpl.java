@@ -116,23 +116,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             }
         }
 
-        /**
-         * Gets the site for the given root path, or null if no site for that path is found.
-         *
-         * @param path a root path
-         * @return the site for the root path, or null
-         */
-        public CmsSite getSiteForRootPath(String path) {
-
-            for (Map.Entry<CmsPath, CmsSite> entry : m_alternativeSites.entrySet()) {
-                CmsPath key = entry.getKey();
-                if (key.isPrefixOfStr(path)) {
-                    return entry.getValue();
-                }
-            }
-            return null;
-        }
-
         /**
          * Gets the site for the given site root.
          *
@@ -156,6 +139,16 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             return Collections.unmodifiableSet(m_siteRoots);
         }
 
+        /**
+         * Gets the sites for the alternative site root mappings.
+         *
+         * @return the sites
+         */
+        public Collection<CmsSite> getSites() {
+
+            return Collections.unmodifiableCollection(m_alternativeSites.values());
+        }
+
     }
 
     /** The default shared folder name. */
@@ -195,11 +188,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The path to the "/sites/" folder. */
     private static final String SITES_FOLDER = "/sites/";
 
-    /** The length of the "/sites/" folder plus 1. */
-    private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
-
-    /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
-    private List<String> m_additionalSiteRoots;
 
     /** Data for the alternative site root rules. */
     private volatile AlternativeSiteData m_alternativeSiteData = new AlternativeSiteData(new ArrayList<>());
@@ -237,6 +225,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
 
+    /** Index for looking up sites by root path, null if it has to be rebuilt after a configuration change. */
+    private volatile CmsSiteRootIndex m_siteRootIndex;
+
     /** Maps site roots to sites. */
     private Map<String, CmsSite> m_siteRootSites;
 
@@ -257,7 +248,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
 
         m_siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
         m_siteRootSites = new HashMap<String, CmsSite>();
-        m_additionalSiteRoots = new ArrayList<String>();
         m_workplaceServers = new LinkedHashMap<String, CmsSSLMode>();
         m_workplaceMatchers = new ArrayList<CmsSiteMatcher>();
         m_oldStyleSecureServer = true;
@@ -464,6 +454,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         site.setAlternativeSiteRootMapping(alternativeSiteRootMapping);
         m_siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         m_siteRootSites.put(site.getSiteRoot(), site);
+        m_siteRootIndex = null;
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SITE_ROOT_ADDED_1, site.toString()));
         }
@@ -999,21 +990,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     public CmsSite getSiteForRootPath(String rootPath) {
 
-        if ((rootPath.length() > 0) && !rootPath.endsWith("/")) {
-            rootPath = rootPath + "/";
-        }
-        // most sites will be below the "/sites/" folder,
-        CmsSite result = lookupSitesFolder(rootPath);
-        if (result != null) {
-            return result;
-        }
-        // look through all folders that are not below "/sites/"
-        String siteRoot = lookupAdditionalSite(rootPath);
-        if (siteRoot != null) {
-            return getSiteForSiteRoot(siteRoot);
-        }
-        return m_alternativeSiteData.getSiteForRootPath(rootPath);
-
+        return getSiteRootIndex().getSiteForRootPath(rootPath);
     }
 
     /**
@@ -1061,26 +1038,8 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     public String getSiteRoot(String rootPath) {
 
-        // add a trailing slash, because the path may be the path of a site root itself
-        if (!rootPath.endsWith("/")) {
-            rootPath = rootPath + "/";
-        }
-        // most sites will be below the "/sites/" folder,
-        CmsSite site = lookupSitesFolder(rootPath);
-        if (site != null) {
-            return site.getSiteRoot();
-        }
-        // look through all folders that are not below "/sites/"
-        String result = lookupAdditionalSite(rootPath);
-        if (result != null) {
-            return result;
-        }
-        CmsSite extSite = m_alternativeSiteData.getSiteForRootPath(rootPath);
-        if (extSite != null) {
-            result = extSite.getSiteRoot();
-        }
-        return result;
-
+        CmsSite site = getSiteRootIndex().getSiteForRootPath(rootPath);
+        return site != null ? site.getSiteRoot() : null;
     }
 
     /**
@@ -1341,13 +1300,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             // set site lists to unmodifiable
             setSiteMatcherSites(m_siteMatcherSites);
 
-            // store additional site roots to optimize lookups later
-            for (String root : m_siteRootSites.keySet()) {
-                if (!root.startsWith(SITES_FOLDER) || (root.split("/").length >= 4)) {
-                    m_additionalSiteRoots.add(root);
-                }
-            }
-
             initExtensionSites();
 
             if (m_sharedFolder == null) {
@@ -1608,6 +1560,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         siteRootSites.remove(site.getSiteRoot());
         m_siteRootSites = Collections.unmodifiableMap(siteRootSites);
+        m_siteRootIndex = null;
 
         // re-initialize, will freeze the state when finished
         initialize(cms);
@@ -1901,12 +1854,28 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         return m_siteMatchers.get(index);
     }
 
+    /**
+     * Returns the index for looking up sites by root path, building it if the site configuration has changed.<p>
+     *
+     * @return the site root index
+     */
+    private CmsSiteRootIndex getSiteRootIndex() {
+
+        CmsSiteRootIndex index = m_siteRootIndex;
+        if (index == null) {
+            index = new CmsSiteRootIndex(m_siteRootSites.values(), m_alternativeSiteData.getSites());
+            m_siteRootIndex = index;
+        }
+        return index;
+    }
+
     /**
      * Finds the configured extension folders for all normal sites and stores them in a separate list.
      */
     private void initExtensionSites() {
 
         m_alternativeSiteData = new AlternativeSiteData(m_siteMatcherSites.values());
+        m_siteRootIndex = new CmsSiteRootIndex(m_siteRootSites.values(), m_alternativeSiteData.getSites());
     }
 
     /**
@@ -1974,44 +1943,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         return true;
     }
 
-    /**
-     * Returns <code>true</code> if the given root path matches any of the stored additional sites.<p>
-     *
-     * @param rootPath the root path to check
-     *
-     * @return <code>true</code> if the given root path matches any of the stored additional sites
-     */
-    private String lookupAdditionalSite(String rootPath) {
-
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot + "/")) {
-                return siteRoot;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Returns the configured site if the given root path matches site in the "/sites/" folder,
-     * or <code>null</code> otherwise.<p>
-     *
-     * @param rootPath the root path to check
-     *
-     * @return the configured site if the given root path matches site in the "/sites/" folder,
-     *      or <code>null</code> otherwise
-     */
-    private CmsSite lookupSitesFolder(String rootPath) {
-
-        int pos = rootPath.indexOf('/', SITES_FOLDER_POS);
-        if (pos > 0) {
-            // this assumes that the root path may likely start with something like "/sites/default/"
-            // just cut the first 2 directories from the root path and do a direct lookup in the internal map
-            return m_siteRootSites.get(rootPath.substring(0, pos));
-        }
-        return null;
-    }
-
     /**
      * Sets the class member variables {@link #m_siteMatcherSites} and  {@link #m_siteMatchers}
      * from the provided map of configured site matchers.<p>
@@ -0,0 +1,248 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable index for looking up the site a root path belongs to.<p>
+ *
+ * The site roots are stored in a tree with one level per path segment, so a lookup only walks
+ * the segments of the given root path once, without creating any substrings.
+ * If site roots are nested, the site with the shortest site root wins.
+ * Sites from alternative site root mappings are only considered if no normal site matches.<p>
+ */
+public final class CmsSiteRootIndex {
+
+    /**
+     * A node of the site root tree.<p>
+     */
+    private static final class Node {
+
+        /** Empty child array. */
+        static final Node[] NO_CHILDREN = new Node[0];
+
+        /** Empty name array. */
+        static final String[] NO_NAMES = new String[0];
+
+        /** The child nodes, in the same order as the names. */
+        final Node[] m_children;
+
+        /** The sorted names of the child nodes. */
+        final String[] m_names;
+
+        /** The site whose site root ends at this node, or null. */
+        final CmsSite m_site;
+
+        /**
+         * Creates a node from its builder.<p>
+         *
+         * @param builder the builder
+         */
+        Node(NodeBuilder builder) {
+
+            m_site = builder.m_site;
+            int size = builder.m_children.size();
+            m_names = size == 0 ? NO_NAMES : new String[size];
+            m_children = size == 0 ? NO_CHILDREN : new Node[size];
+            int i = 0;
+            for (Map.Entry<String, NodeBuilder> entry : builder.m_children.entrySet()) {
+                m_names[i] = entry.getKey();
+                m_children[i] = new Node(entry.getValue());
+                i++;
+            }
+        }
+
+        /**
+         * Returns the child node for the segment of the path between the given positions.<p>
+         *
+         * @param path the path
+         * @param start the start of the segment (inclusive)
+         * @param end the end of the segment (exclusive)
+         *
+         * @return the child node, or null if there is none for the segment
+         */
+        Node getChild(String path, int start, int end) {
+
+            int low = 0;
+            int high = m_names.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(m_names[mid], path, start, end);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return m_children[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Mutable node used while building the tree.<p>
+     */
+    private static final class NodeBuilder {
+
+        /** The child nodes by name. */
+        final Map<String, NodeBuilder> m_children = new TreeMap<String, NodeBuilder>();
+
+        /** The site whose site root ends at this node, or null. */
+        CmsSite m_site;
+    }
+
+    /** The root of the tree for the alternative site root mappings. */
+    private final Node m_alternativeRoot;
+
+    /** The root of the tree for the normal sites. */
+    private final Node m_root;
+
+    /**
+     * Creates a new index.<p>
+     *
+     * @param sites the normal sites
+     * @param alternativeSites the sites created for alternative site root mappings
+     */
+    public CmsSiteRootIndex(Collection<CmsSite> sites, Collection<CmsSite> alternativeSites) {
+
+        m_root = build(sites);
+        m_alternativeRoot = build(alternativeSites);
+    }
+
+    /**
+     * Builds the tree for the given sites.<p>
+     *
+     * @param sites the sites
+     *
+     * @return the root node of the tree
+     */
+    private static Node build(Collection<CmsSite> sites) {
+
+        NodeBuilder root = new NodeBuilder();
+        for (CmsSite site : sites) {
+            String siteRoot = site.getSiteRoot();
+            NodeBuilder node = root;
+            for (String segment : siteRoot.split("/")) {
+                if (segment.length() == 0) {
+                    continue;
+                }
+                NodeBuilder child = node.m_children.get(segment);
+                if (child == null) {
+                    child = new NodeBuilder();
+                    node.m_children.put(segment, child);
+                }
+                node = child;
+            }
+            if ((node != root) && (node.m_site == null)) {
+                node.m_site = site;
+            }
+        }
+        return new Node(root);
+    }
+
+    /**
+     * Compares a name with a segment of a path, in the same way as {@link String#compareTo(String)}.<p>
+     *
+     * @param name the name
+     * @param path the path
+     * @param start the start of the segment (inclusive)
+     * @param end the end of the segment (exclusive)
+     *
+     * @return the comparison result
+     */
+    static int compare(String name, String path, int start, int end) {
+
+        int length = end - start;
+        int limit = Math.min(name.length(), length);
+        for (int i = 0; i < limit; i++) {
+            char c1 = name.charAt(i);
+            char c2 = path.charAt(start + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return name.length() - length;
+    }
+
+    /**
+     * Looks up the site with the shortest site root which is a prefix of the given path in the given tree.<p>
+     *
+     * @param root the root node of the tree
+     * @param path the root path
+     *
+     * @return the site, or null if no site matches
+     */
+    private static CmsSite lookup(Node root, String path) {
+
+        int length = path.length();
+        if ((length == 0) || (path.charAt(0) != '/')) {
+            return null;
+        }
+        Node node = root;
+        int start = 1;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.getChild(path, start, end);
+            if (node == null) {
+                return null;
+            }
+            if (node.m_site != null) {
+                return node.m_site;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the site for the given root path.<p>
+     *
+     * The root path may or may not end with a slash; a site root matches if it is equal to the root path
+     * or to one of its parent folders.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the site for the root path, or null if no site matches
+     */
+    public CmsSite getSiteForRootPath(String rootPath) {
+
+        CmsSite result = lookup(m_root, rootPath);
+        if (result == null) {
+            result = lookup(m_alternativeRoot, rootPath);
+        }
+        return result;
+    }
+}
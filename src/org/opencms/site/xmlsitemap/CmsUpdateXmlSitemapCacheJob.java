@@ -82,8 +82,8 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
                     generator = CmsXmlSitemapActionElement.prepareSitemapGenerator(res, config);
                 }
                 if (generator != null) {
-                    String xml = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(res.getRootPath(), xml);
+                    // only the entries of resources published since the last update are generated again
+                    CmsXmlSitemapCache.INSTANCE.getIndex(res.getRootPath(), generator, true);
                 } else {
                     LOG.info("Ignoring file " + res.getRootPath());
                 }
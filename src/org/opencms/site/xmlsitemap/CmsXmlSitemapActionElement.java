@@ -38,7 +38,10 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -55,6 +58,9 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlSitemapActionElement.class);
 
+    /** Request parameter name for the number of the sitemap shard. */
+    public static final String PARAM_SHARD = "shard";
+
     /** Runtime property name for the default sitemap generator class. */
     private static final String PARAM_DEFAULT_SITEMAP_GENERATOR = "sitemap.generator";
 
@@ -158,30 +164,20 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
             showRobotsTxt();
         } else {
             boolean updateCache = Boolean.parseBoolean(getRequest().getParameter("updateCache"));
-            String value = "";
-            if (updateCache && m_configuration.usesCache()) {
-                // update request, and caching is configured -> update the cache
-                CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
-                CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
-            } else if (!updateCache && m_configuration.usesCache()) {
-                // normal request, and caching is configured -> look in the cache first, and if not found, calculate sitemap and store it in cache
-                String cachedValue = CmsXmlSitemapCache.INSTANCE.get(seoFile.getRootPath());
-                if (cachedValue != null) {
-                    value = cachedValue;
-                } else {
-                    CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                    value = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
-                }
-            } else if (!updateCache && !m_configuration.usesCache()) {
-                // normal request, caching is not configured -> always generate a fresh sitemap
-                CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
-            } else if (updateCache && !m_configuration.usesCache()) {
+            if (updateCache && !m_configuration.usesCache()) {
                 // update request with no caching configured -> ignore
+                return;
+            }
+            CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
+            CmsXmlSitemapUrlIndex index;
+            if (m_configuration.usesCache()) {
+                // caching is configured -> use the cached index, after updating the entries of published resources
+                index = CmsXmlSitemapCache.INSTANCE.getIndex(seoFile.getRootPath(), generator, updateCache);
+            } else {
+                // caching is not configured -> always generate a fresh sitemap
+                index = generator.generateUrlIndex(null);
             }
-            getResponse().getWriter().print(value);
+            writeSitemap(seoFile, generator, index);
         }
 
     }
@@ -225,4 +221,48 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
         getResponse().getWriter().print(buffer.toString());
     }
 
+    /**
+     * Writes the sitemap to the response.<p>
+     *
+     * Sitemaps with more URLs than allowed in a single file are written as sitemap index,
+     * referencing the shards of the sitemap with the request parameter {@link #PARAM_SHARD}.<p>
+     *
+     * @param seoFile the sitemap XML file
+     * @param generator the sitemap generator
+     * @param index the URL index of the sitemap
+     *
+     * @throws IOException if writing the response fails
+     */
+    private void writeSitemap(CmsResource seoFile, CmsXmlSitemapGenerator generator, CmsXmlSitemapUrlIndex index)
+    throws IOException {
+
+        Writer writer = getResponse().getWriter();
+        String shardParam = getRequest().getParameter(PARAM_SHARD);
+        if (shardParam != null) {
+            int shard = -1;
+            try {
+                shard = Integer.parseInt(shardParam.trim());
+            } catch (NumberFormatException e) {
+                LOG.debug("Invalid sitemap shard " + shardParam);
+            }
+            if ((shard < 1) || (shard > index.getShardCount())) {
+                getResponse().sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            generator.writeSitemap(writer, index.getUrlBeans(shard));
+        } else if (index.getShardCount() > 1) {
+            CmsObject cms = getCmsObject();
+            String link = CmsXmlSitemapGenerator.replaceServerUri(
+                OpenCms.getLinkManager().getOnlineLink(cms, cms.getSitePath(seoFile)),
+                m_configuration.getServerUrl());
+            List<String> shardLinks = new ArrayList<String>();
+            for (int shard = 1; shard <= index.getShardCount(); shard++) {
+                shardLinks.add(link + "?" + PARAM_SHARD + "=" + shard);
+            }
+            generator.writeSitemapIndex(writer, shardLinks);
+        } else {
+            generator.writeSitemap(writer, index.getUrlBeans(1));
+        }
+    }
+
 }
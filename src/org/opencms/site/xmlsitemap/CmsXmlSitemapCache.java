@@ -27,55 +27,461 @@
 
 package org.opencms.site.xmlsitemap;
 
+import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Cache for XML sitemaps.<p>
+ *
+ * The cache keeps the URL index of every XML sitemap configuration which uses caching, and stores it in the
+ * real file system so that it survives a restart. Publish events mark the affected entries as invalid;
+ * the next request for the sitemap then only regenerates these entries.<p>
  */
-public class CmsXmlSitemapCache {
+public class CmsXmlSitemapCache implements I_CmsEventListener {
 
-    /** The logger for this class. */
-    private static final Log LOG = CmsLog.getLog(CmsXmlSitemapCache.class);
+    /** The folder below WEB-INF in which the URL indexes are stored. */
+    public static final String FOLDER_INDEXES = "xmlsitemaps";
 
     /** Static instance for this class. */
     public static final CmsXmlSitemapCache INSTANCE = new CmsXmlSitemapCache();
 
-    /** The map for storing the cached sitemaps. */
-    private ConcurrentHashMap<String, String> m_cache = new ConcurrentHashMap<String, String>();
+    /** The file suffix of stored URL indexes. */
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+
+    /** The logger for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlSitemapCache.class);
+
+    /** The map for storing the cached sitemap indexes. */
+    private ConcurrentHashMap<String, CmsXmlSitemapUrlIndex> m_cache = new ConcurrentHashMap<>();
+
+    /** The CMS context used for reading the published resources. */
+    private CmsObject m_cms;
+
+    /** The locks used to update each sitemap only once at the same time. */
+    private ConcurrentHashMap<String, Object> m_locks = new ConcurrentHashMap<String, Object>();
+
+    /** The folder in which the URL indexes are stored, or null if the indexes are not stored. */
+    private String m_rfsFolder;
+
+    /** The indexes which are currently updated, receiving the invalidations which happen during the update. */
+    private Map<String, CmsXmlSitemapUrlIndex> m_updating = new HashMap<String, CmsXmlSitemapUrlIndex>();
 
     /**
      * Clears the cache.<p>
      */
     public void clear() {
 
-        m_cache.clear();
+        synchronized (this) {
+            m_cache.clear();
+            for (CmsXmlSitemapUrlIndex index : m_updating.values()) {
+                index.invalidateAll();
+            }
+        }
+        if (m_rfsFolder != null) {
+            File[] files = new File(m_rfsFolder).listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(INDEX_FILE_SUFFIX)) {
+                        file.delete();
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Gets the cached entry for the given key (the key will normally be the root path of a sitemap.xml file).<p>
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (!CmsUUID.isValidUUID(publishIdStr)) {
+                    invalidateAll();
+                } else {
+                    try {
+                        invalidate(m_cms.readPublishedResources(new CmsUUID(publishIdStr)));
+                    } catch (CmsException e) {
+                        LOG.error(e.getLocalizedMessage(), e);
+                        invalidateAll();
+                    }
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            default:
+                // ignore
+        }
+    }
+
+    /**
+     * Gets the cached URL index for the given key (the key will normally be the root path of a sitemap.xml file).<p>
+     *
+     * The returned index may be stale, use {@link #getIndex(String, CmsXmlSitemapGenerator, boolean)}
+     * to get an up to date index.<p>
      *
      * @param key the key
-     * @return the cached XML sitemap, or null if no cached value exists
+     * @return the cached URL index, or null if no cached value exists
      */
-    public String get(String key) {
+    public CmsXmlSitemapUrlIndex get(String key) {
 
-        return m_cache.get(key);
+        return get(key, null);
     }
 
     /**
-     * Stores an XML sitemap in the cache.<p>
+     * Gets the URL index for the given key, and generates or updates it if necessary.<p>
+     *
+     * If the cached index is stale, only the entries of the resources published since the index was
+     * generated are generated again.<p>
      *
      * @param key the XML sitemap key (usually the root path of the sitemap.xml)
-     * @param value the XML sitemap content
+     * @param generator the generator for the XML sitemap
+     * @param forceUpdate if true, the index is updated even if it is not stale
+     *
+     * @return the URL index
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsXmlSitemapUrlIndex getIndex(String key, CmsXmlSitemapGenerator generator, boolean forceUpdate)
+    throws CmsException {
+
+        String configurationKey = generator.getConfigurationKey();
+        CmsXmlSitemapUrlIndex index = get(key, configurationKey);
+        if ((index != null) && !index.isStale() && !forceUpdate) {
+            return index;
+        }
+        Object lock = m_locks.computeIfAbsent(key, k -> new Object());
+        synchronized (lock) {
+            CmsXmlSitemapUrlIndex current = get(key, configurationKey);
+            if ((current != null) && (current != index) && !current.isStale()) {
+                // another thread has updated the index in the meantime
+                return current;
+            }
+            return updateIndex(key, current, generator);
+        }
+    }
+
+    /**
+     * Initializes the cache.<p>
+     *
+     * @param cms a CMS context with the permission to read the publish history
+     */
+    public void initialize(CmsObject cms) {
+
+        m_cms = cms;
+        m_rfsFolder = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(FOLDER_INDEXES);
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT, I_CmsEventListener.EVENT_CLEAR_CACHES});
+    }
+
+    /**
+     * Deletes the stored URL index for the given key.<p>
+     *
+     * @param key the XML sitemap key
      */
-    public void put(String key, String value) {
+    private void deleteIndex(String key) {
 
-        LOG.info("Caching sitemap for key " + key + ", size = " + value.length());
-        m_cache.put(key, value);
+        File file = getIndexFile(key);
+        if ((file != null) && file.exists() && !file.delete()) {
+            LOG.warn("Could not delete XML sitemap index " + file.getAbsolutePath());
+        }
     }
 
+    /**
+     * Gets the cached URL index for the given key, if it was generated with the given configuration.<p>
+     *
+     * @param key the XML sitemap key
+     * @param configurationKey the key of the generator configuration, or null to accept any configuration
+     *
+     * @return the cached URL index, or null if no matching cached value exists
+     */
+    private CmsXmlSitemapUrlIndex get(String key, String configurationKey) {
+
+        CmsXmlSitemapUrlIndex result = m_cache.get(key);
+        if ((result != null) && !matchesConfiguration(result, configurationKey)) {
+            m_cache.remove(key, result);
+            result = null;
+        }
+        if ((result == null) && (m_rfsFolder != null)) {
+            result = readIndex(key, configurationKey);
+            if (result != null) {
+                CmsXmlSitemapUrlIndex existing = m_cache.putIfAbsent(key, result);
+                if (existing != null) {
+                    result = existing;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the file in which the URL index for the given key is stored.<p>
+     *
+     * @param key the XML sitemap key
+     *
+     * @return the file, or null if the indexes are not stored
+     */
+    private File getIndexFile(String key) {
+
+        if (m_rfsFolder == null) {
+            return null;
+        }
+        return new File(m_rfsFolder, CmsUUID.getConstantUUID(key) + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Marks the entries of all cached indexes affected by the published resources as invalid.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    private void invalidate(List<CmsPublishedResource> publishedResources) {
+
+        Set<String> invalidatedKeys = new HashSet<String>();
+        synchronized (this) {
+            List<Map.Entry<String, CmsXmlSitemapUrlIndex>> indexes = new ArrayList<>();
+            indexes.addAll(m_cache.entrySet());
+            indexes.addAll(m_updating.entrySet());
+            for (Map.Entry<String, CmsXmlSitemapUrlIndex> entry : indexes) {
+                CmsXmlSitemapUrlIndex index = entry.getValue();
+                for (CmsPublishedResource resource : publishedResources) {
+                    if (isConfiguration(resource)) {
+                        // detail pages, includes or excludes may have changed
+                        index.invalidateAll();
+                        invalidatedKeys.add(entry.getKey());
+                    } else if (isInScope(index, resource.getRootPath())) {
+                        if (resource.isFolder()) {
+                            // properties like the change frequency are inherited from folders
+                            index.invalidateFolder(resource.getRootPath());
+                        } else {
+                            index.invalidateResource(resource.getStructureId());
+                        }
+                        invalidatedKeys.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        // a stored index is only valid as long as no invalidation has been missed
+        for (String key : invalidatedKeys) {
+            deleteIndex(key);
+        }
+    }
+
+    /**
+     * Marks all entries of all cached indexes as invalid.<p>
+     */
+    private void invalidateAll() {
+
+        Set<String> keys;
+        synchronized (this) {
+            for (CmsXmlSitemapUrlIndex index : m_cache.values()) {
+                index.invalidateAll();
+            }
+            for (CmsXmlSitemapUrlIndex index : m_updating.values()) {
+                index.invalidateAll();
+            }
+            keys = new HashSet<String>(m_cache.keySet());
+        }
+        for (String key : keys) {
+            deleteIndex(key);
+        }
+    }
+
+    /**
+     * Checks if a published resource may change which detail pages, includes or excludes are used for a sitemap.<p>
+     *
+     * @param resource the published resource
+     *
+     * @return true if the resource is a configuration
+     */
+    private boolean isConfiguration(CmsPublishedResource resource) {
+
+        int type = resource.getType();
+        return OpenCms.getResourceManager().matchResourceType(CmsADEManager.CONFIG_TYPE, type)
+            || OpenCms.getResourceManager().matchResourceType(CmsADEManager.MODULE_CONFIG_TYPE, type)
+            || OpenCms.getResourceManager().matchResourceType(CmsXmlSeoConfiguration.SEO_FILE_TYPE, type);
+    }
+
+    /**
+     * Checks if a resource may contribute URLs to the sitemap of the given index.<p>
+     *
+     * @param index the URL index
+     * @param rootPath the root path of the resource
+     *
+     * @return true if the resource may contribute URLs to the sitemap
+     */
+    private boolean isInScope(CmsXmlSitemapUrlIndex index, String rootPath) {
+
+        // detail contents may be located anywhere in the site or in the shared folder
+        return (index.getSiteRoot() == null)
+            || CmsStringUtil.isPrefixPath(index.getSiteRoot(), rootPath)
+            || OpenCms.getSiteManager().startsWithShared(rootPath);
+    }
+
+    /**
+     * Checks if an URL index was generated with the given configuration.<p>
+     *
+     * @param index the URL index
+     * @param configurationKey the key of the generator configuration, or null to accept any configuration
+     *
+     * @return true if the index may be used for the configuration
+     */
+    private boolean matchesConfiguration(CmsXmlSitemapUrlIndex index, String configurationKey) {
+
+        return (configurationKey == null) || configurationKey.equals(index.getConfigurationKey());
+    }
+
+    /**
+     * Reads the stored URL index for the given key.<p>
+     *
+     * A stored index generated with a different configuration, for example after the site URL has changed,
+     * is deleted.<p>
+     *
+     * @param key the XML sitemap key
+     * @param configurationKey the key of the generator configuration, or null to accept any configuration
+     *
+     * @return the URL index, or null if no valid index is stored
+     */
+    private CmsXmlSitemapUrlIndex readIndex(String key, String configurationKey) {
+
+        File file = getIndexFile(key);
+        if ((file == null) || !file.exists()) {
+            return null;
+        }
+        CmsXmlSitemapUrlIndex index;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            index = CmsXmlSitemapUrlIndex.read(in);
+        } catch (IOException e) {
+            LOG.warn("Could not read XML sitemap index " + file.getAbsolutePath() + ": " + e.getLocalizedMessage(), e);
+            return null;
+        }
+        if (!matchesConfiguration(index, configurationKey)) {
+            LOG.info("Discarding XML sitemap index " + file.getAbsolutePath() + " of another configuration");
+            deleteIndex(key);
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Generates or updates the URL index for the given key.<p>
+     *
+     * @param key the XML sitemap key
+     * @param previous the previous URL index, or null
+     * @param generator the generator for the XML sitemap
+     *
+     * @return the new URL index
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsXmlSitemapUrlIndex updateIndex(
+        String key,
+        CmsXmlSitemapUrlIndex previous,
+        CmsXmlSitemapGenerator generator)
+    throws CmsException {
+
+        long start = System.currentTimeMillis();
+        CmsXmlSitemapUrlIndex tracker = previous != null
+        ? previous
+        : new CmsXmlSitemapUrlIndex(null, Collections.<CmsXmlSitemapUrlIndex.Entry> emptyList());
+        int invalidationCount;
+        synchronized (this) {
+            m_updating.put(key, tracker);
+            invalidationCount = tracker.getInvalidationCount();
+        }
+        CmsXmlSitemapUrlIndex result;
+        try {
+            result = generator.generateUrlIndex(previous);
+            synchronized (this) {
+                if (tracker.getInvalidationCount() != invalidationCount) {
+                    // resources have been published while the index was generated
+                    result.invalidateFrom(tracker);
+                }
+                m_cache.put(key, result);
+            }
+        } finally {
+            synchronized (this) {
+                m_updating.remove(key);
+            }
+        }
+        LOG.info(
+            "Updated sitemap for key "
+                + key
+                + ", size = "
+                + result.getEntries().size()
+                + ", incremental = "
+                + (previous != null)
+                + ", time = "
+                + (System.currentTimeMillis() - start)
+                + "ms");
+        if (!result.isStale()) {
+            writeIndex(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Stores the URL index for the given key in the real file system.<p>
+     *
+     * @param key the XML sitemap key
+     * @param index the URL index
+     */
+    private void writeIndex(String key, CmsXmlSitemapUrlIndex index) {
+
+        File file = getIndexFile(key);
+        if (file == null) {
+            return;
+        }
+        file.getParentFile().mkdirs();
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            index.write(out);
+        } catch (IOException e) {
+            LOG.warn("Could not write XML sitemap index " + file.getAbsolutePath() + ": " + e.getLocalizedMessage(), e);
+            tempFile.delete();
+            return;
+        }
+        synchronized (this) {
+            // the index may have been invalidated while it was written
+            if ((m_cache.get(key) == index) && !index.isStale()) {
+                try {
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    LOG.warn("Could not write XML sitemap index " + file.getAbsolutePath(), e);
+                }
+            }
+        }
+        tempFile.delete();
+    }
 }
@@ -40,6 +40,7 @@ import org.opencms.file.types.CmsResourceTypeHtmlRedirect;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.i18n.CmsEncoder;
 import org.opencms.jsp.CmsJspNavBuilder;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.loader.CmsLoaderException;
@@ -55,12 +56,16 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -85,6 +90,9 @@ public class CmsXmlSitemapGenerator {
      */
     protected class ResultEntry {
 
+        /** The index entry the URL bean was created from, if it was reused from a previous index. */
+        private CmsXmlSitemapUrlIndex.Entry m_indexEntry;
+
         /** Internal priority to determine which of multiple entries with the same URL is used.
          * Note that this has nothing to do with the priority in the URL bean itself!
          */
@@ -106,6 +114,27 @@ public class CmsXmlSitemapGenerator {
             m_urlBean = urlBean;
         }
 
+        /**
+         * Creates a new result entry for an entry reused from a previous index.<p>
+         *
+         * @param indexEntry the reused index entry
+         */
+        public ResultEntry(CmsXmlSitemapUrlIndex.Entry indexEntry) {
+
+            this(indexEntry.toUrlBean(), indexEntry.getResultPriority());
+            m_indexEntry = indexEntry;
+        }
+
+        /**
+         * Gets the index entry the URL bean was created from, if it was reused from a previous index.<p>
+         *
+         * @return the reused index entry, or null
+         */
+        public CmsXmlSitemapUrlIndex.Entry getIndexEntry() {
+
+            return m_indexEntry;
+        }
+
         /**
          * Gets the internal priority used to determine which of multiple entries with the same URL to use.<p>
          * This has nothing to do with the priority defined in the URL beans themselves!
@@ -167,6 +196,9 @@ public class CmsXmlSitemapGenerator {
     /** The map used for storing the results, with URLs as keys. */
     protected Map<String, ResultEntry> m_resultMap = new LinkedHashMap<String, ResultEntry>();
 
+    /** The entries of the previous index which can be reused, keyed by resource, detail page and internal priority. */
+    protected Map<String, List<CmsXmlSitemapUrlIndex.Entry>> m_reusableEntries = new HashMap<>();
+
     /** A guest user CMS object with the site root of the base folder. */
     protected CmsObject m_siteGuestCms;
 
@@ -302,29 +334,46 @@ public class CmsXmlSitemapGenerator {
 
         String baseSitePath = m_siteGuestCms.getRequestContext().removeSiteRoot(m_baseFolderRootPath);
         initializeFileData(baseSitePath);
+        List<CmsResource> pages = new ArrayList<CmsResource>();
+        List<CmsResource> pagesToRead = new ArrayList<CmsResource>();
         for (CmsResource resource : getDirectPages()) {
             if (CmsResourceTypeHtmlRedirect.isRedirect(resource)) {
                 continue;
             }
-            String sitePath = m_siteGuestCms.getSitePath(resource);
-            List<CmsProperty> propertyList = m_siteGuestCms.readPropertyObjects(resource, true);
-            String onlineLink = OpenCms.getLinkManager().getOnlineLink(m_siteGuestCms, sitePath);
+            pages.add(resource);
+            if (!isReusablePage(resource)
+                || !m_reusableEntries.containsKey(
+                    CmsXmlSitemapUrlIndex.getReuseKey(resource.getStructureId(), null, 3))) {
+                pagesToRead.add(resource);
+            }
+        }
+        // read the properties of all pages which are not reused at once
+        Map<CmsUUID, List<CmsProperty>> properties = m_siteGuestCms.readPropertyObjects(pagesToRead, true);
+        for (CmsResource resource : pages) {
             boolean isContainerPage = CmsResourceTypeXmlContainerPage.isContainerPage(resource);
-            long dateModified = resource.getDateLastModified();
-            if (isContainerPage) {
-                if (m_computeContainerPageDates) {
-                    dateModified = computeContainerPageModificationDate(resource);
-                } else {
-                    dateModified = -1;
+            List<CmsProperty> propertyList = properties.get(resource.getStructureId());
+            if (!isReusablePage(resource) || !addReusedResults(resource.getStructureId(), null, 3)) {
+                if (propertyList == null) {
+                    propertyList = m_siteGuestCms.readPropertyObjects(resource, true);
                 }
+                String sitePath = m_siteGuestCms.getSitePath(resource);
+                String onlineLink = OpenCms.getLinkManager().getOnlineLink(m_siteGuestCms, sitePath);
+                long dateModified = resource.getDateLastModified();
+                if (isContainerPage) {
+                    if (m_computeContainerPageDates) {
+                        dateModified = computeContainerPageModificationDate(resource);
+                    } else {
+                        dateModified = -1;
+                    }
+                }
+                CmsXmlSitemapUrlBean urlBean = new CmsXmlSitemapUrlBean(
+                    replaceServerUri(onlineLink),
+                    dateModified,
+                    getChangeFrequency(propertyList),
+                    getPriority(propertyList));
+                urlBean.setOriginalResource(resource);
+                addResult(urlBean, 3);
             }
-            CmsXmlSitemapUrlBean urlBean = new CmsXmlSitemapUrlBean(
-                replaceServerUri(onlineLink),
-                dateModified,
-                getChangeFrequency(propertyList),
-                getPriority(propertyList));
-            urlBean.setOriginalResource(resource);
-            addResult(urlBean, 3);
             if (isContainerPage) {
                 Locale locale = getLocale(resource, propertyList);
                 addDetailLinks(resource, locale);
@@ -342,6 +391,65 @@ public class CmsXmlSitemapGenerator {
         return result;
     }
 
+    /**
+     * Generates the URL index for the sitemap.<p>
+     *
+     * If a previous index is given, the entries of all resources which have not been invalidated since
+     * are reused instead of being generated again. Which pages belong to the sitemap is always determined again.<p>
+     *
+     * @param previous the previous index, or null to generate all entries
+     *
+     * @return the URL index
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsXmlSitemapUrlIndex generateUrlIndex(CmsXmlSitemapUrlIndex previous) throws CmsException {
+
+        if ((previous != null) && isIncrementalUpdateSupported()) {
+            m_reusableEntries = previous.getReusableEntries();
+        }
+        try {
+            List<CmsXmlSitemapUrlBean> urlBeans = generateSitemapBeans();
+            Map<CmsXmlSitemapUrlBean, ResultEntry> resultEntries = new IdentityHashMap<>();
+            for (ResultEntry resultEntry : m_resultMap.values()) {
+                resultEntries.put(resultEntry.getUrlBean(), resultEntry);
+            }
+            List<CmsXmlSitemapUrlIndex.Entry> entries = new ArrayList<CmsXmlSitemapUrlIndex.Entry>(urlBeans.size());
+            for (CmsXmlSitemapUrlBean urlBean : urlBeans) {
+                ResultEntry resultEntry = resultEntries.get(urlBean);
+                if ((resultEntry != null) && (resultEntry.getIndexEntry() != null)) {
+                    entries.add(resultEntry.getIndexEntry());
+                } else {
+                    entries.add(createIndexEntry(urlBean, resultEntry != null ? resultEntry.getPriority() : 0));
+                }
+            }
+            return new CmsXmlSitemapUrlIndex(m_siteRoot, getConfigurationKey(), entries);
+        } finally {
+            m_reusableEntries = new HashMap<>();
+        }
+    }
+
+    /**
+     * Returns a key for the configuration which determines the URLs generated by this generator.<p>
+     *
+     * This covers the base folder, the replacement server URL and the link of the base folder, which depends
+     * on the site URL and the link configuration. A stored URL index is only reused for the same key.<p>
+     *
+     * @return the configuration key
+     */
+    public String getConfigurationKey() {
+
+        return getClass().getName()
+            + "|"
+            + m_baseFolderRootPath
+            + "|"
+            + m_serverUrl
+            + "|"
+            + m_computeContainerPageDates
+            + "|"
+            + OpenCms.getLinkManager().getOnlineLink(m_siteGuestCms, m_baseFolderSitePath);
+    }
+
     /**
      * Gets the include/exclude configuration of this XML sitemap generator.<p>
      *
@@ -361,16 +469,14 @@ public class CmsXmlSitemapGenerator {
      */
     public String renderSitemap() throws CmsException {
 
-        StringBuffer buffer = new StringBuffer();
-        List<CmsXmlSitemapUrlBean> urlBeans = generateSitemapBeans();
-        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        buffer.append(getUrlSetOpenTag() + "\n");
-        for (CmsXmlSitemapUrlBean bean : urlBeans) {
-            buffer.append(getXmlForEntry(bean));
-            buffer.append("\n");
+        StringWriter writer = new StringWriter();
+        try {
+            writeSitemap(writer, generateSitemapBeans());
+        } catch (IOException e) {
+            // can not happen when writing to a string
+            LOG.error(e.getLocalizedMessage(), e);
         }
-        buffer.append("</urlset>");
-        return buffer.toString();
+        return writer.toString();
     }
 
     /**
@@ -395,6 +501,43 @@ public class CmsXmlSitemapGenerator {
         m_serverUrl = serverUrl;
     }
 
+    /**
+     * Writes a sitemap with the given URLs.<p>
+     *
+     * @param writer the writer to write the sitemap to
+     * @param urlBeans the URLs of the sitemap
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeSitemap(Writer writer, Iterable<CmsXmlSitemapUrlBean> urlBeans) throws IOException {
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write(getUrlSetOpenTag() + "\n");
+        for (CmsXmlSitemapUrlBean bean : urlBeans) {
+            writer.write(getXmlForEntry(bean));
+            writer.write("\n");
+        }
+        writer.write("</urlset>");
+    }
+
+    /**
+     * Writes a sitemap index referencing the given sitemaps.<p>
+     *
+     * @param writer the writer to write the sitemap index to
+     * @param sitemapLinks the links to the sitemaps
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeSitemapIndex(Writer writer, List<String> sitemapLinks) throws IOException {
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (String link : sitemapLinks) {
+            writer.write("<sitemap><loc>" + CmsEncoder.escapeXml(link) + "</loc></sitemap>\n");
+        }
+        writer.write("</sitemapindex>");
+    }
+
     /**
      * Adds the detail page links for a given page to the results.<p>
      *
@@ -408,11 +551,28 @@ public class CmsXmlSitemapGenerator {
         List<I_CmsResourceType> types = getDetailTypesForPage(containerPage);
         for (I_CmsResourceType type : types) {
             List<CmsResource> resourcesForType = getDetailResources(type);
+            List<CmsResource> detailResources = new ArrayList<CmsResource>();
+            List<CmsResource> detailResourcesToRead = new ArrayList<CmsResource>();
             for (CmsResource detailRes : resourcesForType) {
                 if (!isValidDetailPageCombination(containerPage, locale, detailRes)) {
                     continue;
                 }
-                List<CmsProperty> detailProps = m_guestCms.readPropertyObjects(detailRes, true);
+                detailResources.add(detailRes);
+                if (!m_reusableEntries.containsKey(
+                    CmsXmlSitemapUrlIndex.getReuseKey(detailRes.getStructureId(), containerPage.getStructureId(), 2))) {
+                    detailResourcesToRead.add(detailRes);
+                }
+            }
+            // read the properties of all detail contents which are not reused at once
+            Map<CmsUUID, List<CmsProperty>> properties = m_guestCms.readPropertyObjects(detailResourcesToRead, true);
+            for (CmsResource detailRes : detailResources) {
+                if (addReusedResults(detailRes.getStructureId(), containerPage.getStructureId(), 2)) {
+                    continue;
+                }
+                List<CmsProperty> detailProps = properties.get(detailRes.getStructureId());
+                if (detailProps == null) {
+                    detailProps = m_guestCms.readPropertyObjects(detailRes, true);
+                }
                 String detailLink = getDetailLink(containerPage, detailRes, locale);
                 CmsXmlSitemapUrlBean detailUrlBean = new CmsXmlSitemapUrlBean(
                     replaceServerUri(detailLink),
@@ -448,6 +608,32 @@ public class CmsXmlSitemapGenerator {
         }
     }
 
+    /**
+     * Adds the entries of the previous index for the given resource to the results, if there are any.<p>
+     *
+     * @param resourceId the structure id of the resource the entries were generated for
+     * @param detailPageId the structure id of the detail page, or null
+     * @param resultPriority the internal priority of the entries
+     *
+     * @return true if reusable entries were found
+     */
+    protected boolean addReusedResults(CmsUUID resourceId, CmsUUID detailPageId, int resultPriority) {
+
+        List<CmsXmlSitemapUrlIndex.Entry> entries = m_reusableEntries.get(
+            CmsXmlSitemapUrlIndex.getReuseKey(resourceId, detailPageId, resultPriority));
+        if (entries == null) {
+            return false;
+        }
+        for (CmsXmlSitemapUrlIndex.Entry entry : entries) {
+            String url = CmsFileUtil.removeTrailingSeparator(entry.getUrl());
+            ResultEntry existing = m_resultMap.get(url);
+            if ((existing == null) || (existing.getPriority() <= resultPriority)) {
+                m_resultMap.put(url, new ResultEntry(entry));
+            }
+        }
+        return true;
+    }
+
     /**
      * Computes the container the container page modification date from its referenced contents.<p>
      *
@@ -485,6 +671,30 @@ public class CmsXmlSitemapGenerator {
         return result;
     }
 
+    /**
+     * Creates the index entry for an URL bean.<p>
+     *
+     * @param urlBean the URL bean
+     * @param resultPriority the internal priority of the URL bean
+     *
+     * @return the index entry
+     */
+    protected CmsXmlSitemapUrlIndex.Entry createIndexEntry(CmsXmlSitemapUrlBean urlBean, int resultPriority) {
+
+        CmsResource resource = urlBean.getOriginalResource();
+        CmsResource detailPage = urlBean.getDetailPageResource();
+        return new CmsXmlSitemapUrlIndex.Entry(
+            urlBean.getUrl(),
+            urlBean.getDateLastModified() != null ? urlBean.getDateLastModified().getTime() : -1,
+            urlBean.getChangeFrequency(),
+            urlBean.getPriority(),
+            resource != null ? resource.getStructureId() : null,
+            resource != null ? resource.getRootPath() : null,
+            detailPage != null ? detailPage.getStructureId() : null,
+            detailPage != null ? detailPage.getRootPath() : null,
+            resultPriority);
+    }
+
     /**
      * Gets the detail link for a given container page and detail content.<p>
      *
@@ -681,6 +891,34 @@ public class CmsXmlSitemapGenerator {
         return isBelowBaseFolder;
     }
 
+    /**
+     * Checks whether entries of a previous index may be reused when generating the URL index.<p>
+     *
+     * Generators which compute the URLs of a resource from more than the resource and its detail page
+     * should return false.<p>
+     *
+     * @return true if entries of a previous index may be reused
+     */
+    protected boolean isIncrementalUpdateSupported() {
+
+        return true;
+    }
+
+    /**
+     * Checks whether the entry of a page may be reused from a previous index.<p>
+     *
+     * This is not the case for container pages if their dates are computed from the referenced contents,
+     * since a change of these contents does not invalidate the page.<p>
+     *
+     * @param page the page
+     *
+     * @return true if the entry of the page may be reused
+     */
+    protected boolean isReusablePage(CmsResource page) {
+
+        return !m_computeContainerPageDates || !CmsResourceTypeXmlContainerPage.isContainerPage(page);
+    }
+
     /**
      * Checks whether the page/detail content combination is a valid detail page.<p>
      *
@@ -0,0 +1,597 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site.xmlsitemap;
+
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The URLs of an XML sitemap, together with the resources they were generated from.<p>
+ *
+ * The entries of an index never change. Publish events only mark resources and folders as invalid,
+ * the next update of the sitemap then regenerates the entries of these resources and reuses all other entries.<p>
+ *
+ * Large sitemaps are split into shards of at most {@link #MAX_URLS_PER_SHARD} URLs,
+ * as required by the sitemap protocol.<p>
+ */
+public class CmsXmlSitemapUrlIndex {
+
+    /**
+     * A single URL of the sitemap.<p>
+     */
+    public static class Entry {
+
+        /** The change frequency, may be null. */
+        private String m_changeFrequency;
+
+        /** The last modification date, or -1. */
+        private long m_dateLastModified;
+
+        /** The structure id of the detail page, may be null. */
+        private CmsUUID m_detailPageId;
+
+        /** The root path of the detail page, may be null. */
+        private String m_detailPageRootPath;
+
+        /** The priority. */
+        private double m_priority;
+
+        /** The structure id of the resource the URL was generated for, may be null. */
+        private CmsUUID m_resourceId;
+
+        /** The root path of the resource the URL was generated for, may be null. */
+        private String m_resourceRootPath;
+
+        /** The internal priority used by the generator to choose between entries with the same URL. */
+        private int m_resultPriority;
+
+        /** The URL. */
+        private String m_url;
+
+        /**
+         * Creates a new entry.<p>
+         *
+         * @param url the URL
+         * @param dateLastModified the last modification date, or -1
+         * @param changeFrequency the change frequency, may be null
+         * @param priority the priority
+         * @param resourceId the structure id of the resource the URL was generated for, may be null
+         * @param resourceRootPath the root path of the resource the URL was generated for, may be null
+         * @param detailPageId the structure id of the detail page, may be null
+         * @param detailPageRootPath the root path of the detail page, may be null
+         * @param resultPriority the internal priority used by the generator
+         */
+        public Entry(
+            String url,
+            long dateLastModified,
+            String changeFrequency,
+            double priority,
+            CmsUUID resourceId,
+            String resourceRootPath,
+            CmsUUID detailPageId,
+            String detailPageRootPath,
+            int resultPriority) {
+
+            m_url = url;
+            m_dateLastModified = dateLastModified;
+            m_changeFrequency = changeFrequency;
+            m_priority = priority;
+            m_resourceId = resourceId;
+            m_resourceRootPath = resourceRootPath;
+            m_detailPageId = detailPageId;
+            m_detailPageRootPath = detailPageRootPath;
+            m_resultPriority = resultPriority;
+        }
+
+        /**
+         * Returns the change frequency.<p>
+         *
+         * @return the change frequency, may be null
+         */
+        public String getChangeFrequency() {
+
+            return m_changeFrequency;
+        }
+
+        /**
+         * Returns the last modification date.<p>
+         *
+         * @return the last modification date, or -1
+         */
+        public long getDateLastModified() {
+
+            return m_dateLastModified;
+        }
+
+        /**
+         * Returns the structure id of the detail page.<p>
+         *
+         * @return the structure id of the detail page, may be null
+         */
+        public CmsUUID getDetailPageId() {
+
+            return m_detailPageId;
+        }
+
+        /**
+         * Returns the root path of the detail page.<p>
+         *
+         * @return the root path of the detail page, may be null
+         */
+        public String getDetailPageRootPath() {
+
+            return m_detailPageRootPath;
+        }
+
+        /**
+         * Returns the priority.<p>
+         *
+         * @return the priority
+         */
+        public double getPriority() {
+
+            return m_priority;
+        }
+
+        /**
+         * Returns the structure id of the resource the URL was generated for.<p>
+         *
+         * @return the structure id, may be null
+         */
+        public CmsUUID getResourceId() {
+
+            return m_resourceId;
+        }
+
+        /**
+         * Returns the root path of the resource the URL was generated for.<p>
+         *
+         * @return the root path, may be null
+         */
+        public String getResourceRootPath() {
+
+            return m_resourceRootPath;
+        }
+
+        /**
+         * Returns the internal priority used by the generator to choose between entries with the same URL.<p>
+         *
+         * @return the internal priority
+         */
+        public int getResultPriority() {
+
+            return m_resultPriority;
+        }
+
+        /**
+         * Returns the URL.<p>
+         *
+         * @return the URL
+         */
+        public String getUrl() {
+
+            return m_url;
+        }
+
+        /**
+         * Creates an URL bean for rendering this entry.<p>
+         *
+         * @return the URL bean
+         */
+        public CmsXmlSitemapUrlBean toUrlBean() {
+
+            return new CmsXmlSitemapUrlBean(m_url, m_dateLastModified, m_changeFrequency, m_priority);
+        }
+    }
+
+    /** The maximum number of URLs in a single sitemap file. */
+    public static final int MAX_URLS_PER_SHARD = 50000;
+
+    /** Marker for the serialized format. */
+    private static final int FORMAT_MAGIC = 0x4f435853;
+
+    /** Version of the serialized format. */
+    private static final int FORMAT_VERSION = 2;
+
+    /** The key of the generator configuration the index was generated with, may be null. */
+    private String m_configurationKey;
+
+    /** The entries. */
+    private List<Entry> m_entries;
+
+    /** The root paths of the folders whose entries must not be reused. */
+    private Set<String> m_invalidFolders = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** The structure ids of the resources whose entries must not be reused. */
+    private Set<CmsUUID> m_invalidIds = Collections.newSetFromMap(new ConcurrentHashMap<CmsUUID, Boolean>());
+
+    /** Counter for the invalidations, used to detect invalidations during an update. */
+    private volatile int m_invalidationCount;
+
+    /** Flag which indicates that no entries may be reused. */
+    private volatile boolean m_notReusable;
+
+    /** The site root of the sitemap, may be null. */
+    private String m_siteRoot;
+
+    /** Flag which indicates that the entries do not reflect the current state of the VFS. */
+    private volatile boolean m_stale;
+
+    /**
+     * Creates a new index.<p>
+     *
+     * @param siteRoot the site root of the sitemap, may be null
+     * @param entries the entries
+     */
+    public CmsXmlSitemapUrlIndex(String siteRoot, List<Entry> entries) {
+
+        this(siteRoot, null, entries);
+    }
+
+    /**
+     * Creates a new index.<p>
+     *
+     * @param siteRoot the site root of the sitemap, may be null
+     * @param configurationKey the key of the generator configuration, may be null
+     * @param entries the entries
+     */
+    public CmsXmlSitemapUrlIndex(String siteRoot, String configurationKey, List<Entry> entries) {
+
+        m_siteRoot = siteRoot;
+        m_configurationKey = configurationKey;
+        m_entries = Collections.unmodifiableList(new ArrayList<Entry>(entries));
+    }
+
+    /**
+     * Returns the key under which the generator looks up reusable entries.<p>
+     *
+     * @param resourceId the structure id of the resource the URL was generated for
+     * @param detailPageId the structure id of the detail page, may be null
+     * @param resultPriority the internal priority used by the generator
+     *
+     * @return the key
+     */
+    public static String getReuseKey(CmsUUID resourceId, CmsUUID detailPageId, int resultPriority) {
+
+        return resourceId + "|" + detailPageId + "|" + resultPriority;
+    }
+
+    /**
+     * Reads an index written with {@link #write(OutputStream)}.<p>
+     *
+     * @param in the stream to read from
+     *
+     * @return the index
+     *
+     * @throws IOException if the data can not be read or has an unknown format
+     */
+    public static CmsXmlSitemapUrlIndex read(InputStream in) throws IOException {
+
+        DataInputStream data = new DataInputStream(in);
+        if ((data.readInt() != FORMAT_MAGIC) || (data.readInt() != FORMAT_VERSION)) {
+            throw new IOException("Unknown XML sitemap index format");
+        }
+        String siteRoot = readString(data);
+        String configurationKey = readString(data);
+        int size = data.readInt();
+        List<Entry> entries = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++) {
+            String url = data.readUTF();
+            long dateLastModified = data.readLong();
+            String changeFrequency = readString(data);
+            double priority = data.readDouble();
+            String resourceId = readString(data);
+            String resourceRootPath = readString(data);
+            String detailPageId = readString(data);
+            String detailPageRootPath = readString(data);
+            int resultPriority = data.readInt();
+            entries.add(
+                new Entry(
+                    url,
+                    dateLastModified,
+                    changeFrequency,
+                    priority,
+                    resourceId != null ? new CmsUUID(resourceId) : null,
+                    resourceRootPath,
+                    detailPageId != null ? new CmsUUID(detailPageId) : null,
+                    detailPageRootPath,
+                    resultPriority));
+        }
+        return new CmsXmlSitemapUrlIndex(siteRoot, configurationKey, entries);
+    }
+
+    /**
+     * Reads a string which may be null.<p>
+     *
+     * @param data the stream to read from
+     *
+     * @return the string, or null
+     *
+     * @throws IOException if reading fails
+     */
+    private static String readString(DataInputStream data) throws IOException {
+
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    /**
+     * Writes a string which may be null.<p>
+     *
+     * @param data the stream to write to
+     * @param value the string, may be null
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    /**
+     * Returns the key of the generator configuration the index was generated with.<p>
+     *
+     * @return the configuration key, may be null
+     *
+     * @see CmsXmlSitemapGenerator#getConfigurationKey()
+     */
+    public String getConfigurationKey() {
+
+        return m_configurationKey;
+    }
+
+    /**
+     * Returns all entries.<p>
+     *
+     * @return the entries
+     */
+    public List<Entry> getEntries() {
+
+        return m_entries;
+    }
+
+    /**
+     * Returns the entries of a shard.<p>
+     *
+     * @param shard the number of the shard, starting with 1
+     *
+     * @return the entries of the shard
+     */
+    public List<Entry> getEntries(int shard) {
+
+        if ((shard < 1) || (shard > getShardCount())) {
+            return Collections.emptyList();
+        }
+        int start = (shard - 1) * MAX_URLS_PER_SHARD;
+        return m_entries.subList(start, Math.min(m_entries.size(), start + MAX_URLS_PER_SHARD));
+    }
+
+    /**
+     * Returns the number of invalidations of this index.<p>
+     *
+     * @return the number of invalidations
+     */
+    public int getInvalidationCount() {
+
+        return m_invalidationCount;
+    }
+
+    /**
+     * Returns the entries which are still valid, keyed by {@link #getReuseKey(CmsUUID, CmsUUID, int)}.<p>
+     *
+     * @return the reusable entries
+     */
+    public Map<String, List<Entry>> getReusableEntries() {
+
+        Map<String, List<Entry>> result = new HashMap<String, List<Entry>>();
+        if (m_notReusable) {
+            return result;
+        }
+        for (Entry entry : m_entries) {
+            if ((entry.getResourceId() == null)
+                || m_invalidIds.contains(entry.getResourceId())
+                || ((entry.getDetailPageId() != null) && m_invalidIds.contains(entry.getDetailPageId()))
+                || isBelowInvalidFolder(entry.getResourceRootPath())
+                || isBelowInvalidFolder(entry.getDetailPageRootPath())) {
+                continue;
+            }
+            String key = getReuseKey(entry.getResourceId(), entry.getDetailPageId(), entry.getResultPriority());
+            List<Entry> entries = result.get(key);
+            if (entries == null) {
+                entries = new ArrayList<Entry>(1);
+                result.put(key, entries);
+            }
+            entries.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of shards.<p>
+     *
+     * @return the number of shards, at least 1
+     */
+    public int getShardCount() {
+
+        return Math.max(1, ((m_entries.size() + MAX_URLS_PER_SHARD) - 1) / MAX_URLS_PER_SHARD);
+    }
+
+    /**
+     * Returns the site root of the sitemap.<p>
+     *
+     * @return the site root, may be null
+     */
+    public String getSiteRoot() {
+
+        return m_siteRoot;
+    }
+
+    /**
+     * Returns the URL beans for rendering the entries of a shard.<p>
+     *
+     * @param shard the number of the shard, starting with 1
+     *
+     * @return the URL beans
+     */
+    public List<CmsXmlSitemapUrlBean> getUrlBeans(int shard) {
+
+        return Lists.transform(getEntries(shard), Entry::toUrlBean);
+    }
+
+    /**
+     * Marks all entries as invalid.<p>
+     */
+    public void invalidateAll() {
+
+        m_notReusable = true;
+        markStale();
+    }
+
+    /**
+     * Marks the entries of all resources below the given folder as invalid.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     */
+    public void invalidateFolder(String folderRootPath) {
+
+        m_invalidFolders.add(folderRootPath);
+        markStale();
+    }
+
+    /**
+     * Copies the invalidations of another index to this index.<p>
+     *
+     * @param other the other index
+     */
+    public void invalidateFrom(CmsXmlSitemapUrlIndex other) {
+
+        m_invalidIds.addAll(other.m_invalidIds);
+        m_invalidFolders.addAll(other.m_invalidFolders);
+        if (other.m_notReusable) {
+            m_notReusable = true;
+        }
+        markStale();
+    }
+
+    /**
+     * Marks the entries generated for or with the given resource as invalid.<p>
+     *
+     * @param structureId the structure id of the resource
+     */
+    public void invalidateResource(CmsUUID structureId) {
+
+        m_invalidIds.add(structureId);
+        markStale();
+    }
+
+    /**
+     * Checks if the entries do not reflect the current state of the VFS anymore.<p>
+     *
+     * @return true if the index needs to be updated
+     */
+    public boolean isStale() {
+
+        return m_stale;
+    }
+
+    /**
+     * Marks the index as stale.<p>
+     */
+    public void markStale() {
+
+        m_stale = true;
+        m_invalidationCount++;
+    }
+
+    /**
+     * Writes this index to a stream.<p>
+     *
+     * @param out the stream to write to
+     *
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream out) throws IOException {
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FORMAT_MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeString(data, m_siteRoot);
+        writeString(data, m_configurationKey);
+        data.writeInt(m_entries.size());
+        for (Entry entry : m_entries) {
+            data.writeUTF(entry.getUrl());
+            data.writeLong(entry.getDateLastModified());
+            writeString(data, entry.getChangeFrequency());
+            data.writeDouble(entry.getPriority());
+            writeString(data, entry.getResourceId() != null ? entry.getResourceId().toString() : null);
+            writeString(data, entry.getResourceRootPath());
+            writeString(data, entry.getDetailPageId() != null ? entry.getDetailPageId().toString() : null);
+            writeString(data, entry.getDetailPageRootPath());
+            data.writeInt(entry.getResultPriority());
+        }
+        data.flush();
+    }
+
+    /**
+     * Checks if a root path is below one of the invalid folders.<p>
+     *
+     * @param rootPath the root path, may be null
+     *
+     * @return true if the root path is below an invalid folder
+     */
+    private boolean isBelowInvalidFolder(String rootPath) {
+
+        if ((rootPath == null) || m_invalidFolders.isEmpty()) {
+            return false;
+        }
+        for (String folder : m_invalidFolders) {
+            if (CmsStringUtil.isPrefixPath(folder, rootPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -57,12 +57,19 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implementation for the <code>{@link I_CmsStaticExportHandler}</code> interface.<p>
  *
@@ -507,6 +514,114 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     //        return HttpServletResponse.SC_SEE_OTHER;
     //    }
 
+    /**
+     * Exports a single template resource specified by its RFS name, including the detail pages for it.<p>
+     *
+     * This may be called concurrently from several render threads, so the report output
+     * for the resource is written in one block.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the RFS name of the resource to export
+     * @param cookies cookies to keep the session
+     * @param count the counter for the exported resources
+     * @param size the total number of resources to export
+     * @param report an I_CmsReport instance to print output message
+     */
+    protected void exportTemplateResource(
+        CmsObject cms,
+        String rfsName,
+        StringBuffer cookies,
+        AtomicInteger count,
+        int size,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                            new String[] {rfsName}));
+                }
+            }
+        }
+        if (data == null) {
+            // no valid resource found for rfs name (already deleted), skip it
+            return;
+        }
+        data.setRfsName(rfsName);
+
+        int status = -1;
+        IOException error = null;
+        try {
+            CmsResource resource = data.getResource();
+            try {
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    exportTemplateResource(detailData, cookies);
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+
+            status = exportTemplateResource(data, cookies);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        // write the report
+        synchronized (report) {
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    Integer.valueOf(count.getAndIncrement()),
+                    Integer.valueOf(size)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            if (error != null) {
+                report.println(error);
+            } else if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        Integer.valueOf(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        }
+    }
+
     /**
      * Exports a single (template) resource specified by its export data.<p>
      *
@@ -580,20 +695,23 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     exportFile.getName(),
                     Long.valueOf((dateLastModified / 1000) * 1000)));
         }
-        if (cookies.length() > 0) {
+        String cookieValue = cookies.toString();
+        if (cookieValue.length() > 0) {
             // set the cookies, included the session id to keep the same session
-            urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookies.toString());
+            urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookieValue);
         }
 
         // now perform the request
         urlcon.connect();
         int status = urlcon.getResponseCode();
 
-        if (cookies.length() == 0) {
-            //Now retrieve the cookies. The jsessionid is here
-            cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+        synchronized (cookies) {
+            if (cookies.length() == 0) {
+                //Now retrieve the cookies. The jsessionid is here
+                cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+                }
             }
         }
         urlcon.disconnect();
@@ -611,6 +729,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     /**
      * Exports all template resources found in a list of published resources.<p>
      *
+     * If more than one render thread is configured in the static export manager,
+     * the template resources are requested concurrently.<p>
+     *
      * @param cms the cms context, in the root site as Export user
      * @param publishedTemplateResources list of potential candidates to export
      * @param report an I_CmsReport instance to print output message, or null to write messages to the log file
@@ -619,7 +740,6 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, Integer.valueOf(size)));
@@ -629,91 +749,42 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             I_CmsReport.FORMAT_HEADLINE);
 
         StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
-                    }
-                }
-            }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        Integer.valueOf(count++),
-                        Integer.valueOf(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
+        AtomicInteger count = new AtomicInteger(1);
+        int threads = Math.min(manager.getRenderThreads(), size);
+        if (threads <= 1) {
+            // now loop through all of them and request them from the server
+            for (String rfsName : publishedTemplateResources) {
+                exportTemplateResource(cms, rfsName, cookies, count, size, report);
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
             }
-
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                threads,
+                new ThreadFactoryBuilder().setNameFormat("OpenCms: Static export render-%d").setDaemon(true).build());
             try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
+                List<Future<Void>> results = new ArrayList<Future<Void>>(size);
+                for (String rfsName : publishedTemplateResources) {
+                    results.add(executor.submit(() -> {
+                        // the cms context is not thread safe, so every task uses its own copy
+                        exportTemplateResource(OpenCms.initCmsObject(cms), rfsName, cookies, count, size, report);
+                        return null;
+                    }));
                 }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            Integer.valueOf(status)),
-                        I_CmsReport.FORMAT_OK);
+                for (Future<Void> result : results) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        LOG.error(e.getCause().getLocalizedMessage(), e.getCause());
+                        report.println(e.getCause());
+                    }
                 }
-            } catch (IOException e) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 report.println(e);
+            } finally {
+                executor.shutdownNow();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
@@ -70,6 +70,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -100,6 +103,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the default file. */
     public static final String DEFAULT_FILE = "index.html";
 
+    /** Default number of threads used for rendering template resources. */
+    public static final int DEFAULT_RENDER_THREADS = 1;
+
     /** Marker for error message attribute. */
     public static final String EXPORT_ATTRIBUTE_ERROR_MESSAGE = "javax.servlet.error.message";
 
@@ -241,6 +247,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Remote address. */
     private String m_remoteAddr;
 
+    /** The number of threads used for rendering template resources. */
+    private int m_renderThreads = DEFAULT_RENDER_THREADS;
+
     /** Prefix to use for exported files. */
     private String m_rfsPrefix;
 
@@ -1317,6 +1326,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_remoteAddr;
     }
 
+    /**
+     * Returns the number of threads used for rendering template resources
+     * in "after-publish" or "full-static-render" mode.<p>
+     *
+     * @return the number of render threads
+     */
+    public int getRenderThreads() {
+
+        return m_renderThreads;
+    }
+
     /**
      * Returns the static export rfs name for a given vfs resource.<p>
      *
@@ -2328,6 +2348,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_remoteAddr = addr;
     }
 
+    /**
+     * Sets the number of threads used for rendering template resources
+     * in "after-publish" or "full-static-render" mode.<p>
+     *
+     * @param value the number of render threads, values smaller than 1 are treated as 1
+     */
+    public void setRenderThreads(String value) {
+
+        m_renderThreads = Math.max(
+            DEFAULT_RENDER_THREADS,
+            CmsStringUtil.getIntValue(value.trim(), DEFAULT_RENDER_THREADS, "renderthreads"));
+    }
+
     /**
      * Sets the prefix for exported links in the "real" file system.<p>
      *
@@ -2497,6 +2530,31 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_cacheSecureLinks;
     }
 
+    /**
+     * Returns the folder in which the files exported to the given export path are written
+     * before they are moved in place.<p>
+     *
+     * This is a folder next to the export work path of the export path. The export work path is not accessible
+     * from the web and is on the same file system as the export path, since full static exports rename it to
+     * the export path. The work path itself is not used, because its existence decides if it replaces the
+     * export path after a full static export.<p>
+     *
+     * @param exportPath the export path
+     *
+     * @return the folder for temporary export files
+     */
+    protected File getExportTempFolder(String exportPath) {
+
+        String workPath = m_staticExportWorkPath;
+        for (CmsStaticExportRfsRule rule : m_rfsRules) {
+            if (exportPath.equals(rule.getExportPath()) && (rule.getExportWorkPath() != null)) {
+                workPath = rule.getExportWorkPath();
+                break;
+            }
+        }
+        return new File(CmsFileUtil.removeTrailingSeparator(workPath) + ".tmp");
+    }
+
     /**
      * Returns the export data for a requested resource, if null is returned no export is required.<p>
      *
@@ -2957,11 +3015,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
-        // write new exported file content
+        // write new exported file content to a temporary file outside of the export path first and move it
+        // in place afterwards, so concurrent render threads and the web server never see a partially written file
+        File tempFile = null;
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            File tempFolder = getExportTempFolder(exportPath);
+            tempFolder.mkdirs();
+            tempFile = File.createTempFile("export", ".tmp", tempFolder);
+            try (FileOutputStream exportStream = new FileOutputStream(tempFile)) {
+                exportStream.write(content);
+            }
+            try {
+                Files.move(
+                    tempFile.toPath(),
+                    exportFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), exportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2976,6 +3049,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
         }
         // update the file with the modification date from the server
         if (req != null) {
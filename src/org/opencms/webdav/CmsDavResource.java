@@ -53,6 +53,7 @@ import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.jackrabbit.webdav.DavCompliance;
 import org.apache.jackrabbit.webdav.DavException;
@@ -616,7 +617,15 @@ public class CmsDavResource implements DavResource {
         outputContext.setETag(getETag());
         OutputStream out = outputContext.getOutputStream();
         if (out != null) {
-            out.write(item.getContent());
+            // stream the content, so large files are not loaded into memory as a whole
+            InputStream in = item.getContentStream();
+            if (in != null) {
+                try {
+                    IOUtils.copy(in, out);
+                } finally {
+                    in.close();
+                }
+            }
         }
 
     }
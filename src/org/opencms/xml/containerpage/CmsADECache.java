@@ -34,6 +34,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsXmlContent;
+import org.opencms.xml.content.CmsXmlContentCacheEntry;
 
 import java.util.Iterator;
 import java.util.Map;
@@ -67,6 +68,9 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** Cache for the parsed online XML contents. */
+    private Map<String, CmsXmlContentCacheEntry> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      *
@@ -119,6 +123,19 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the online XML contents cache.<p>
+     */
+    public void flushXmlContents() {
+
+        try {
+            m_lock.writeLock().lock();
+            m_xmlContentsOnline.clear();
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      *
@@ -239,6 +256,50 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached online XML content under the given key.<p>
+     *
+     * The returned entry is shared between requests, XML contents are created from copies of it.<p>
+     *
+     * @param key the cache key
+     *
+     * @return the cached XML content or <code>null</code> if not found
+     */
+    public CmsXmlContentCacheEntry getCacheXmlContent(String key) {
+
+        try {
+            m_lock.readLock().lock();
+            CmsXmlContentCacheEntry retValue = m_xmlContentsOnline.get(key);
+            if (LOG.isDebugEnabled()) {
+                if (retValue == null) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1, new Object[] {key}));
+
+                } else {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2,
+                            new Object[] {key, retValue}));
+                }
+            }
+            return retValue;
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the cache key for an online XML content.<p>
+     *
+     * @param resource the XML content resource
+     *
+     * @return the cache key for the XML content
+     */
+    public String getXmlContentCacheKey(CmsResource resource) {
+
+        return resource.getStructureId().toString() + "_" + resource.getDateLastModified();
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      *
@@ -307,6 +368,28 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given online XML content under the given key.<p>
+     *
+     * @param key the cache key
+     * @param content the parsed XML content to cache
+     */
+    public void setCacheXmlContent(String key, CmsXmlContentCacheEntry content) {
+
+        try {
+            m_lock.writeLock().lock();
+            m_xmlContentsOnline.put(key, content);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_DEBUG_CACHE_SET_ONLINE_2,
+                        new Object[] {key, content}));
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      *
@@ -361,6 +444,9 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            if (online) {
+                flushXmlContents();
+            }
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -409,6 +495,10 @@ public final class CmsADECache extends CmsVfsCache {
 
         m_groupContainersOnline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getGroupContainerOnlineSize());
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", m_groupContainersOnline);
+
+        // XML content cache
+        m_xmlContentsOnline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getXmlContentOnlineSize());
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", m_xmlContentsOnline);
     }
 
     /**
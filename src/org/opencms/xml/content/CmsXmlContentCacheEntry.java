@@ -0,0 +1,97 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+
+import org.dom4j.Document;
+
+/**
+ * A parsed XML content file as stored in the online XML content cache of the
+ * {@link org.opencms.xml.containerpage.CmsADECache}.<p>
+ *
+ * The cache entry is shared between requests. It only contains the parsed document, which does not depend
+ * on the current user, so every request creates its own {@link CmsXmlContent} from copies of the cached
+ * file and document.<p>
+ */
+public class CmsXmlContentCacheEntry {
+
+    /** The parsed XML document. */
+    private Document m_document;
+
+    /** The encoding to use when marshalling the XML content. */
+    private String m_encoding;
+
+    /** The file the document was parsed from. */
+    private CmsFile m_file;
+
+    /**
+     * Creates a new cache entry.<p>
+     *
+     * @param file the file the document was parsed from
+     * @param encoding the encoding to use when marshalling the XML content
+     * @param document the parsed XML document
+     */
+    public CmsXmlContentCacheEntry(CmsFile file, String encoding, Document document) {
+
+        m_file = file;
+        m_encoding = encoding;
+        m_document = document;
+    }
+
+    /**
+     * Returns a copy of the parsed XML document.<p>
+     *
+     * @return a copy of the parsed XML document
+     */
+    public Document copyDocument() {
+
+        return (Document)m_document.clone();
+    }
+
+    /**
+     * Returns a copy of the file the document was parsed from.<p>
+     *
+     * @return a copy of the file the document was parsed from
+     */
+    public CmsFile copyFile() {
+
+        return (CmsFile)m_file.clone();
+    }
+
+    /**
+     * Returns the encoding to use when marshalling the XML content.<p>
+     *
+     * @return the encoding to use when marshalling the XML content
+     */
+    public String getEncoding() {
+
+        return m_encoding;
+    }
+}
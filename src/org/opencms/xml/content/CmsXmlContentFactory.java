@@ -31,6 +31,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlAdeConfiguration;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -41,6 +42,7 @@ import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -211,31 +213,7 @@ public final class CmsXmlContentFactory {
 
         byte[] contentBytes = file.getContents();
         String filename = cms.getSitePath(file);
-
-        String encoding = null;
-        if (OpenCms.getResourceManager().hasResourceType(file.getTypeId())) {
-            if (OpenCms.getResourceManager().getResourceType(file) instanceof CmsResourceTypeXmlAdeConfiguration) {
-                encoding = "UTF-8";
-            }
-        }
-        if (encoding == null) {
-            try {
-                encoding = cms.readPropertyObject(
-                    file,
-                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
-                    true).getValue();
-            } catch (@SuppressWarnings("unused") CmsException e) {
-                // encoding will be null
-            }
-        }
-        if (encoding == null) {
-            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-        } else {
-            encoding = CmsEncoder.lookupEncoding(encoding, null);
-            if (encoding == null) {
-                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
-            }
-        }
+        String encoding = getEncoding(cms, file);
 
         CmsXmlContent content;
         if (contentBytes.length > 0) {
@@ -271,6 +249,9 @@ public final class CmsXmlContentFactory {
      * Factory method to unmarshal (read) a XML content instance from
      * a resource, using the request attributes as cache.<p>
      *
+     * In the Online project, the parsed XML documents are also cached across requests until the next publish.
+     * The returned XML content is still created for the current user and is shared only by the current request.<p>
+     *
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
      * @param req the current request
@@ -297,9 +278,34 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            CmsADECache cache = null;
+            if (cms.getRequestContext().getCurrentProject().isOnlineProject()
+                && !(resource instanceof I_CmsHistoryResource)
+                && (OpenCms.getADEManager() != null)) {
+                cache = OpenCms.getADEManager().getCache();
+            }
+            if (cache != null) {
+                // only the parsed document is shared, the XML content is created for every request since
+                // the link values are checked and updated with the permissions of the current user
+                String cacheKey = cache.getXmlContentCacheKey(resource);
+                CmsXmlContentCacheEntry entry = cache.getCacheXmlContent(cacheKey);
+                if (entry == null) {
+                    CmsFile file = resource instanceof CmsFile
+                    ? (CmsFile)((CmsFile)resource).clone()
+                    : cms.readFile(resource);
+                    byte[] contentBytes = file.getContents();
+                    Document document = contentBytes.length > 0
+                    ? CmsXmlUtils.unmarshalHelper(contentBytes, new CmsXmlEntityResolver(cms))
+                    : DocumentHelper.createDocument();
+                    entry = new CmsXmlContentCacheEntry(file, getEncoding(cms, file), document);
+                    cache.setCacheXmlContent(cacheKey, entry);
+                }
+                content = unmarshal(cms, entry.copyFile(), entry.copyDocument(), entry.getEncoding());
+            } else {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                content = unmarshal(cms, file);
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -385,4 +391,67 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
+
+    /**
+     * Returns the encoding to use for an XML content file.<p>
+     *
+     * For XML contents that are ADE configuration files, this is always UTF-8, otherwise the
+     * encoding is read from the content encoding property of the file.<p>
+     *
+     * @param cms the current cms object
+     * @param file the XML content file
+     *
+     * @return the encoding to use
+     *
+     * @throws CmsXmlException if the encoding set for the file is not valid
+     */
+    private static String getEncoding(CmsObject cms, CmsFile file) throws CmsXmlException {
+
+        String filename = cms.getSitePath(file);
+
+        String encoding = null;
+        if (OpenCms.getResourceManager().hasResourceType(file.getTypeId())) {
+            if (OpenCms.getResourceManager().getResourceType(file) instanceof CmsResourceTypeXmlAdeConfiguration) {
+                encoding = "UTF-8";
+            }
+        }
+        if (encoding == null) {
+            try {
+                encoding = cms.readPropertyObject(
+                    file,
+                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                    true).getValue();
+            } catch (@SuppressWarnings("unused") CmsException e) {
+                // encoding will be null
+            }
+        }
+        if (encoding == null) {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+        } else {
+            encoding = CmsEncoder.lookupEncoding(encoding, null);
+            if (encoding == null) {
+                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Creates a XML content instance from a parsed XML document of a file.<p>
+     *
+     * @param cms the current cms object
+     * @param file the file the document was parsed from
+     * @param document the parsed XML document, it becomes part of the XML content
+     * @param encoding the encoding to use when marshalling the XML content later
+     *
+     * @return the XML content instance
+     */
+    private static CmsXmlContent unmarshal(CmsObject cms, CmsFile file, Document document, String encoding) {
+
+        CmsXmlContent content = unmarshal(cms, document, encoding, new CmsXmlEntityResolver(cms));
+        // set the file
+        content.setFile(file);
+        // call prepare for use content handler and return the result
+        return content.getHandler().prepareForUse(cms, content);
+    }
 }
\ No newline at end of file
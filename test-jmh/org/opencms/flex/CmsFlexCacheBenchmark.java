@@ -0,0 +1,188 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.test.benchmark.CmsBenchmarkState;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks for the FlexCache lookup path used by the flex request dispatcher.<p>
+ *
+ * Uses a separate FlexCache instance filled with a single cached variation, and a minimal
+ * servlet request that only stores request attributes.<p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CmsFlexCacheBenchmark {
+
+    /**
+     * Invocation handler for a servlet request that only supports request attributes.<p>
+     */
+    static class RequestHandler implements InvocationHandler {
+
+        /** The request attributes. */
+        private Map<String, Object> m_attributes = Collections.synchronizedMap(new HashMap<String, Object>());
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) {
+
+            String name = method.getName();
+            if ("getAttribute".equals(name)) {
+                return m_attributes.get(args[0]);
+            } else if ("setAttribute".equals(name)) {
+                m_attributes.put((String)args[0], args[1]);
+            } else if ("removeAttribute".equals(name)) {
+                m_attributes.remove(args[0]);
+            } else if ("getAttributeNames".equals(name)) {
+                return Collections.enumeration(m_attributes.keySet());
+            } else if ("getParameterMap".equals(name)) {
+                return Collections.emptyMap();
+            } else if (method.getReturnType() == Boolean.TYPE) {
+                return Boolean.FALSE;
+            } else if (method.getReturnType() == Integer.TYPE) {
+                return Integer.valueOf(0);
+            } else if (method.getReturnType() == Long.TYPE) {
+                return Long.valueOf(0);
+            }
+            return null;
+        }
+    }
+
+    /** The cache directives used for the cached resource. */
+    private static final String CACHE_DIRECTIVES = "always";
+
+    /** The FlexCache instance. */
+    private CmsFlexCache m_cache;
+
+    /** The request with the flex controller attached. */
+    private HttpServletRequest m_request;
+
+    /** The request key of the cached resource. */
+    private CmsFlexRequestKey m_requestKey;
+
+    /** The request key of a resource that is not cached. */
+    private CmsFlexRequestKey m_requestKeyMiss;
+
+    /**
+     * Creates the FlexCache and caches one entry for the test page.<p>
+     *
+     * @param state the OpenCms benchmark state
+     */
+    @Setup
+    public void setUp(CmsBenchmarkState state) {
+
+        CmsFlexCacheConfiguration config = new CmsFlexCacheConfiguration();
+        config.initialize("true", "true", "2000000", "1000000", "400000", "10000");
+        m_cache = new CmsFlexCache(config);
+
+        CmsObject cms = state.getOnlineCms();
+        m_request = (HttpServletRequest)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class[] {HttpServletRequest.class},
+            new RequestHandler());
+        HttpServletResponse response = (HttpServletResponse)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class[] {HttpServletResponse.class},
+            new RequestHandler());
+        CmsFlexController controller = new CmsFlexController(cms, null, m_cache, m_request, response, false, true);
+        CmsFlexController.setController(m_request, controller);
+
+        String rootPath = cms.getRequestContext().addSiteRoot(CmsBenchmarkState.PAGE);
+        CmsFlexCacheKey key = new CmsFlexCacheKey(rootPath, CACHE_DIRECTIVES, true);
+        m_cache.putKey(key);
+        m_requestKey = new CmsFlexRequestKey(m_request, CmsBenchmarkState.PAGE, true);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(new byte[1024]);
+        entry.complete();
+        m_cache.put(key, entry, key.matchRequestKey(m_requestKey), m_requestKey);
+
+        m_requestKeyMiss = new CmsFlexRequestKey(m_request, CmsBenchmarkState.XML_CONTENT, true);
+    }
+
+    /**
+     * Creates a request key and looks up the cached entry, like the flex request dispatcher does.<p>
+     *
+     * @return the cached entry
+     */
+    @Benchmark
+    public CmsFlexCacheEntry createKeyAndGet() {
+
+        return m_cache.get(new CmsFlexRequestKey(m_request, CmsBenchmarkState.PAGE, true));
+    }
+
+    /**
+     * Looks up a cached entry.<p>
+     *
+     * @return the cached entry
+     */
+    @Benchmark
+    public CmsFlexCacheEntry getHit() {
+
+        return m_cache.get(m_requestKey);
+    }
+
+    /**
+     * Looks up a resource that has no key in the cache.<p>
+     *
+     * @return <code>null</code>
+     */
+    @Benchmark
+    public CmsFlexCacheEntry getMiss() {
+
+        return m_cache.get(m_requestKeyMiss);
+    }
+}
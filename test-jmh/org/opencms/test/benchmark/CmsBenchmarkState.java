@@ -0,0 +1,108 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.benchmark;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared JMH state that starts an in-process OpenCms instance with the "simpletest" data
+ * on the HSQLDB test database, exactly like the unit tests do.<p>
+ *
+ * The instance is created once per benchmark trial and removed again afterwards.<p>
+ */
+@State(Scope.Benchmark)
+public class CmsBenchmarkState {
+
+    /** The folder with the imported test data. */
+    public static final String FOLDER = "/folder1/subfolder11/";
+
+    /** A HTML page of the test data. */
+    public static final String PAGE = FOLDER + "index.html";
+
+    /** A XML content of the test data. */
+    public static final String XML_CONTENT = FOLDER + "subsubfolder111/xml.xml";
+
+    /** The "Admin" context in the "Offline" project. */
+    private CmsObject m_cms;
+
+    /** The "Guest" context in the "Online" project. */
+    private CmsObject m_onlineCms;
+
+    /**
+     * Returns the "Admin" context in the "Offline" project.<p>
+     *
+     * @return the "Admin" context in the "Offline" project
+     */
+    public CmsObject getCms() {
+
+        return m_cms;
+    }
+
+    /**
+     * Returns the "Guest" context in the "Online" project.<p>
+     *
+     * @return the "Guest" context in the "Online" project
+     */
+    public CmsObject getOnlineCms() {
+
+        return m_onlineCms;
+    }
+
+    /**
+     * Starts OpenCms and imports the "simpletest" data.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp() throws Exception {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        m_cms = OpenCmsTestCase.setupOpenCms("simpletest", "/");
+        m_onlineCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        m_onlineCms.getRequestContext().setCurrentProject(m_onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+    }
+
+    /**
+     * Shuts down OpenCms and removes the test database.<p>
+     */
+    @TearDown
+    public void tearDown() {
+
+        OpenCmsTestCase.removeOpenCms(getClass().getName());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.benchmark;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks for the string helpers used on nearly every request.<p>
+ *
+ * These do not need a running OpenCms instance.<p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class CmsStringUtilBenchmark {
+
+    /** A HTML fragment with some occurrences of the search string. */
+    private String m_html = "<p><a href=\"/opencms/folder/page.html\">Link</a> and "
+        + "<img src=\"/opencms/folder/image.png\"/> and <a href=\"/opencms/index.html\">Home</a></p>";
+
+    /** A typical list of parameters. */
+    private String m_list = "en, de, fr, it, es, nl, pl, cs, ru, zh";
+
+    /** A resource root path. */
+    private String m_path = "/sites/default/folder1/subfolder11/subsubfolder111/index.html";
+
+    /**
+     * Computes the common prefix of two paths.<p>
+     *
+     * @return the common prefix
+     */
+    @Benchmark
+    public String getCommonPrefixPath() {
+
+        return CmsStringUtil.getCommonPrefixPath(m_path, "/sites/default/folder1/subfolder12/index.html");
+    }
+
+    /**
+     * Checks if a path is a prefix of another path.<p>
+     *
+     * @return the check result
+     */
+    @Benchmark
+    public boolean isPrefixPath() {
+
+        return CmsStringUtil.isPrefixPath("/sites/default/folder1/", m_path);
+    }
+
+    /**
+     * Joins path components.<p>
+     *
+     * @return the joined path
+     */
+    @Benchmark
+    public String joinPaths() {
+
+        return CmsStringUtil.joinPaths("/sites/default/", "/folder1/", "index.html");
+    }
+
+    /**
+     * Splits a list by a single character delimiter.<p>
+     *
+     * @return the list entries
+     */
+    @Benchmark
+    public List<String> splitAsListChar() {
+
+        return CmsStringUtil.splitAsList(m_list, ',', true);
+    }
+
+    /**
+     * Splits a list by a String delimiter.<p>
+     *
+     * @return the list entries
+     */
+    @Benchmark
+    public List<String> splitAsListString() {
+
+        return CmsStringUtil.splitAsList(m_list, ", ", true);
+    }
+
+    /**
+     * Substitutes a String in a HTML fragment.<p>
+     *
+     * @return the substituted HTML
+     */
+    @Benchmark
+    public String substitute() {
+
+        return CmsStringUtil.substitute(m_html, "/opencms/", "/export/");
+    }
+
+    /**
+     * Substitutes the context path in a HTML fragment.<p>
+     *
+     * @return the substituted HTML
+     */
+    @Benchmark
+    public String substituteContextPath() {
+
+        return CmsStringUtil.substituteContextPath(m_html, "/opencms/");
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.benchmark;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks for the VFS read, permission check and link substitution hot paths.<p>
+ *
+ * All operations are served from the warm driver caches, so the results show the
+ * per request overhead of the security manager and the caches rather than the database.<p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CmsVfsBenchmark {
+
+    /** The page resource read from the "Offline" project. */
+    private CmsResource m_page;
+
+    /**
+     * Reads the resources used by the benchmarks.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(CmsBenchmarkState state) throws Exception {
+
+        m_page = state.getCms().readResource(CmsBenchmarkState.PAGE);
+    }
+
+    /**
+     * Checks the read permission on a resource as "Admin".<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the permission check result
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public boolean hasPermissions(CmsBenchmarkState state) throws Exception {
+
+        return state.getCms().hasPermissions(m_page, CmsPermissionSet.ACCESS_READ);
+    }
+
+    /**
+     * Checks the read permission on a resource as "Guest" in the "Online" project.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the permission check result
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public boolean hasPermissionsOnline(CmsBenchmarkState state) throws Exception {
+
+        CmsObject cms = state.getOnlineCms();
+        return cms.hasPermissions(m_page, CmsPermissionSet.ACCESS_READ, false, CmsResourceFilter.DEFAULT);
+    }
+
+    /**
+     * Reads a resource by path from the "Offline" project.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the resource read
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public CmsResource readResource(CmsBenchmarkState state) throws Exception {
+
+        return state.getCms().readResource(CmsBenchmarkState.PAGE);
+    }
+
+    /**
+     * Reads a resource by structure id from the "Offline" project.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the resource read
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public CmsResource readResourceById(CmsBenchmarkState state) throws Exception {
+
+        return state.getCms().readResource(m_page.getStructureId());
+    }
+
+    /**
+     * Reads a resource by path from the "Online" project as "Guest".<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the resource read
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public CmsResource readResourceOnline(CmsBenchmarkState state) throws Exception {
+
+        return state.getOnlineCms().readResource(CmsBenchmarkState.PAGE);
+    }
+
+    /**
+     * Substitutes a VFS link in the "Online" project.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the substituted link
+     */
+    @Benchmark
+    public String substituteLink(CmsBenchmarkState state) {
+
+        return OpenCms.getLinkManager().substituteLink(state.getOnlineCms(), CmsBenchmarkState.PAGE);
+    }
+
+    /**
+     * Substitutes a VFS link in the "Offline" project.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the substituted link
+     */
+    @Benchmark
+    public String substituteLinkOffline(CmsBenchmarkState state) {
+
+        return OpenCms.getLinkManager().substituteLink(state.getCms(), CmsBenchmarkState.PAGE);
+    }
+}
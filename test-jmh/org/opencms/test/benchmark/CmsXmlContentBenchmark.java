@@ -0,0 +1,105 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.benchmark;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.content.CmsXmlContent;
+import org.opencms.xml.content.CmsXmlContentFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmark for unmarshalling XML contents.<p>
+ *
+ * Uses the nested content definition of the XML content unit tests, which is cached
+ * in the entity resolver, so only parsing and the content initialization are measured.<p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CmsXmlContentBenchmark {
+
+    /** The system id of the content definition. */
+    private static final String SCHEMA_SYSTEM_ID_7 = "http://www.opencms.org/test7.xsd";
+
+    /** The XML content bytes. */
+    private byte[] m_content;
+
+    /** The entity resolver. */
+    private CmsXmlEntityResolver m_resolver;
+
+    /**
+     * Reads the XML content and registers its content definition.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(CmsBenchmarkState state) throws Exception {
+
+        m_resolver = new CmsXmlEntityResolver(state.getCms());
+        String schema = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-7.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlEntityResolver.cacheSystemId(SCHEMA_SYSTEM_ID_7, schema.getBytes(CmsEncoder.ENCODING_UTF_8));
+        m_content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-7.xml");
+    }
+
+    /**
+     * Unmarshals the XML content from its bytes.<p>
+     *
+     * @param state the OpenCms benchmark state
+     *
+     * @return the unmarshalled XML content
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public CmsXmlContent unmarshal(CmsBenchmarkState state) throws Exception {
+
+        return CmsXmlContentFactory.unmarshal(state.getCms(), m_content, CmsEncoder.ENCODING_UTF_8, m_resolver);
+    }
+}
@@ -465,6 +465,29 @@ public class TestLiveConfig extends OpenCmsTestCase {
         checkResourceTypes(offlineCms, "/sites/default/today/news/foo", "foldername", "c3", "e3", "a1", "b1", "foo1");
     }
 
+    /**
+     * Tests that the configuration objects are reused for the same cache state.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testLookupReusesConfiguration() throws Exception {
+
+        CmsObject offlineCms = getCmsObject();
+        OpenCms.getADEManager().refresh();
+        CmsADEManager manager = OpenCms.getADEManager();
+        CmsADEConfigData config = manager.lookupConfiguration(offlineCms, "/sites/default/today/events");
+        assertFalse(config.getResourceTypes().isEmpty());
+        assertSame(config, manager.lookupConfiguration(offlineCms, "/sites/default/today/events/foo"));
+        assertNotSame(config, manager.lookupConfiguration(offlineCms, "/sites/default/today/news"));
+        assertNotSame(config, manager.lookupConfiguration(onlineCms(), "/sites/default/today/events"));
+
+        // a new cache state must create new configuration objects
+        OpenCms.getADEManager().refresh();
+        CmsADEConfigData newConfig = manager.lookupConfiguration(offlineCms, "/sites/default/today/events");
+        assertNotSame(config, newConfig);
+        assertEquals(config.getBasePath(), newConfig.getBasePath());
+    }
+
     /**
      * Tests the master configuration feature.<p>
      *
@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the CmsLruCache.<p>
+ */
+public class TestCmsLruCache extends OpenCmsTestCase {
+
+    /**
+     * Simple cache object for testing.<p>
+     */
+    private static class TestCacheObject implements I_CmsLruCacheObject {
+
+        /** The costs. */
+        private int m_costs;
+
+        /** Flag indicating if the object is currently in the cache. */
+        private boolean m_inCache;
+
+        /** The next object. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new test object.<p>
+         *
+         * @param costs the costs
+         */
+        TestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_inCache = true;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * Returns if the object is currently in the cache.<p>
+         *
+         * @return if the object is currently in the cache
+         */
+        public boolean isInCache() {
+
+            return m_inCache;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_inCache = false;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /**
+     * Tests that the cost accounting stays consistent with concurrent modifications.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsLruCache cache = new CmsLruCache(100000, 80000, 100, 16);
+        assertTrue(cache.getSegmentCount() > 1);
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        List<TestCacheObject> objects = new ArrayList<TestCacheObject>();
+                        for (int i = 0; i < 5000; i++) {
+                            TestCacheObject obj = new TestCacheObject(10);
+                            cache.add(obj);
+                            objects.add(obj);
+                            if ((i % 3) == 0) {
+                                cache.touch(objects.get(i / 2));
+                            }
+                            if ((i % 5) == 0) {
+                                cache.remove(objects.get(i / 3));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+        assertTrue(cache.getObjectCosts() <= cache.getMaxCacheCosts());
+        assertEquals(cache.size() * 10, cache.getObjectCosts());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+    }
+
+    /**
+     * Tests that the least recently used objects are evicted first in an unsegmented cache.<p>
+     */
+    public void testLruOrder() {
+
+        CmsLruCache cache = new CmsLruCache(30, 25, -1);
+        assertEquals(1, cache.getSegmentCount());
+        TestCacheObject first = new TestCacheObject(10);
+        TestCacheObject second = new TestCacheObject(10);
+        TestCacheObject third = new TestCacheObject(10);
+        cache.add(first);
+        cache.add(second);
+        cache.add(third);
+        assertEquals(30, cache.getObjectCosts());
+        // touching the first object makes the second one the least recently used
+        assertTrue(cache.touch(first));
+        cache.add(new TestCacheObject(10));
+        assertTrue(first.isInCache());
+        assertFalse(second.isInCache());
+        assertFalse(third.isInCache());
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.getObjectCosts());
+    }
+
+    /**
+     * Tests that objects exceeding the max. object costs are rejected
+     * and that segments are always large enough for the largest object.<p>
+     */
+    public void testMaxObjectCosts() {
+
+        CmsLruCache cache = new CmsLruCache(1000, 800, 300, 64);
+        // every segment must be able to hold an object with the max. object costs
+        assertEquals(2, cache.getSegmentCount());
+        assertFalse(cache.add(new TestCacheObject(301)));
+        TestCacheObject obj = new TestCacheObject(300);
+        assertTrue(cache.add(obj));
+        assertTrue(obj.isInCache());
+        assertEquals(300, cache.getObjectCosts());
+        assertSame(obj, cache.remove(obj));
+        assertFalse(obj.isInCache());
+        assertNull(cache.remove(obj));
+        assertEquals(0, cache.size());
+    }
+}
@@ -65,6 +65,11 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(TestCmsAccessControlListCache.suite());
+        suite.addTest(new TestSuite(TestCmsResourceCacheKey.class));
+        suite.addTest(new TestSuite(TestCmsRewriteAliasMatcher.class));
+        suite.addTest(new TestSuite(TestCmsHistoryContentCodec.class));
+        suite.addTest(new TestSuite(TestCmsLatencyHistogram.class));
         // $JUnit-END$
         return suite;
     }
@@ -150,9 +150,14 @@ public class TestAliases extends OpenCmsTestCase {
         List<CmsRewriteAlias> aliases = aliasManager.getRewriteAliases(getCmsObject(), "/sites/default");
         checkRewriteAlias(alias, aliases);
         assertEquals(1, aliases.size());
+        CmsRewriteAliasMatcher matcher = aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot);
+        assertSame(matcher, aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot));
+        assertEquals(id, matcher.match("/foo/abc").getAlias().getId());
         aliasManager.saveRewriteAliases(getCmsObject(), siteRoot, Collections.<CmsRewriteAlias> emptyList());
         aliases = aliasManager.getRewriteAliases(getCmsObject(), "/sites/default");
         assertEquals(0, aliases.size());
+        // the cached matcher must not be used after the aliases have been changed
+        assertNull(aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot).match("/foo/abc"));
 
         CmsRewriteAlias alias2 = new CmsRewriteAlias(
             new CmsUUID(),
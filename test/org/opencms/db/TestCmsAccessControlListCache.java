@@ -0,0 +1,128 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.framework.Test;
+
+/**
+ * Tests the caching of access control lists in the driver manager.<p>
+ */
+public class TestCmsAccessControlListCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsAccessControlListCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        return generateSetupTestWrapper(TestCmsAccessControlListCache.class, "simpletest", "/");
+    }
+
+    /**
+     * Tests that reading an ACL with an 'overwrite all' entry in a project scoped context
+     * does not modify the cached ACL of the resource.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testOverwriteAllWithProjectId() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that reading an ACL with a project id does not modify the cached ACL");
+
+        String resourcename = "/testOverwriteAllWithProjectId.txt";
+        cms.createResource(resourcename, CmsResourceTypePlain.getStaticTypeId());
+        cms.chacc(
+            resourcename,
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            CmsAccessControlEntry.PRINCIPAL_OVERWRITE_ALL_NAME,
+            CmsPermissionSet.PERMISSION_READ,
+            0,
+            CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE_ALL);
+        cms.unlockResource(resourcename);
+        CmsResource resource = cms.readResource(resourcename);
+        CmsGroup users = cms.readGroup(OpenCms.getDefaultUsers().getGroupUsers());
+
+        // the ACL is cached now
+        CmsAccessControlList acl = cms.getAccessControlList(resourcename);
+        assertSame(acl, cms.getAccessControlList(resourcename));
+        assertNull(acl.getPermissions(users.getId()));
+
+        CmsSecurityManager securityManager = OpenCms.getAliasManager().m_securityManager;
+        CmsDbContext dbc = securityManager.m_dbContextFactory.getDbContext(cms.getRequestContext());
+        try {
+            // write an entry without flushing the caches, so the ACL read with a project id differs from the cached one
+            securityManager.m_driverManager.getUserDriver(dbc).writeAccessControlEntry(
+                dbc,
+                dbc.currentProject(),
+                new CmsAccessControlEntry(
+                    resource.getResourceId(),
+                    users.getId(),
+                    CmsPermissionSet.PERMISSION_WRITE,
+                    0,
+                    CmsAccessControlEntry.ACCESS_FLAGS_GROUP));
+            dbc.setProjectId(dbc.currentProject().getUuid());
+            CmsAccessControlList projectAcl = securityManager.m_driverManager.getAccessControlList(
+                dbc,
+                resource,
+                false);
+            assertNotSame(acl, projectAcl);
+            assertNotNull(projectAcl.getPermissions(users.getId()));
+        } finally {
+            dbc.clear();
+        }
+
+        // the cached ACL is unchanged
+        assertSame(acl, cms.getAccessControlList(resourcename));
+        assertNull(acl.getPermissions(users.getId()));
+    }
+}
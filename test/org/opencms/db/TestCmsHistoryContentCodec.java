@@ -0,0 +1,122 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsHistoryContentCodec;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for the compression of historical file contents.<p>
+ */
+public class TestCmsHistoryContentCodec extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsHistoryContentCodec(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that compressed contents are restored unchanged.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRoundTrip() throws Exception {
+
+        StringBuffer xml = new StringBuffer("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Articles>");
+        for (int i = 0; i < 500; i++) {
+            xml.append("<Article language=\"en\"><Title><![CDATA[Title ").append(i).append("]]></Title></Article>");
+        }
+        xml.append("</Articles>");
+        byte[] content = xml.toString().getBytes("UTF-8");
+
+        byte[] encoded = CmsHistoryContentCodec.encode(content);
+        assertTrue(CmsHistoryContentCodec.isEncoded(encoded));
+        assertTrue(encoded.length < (content.length / 4));
+        assertTrue(Arrays.equals(content, CmsHistoryContentCodec.decode(encoded)));
+    }
+
+    /**
+     * Tests that contents which already start with the header of encoded contents are restored unchanged.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStartsWithHeader() throws Exception {
+
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+        byte[] encoded = CmsHistoryContentCodec.encode(random);
+        // an encoded content which is encoded again must not be mistaken for the original content
+        byte[] twice = CmsHistoryContentCodec.encode(encoded);
+        assertTrue(Arrays.equals(encoded, CmsHistoryContentCodec.decode(twice)));
+        assertTrue(Arrays.equals(random, CmsHistoryContentCodec.decode(CmsHistoryContentCodec.decode(twice))));
+
+        // unknown storage modes are rejected instead of being guessed
+        byte[] corrupt = encoded.clone();
+        corrupt[8] = 7;
+        try {
+            CmsHistoryContentCodec.decode(corrupt);
+            fail("content with unknown storage mode was decoded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that contents which do not get smaller are stored unchanged after the header.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUncompressed() throws Exception {
+
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        byte[] encoded = CmsHistoryContentCodec.encode(random);
+        assertTrue(CmsHistoryContentCodec.isEncoded(encoded));
+        assertEquals(CmsHistoryContentCodec.MODE_STORED, encoded[8]);
+        assertTrue(Arrays.equals(random, CmsHistoryContentCodec.decode(encoded)));
+        // contents moved to the history without encoding are returned unchanged
+        assertFalse(CmsHistoryContentCodec.isEncoded(random));
+        assertSame(random, CmsHistoryContentCodec.decode(random));
+
+        byte[] empty = new byte[0];
+        assertTrue(Arrays.equals(empty, CmsHistoryContentCodec.decode(CmsHistoryContentCodec.encode(empty))));
+        assertSame(empty, CmsHistoryContentCodec.decode(empty));
+        assertNull(CmsHistoryContentCodec.encode(null));
+        assertNull(CmsHistoryContentCodec.decode(null));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.timing.CmsLatencyHistogram;
+import org.opencms.db.timing.CmsMetricsProfilingHandler;
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Tests for the latency histogram and the metrics profiling handler.<p>
+ */
+public class TestCmsLatencyHistogram extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLatencyHistogram(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that percentiles are reported within the precision of the buckets.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPercentiles() throws Exception {
+
+        CmsLatencyHistogram histogram = new CmsLatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000000L, histogram.getMax());
+        assertEquals(50005000000L, histogram.getTotal());
+        assertWithinEighth(5000000L, histogram.getValueAtPercentile(50));
+        assertWithinEighth(9000000L, histogram.getValueAtPercentile(90));
+        assertWithinEighth(9900000L, histogram.getValueAtPercentile(99));
+        assertEquals(10000000L, histogram.getValueAtPercentile(100));
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.record(-1);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+    /**
+     * Tests the Prometheus output of the metrics profiling handler.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPrometheusOutput() throws Exception {
+
+        CmsMetricsProfilingHandler handler = CmsMetricsProfilingHandler.INSTANCE;
+        handler.reset();
+        handler.putTime(CmsMetricsProfilingHandler.KEY_FLEXCACHE_HIT, 2000000L);
+        handler.putTime(CmsMetricsProfilingHandler.KEY_FLEXCACHE_HIT, 4000000L);
+        handler.putTime(CmsMetricsProfilingHandler.PREFIX_FORMATTER + "/system/\"quoted\".jsp", 1000L);
+        String text = handler.toPrometheusText();
+        assertTrue(text.contains("# TYPE opencms_latency_seconds summary"));
+        assertTrue(text.contains("opencms_latency_seconds_count{category=\"flexcache\",name=\"hit\"} 2\n"));
+        assertTrue(text.contains("opencms_latency_seconds_sum{category=\"flexcache\",name=\"hit\"} 0.006000000\n"));
+        assertTrue(text.contains("name=\"/system/\\\"quoted\\\".jsp\",quantile=\"0.99\"}"));
+        assertEquals(2, handler.listMetrics().size());
+        handler.reset();
+        assertNull(handler.getHistogram(CmsMetricsProfilingHandler.KEY_FLEXCACHE_HIT));
+    }
+
+    /**
+     * Asserts that a value is within 1/8 of the expected value.<p>
+     *
+     * @param expected the expected value
+     * @param actual the actual value
+     */
+    private void assertWithinEighth(long expected, long actual) {
+
+        assertTrue("expected ~" + expected + " but was " + actual, Math.abs(expected - actual) <= (expected / 8));
+    }
+}
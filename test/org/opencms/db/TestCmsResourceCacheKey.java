@@ -0,0 +1,84 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Tests for the CmsResourceCacheKey.<p>
+ */
+public class TestCmsResourceCacheKey extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsResourceCacheKey(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests equality and hash codes of cache keys.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEquality() throws Exception {
+
+        CmsUUID id = new CmsUUID("4d2a8c1e-2c5c-11e1-9ea4-0025b3e4d1f0");
+        String path = "/sites/default/index.html";
+        CmsResourceCacheKey key = new CmsResourceCacheKey("_CAP_", CmsResourceCacheKey.FLAG_ONLINE, path, null);
+
+        // equal keys built from different String instances
+        CmsResourceCacheKey same = new CmsResourceCacheKey(
+            new String("_CAP_"),
+            CmsResourceCacheKey.FLAG_ONLINE,
+            new String(path),
+            null);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+
+        // flags, prefix, path and id are all significant
+        assertFalse(key.equals(new CmsResourceCacheKey("_CAP_", 0, path, null)));
+        assertFalse(key.equals(new CmsResourceCacheKey(null, CmsResourceCacheKey.FLAG_ONLINE, path, null)));
+        assertFalse(
+            key.equals(
+                new CmsResourceCacheKey("_CAP_", CmsResourceCacheKey.FLAG_ONLINE, "/sites/default/other.html", null)));
+        assertFalse(key.equals(new CmsResourceCacheKey("_CAP_", CmsResourceCacheKey.FLAG_ONLINE, path, id)));
+        assertFalse(key.equals(path));
+
+        // id based keys
+        CmsResourceCacheKey idKey = new CmsResourceCacheKey(null, 3 << CmsResourceCacheKey.FLAG_BITS, null, id);
+        assertEquals(
+            idKey,
+            new CmsResourceCacheKey(null, 3 << CmsResourceCacheKey.FLAG_BITS, null, new CmsUUID(id.toString())));
+        assertFalse(idKey.equals(new CmsResourceCacheKey(null, 2 << CmsResourceCacheKey.FLAG_BITS, null, id)));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the CmsRewriteAliasMatcher.<p>
+ */
+public class TestCmsRewriteAliasMatcher extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsRewriteAliasMatcher(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests the computation of the literal prefixes of patterns.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLiteralPrefix() throws Exception {
+
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/(.*)"));
+        assertEquals("/foo/ba", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/bar?"));
+        assertEquals("/foo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo\\.html"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/.*|/bar/.*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("(?i)/foo/.*"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("a*"));
+        assertEquals("/foo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo"));
+    }
+
+    /**
+     * Tests that the first matching alias in the original order is used.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMatchOrder() throws Exception {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(createAlias("/news/archive/(.*)", "/archive/$1"));
+        aliases.add(createAlias(".*/print", "/print.html"));
+        aliases.add(createAlias("/news/(.*)", "/news.html?id=$1"));
+        aliases.add(createAlias("/invalid/((", "/never"));
+        aliases.add(createAlias("/(?i)NEWS/(.*)", "/ignorecase/$1"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+
+        assertEquals("/archive/2020", matcher.match("/news/archive/2020").getNewPath());
+        assertEquals("/print.html", matcher.match("/news/2020/print").getNewPath());
+        assertEquals("/news.html?id=2020", matcher.match("/news/2020").getNewPath());
+        assertEquals("/ignorecase/2020", matcher.match("/News/2020").getNewPath());
+        assertSame(aliases.get(2), matcher.match("/news/2021").getAlias());
+        assertNull(matcher.match("/other/page"));
+        assertNull(matcher.match("/invalid/(("));
+        assertNull(matcher.match(""));
+    }
+
+    /**
+     * Creates a rewrite alias for the default site.<p>
+     *
+     * @param pattern the pattern
+     * @param replacement the replacement
+     *
+     * @return the rewrite alias
+     */
+    private CmsRewriteAlias createAlias(String pattern, String replacement) {
+
+        return new CmsRewriteAlias(new CmsUUID(), "/sites/default", pattern, replacement, CmsAliasMode.redirect);
+    }
+}
@@ -28,16 +28,20 @@
 package org.opencms.file;
 
 import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -215,6 +219,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testPropertyMaps"));
         suite.addTest(new TestProperty("testWriteProperty"));
         suite.addTest(new TestProperty("testWriteProperties"));
+        suite.addTest(new TestProperty("testWritePropertiesUpdate"));
         suite.addTest(new TestProperty("testRemoveProperty"));
         suite.addTest(new TestProperty("testRemoveProperties"));
         suite.addTest(new TestProperty("testCreateProperty"));
@@ -224,6 +229,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
         suite.addTest(new TestProperty("testReadLocalizedProperty"));
+        suite.addTest(new TestProperty("testReadPropertyObjectsForResources"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -696,6 +702,65 @@ public class TestProperty extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests that reading the properties of several resources at once returns the same as reading them one by one.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadPropertyObjectsForResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of several resources at once");
+
+        String source = "/folder1/page1.html";
+        String sibling = "/folder1/page1_bulk_sibling.html";
+        cms.lockResource(source);
+        cms.writePropertyObject(
+            source,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "resource value"));
+        cms.writePropertyObject(
+            source,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "structure value", null));
+        cms.unlockResource(source);
+        cms.createSibling(source, sibling, null);
+
+        List<CmsResource> resources = cms.readResources("/folder1/", CmsResourceFilter.ALL, true);
+        for (boolean search : new boolean[] {false, true}) {
+            OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>()));
+            Map<CmsUUID, List<CmsProperty>> bulk = cms.readPropertyObjects(resources, search);
+            OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>()));
+            assertEquals(resources.size(), bulk.size());
+            for (CmsResource resource : resources) {
+                Map<String, CmsProperty> expected = toPropertyMap(cms.readPropertyObjects(resource, search));
+                Map<String, CmsProperty> actual = toPropertyMap(bulk.get(resource.getStructureId()));
+                assertEquals(resource.getRootPath(), expected.keySet(), actual.keySet());
+                for (CmsProperty property : expected.values()) {
+                    CmsProperty other = actual.get(property.getName());
+                    assertEquals(property.getStructureValue(), other.getStructureValue());
+                    assertEquals(property.getResourceValue(), other.getResourceValue());
+                }
+            }
+        }
+
+        Map<CmsUUID, List<CmsProperty>> siblings = cms.readPropertyObjects(
+            Arrays.asList(cms.readResource(source), cms.readResource(sibling)),
+            false);
+        Map<String, CmsProperty> sourceProperties = toPropertyMap(
+            siblings.get(cms.readResource(source).getStructureId()));
+        Map<String, CmsProperty> siblingProperties = toPropertyMap(
+            siblings.get(cms.readResource(sibling).getStructureId()));
+        assertEquals(
+            "resource value",
+            sourceProperties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION).getResourceValue());
+        assertEquals(
+            "resource value",
+            siblingProperties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION).getResourceValue());
+        assertEquals(
+            "structure value",
+            sourceProperties.get(CmsPropertyDefinition.PROPERTY_KEYWORDS).getStructureValue());
+        assertNull(siblingProperties.get(CmsPropertyDefinition.PROPERTY_KEYWORDS));
+    }
+
     /**
      * Tests the writePropertyObject method for writing of a property on a folder.<p>
      *
@@ -816,6 +881,43 @@ public class TestProperty extends OpenCmsTestCase {
         writeProperties(this, cms, "/folder1/page3.html", propertyList1);
     }
 
+    /**
+     * Tests writing several properties at once, where some of them are created, changed, deleted or left unchanged.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testWritePropertiesUpdate() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing updating multiple properties on a resource at once");
+        String resource = "/folder1/page2.html";
+        cms.lockResource(resource);
+        cms.writePropertyObjects(
+            resource,
+            Arrays.asList(
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title", "shared title"),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "description"),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "keywords", null),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, "1", null)));
+
+        cms.writePropertyObjects(
+            resource,
+            Arrays.asList(
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title", "shared title"),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, "description", CmsProperty.DELETE_VALUE),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, CmsProperty.DELETE_VALUE, null),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, "2", null)));
+        cms.unlockResource(resource);
+
+        Map<String, CmsProperty> properties = toPropertyMap(cms.readPropertyObjects(resource, false));
+        assertEquals("title", properties.get(CmsPropertyDefinition.PROPERTY_TITLE).getStructureValue());
+        assertEquals("shared title", properties.get(CmsPropertyDefinition.PROPERTY_TITLE).getResourceValue());
+        assertEquals("description", properties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION).getStructureValue());
+        assertNull(properties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION).getResourceValue());
+        assertNull(properties.get(CmsPropertyDefinition.PROPERTY_KEYWORDS));
+        assertEquals("2", properties.get(CmsPropertyDefinition.PROPERTY_NAVPOS).getStructureValue());
+    }
+
     /**
      * Tests the writePropertyObject method.<p>
      *
@@ -841,4 +943,20 @@ public class TestProperty extends OpenCmsTestCase {
         CmsProperty property10 = new CmsProperty("Title", "OpenCms", null);
         writeProperty(this, cms, "/folder2/", property10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the given properties by name.<p>
+     *
+     * @param properties the properties
+     *
+     * @return the properties by name
+     */
+    private Map<String, CmsProperty> toPropertyMap(List<CmsProperty> properties) {
+
+        Map<String, CmsProperty> result = new HashMap<String, CmsProperty>();
+        for (CmsProperty property : properties) {
+            result.put(property.getName(), property);
+        }
+        return result;
+    }
+}
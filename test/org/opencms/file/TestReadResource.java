@@ -31,8 +31,12 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
+import java.util.Arrays;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -73,6 +77,7 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadAfterExpirationDateIgnore"));
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
+        suite.addTest(new TestReadResource("testReadContentStream"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -340,6 +345,33 @@ public class TestReadResource extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test reading the content of a file as a stream.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadContentStream() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the content of a file as a stream");
+
+        String path = "/folder1/subfolder11/index.html";
+        CmsResource resource = cms.readResource(path);
+        byte[] expected = cms.readFile(resource).getContents();
+
+        InputStream in = cms.readContentStream(resource);
+        byte[] streamed = CmsFileUtil.readFully(in);
+        assertTrue(Arrays.equals(expected, streamed));
+        assertEquals(resource.getLength(), streamed.length);
+
+        try {
+            cms.readContentStream(cms.readResource("/folder1/"));
+            fail("content of a folder could be read");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
+
     /**
      * Test readFile with the structure id.<p>
      *
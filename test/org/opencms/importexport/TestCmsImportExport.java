@@ -73,9 +73,17 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -129,6 +137,7 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         suite.addTest(new TestCmsImportExport("testImportRelations"));
         suite.addTest(new TestCmsImportExport("testImportContentIssue"));
         suite.addTest(new TestCmsImportExport("testExportType"));
+        suite.addTest(new TestCmsImportExport("testExportParallel"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -161,6 +170,50 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         return file;
     }
 
+    /**
+     * Tests that an export reading the file contents with several threads writes the same files
+     * in the same order as an export with a single thread.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testExportParallel() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the export with several threads.");
+        cms.getRequestContext().setSiteRoot("/");
+        String folder = "/parallelexport/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < 20; i++) {
+            cms.createResource(
+                folder + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                ("content " + i).getBytes(),
+                null);
+        }
+        // a content which is spooled to a temporary file instead of being kept in memory
+        byte[] large = new byte[CmsExportContentReader.MEMORY_LIMIT + 1];
+        Arrays.fill(large, (byte)'x');
+        cms.createResource(folder + "large.txt", CmsResourceTypePlain.getStaticTypeId(), large, null);
+        cms.createSibling(folder + "file0.txt", folder + "sibling.txt", null);
+
+        File singleExport = tempExport();
+        exportFolder(cms, folder, singleExport, 1);
+        File parallelExport = tempExport();
+        exportFolder(cms, folder, parallelExport, 4);
+
+        Map<String, byte[]> singleEntries = readZipEntries(singleExport);
+        Map<String, byte[]> parallelEntries = readZipEntries(parallelExport);
+        assertEquals(new ArrayList<String>(singleEntries.keySet()), new ArrayList<String>(parallelEntries.keySet()));
+        for (Map.Entry<String, byte[]> entry : singleEntries.entrySet()) {
+            if (!CmsImportExportManager.EXPORT_MANIFEST.equals(entry.getKey())) {
+                assertTrue(entry.getKey(), Arrays.equals(entry.getValue(), parallelEntries.get(entry.getKey())));
+            }
+        }
+        assertTrue(Arrays.equals(large, parallelEntries.get("parallelexport/large.txt")));
+        // the content of the siblings is only exported once
+        assertFalse(parallelEntries.containsKey("parallelexport/sibling.txt"));
+    }
+
     public void testExportType() throws Exception {
 
         CmsObject cms = getCmsObject();
@@ -2182,4 +2235,62 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         }
         return value;
     }
+
+    /**
+     * Exports a folder to a ZIP file.<p>
+     *
+     * @param cms the CMS context
+     * @param folder the folder to export
+     * @param zipFile the ZIP file to export to
+     * @param threads the number of threads used to read the file contents
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void exportFolder(CmsObject cms, String folder, File zipFile, int threads) throws Exception {
+
+        CmsVfsImportExportHandler vfsExportHandler = new CmsVfsImportExportHandler();
+        List<String> exportPaths = new ArrayList<String>(1);
+        exportPaths.add(folder);
+        CmsExportParameters params = new CmsExportParameters(
+            zipFile.getAbsolutePath(),
+            null,
+            true,
+            false,
+            false,
+            exportPaths,
+            false,
+            true,
+            0,
+            true,
+            false,
+            ExportMode.DEFAULT);
+        params.setExportThreads(threads);
+        vfsExportHandler.setExportParams(params);
+        OpenCms.getImportExportManager().exportData(
+            cms,
+            vfsExportHandler,
+            new CmsShellReport(cms.getRequestContext().getLocale()));
+    }
+
+    /**
+     * Reads the entries of a ZIP file in the order they were written.<p>
+     *
+     * @param zipFile the ZIP file
+     *
+     * @return the contents of the entries, by entry name
+     *
+     * @throws IOException if something goes wrong
+     */
+    private Map<String, byte[]> readZipEntries(File zipFile) throws IOException {
+
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                result.put(entry.getName(), IOUtils.toByteArray(zip.getInputStream(entry)));
+            }
+        }
+        return result;
+    }
 }
\ No newline at end of file
@@ -58,6 +58,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
+        suite.addTest(new TestSuite(TestCmsImageLoader.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
         //$JUnit-END$
         return suite;
@@ -0,0 +1,280 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the scaling thread pool and the conditional and partial request handling of the image loader.<p>
+ */
+public class TestCmsImageLoader extends OpenCmsTestCase {
+
+    /**
+     * Tests matching the "If-None-Match" header against an entity tag.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testETagMatch() throws Exception {
+
+        String etag = "\"1a2b-400\"";
+        assertFalse(CmsImageLoader.isETagMatch(null, etag));
+        assertTrue(CmsImageLoader.isETagMatch(etag, etag));
+        assertTrue(CmsImageLoader.isETagMatch("*", etag));
+        assertTrue(CmsImageLoader.isETagMatch("W/" + etag, etag));
+        assertTrue(CmsImageLoader.isETagMatch("\"other\", " + etag, etag));
+        assertFalse(CmsImageLoader.isETagMatch("\"other\"", etag));
+    }
+
+    /**
+     * Tests parsing of the "Range" header.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testParseRange() throws Exception {
+
+        // no, malformed or multiple ranges: send the full content
+        assertNull(CmsImageLoader.parseRange(null, 1000));
+        assertNull(CmsImageLoader.parseRange("items=0-10", 1000));
+        assertNull(CmsImageLoader.parseRange("bytes=abc", 1000));
+        assertNull(CmsImageLoader.parseRange("bytes=a-b", 1000));
+        assertNull(CmsImageLoader.parseRange("bytes=10-5", 1000));
+        assertNull(CmsImageLoader.parseRange("bytes=0-10,20-30", 1000));
+
+        // satisfiable ranges
+        assertRange(0, 499, CmsImageLoader.parseRange("bytes=0-499", 1000));
+        assertRange(500, 999, CmsImageLoader.parseRange("bytes=500-", 1000));
+        assertRange(900, 999, CmsImageLoader.parseRange("bytes=-100", 1000));
+        assertRange(0, 999, CmsImageLoader.parseRange("bytes=-2000", 1000));
+        assertRange(990, 999, CmsImageLoader.parseRange("bytes=990-5000", 1000));
+
+        // unsatisfiable ranges
+        assertEquals(0, CmsImageLoader.parseRange("bytes=1000-", 1000).length);
+        assertEquals(0, CmsImageLoader.parseRange("bytes=-0", 1000).length);
+    }
+
+    /**
+     * Tests that scalings are rejected if the scaling queue is full, and that a scaling which
+     * is not finished within the timeout is not started a second time.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testScalingQueueFull() throws Exception {
+
+        ThreadPoolExecutor previousExecutor = CmsImageLoader.m_scalingExecutor;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1,
+            1,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(1));
+        CmsImageLoader.m_scalingExecutor = executor;
+        try {
+            CmsImageLoader loader = new CmsImageLoader();
+            loader.m_scalingTimeout = 50;
+            final AtomicInteger scalings = new AtomicInteger();
+            final AtomicInteger otherScalings = new AtomicInteger();
+            final CountDownLatch release = new CountDownLatch(1);
+            Callable<File> scaling = () -> {
+                scalings.incrementAndGet();
+                release.await();
+                return new File("scaled.png");
+            };
+            Callable<File> otherScaling = () -> {
+                otherScalings.incrementAndGet();
+                return new File("other.png");
+            };
+
+            // the first scaling occupies the only thread, the second one the queue
+            assertNull(loader.getScalingResult("first.png", scaling, false));
+            assertNull(loader.getScalingResult("second.png", scaling, false));
+            // the queue is full
+            assertNull(loader.getScalingResult("third.png", otherScaling, false));
+            // the running scaling is shared, even after a timeout
+            assertNull(loader.getScalingResult("first.png", otherScaling, false));
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(2, scalings.get());
+            assertEquals(0, otherScalings.get());
+        } finally {
+            executor.shutdownNow();
+            CmsImageLoader.m_scalingExecutor = previousExecutor;
+        }
+    }
+
+    /**
+     * Tests that a waiting caller, as used for the static export, gets the scaled image even if the
+     * scaling queue is full or the scaling takes longer than the timeout.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testScalingWaiting() throws Exception {
+
+        ThreadPoolExecutor previousExecutor = CmsImageLoader.m_scalingExecutor;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1,
+            1,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(1));
+        CmsImageLoader.m_scalingExecutor = executor;
+        try {
+            final CmsImageLoader loader = new CmsImageLoader();
+            loader.m_scalingTimeout = 50;
+            final AtomicInteger scalings = new AtomicInteger();
+            final CountDownLatch release = new CountDownLatch(1);
+            final File scaled = new File("scaled.png");
+            Callable<File> scaling = () -> {
+                scalings.incrementAndGet();
+                release.await();
+                return scaled;
+            };
+            final AtomicInteger otherScalings = new AtomicInteger();
+            final File other = new File("other.png");
+            Callable<File> otherScaling = () -> {
+                otherScalings.incrementAndGet();
+                return other;
+            };
+
+            // the first scaling occupies the only thread, the second one the queue
+            assertNull(loader.getScalingResult("first.png", scaling, false));
+            assertNull(loader.getScalingResult("second.png", scaling, false));
+            // the queue is full, the waiting caller scales in its own thread
+            assertSame(other, loader.getScalingResult("third.png", otherScaling, true));
+            assertEquals(1, otherScalings.get());
+
+            // the waiting caller shares the running scaling, even after the timeout
+            final File[] result = new File[1];
+            final Throwable[] error = new Throwable[1];
+            Thread thread = new Thread(() -> {
+                try {
+                    result[0] = loader.getScalingResult("first.png", otherScaling, true);
+                } catch (Throwable e) {
+                    error[0] = e;
+                }
+            });
+            thread.start();
+            thread.join(200);
+            assertTrue(thread.isAlive());
+            release.countDown();
+            thread.join();
+
+            assertNull(error[0]);
+            assertSame(scaled, result[0]);
+            assertEquals(1, otherScalings.get());
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(2, scalings.get());
+        } finally {
+            executor.shutdownNow();
+            CmsImageLoader.m_scalingExecutor = previousExecutor;
+        }
+    }
+
+    /**
+     * Tests that concurrent requests for the same scaled image share a single scaling.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSharedScaling() throws Exception {
+
+        ThreadPoolExecutor previousExecutor = CmsImageLoader.m_scalingExecutor;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            2,
+            2,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(1));
+        CmsImageLoader.m_scalingExecutor = executor;
+        try {
+            final CmsImageLoader loader = new CmsImageLoader();
+            final AtomicInteger scalings = new AtomicInteger();
+            final CountDownLatch release = new CountDownLatch(1);
+            final File scaled = new File("scaled.png");
+            final Callable<File> scaling = () -> {
+                scalings.incrementAndGet();
+                release.await();
+                return scaled;
+            };
+            final File[] results = new File[8];
+            final Throwable[] error = new Throwable[1];
+            Thread[] threads = new Thread[results.length];
+            for (int t = 0; t < threads.length; t++) {
+                final int thread = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        results[thread] = loader.getScalingResult("image.png", scaling, false);
+                    } catch (Throwable e) {
+                        error[0] = e;
+                    }
+                });
+                threads[t].start();
+            }
+            // all requests arrive while the scaling is still running
+            Thread.sleep(200);
+            release.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertNull(error[0]);
+            assertEquals(1, scalings.get());
+            for (File result : results) {
+                assertSame(scaled, result);
+            }
+        } finally {
+            executor.shutdownNow();
+            CmsImageLoader.m_scalingExecutor = previousExecutor;
+        }
+    }
+
+    /**
+     * Asserts that the given parsed range has the expected positions.<p>
+     *
+     * @param start the expected first byte position
+     * @param end the expected last byte position
+     * @param range the parsed range
+     */
+    private void assertRange(long start, long end, long[] range) {
+
+        assertNotNull(range);
+        assertEquals(2, range.length);
+        assertEquals(start, range[0]);
+        assertEquals(end, range[1]);
+    }
+}
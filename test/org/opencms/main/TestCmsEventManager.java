@@ -0,0 +1,267 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the event dispatch of the {@link CmsEventManager}.<p>
+ */
+public class TestCmsEventManager extends TestCase {
+
+    /**
+     * Asynchronous test listener which blocks until released.<p>
+     */
+    static class AsyncListener implements I_CmsAsyncEventListener {
+
+        /** The received event types. */
+        List<Integer> m_events = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** Latch which is counted down for every event received. */
+        CountDownLatch m_received;
+
+        /** Latch the listener waits for before processing an event. */
+        CountDownLatch m_release = new CountDownLatch(1);
+
+        /**
+         * Creates a new listener.<p>
+         *
+         * @param expected the number of expected events
+         */
+        AsyncListener(int expected) {
+
+            m_received = new CountDownLatch(expected);
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            m_events.add(event.getTypeInteger());
+            m_received.countDown();
+        }
+    }
+
+    /**
+     * Tests that asynchronous listeners do not block the firing thread and receive their events in order.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testAsyncDispatch() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        AsyncListener async = new AsyncListener(3);
+        TestEventListener sync = new TestEventListener();
+        manager.addCmsEventListener(async);
+        manager.addCmsEventListener(sync);
+
+        manager.fireEvent(1);
+        manager.fireEvent(2);
+        manager.fireEvent(3);
+
+        // the synchronous listener got all events, the asynchronous listener is still blocked
+        assertEquals(3, sync.getEvents().size());
+        assertEquals(0, async.m_events.size());
+
+        async.m_release.countDown();
+        assertTrue(async.m_received.await(10, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(1), async.m_events.get(0));
+        assertEquals(Integer.valueOf(2), async.m_events.get(1));
+        assertEquals(Integer.valueOf(3), async.m_events.get(2));
+
+        manager.shutdown();
+        CmsEventListenerStatistics asyncStats = manager.getListenerStatistics().get(AsyncListener.class.getName());
+        CmsEventListenerStatistics syncStats = manager.getListenerStatistics().get(TestEventListener.class.getName());
+        assertEquals(3, asyncStats.getCount());
+        assertEquals(3, syncStats.getCount());
+        assertEquals(0.0, syncStats.getQueueTime(), 0.0);
+    }
+
+    /**
+     * Tests that deferred resource events are merged into a single event.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDeferredResourceEvents() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        TestEventListener listener = new TestEventListener();
+        manager.addCmsEventListener(listener);
+
+        CmsResource res1 = createResource("/sites/default/a.html");
+        CmsResource res2 = createResource("/sites/default/b.html");
+        assertTrue(manager.deferResourceEvents());
+        // deferring twice in the same thread is not possible
+        assertFalse(manager.deferResourceEvents());
+
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_CREATED, resourceData(res1));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, resourceData(res1));
+        Map<String, Object> data = new HashMap<>();
+        data.put(I_CmsEventListener.KEY_RESOURCES, Arrays.asList(res1, res2));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED, data);
+        // other events are still fired immediately
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, listener.getEvents().size());
+
+        assertEquals(2, manager.fireDeferredResourceEvents());
+        assertEquals(2, listener.getEvents().size());
+        CmsEvent merged = (CmsEvent)listener.getEvents().get(1);
+        assertEquals(I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED, merged.getType());
+        assertEquals(Arrays.asList(res1, res2), merged.getData().get(I_CmsEventListener.KEY_RESOURCES));
+
+        // the events are no longer deferred
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, resourceData(res2));
+        assertEquals(3, listener.getEvents().size());
+        assertEquals(0, manager.fireDeferredResourceEvents());
+        manager.shutdown();
+    }
+
+    /**
+     * Tests that events fired after the shutdown are delivered synchronously.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDispatchAfterShutdown() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        AsyncListener async = new AsyncListener(1);
+        async.m_release.countDown();
+        manager.addCmsEventListener(async, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+        manager.shutdown();
+
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, async.m_events.size());
+    }
+
+    /**
+     * Tests that the firing thread waits for an asynchronous listener with a full queue,
+     * instead of delivering the event itself.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFullQueue() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        int total = CmsEventManager.ASYNC_QUEUE_CAPACITY + 3;
+        final AsyncListener async = new AsyncListener(total);
+        manager.addCmsEventListener(async);
+
+        // the first event blocks the listener thread, the following events fill the queue
+        for (int i = 0; i < (CmsEventManager.ASYNC_QUEUE_CAPACITY + 1); i++) {
+            manager.fireEvent(i);
+        }
+        // release the listener while this thread waits for space in the queue
+        Thread releaser = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                async.m_release.countDown();
+            }
+        };
+        releaser.start();
+        manager.fireEvent(CmsEventManager.ASYNC_QUEUE_CAPACITY + 1);
+        manager.fireEvent(CmsEventManager.ASYNC_QUEUE_CAPACITY + 2);
+
+        assertTrue(async.m_received.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < total; i++) {
+            assertEquals(Integer.valueOf(i), async.m_events.get(i));
+        }
+        manager.shutdown();
+        CmsEventListenerStatistics stats = manager.getListenerStatistics().get(AsyncListener.class.getName());
+        assertEquals(total, stats.getCount());
+        assertEquals(0, stats.getDropped());
+    }
+
+    /**
+     * Creates a resource for testing.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_NEW,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates the event data for a single resource.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the event data
+     */
+    private Map<String, Object> resourceData(CmsResource resource) {
+
+        Map<String, Object> data = new HashMap<>();
+        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        return data;
+    }
+}
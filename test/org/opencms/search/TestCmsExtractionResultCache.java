@@ -0,0 +1,263 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search;
+
+import org.opencms.search.documents.CmsExtractionResultCache;
+import org.opencms.search.extractors.CmsExtractionResult;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Tests the store of the extraction result cache, which does not require an OpenCms context.<p>
+ */
+public class TestCmsExtractionResultCache extends OpenCmsTestCase {
+
+    /** The base folder for the caches created by the tests. */
+    private File m_baseFolder;
+
+    /**
+     * Tests that expired entries are removed and the store file is compacted.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCleanCache() throws Exception {
+
+        CmsExtractionResultCache cache = createCache();
+        for (int i = 0; i < 1000; i++) {
+            cache.saveCacheObject("key" + i, createResult("value" + i, 2000));
+        }
+        File store = new File(cache.getRepositoryPath(), CmsExtractionResultCache.STORE_FILE_NAME);
+        long sizeBefore = store.length();
+
+        Thread.sleep(50);
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(cache.getCacheObject("key" + i));
+        }
+        assertEquals(900, cache.cleanCache(0.00001f));
+        assertNull(cache.getCacheObject("key500"));
+        assertTrue(cache.getCacheObject("key50").getContent().startsWith("value50"));
+        assertTrue(store.length() < (sizeBefore / 5));
+
+        cache.shutDown();
+        cache = createCache();
+        assertNull(cache.getCacheObject("key500"));
+        assertTrue(cache.getCacheObject("key50").getContent().startsWith("value50"));
+        cache.shutDown();
+    }
+
+    /**
+     * Tests concurrent reads and writes.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsExtractionResultCache cache = createCache();
+        for (int i = 0; i < 100; i++) {
+            cache.saveCacheObject("key" + i, createResult("value" + i, 100));
+        }
+        final Throwable[] error = new Throwable[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        cache.saveCacheObject("thread" + thread + "_" + i, createResult("thread" + thread, 100));
+                        assertTrue(cache.getCacheObject("key" + i).getContent().startsWith("value" + i));
+                    }
+                } catch (Throwable e) {
+                    error[0] = e;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error[0]);
+        for (int t = 0; t < threads.length; t++) {
+            assertTrue(cache.getCacheObject("thread" + t + "_99").getContent().startsWith("thread" + t));
+        }
+        cache.shutDown();
+    }
+
+    /**
+     * Tests that a damaged end of the store file is discarded when the cache is opened.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testDamagedStore() throws Exception {
+
+        CmsExtractionResultCache cache = createCache();
+        cache.saveCacheObject("first", createResult("first", 10));
+        cache.saveCacheObject("second", createResult("second", 10));
+        cache.shutDown();
+
+        try (RandomAccessFile file = new RandomAccessFile(
+            new File(cache.getRepositoryPath(), CmsExtractionResultCache.STORE_FILE_NAME),
+            "rw")) {
+            file.setLength(file.length() - 2);
+        }
+        new File(cache.getRepositoryPath(), CmsExtractionResultCache.INDEX_FILE_NAME).delete();
+
+        cache = createCache();
+        assertTrue(cache.getCacheObject("first").getContent().startsWith("first"));
+        assertNull(cache.getCacheObject("second"));
+        cache.saveCacheObject("third", createResult("third", 10));
+        cache.shutDown();
+
+        cache = createCache();
+        assertTrue(cache.getCacheObject("third").getContent().startsWith("third"));
+        cache.shutDown();
+    }
+
+    /**
+     * Tests that cached entries survive reopening the cache, with and without a written index.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testReopen() throws Exception {
+
+        CmsExtractionResultCache cache = createCache();
+        cache.saveCacheObject("key", createResult("old", 10));
+        cache.saveCacheObject("key", createResult("new", 10));
+        cache.saveCacheObject("other", createResult("other", 10));
+        assertTrue(cache.getCacheObject("key").getContent().startsWith("new"));
+        assertNull(cache.getCacheObject("missing"));
+        cache.shutDown();
+
+        // opened with the index
+        cache = createCache();
+        assertTrue(cache.getCacheObject("key").getContent().startsWith("new"));
+        cache.shutDown();
+
+        // opened without an index, as after a crash
+        File indexFile = new File(cache.getRepositoryPath(), CmsExtractionResultCache.INDEX_FILE_NAME);
+        assertTrue(indexFile.delete());
+        cache = createCache();
+        assertTrue(cache.getCacheObject("key").getContent().startsWith("new"));
+        assertTrue(cache.getCacheObject("other").getContent().startsWith("other"));
+        assertEquals(0, cache.cleanCache(1));
+        cache.saveCacheObject("later", createResult("later", 10));
+
+        // entries written after the index are found as well
+        File savedIndex = new File(m_baseFolder, "saved.idx");
+        Files.copy(indexFile.toPath(), savedIndex.toPath());
+        cache.shutDown();
+        Files.copy(savedIndex.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        cache = createCache();
+        assertTrue(cache.getCacheObject("other").getContent().startsWith("other"));
+        assertTrue(cache.getCacheObject("later").getContent().startsWith("later"));
+        cache.shutDown();
+    }
+
+    /**
+     * Tests that a record which was reserved but never written does not hide the records after it.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testUnwrittenRecord() throws Exception {
+
+        CmsExtractionResultCache cache = createCache();
+        cache.saveCacheObject("first", createResult("first", 10));
+        cache.shutDown();
+
+        // a reserved record of which only the length was written
+        File store = new File(cache.getRepositoryPath(), CmsExtractionResultCache.STORE_FILE_NAME);
+        try (RandomAccessFile file = new RandomAccessFile(store, "rw")) {
+            file.seek(file.length());
+            file.writeInt(37);
+            file.write(new byte[33]);
+        }
+
+        cache = createCache();
+        assertTrue(cache.getCacheObject("first").getContent().startsWith("first"));
+        cache.saveCacheObject("second", createResult("second", 10));
+        cache.shutDown();
+
+        new File(cache.getRepositoryPath(), CmsExtractionResultCache.INDEX_FILE_NAME).delete();
+        cache = createCache();
+        assertTrue(cache.getCacheObject("first").getContent().startsWith("first"));
+        assertTrue(cache.getCacheObject("second").getContent().startsWith("second"));
+        cache.shutDown();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        m_baseFolder = Files.createTempDirectory("extractCache").toFile();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsFileUtil.purgeDirectory(m_baseFolder);
+        super.tearDown();
+    }
+
+    /**
+     * Creates a cache in the base folder of the test.<p>
+     *
+     * @return the cache
+     */
+    private CmsExtractionResultCache createCache() {
+
+        return new CmsExtractionResultCache(m_baseFolder.getAbsolutePath(), "/cache");
+    }
+
+    /**
+     * Creates an extraction result with the given content, padded to the given length.<p>
+     *
+     * @param content the content
+     * @param length the minimum length of the content
+     *
+     * @return the extraction result
+     */
+    private CmsExtractionResult createResult(String content, int length) {
+
+        StringBuffer buffer = new StringBuffer(content);
+        while (buffer.length() < length) {
+            buffer.append('x');
+        }
+        return new CmsExtractionResult(buffer.toString());
+    }
+}
@@ -68,6 +68,9 @@ public final class AllTests {
     /** Name of an index used for testing. */
     public static final String SOLR_ONLINE = "Solr Online";
 
+    /** Name of an index using the read permission filter. */
+    public static final String SOLR_READ_ACL = "Solr Read ACL";
+
     /**
      * Hide constructor to prevent generation of class instances.<p>
      */
@@ -126,6 +129,7 @@ public final class AllTests {
         suite.addTest(TestSolrSearch.suite());
         suite.addTest(TestCmsSolrCollector.suite());
         suite.addTest(TestSolrSerialDateIndexing.suite());
+        suite.addTest(TestCmsSolrReadAcl.suite());
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,334 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsShellReport;
+import org.opencms.search.CmsSearchResource;
+import org.opencms.search.I_CmsSearchIndex;
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the read permission tokens written to the Solr index and the matching filter query.<p>
+ */
+public class TestCmsSolrReadAcl extends OpenCmsTestCase {
+
+    /** The folder containing the resources for the read permission filter test. */
+    private static final String FOLDER = "readacl/";
+
+    /** The password of the test users. */
+    private static final String PASSWORD = "password";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSolrReadAcl(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsSolrReadAcl.class.getName());
+
+        suite.addTest(new TestCmsSolrReadAcl("testFilterQuery"));
+        suite.addTest(new TestCmsSolrReadAcl("testTokensAllowedAndDenied"));
+        suite.addTest(new TestCmsSolrReadAcl("testTokensUnresolved"));
+        suite.addTest(new TestCmsSolrReadAcl("testReadAclFilter"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/search/solr");
+                // disable all indexes except the one using the read permission filter
+                for (String indexName : OpenCms.getSearchManager().getIndexNames()) {
+                    if (!indexName.equalsIgnoreCase(AllTests.SOLR_READ_ACL)) {
+                        I_CmsSearchIndex index = OpenCms.getSearchManager().getIndex(indexName);
+                        if (index != null) {
+                            index.setEnabled(false);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests the filter query for a user with a group.<p>
+     */
+    public void testFilterQuery() {
+
+        CmsUUID user = new CmsUUID();
+        CmsUUID group = new CmsUUID();
+        String query = CmsSolrReadAcl.getFilterQuery(Arrays.asList(user, group));
+
+        String field = CmsSolrReadAcl.FIELD_READ_ACL;
+        assertTrue(query.contains("+" + field + ":(\"r_" + user + "\" OR \"r_" + group + "\")"));
+        assertTrue(query.contains("-" + field + ":(\"d_" + user + "\" OR \"d_" + group + "\")"));
+        assertTrue(query.contains("+" + field + ":\"r_" + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID + "\""));
+        assertTrue(query.contains("-" + field + ":(\"e_" + user + "\" OR \"e_" + group + "\")"));
+        assertTrue(query.endsWith(" OR " + field + ":\"unresolved\""));
+    }
+
+    /**
+     * Tests that the read permission filter returns the same resources as the permission check,
+     * also after the access control entries of a published folder have been changed.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadAclFilter() throws Throwable {
+
+        echo("Testing the read permission filter against the permission check");
+
+        CmsObject adminCms = OpenCms.initCmsObject(getCmsObject());
+        adminCms.getRequestContext().setSiteRoot("/sites/default/");
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_READ_ACL);
+        assertTrue(index.isReadAclFilterEnabled());
+
+        I_CmsResourceType folderType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypeFolder.getStaticTypeName());
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeName());
+        adminCms.createResource(FOLDER, folderType);
+        for (String folder : new String[] {"allowed/", "allowed/sub/", "denied/", "others/"}) {
+            adminCms.createResource(FOLDER + folder, folderType);
+            for (int i = 1; i <= 3; i++) {
+                adminCms.createResource(FOLDER + folder + i + ".txt", plainType);
+            }
+        }
+
+        adminCms.createGroup("aclGroup", "Test group for the read permission filter", 0, null);
+        adminCms.createUser("aclUser", PASSWORD, "Test user in the group", null);
+        adminCms.addUserToGroup("aclUser", "aclGroup");
+        adminCms.createUser("otherUser", PASSWORD, "Test user not in the group", null);
+
+        // readable by all others and explicitly by the user
+        adminCms.chacc(FOLDER + "allowed/", I_CmsPrincipal.PRINCIPAL_USER, "aclUser", "+r+v");
+        adminCms.chacc(
+            FOLDER + "allowed/",
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_NAME,
+            "+r+v");
+        // denied for the group
+        adminCms.chacc(FOLDER + "denied/", I_CmsPrincipal.PRINCIPAL_GROUP, "aclGroup", "-r");
+        // only readable by the group
+        adminCms.chacc(FOLDER + "others/", I_CmsPrincipal.PRINCIPAL_GROUP, "aclGroup", "+r+v");
+        adminCms.chacc(
+            FOLDER + "others/",
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_NAME,
+            "-r");
+
+        OpenCms.getPublishManager().publishProject(
+            adminCms,
+            new CmsShellReport(adminCms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject aclUserCms = getOnlineUserCms(adminCms, "aclUser");
+        CmsObject otherUserCms = getOnlineUserCms(adminCms, "otherUser");
+        Set<String> aclUserPaths = assertReadAclFilter(adminCms, aclUserCms, index);
+        Set<String> otherUserPaths = assertReadAclFilter(adminCms, otherUserCms, index);
+        assertFalse(aclUserPaths.contains(adminCms.addSiteRoot(FOLDER + "denied/1.txt")));
+        assertFalse(otherUserPaths.contains(adminCms.addSiteRoot(FOLDER + "others/1.txt")));
+        assertTrue(aclUserPaths.contains(adminCms.addSiteRoot(FOLDER + "allowed/sub/1.txt")));
+
+        echo("Changing the access control entries of a published folder");
+        adminCms.lockResource(FOLDER + "denied/");
+        adminCms.rmacc(FOLDER + "denied/", I_CmsPrincipal.PRINCIPAL_GROUP, "aclGroup");
+        adminCms.unlockResource(FOLDER + "denied/");
+        OpenCms.getPublishManager().publishResource(adminCms, FOLDER + "denied/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        aclUserPaths = assertReadAclFilter(adminCms, aclUserCms, index);
+        assertTrue(aclUserPaths.contains(adminCms.addSiteRoot(FOLDER + "denied/1.txt")));
+    }
+
+    /**
+     * Tests the tokens for allowed and denied read permissions.<p>
+     */
+    public void testTokensAllowedAndDenied() {
+
+        CmsUUID reader = new CmsUUID();
+        CmsUUID denied = new CmsUUID();
+        CmsUUID writer = new CmsUUID();
+        CmsAccessControlList acl = new CmsAccessControlList();
+        acl.add(
+            new CmsAccessControlEntry(
+                null,
+                reader,
+                CmsPermissionSet.PERMISSION_READ,
+                0,
+                CmsAccessControlEntry.ACCESS_FLAGS_GROUP));
+        acl.add(
+            new CmsAccessControlEntry(
+                null,
+                denied,
+                0,
+                CmsPermissionSet.PERMISSION_READ,
+                CmsAccessControlEntry.ACCESS_FLAGS_USER));
+        acl.add(
+            new CmsAccessControlEntry(
+                null,
+                writer,
+                CmsPermissionSet.PERMISSION_WRITE,
+                0,
+                CmsAccessControlEntry.ACCESS_FLAGS_USER));
+
+        List<String> tokens = CmsSolrReadAcl.getTokens(acl);
+        assertTrue(tokens.contains("e_" + reader));
+        assertTrue(tokens.contains("r_" + reader));
+        assertFalse(tokens.contains("d_" + reader));
+        assertTrue(tokens.contains("e_" + denied));
+        assertTrue(tokens.contains("d_" + denied));
+        assertFalse(tokens.contains("r_" + denied));
+        // an entry without read permission still overrides the 'all others' entry
+        assertTrue(tokens.contains("e_" + writer));
+        assertFalse(tokens.contains("r_" + writer));
+        assertFalse(tokens.contains("d_" + writer));
+        assertFalse(tokens.contains("unresolved"));
+    }
+
+    /**
+     * Tests the tokens for resources with exclusive access principals or without access control list.<p>
+     */
+    public void testTokensUnresolved() {
+
+        assertEquals(Collections.singletonList("unresolved"), CmsSolrReadAcl.getTokens(null));
+
+        CmsAccessControlList acl = new CmsAccessControlList();
+        CmsUUID user = new CmsUUID();
+        acl.add(
+            new CmsAccessControlEntry(
+                null,
+                user,
+                CmsPermissionSet.PERMISSION_READ,
+                0,
+                CmsAccessControlEntry.ACCESS_FLAGS_USER));
+        acl.setExclusiveAccessPrincipals(Collections.singleton(user));
+        assertEquals(Collections.singletonList("unresolved"), CmsSolrReadAcl.getTokens(acl));
+    }
+
+    /**
+     * Asserts that searching the test folder with the read permission filter returns exactly the resources
+     * the user has read permissions for.<p>
+     *
+     * @param adminCms the admin context used to read all resources of the test folder
+     * @param userCms the context of the user to search for
+     * @param index the index using the read permission filter
+     *
+     * @return the root paths of the found resources
+     *
+     * @throws Exception if something goes wrong
+     */
+    private Set<String> assertReadAclFilter(CmsObject adminCms, CmsObject userCms, CmsSolrIndex index)
+    throws Exception {
+
+        String folderRootPath = adminCms.addSiteRoot(FOLDER);
+        Set<String> expected = new HashSet<String>();
+        for (CmsResource resource : adminCms.readResources(FOLDER, CmsResourceFilter.ALL, true)) {
+            if (userCms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, CmsResourceFilter.ALL)) {
+                expected.add(resource.getRootPath());
+            }
+        }
+
+        CmsSolrQuery query = new CmsSolrQuery(adminCms, null);
+        query.addFilterQuery(CmsSearchField.FIELD_PARENT_FOLDERS + ":\"" + folderRootPath + "\"");
+        query.setRows(Integer.valueOf(100));
+        Set<String> found = new HashSet<String>();
+        for (CmsSearchResource resource : index.search(userCms, query)) {
+            if (!resource.getRootPath().equals(folderRootPath)) {
+                found.add(resource.getRootPath());
+            }
+        }
+        assertEquals(expected, found);
+        return found;
+    }
+
+    /**
+     * Returns a context for the given user in the Online project.<p>
+     *
+     * @param adminCms the admin context to copy
+     * @param userName the name of the user
+     *
+     * @return the context for the given user
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineUserCms(CmsObject adminCms, String userName) throws Exception {
+
+        CmsObject userCms = OpenCms.initCmsObject(adminCms);
+        userCms.getRequestContext().setCurrentProject(userCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        userCms.loginUser(userName, PASSWORD);
+        return userCms;
+    }
+}
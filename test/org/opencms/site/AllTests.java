@@ -59,7 +59,9 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCmsSiteConfiguration.suite());
+        suite.addTestSuite(TestCmsSiteRootIndex.class);
         suite.addTestSuite(TestSiteConfigSerialization.class);
+        suite.addTestSuite(TestCmsXmlSitemapUrlIndex.class);
         //$JUnit-END$
         return suite;
     }
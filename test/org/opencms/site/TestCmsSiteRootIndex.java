@@ -0,0 +1,123 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the site root index.<p>
+ */
+public class TestCmsSiteRootIndex extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSiteRootIndex(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests lookups for normal and alternative sites.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testLookup() throws Exception {
+
+        CmsSite defaultSite = createSite("/sites/default");
+        CmsSite nestedSite = createSite("/sites/default/nested");
+        CmsSite deepSite = createSite("/sites/group/deep");
+        CmsSite shopSite = createSite("/shop");
+        CmsSite alternativeSite = createSite("/shared/alternative");
+        CmsSiteRootIndex index = new CmsSiteRootIndex(
+            Arrays.asList(defaultSite, nestedSite, deepSite, shopSite),
+            Collections.singletonList(alternativeSite));
+
+        assertSame(defaultSite, index.getSiteForRootPath("/sites/default"));
+        assertSame(defaultSite, index.getSiteForRootPath("/sites/default/"));
+        assertSame(defaultSite, index.getSiteForRootPath("/sites/default/index.html"));
+        // the outer site wins for nested site roots
+        assertSame(defaultSite, index.getSiteForRootPath("/sites/default/nested/index.html"));
+        assertSame(deepSite, index.getSiteForRootPath("/sites/group/deep/folder/"));
+        assertSame(shopSite, index.getSiteForRootPath("/shop/cart.html"));
+        assertSame(alternativeSite, index.getSiteForRootPath("/shared/alternative/a.html"));
+
+        assertNull(index.getSiteForRootPath("/sites/defaultx/index.html"));
+        assertNull(index.getSiteForRootPath("/sites/def"));
+        assertNull(index.getSiteForRootPath("/sites/group/"));
+        assertNull(index.getSiteForRootPath("/shopping/"));
+        assertNull(index.getSiteForRootPath("/shared/"));
+        assertNull(index.getSiteForRootPath("/"));
+        assertNull(index.getSiteForRootPath(""));
+        assertNull(index.getSiteForRootPath("sites/default/"));
+    }
+
+    /**
+     * Tests that the index finds the same sites as a naive prefix search for many sites.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testManySites() throws Exception {
+
+        List<CmsSite> sites = new ArrayList<CmsSite>();
+        for (int i = 0; i < 1200; i++) {
+            sites.add(createSite("/sites/site" + i));
+        }
+        CmsSiteRootIndex index = new CmsSiteRootIndex(sites, Collections.<CmsSite> emptyList());
+        for (int i = 0; i < 1300; i++) {
+            String path = "/sites/site" + i + "/folder/page.html";
+            CmsSite expected = null;
+            for (CmsSite site : sites) {
+                if (path.startsWith(site.getSiteRoot() + "/")) {
+                    expected = site;
+                }
+            }
+            assertSame(path, expected, index.getSiteForRootPath(path));
+        }
+    }
+
+    /**
+     * Creates a site for the given site root.<p>
+     *
+     * @param siteRoot the site root
+     *
+     * @return the site
+     */
+    private CmsSite createSite(String siteRoot) {
+
+        return new CmsSite(siteRoot, new CmsSiteMatcher("http://" + siteRoot.replace('/', '-').substring(1) + ".test"));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site;
+
+import org.opencms.site.xmlsitemap.CmsXmlSitemapUrlBean;
+import org.opencms.site.xmlsitemap.CmsXmlSitemapUrlIndex;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the URL index of XML sitemaps.<p>
+ */
+public class TestCmsXmlSitemapUrlIndex extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlSitemapUrlIndex(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that invalidated resources and folders are excluded from the reusable entries.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReusableEntries() throws Exception {
+
+        CmsUUID page = new CmsUUID();
+        CmsUUID otherPage = new CmsUUID();
+        CmsUUID content = new CmsUUID();
+        List<CmsXmlSitemapUrlIndex.Entry> entries = new ArrayList<CmsXmlSitemapUrlIndex.Entry>();
+        entries.add(createEntry("http://localhost/a/", page, "/sites/default/a/index.html", null, null, 3));
+        entries.add(createEntry("http://localhost/alias", page, "/sites/default/a/index.html", null, null, 1));
+        entries.add(createEntry("http://localhost/b/", otherPage, "/sites/default/b/index.html", null, null, 3));
+        entries.add(
+            createEntry(
+                "http://localhost/a/news",
+                content,
+                "/sites/default/.content/news.xml",
+                page,
+                "/sites/default/a/index.html",
+                2));
+        CmsXmlSitemapUrlIndex index = new CmsXmlSitemapUrlIndex("/sites/default", entries);
+        assertFalse(index.isStale());
+
+        Map<String, List<CmsXmlSitemapUrlIndex.Entry>> reusable = index.getReusableEntries();
+        assertEquals(4, reusable.size());
+        assertEquals(
+            "http://localhost/a/",
+            reusable.get(CmsXmlSitemapUrlIndex.getReuseKey(page, null, 3)).get(0).getUrl());
+        assertEquals(
+            "http://localhost/alias",
+            reusable.get(CmsXmlSitemapUrlIndex.getReuseKey(page, null, 1)).get(0).getUrl());
+
+        // the detail page is changed, so the detail entry can not be reused either
+        index.invalidateResource(page);
+        assertTrue(index.isStale());
+        reusable = index.getReusableEntries();
+        assertEquals(1, reusable.size());
+        assertTrue(reusable.containsKey(CmsXmlSitemapUrlIndex.getReuseKey(otherPage, null, 3)));
+
+        index.invalidateFolder("/sites/default/b/");
+        assertTrue(index.getReusableEntries().isEmpty());
+
+        CmsXmlSitemapUrlIndex other = new CmsXmlSitemapUrlIndex("/sites/default", entries);
+        other.invalidateAll();
+        assertTrue(other.isStale());
+        assertTrue(other.getReusableEntries().isEmpty());
+    }
+
+    /**
+     * Tests writing and reading an index.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSerialization() throws Exception {
+
+        CmsUUID page = new CmsUUID();
+        CmsUUID content = new CmsUUID();
+        List<CmsXmlSitemapUrlIndex.Entry> entries = new ArrayList<CmsXmlSitemapUrlIndex.Entry>();
+        entries.add(createEntry("http://localhost/a/", page, "/sites/default/a/index.html", null, null, 3));
+        entries.add(
+            new CmsXmlSitemapUrlIndex.Entry(
+                "http://localhost/a/news",
+                -1,
+                null,
+                -1.0,
+                content,
+                "/sites/default/.content/news.xml",
+                page,
+                "/sites/default/a/index.html",
+                2));
+        CmsXmlSitemapUrlIndex index = new CmsXmlSitemapUrlIndex("/sites/default", "configuration", entries);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        CmsXmlSitemapUrlIndex read = CmsXmlSitemapUrlIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals("/sites/default", read.getSiteRoot());
+        assertEquals("configuration", read.getConfigurationKey());
+        assertEquals(2, read.getEntries().size());
+        CmsXmlSitemapUrlIndex.Entry first = read.getEntries().get(0);
+        assertEquals("http://localhost/a/", first.getUrl());
+        assertEquals(1500000000000L, first.getDateLastModified());
+        assertEquals("daily", first.getChangeFrequency());
+        assertEquals(0.5, first.getPriority(), 0.0);
+        assertEquals(page, first.getResourceId());
+        assertNull(first.getDetailPageId());
+        CmsXmlSitemapUrlIndex.Entry second = read.getEntries().get(1);
+        assertEquals(-1, second.getDateLastModified());
+        assertNull(second.getChangeFrequency());
+        assertEquals(content, second.getResourceId());
+        assertEquals(page, second.getDetailPageId());
+        assertEquals("/sites/default/a/index.html", second.getDetailPageRootPath());
+        assertEquals(2, second.getResultPriority());
+
+        CmsXmlSitemapUrlBean bean = second.toUrlBean();
+        assertEquals("http://localhost/a/news", bean.getUrl());
+        assertNull(bean.getDateLastModified());
+    }
+
+    /**
+     * Tests splitting large sitemaps into shards.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testShards() throws Exception {
+
+        CmsXmlSitemapUrlIndex empty = new CmsXmlSitemapUrlIndex(
+            null,
+            Collections.<CmsXmlSitemapUrlIndex.Entry> emptyList());
+        assertEquals(1, empty.getShardCount());
+        assertTrue(empty.getEntries(1).isEmpty());
+
+        int size = (2 * CmsXmlSitemapUrlIndex.MAX_URLS_PER_SHARD) + 1;
+        List<CmsXmlSitemapUrlIndex.Entry> entries = new ArrayList<CmsXmlSitemapUrlIndex.Entry>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(createEntry("http://localhost/" + i, null, null, null, null, 3));
+        }
+        CmsXmlSitemapUrlIndex index = new CmsXmlSitemapUrlIndex("/sites/default", entries);
+        assertEquals(3, index.getShardCount());
+        assertEquals(CmsXmlSitemapUrlIndex.MAX_URLS_PER_SHARD, index.getEntries(1).size());
+        assertEquals(CmsXmlSitemapUrlIndex.MAX_URLS_PER_SHARD, index.getUrlBeans(2).size());
+        assertEquals(1, index.getEntries(3).size());
+        assertEquals("http://localhost/" + (size - 1), index.getUrlBeans(3).get(0).getUrl());
+        assertTrue(index.getEntries(4).isEmpty());
+        assertTrue(index.getEntries(0).isEmpty());
+    }
+
+    /**
+     * Creates an index entry.<p>
+     *
+     * @param url the URL
+     * @param resourceId the structure id of the resource
+     * @param rootPath the root path of the resource
+     * @param detailPageId the structure id of the detail page
+     * @param detailPageRootPath the root path of the detail page
+     * @param resultPriority the internal priority
+     *
+     * @return the index entry
+     */
+    private CmsXmlSitemapUrlIndex.Entry createEntry(
+        String url,
+        CmsUUID resourceId,
+        String rootPath,
+        CmsUUID detailPageId,
+        String detailPageRootPath,
+        int resultPriority) {
+
+        return new CmsXmlSitemapUrlIndex.Entry(
+            url,
+            1500000000000L,
+            "daily",
+            0.5,
+            resourceId,
+            rootPath,
+            detailPageId,
+            detailPageRootPath,
+            resultPriority);
+    }
+}
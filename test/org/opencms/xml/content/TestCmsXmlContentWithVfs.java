@@ -30,6 +30,7 @@ package org.opencms.xml.content;
 import org.opencms.ade.contenteditor.CmsWidgetUtil;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -44,9 +45,11 @@ import org.opencms.relations.CmsLink;
 import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsCheckboxWidget;
 import org.opencms.widgets.CmsHtmlWidget;
@@ -54,6 +57,7 @@ import org.opencms.widgets.I_CmsWidget;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 import org.opencms.xml.types.CmsXmlHtmlValue;
 import org.opencms.xml.types.CmsXmlNestedContentDefinition;
 import org.opencms.xml.types.CmsXmlStringValue;
@@ -63,9 +67,14 @@ import org.opencms.xml.types.I_CmsXmlContentValue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -170,6 +179,8 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testMacros"));
         suite.addTest(new TestCmsXmlContentWithVfs("testAddFileReference"));
         suite.addTest(new TestCmsXmlContentWithVfs("testXmlContentCreate"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testOnlineContentCache"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testOnlineContentCacheLinkPermissions"));
         suite.addTest(new TestCmsXmlContentWithVfs("testVarLinkPreservePercentEncodingForSpecialCharacters"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -1665,6 +1676,111 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertSame(definition.getContentHandler().getClass().getName(), TestXmlContentHandler.class.getName());
     }
 
+    /**
+     * Tests the cache for parsed XML contents in the Online project.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testOnlineContentCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cache for parsed XML contents in the Online project");
+
+        String filename = "/xmlcontent/article_0003.html";
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+
+        // the parsed Online content is cached, but every request gets its own instance
+        CmsResource resource = onlineCms.readResource(filename);
+        CmsADECache cache = OpenCms.getADEManager().getCache();
+        String cacheKey = cache.getXmlContentCacheKey(resource);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(onlineCms, resource, createRequest());
+        assertNotNull(cache.getCacheXmlContent(cacheKey));
+        CmsXmlContent cached = CmsXmlContentFactory.unmarshal(onlineCms, resource, createRequest());
+        assertNotSame(content, cached);
+        assertNotSame(content.getFile(), cached.getFile());
+        assertEquals(content.toString(), cached.toString());
+
+        // the Offline content is not cached
+        resource = cms.readResource(filename);
+        assertNotSame(
+            CmsXmlContentFactory.unmarshal(cms, resource, createRequest()),
+            CmsXmlContentFactory.unmarshal(cms, resource, createRequest()));
+
+        // publishing removes the content from the cache
+        cms.lockResource(filename);
+        cms.setDateLastModified(filename, System.currentTimeMillis(), false);
+        cms.unlockResource(filename);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertNull(cache.getCacheXmlContent(cacheKey));
+        resource = onlineCms.readResource(filename);
+        CmsXmlContent published = CmsXmlContentFactory.unmarshal(onlineCms, resource, createRequest());
+        assertEquals(resource.getDateLastModified(), published.getFile().getDateLastModified());
+    }
+
+    /**
+     * Tests that XML contents read from the Online content cache resolve their links for the current user.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testOnlineContentCacheLinkPermissions() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that cached Online XML contents resolve their links for the current user");
+
+        String filename = "/xmlcontent/article_0004.html";
+        String target = "/folder1/page1.html";
+        cms.createUser("cacheUser", "secret", "", null);
+        cms.addUserToGroup("cacheUser", OpenCms.getDefaultUsers().getGroupUsers());
+
+        // link to a resource which can not be read by the test user
+        cms.lockResource(filename);
+        CmsFile file = cms.readFile(filename);
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(cms, file);
+        content.addValue(cms, "Homepage", Locale.ENGLISH, 0).setStringValue(cms, target);
+        file.setContents(content.marshal());
+        cms.writeFile(file);
+        cms.unlockResource(filename);
+        cms.lockResource(target);
+        cms.chacc(target, I_CmsPrincipal.PRINCIPAL_USER, "cacheUser", "-r");
+        cms.unlockResource(target);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject adminCms = OpenCms.initCmsObject(cms);
+        adminCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsObject userCms = OpenCms.initCmsObject(adminCms);
+        userCms.loginUser("cacheUser", "secret");
+        userCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+
+        // read the content as administrator first, so it is cached with a link that can be resolved
+        CmsXmlContent adminContent = CmsXmlContentFactory.unmarshal(
+            adminCms,
+            adminCms.readResource(filename),
+            createRequest());
+        CmsXmlVfsFileValue adminValue = (CmsXmlVfsFileValue)adminContent.getValue("Homepage", Locale.ENGLISH);
+        CmsLink adminLink = adminValue.getLink(adminCms);
+        assertNotNull(adminLink.getResource());
+
+        // the test user must not see the link as resolved by the administrator
+        CmsXmlContent userContent = CmsXmlContentFactory.unmarshal(
+            userCms,
+            userCms.readResource(filename),
+            createRequest());
+        CmsXmlVfsFileValue userValue = (CmsXmlVfsFileValue)userContent.getValue("Homepage", Locale.ENGLISH);
+        assertNotSame(adminValue.getElement(), userValue.getElement());
+        CmsLink userLink = userValue.getLink(userCms);
+        assertNotSame(adminLink, userLink);
+        assertNull(userLink.getResource());
+        assertNull(userLink.getStructureId());
+
+        // reading as administrator again still resolves the link
+        adminContent = CmsXmlContentFactory.unmarshal(adminCms, adminCms.readResource(filename), createRequest());
+        adminValue = (CmsXmlVfsFileValue)adminContent.getValue("Homepage", Locale.ENGLISH);
+        assertNotNull(adminValue.getLink(adminCms).getResource());
+    }
+
     /**
      * Test if the resource bundle in the schema definition is properly initialized.<p>
      *
@@ -2542,4 +2658,29 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         }
         return m_vfsPrefix;
     }
+
+    /**
+     * Creates a servlet request which only supports request attributes.<p>
+     *
+     * @return the servlet request
+     */
+    private ServletRequest createRequest() {
+
+        return new ServletRequestWrapper(new OpenCmsTestServletRequest()) {
+
+            private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+            @Override
+            public Object getAttribute(String name) {
+
+                return m_attributes.get(name);
+            }
+
+            @Override
+            public void setAttribute(String name, Object value) {
+
+                m_attributes.put(name, value);
+            }
+        };
+    }
 }